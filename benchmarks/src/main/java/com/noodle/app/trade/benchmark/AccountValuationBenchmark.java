@@ -0,0 +1,136 @@
+package com.noodle.app.trade.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.noodle.app.trade.entity.AccountEntity;
+import com.noodle.app.trade.entity.HoldingEntity;
+import com.noodle.app.trade.model.SymbolPrecision;
+import com.noodle.app.trade.repository.AccountRepository;
+import com.noodle.app.trade.repository.HoldingRepository;
+import com.noodle.app.trade.service.AccountValuationEngine;
+import com.noodle.app.trade.service.SymbolPrecisionService;
+
+/**
+ * 账户估值：一个账户持有 1/100/10000 个币种
+ * - fixedPointValuation：AccountValuationEngine 的定点数估值
+ * - bigDecimalValuation：逐项 BigDecimal 乘加（定点数之前的实现），作为对照
+ * - revalueOneTick：一个持仓币种价格变化后的增量估值（数据库写入为空操作）
+ * 价格和数量取数据库列的 scale 10；分配字节数用 -prof gc 查看（gc.alloc.rate.norm）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountValuationBenchmark {
+
+    @Param({ "1", "100", "10000" })
+    public int holdings;
+
+    private AccountValuationEngine engine;
+
+    // 对照：持仓Map + 价格Map，每个持仓一次multiply和add
+    private BigDecimal balance;
+    private Map<String, BigDecimal> holdingMap;
+    private final ConcurrentMap<String, BigDecimal> lastPrices = new ConcurrentHashMap<>();
+
+    // revalueOneTick 交替使用的两个价格
+    private Map<String, BigDecimal> tickUp;
+    private Map<String, BigDecimal> tickDown;
+    private boolean up;
+    private final LocalDateTime recordTime = LocalDateTime.now();
+
+    @Setup
+    public void setUp() {
+        balance = new BigDecimal("10000.0000000000");
+        holdingMap = new HashMap<>();
+        Map<String, BigDecimal> prices = new HashMap<>();
+        Map<String, SymbolPrecision> precisions = new HashMap<>();
+        List<HoldingEntity> holdingEntities = new ArrayList<>();
+        for (int i = 0; i < holdings; i++) {
+            String symbol = "C" + i;
+            BigDecimal quantity = new BigDecimal("0.1234500000").add(BigDecimal.valueOf(i % 1000));
+            BigDecimal price = new BigDecimal("123.4500000000").add(BigDecimal.valueOf(i % 1000, 2)).setScale(10);
+            holdingMap.put(symbol, quantity);
+            prices.put(symbol, price);
+            lastPrices.put(symbol, price);
+            precisions.put(symbol, new SymbolPrecision(symbol, 2, 5));
+            holdingEntities.add(new HoldingEntity(1L, symbol, quantity));
+        }
+        tickUp = Collections.singletonMap("C0", new BigDecimal("200.01"));
+        tickDown = Collections.singletonMap("C0", new BigDecimal("199.99"));
+
+        AccountEntity account = new AccountEntity("benchmark", balance);
+        account.setId(1L);
+        SymbolPrecisionService symbolPrecisionService = new SymbolPrecisionService();
+        symbolPrecisionService.update(precisions);
+
+        engine = new AccountValuationEngine();
+        Stubs.inject(engine, "accountRepository",
+                Stubs.repository(AccountRepository.class, "findAll", Collections.singletonList(account)));
+        Stubs.inject(engine, "holdingRepository", Stubs.repository(HoldingRepository.class, "findAll", holdingEntities));
+        Stubs.inject(engine, "jdbcTemplate", new NoopJdbcTemplate());
+        Stubs.inject(engine, "symbolPrecisionService", symbolPrecisionService);
+        engine.revalue(prices, recordTime);
+
+        if (engine.getAccountValue(1L).compareTo(bigDecimalValuation()) != 0) {
+            throw new IllegalStateException("定点数估值与BigDecimal估值不一致");
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalValuation() {
+        BigDecimal totalValue = balance;
+        for (Map.Entry<String, BigDecimal> holding : holdingMap.entrySet()) {
+            BigDecimal price = lastPrices.get(holding.getKey());
+            if (price != null) {
+                totalValue = totalValue.add(price.multiply(holding.getValue()));
+            }
+        }
+        return totalValue;
+    }
+
+    @Benchmark
+    public BigDecimal fixedPointValuation() {
+        return engine.getAccountValue(1L);
+    }
+
+    @Benchmark
+    public int revalueOneTick() {
+        up = !up;
+        return engine.revalue(up ? tickUp : tickDown, recordTime);
+    }
+
+    /**
+     * 批量写入为空操作，只测量估值本身
+     */
+    private static final class NoopJdbcTemplate extends JdbcTemplate {
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            return new int[batchArgs.size()];
+        }
+    }
+}
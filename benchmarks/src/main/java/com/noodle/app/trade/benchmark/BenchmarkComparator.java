@@ -0,0 +1,101 @@
+package com.noodle.app.trade.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 比较两次JMH运行的JSON结果（-rf json），发现性能回退
+ * 按 基准名 + 参数 匹配，比较主指标（吞吐量模式越大越好，其余模式越小越好）和 gc.alloc.rate.norm（如果两边都有）。
+ * 变差超过阈值且超出两次结果误差之和时判定为回退，有回退时退出码为1：
+ *
+ *   java -cp benchmarks/target/benchmarks.jar com.noodle.app.trade.benchmark.BenchmarkComparator \
+ *        baseline.json benchmarks/target/jmh-result.json [阈值百分比，默认10]
+ */
+public class BenchmarkComparator {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: BenchmarkComparator <baseline.json> <current.json> [阈值百分比]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-100s 新增%n", entry.getKey());
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            if (report(entry.getKey(), before.path("primaryMetric"), after.path("primaryMetric"), higherIsBetter, threshold)) {
+                regressions++;
+            }
+            JsonNode allocationBefore = before.path("secondaryMetrics").path(ALLOCATION_METRIC);
+            JsonNode allocationAfter = after.path("secondaryMetrics").path(ALLOCATION_METRIC);
+            if (!allocationBefore.isMissingNode() && !allocationAfter.isMissingNode()
+                    && report(entry.getKey() + " [" + ALLOCATION_METRIC + "]", allocationBefore, allocationAfter, false, threshold)) {
+                regressions++;
+            }
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-100s 缺失%n", key);
+            }
+        }
+
+        System.out.printf("共 %d 项基准，%d 项回退（阈值 %.1f%%）%n", current.size(), regressions, threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * 输出一项指标的变化
+     * @return 是否回退
+     */
+    private static boolean report(String name, JsonNode before, JsonNode after, boolean higherIsBetter, double threshold) {
+        double oldScore = before.path("score").asDouble();
+        double newScore = after.path("score").asDouble();
+        double change = oldScore != 0 ? (newScore - oldScore) / Math.abs(oldScore) * 100 : 0;
+        double worse = higherIsBetter ? -change : change;
+        // 误差为NaN（只有一次迭代）时按0处理
+        double noise = errorOf(before) + errorOf(after);
+        boolean regressed = worse > threshold && Math.abs(newScore - oldScore) > noise;
+        System.out.printf("%-100s %14.3f -> %14.3f %-10s %+8.1f%% %s%n", name, oldScore, newScore,
+                after.path("scoreUnit").asText(), change, regressed ? "回退" : "");
+        return regressed;
+    }
+
+    private static double errorOf(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    /**
+     * 读取JMH结果，key为 基准名 + 参数
+     */
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            JsonNode params = result.path("params");
+            Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> param = fields.next();
+                key.append(key.indexOf(":") < 0 ? ":" : ",").append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
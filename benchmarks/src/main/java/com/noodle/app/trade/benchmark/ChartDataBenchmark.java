@@ -0,0 +1,119 @@
+package com.noodle.app.trade.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.noodle.app.trade.api.controller.ChartController;
+import com.noodle.app.trade.entity.AccountEntity;
+import com.noodle.app.trade.entity.AccountValueHistory;
+import com.noodle.app.trade.entity.CryptoCurrencyEntity;
+import com.noodle.app.trade.entity.HoldingEntity;
+import com.noodle.app.trade.history.PriceHistoryStore;
+import com.noodle.app.trade.model.PricePoint;
+import com.noodle.app.trade.repository.AccountRepository;
+import com.noodle.app.trade.repository.AccountValueHistoryRepository;
+import com.noodle.app.trade.repository.CryptoCurrencyRepository;
+import com.noodle.app.trade.repository.HoldingRepository;
+
+/**
+ * ChartController 的图表数据组装（查询结果 -> 响应Map），仓库和价格历史存储直接返回准备好的数据
+ * - priceHistory / priceHistoryDownsampled：价格历史，后者按 maxPoints=500 做LTTB降采样
+ * - accountValueHistory：账户价值历史
+ * - portfolioDistribution：持仓分布，points 个持仓币种，计算市值和占比
+ * points 为查询返回的行数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChartDataBenchmark {
+
+    @Param({ "100", "10000" })
+    public int points;
+
+    private ChartController chartController;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<PricePoint> pricePoints = new ArrayList<>(points);
+        List<AccountValueHistory> valueHistories = new ArrayList<>(points);
+        List<HoldingEntity> holdings = new ArrayList<>(points);
+        List<CryptoCurrencyEntity> latestPrices = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            LocalDateTime time = base.plusMinutes(i);
+            // 带波动的价格，降采样时不会退化成直线
+            BigDecimal price = new BigDecimal("60000.1200000000").add(BigDecimal.valueOf((i * 7919) % 1000 - 500));
+            pricePoints.add(new PricePoint(time, price, new BigDecimal("8913.3000000000")));
+            valueHistories.add(new AccountValueHistory("alice", price.add(BigDecimal.valueOf(40000)), time));
+
+            String symbol = "C" + i;
+            holdings.add(new HoldingEntity(1L, symbol, new BigDecimal("0.1234500000").add(BigDecimal.valueOf(i % 10))));
+            CryptoCurrencyEntity latest = new CryptoCurrencyEntity();
+            latest.setSymbol(symbol);
+            latest.setPrice(price);
+            latest.setLastUpdated(time);
+            latestPrices.add(latest);
+        }
+
+        AccountEntity account = new AccountEntity("alice", new BigDecimal("10000.0000000000"));
+        account.setId(1L);
+
+        chartController = new ChartController();
+        Stubs.inject(chartController, "priceHistoryStore", Stubs.repository(PriceHistoryStore.class, "query", pricePoints));
+        Stubs.inject(chartController, "accountValueHistoryRepository", Stubs.repository(AccountValueHistoryRepository.class,
+                "findByAccountNameAndRecordTimeBetweenOrderByRecordTimeAsc", valueHistories));
+        Stubs.inject(chartController, "accountRepository",
+                Stubs.repository(AccountRepository.class, "findByAccountName", Optional.of(account)));
+        Stubs.inject(chartController, "holdingRepository", Stubs.repository(HoldingRepository.class, "findByAccountId", holdings));
+        Stubs.inject(chartController, "cryptoCurrencyRepository",
+                Stubs.repository(CryptoCurrencyRepository.class, "findLatestBySymbolIn", latestPrices));
+
+        // 组装出错时返回 success=false 而不是抛出异常，先确认每个接口都能成功
+        for (Map<String, Object> response : Arrays.asList(priceHistory(), accountValueHistory(), portfolioDistribution())) {
+            if (!Boolean.TRUE.equals(response.get("success"))) {
+                throw new IllegalStateException("图表数据组装失败: " + response.get("error"));
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> priceHistory() {
+        return chartController.getPriceHistory("BTCUSDT", 7, null, 0);
+    }
+
+    @Benchmark
+    public Map<String, Object> priceHistoryDownsampled() {
+        return chartController.getPriceHistory("BTCUSDT", 7, null, 500);
+    }
+
+    @Benchmark
+    public Map<String, Object> accountValueHistory() {
+        return chartController.getAccountValueHistory("alice", 30, 0);
+    }
+
+    @Benchmark
+    public Map<String, Object> portfolioDistribution() {
+        return chartController.getPortfolioDistribution("alice");
+    }
+}
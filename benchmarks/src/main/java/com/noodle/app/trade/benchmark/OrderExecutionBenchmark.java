@@ -0,0 +1,156 @@
+package com.noodle.app.trade.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+import com.noodle.app.trade.entity.TradeRecordEntity;
+import com.noodle.app.trade.service.AccountValuationEngine;
+import com.noodle.app.trade.service.OrderExecutionEngine;
+import com.noodle.app.trade.service.TradeExecutor;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * 订单执行吞吐量
+ * 16个线程随机向一组账户下单，每笔订单经 OrderExecutionEngine 按账户串行后由 TradeExecutor 在H2内存数据库
+ * （MySQL兼容模式）中执行完整的交易事务：读取账户和持仓、条件扣款/加款、更新持仓、累加盈亏、插入交易记录。
+ * 结果是包含数据库往返在内的订单吞吐量；H2没有网络延迟，MySQL上的绝对值会低得多，用于比较引擎和执行器的改动。
+ * 每轮结束后按交易记录重新计算每个账户的余额和持仓（等价于串行执行的结果），与数据库不一致时基准失败。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class OrderExecutionBenchmark {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100000000");
+    private static final BigDecimal INITIAL_QUANTITY = new BigDecimal("1000000");
+    private static final BigDecimal BUY_PRICE = new BigDecimal("100");
+    private static final BigDecimal SELL_PRICE = new BigDecimal("110");
+    private static final BigDecimal ORDER_QUANTITY = new BigDecimal("0.01");
+
+    // 并发插入的表用序列生成主键：H2 2.1.212 的自增列在并发事务中会分配重复的值
+    private static final String[] SCHEMA = {
+            "CREATE TABLE account (id BIGINT AUTO_INCREMENT PRIMARY KEY, account_name VARCHAR(255) NOT NULL, "
+                    + "balance DECIMAL(20, 10), total_value DECIMAL(20, 10), version BIGINT NOT NULL DEFAULT 0)",
+            "CREATE SEQUENCE holding_seq",
+            "CREATE TABLE holding (id BIGINT DEFAULT NEXT VALUE FOR holding_seq PRIMARY KEY, account_id BIGINT NOT NULL, "
+                    + "symbol VARCHAR(255) NOT NULL, quantity DECIMAL(20, 10), hold_cost DECIMAL(20, 10), version BIGINT NOT NULL DEFAULT 0)",
+            "CREATE SEQUENCE trade_record_seq",
+            "CREATE TABLE trade_record (id BIGINT DEFAULT NEXT VALUE FOR trade_record_seq PRIMARY KEY, symbol VARCHAR(255) NOT NULL, "
+                    + "trade_type VARCHAR(255) NOT NULL, price DECIMAL(20, 10), quantity DECIMAL(20, 10), amount DECIMAL(20, 10), "
+                    + "trade_time BIGINT NOT NULL, strategy VARCHAR(255), account_name VARCHAR(255))",
+            "CREATE SEQUENCE position_pnl_seq",
+            "CREATE TABLE position_pnl (id BIGINT DEFAULT NEXT VALUE FOR position_pnl_seq PRIMARY KEY, account_id BIGINT NOT NULL, "
+                    + "symbol VARCHAR(20) NOT NULL, sold_quantity DECIMAL(20, 10), sold_cost DECIMAL(20, 10), "
+                    + "sell_proceeds DECIMAL(20, 10), realized_pnl DECIMAL(20, 10), updated_time BIGINT, "
+                    + "CONSTRAINT uk_position_pnl_account_symbol UNIQUE (account_id, symbol))",
+    };
+
+    @Param({ "50" })
+    private int accounts;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private OrderExecutionEngine engine;
+    private TradeExecutor tradeExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setMaximumPoolSize(32);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String ddl : SCHEMA) {
+            jdbcTemplate.execute(ddl);
+        }
+        for (int a = 0; a < accounts; a++) {
+            jdbcTemplate.update("INSERT INTO account (account_name, balance, total_value, version) VALUES (?, ?, ?, 0)",
+                    "account-" + a, INITIAL_BALANCE, INITIAL_BALANCE);
+            jdbcTemplate.update("INSERT INTO holding (account_id, symbol, quantity, hold_cost, version) "
+                    + "SELECT id, 'BTC', ?, ?, 0 FROM account WHERE account_name = ?",
+                    INITIAL_QUANTITY, INITIAL_QUANTITY.multiply(BUY_PRICE), "account-" + a);
+        }
+
+        TradeExecutor target = new TradeExecutor();
+        Stubs.inject(target, "jdbcTemplate", jdbcTemplate);
+        Stubs.inject(target, "accountValuationEngine", new AccountValuationEngine());
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new TransactionInterceptor(new DataSourceTransactionManager(dataSource),
+                new AnnotationTransactionAttributeSource()));
+        tradeExecutor = (TradeExecutor) factory.getProxy();
+        engine = new OrderExecutionEngine(256, 30000);
+    }
+
+    @TearDown(Level.Trial)
+    public void verifyAndClose() {
+        try {
+            verifyAgainstTradeLog();
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    @Benchmark
+    public TradeRecordEntity placeOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String accountName = "account-" + random.nextInt(accounts);
+        if (random.nextBoolean()) {
+            return engine.execute(accountName, () -> tradeExecutor.buy(accountName, "BTC", BUY_PRICE, ORDER_QUANTITY, "benchmark"));
+        }
+        return engine.execute(accountName, () -> tradeExecutor.sell(accountName, "BTC", SELL_PRICE, ORDER_QUANTITY, "benchmark"));
+    }
+
+    /**
+     * 按交易记录重新计算每个账户的余额和持仓数量，与并发执行后的数据库比较
+     */
+    private void verifyAgainstTradeLog() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT a.account_name, a.balance, h.quantity, "
+                + "(SELECT COALESCE(SUM(CASE WHEN t.trade_type = 'SELL' THEN t.amount ELSE -t.amount END), 0) "
+                + " FROM trade_record t WHERE t.account_name = a.account_name) AS cash_flow, "
+                + "(SELECT COALESCE(SUM(CASE WHEN t.trade_type = 'BUY' THEN t.quantity ELSE -t.quantity END), 0) "
+                + " FROM trade_record t WHERE t.account_name = a.account_name) AS quantity_flow "
+                + "FROM account a JOIN holding h ON h.account_id = a.id AND h.symbol = 'BTC'");
+        if (rows.size() != accounts) {
+            throw new IllegalStateException("持仓数量与账户数不一致: " + rows.size());
+        }
+        for (Map<String, Object> row : rows) {
+            BigDecimal expectedBalance = INITIAL_BALANCE.add((BigDecimal) row.get("cash_flow"));
+            BigDecimal expectedQuantity = INITIAL_QUANTITY.add((BigDecimal) row.get("quantity_flow"));
+            if (expectedBalance.compareTo((BigDecimal) row.get("balance")) != 0
+                    || expectedQuantity.compareTo((BigDecimal) row.get("quantity")) != 0) {
+                throw new IllegalStateException("账户 " + row.get("account_name") + " 与交易记录不一致: 余额 " + row.get("balance")
+                        + " 应为 " + expectedBalance + ", 持仓 " + row.get("quantity") + " 应为 " + expectedQuantity);
+            }
+        }
+    }
+}
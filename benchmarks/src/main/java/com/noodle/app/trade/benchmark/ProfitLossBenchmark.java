@@ -0,0 +1,92 @@
+package com.noodle.app.trade.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.noodle.app.trade.repository.PositionPnlRepository;
+import com.noodle.app.trade.service.PnlLedgerService;
+import com.noodle.app.trade.service.TradeHistoryService;
+
+/**
+ * 盈亏计算
+ * - calculateProfitLoss：TradeHistoryService.calculateProfitLoss，读取增量维护的盈亏账本（仓库返回固定合计）
+ * - sellCostBasis：一次部分卖出的平均成本计算（PnlLedgerService.costBasis，每笔卖出执行一次）
+ * - averageCostLedger：按平均成本法依次处理1000笔买卖，累计已实现盈亏，与账户簿/TradeExecutor的处理相同
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfitLossBenchmark {
+
+    private static final int TRADES = 1000;
+
+    private TradeHistoryService tradeHistoryService;
+
+    private final BigDecimal holdQuantity = new BigDecimal("1.2345000000");
+    private final BigDecimal holdCost = new BigDecimal("74070.1234567890");
+    private final BigDecimal sellQuantity = new BigDecimal("0.3333300000");
+
+    // 买入和卖出交替，卖出数量为持仓的一部分
+    private final boolean[] buys = new boolean[TRADES];
+    private final BigDecimal[] prices = new BigDecimal[TRADES];
+    private final BigDecimal[] quantities = new BigDecimal[TRADES];
+
+    @Setup
+    public void setUp() {
+        PnlLedgerService pnlLedgerService = new PnlLedgerService();
+        Stubs.inject(pnlLedgerService, "positionPnlRepository",
+                Stubs.repository(PositionPnlRepository.class, "sumRealizedPnlBySymbol", new BigDecimal("1234.5678900000")));
+        tradeHistoryService = new TradeHistoryService();
+        Stubs.inject(tradeHistoryService, "pnlLedgerService", pnlLedgerService);
+
+        for (int i = 0; i < TRADES; i++) {
+            buys[i] = i % 2 == 0;
+            prices[i] = new BigDecimal("60000.12").add(BigDecimal.valueOf(i % 100 - 50));
+            quantities[i] = buys[i] ? new BigDecimal("0.01000") : new BigDecimal("0.00400");
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculateProfitLoss() {
+        return tradeHistoryService.calculateProfitLoss("BTC");
+    }
+
+    @Benchmark
+    public BigDecimal sellCostBasis() {
+        return PnlLedgerService.costBasis(holdQuantity, holdCost, sellQuantity);
+    }
+
+    @Benchmark
+    public BigDecimal averageCostLedger() {
+        BigDecimal quantity = BigDecimal.ZERO;
+        BigDecimal cost = BigDecimal.ZERO;
+        BigDecimal realized = BigDecimal.ZERO;
+        for (int i = 0; i < TRADES; i++) {
+            BigDecimal amount = prices[i].multiply(quantities[i]);
+            if (buys[i]) {
+                quantity = quantity.add(quantities[i]);
+                cost = cost.add(amount);
+            } else {
+                BigDecimal costBasis = PnlLedgerService.costBasis(quantity, cost, quantities[i]);
+                quantity = quantity.subtract(quantities[i]);
+                cost = cost.subtract(costBasis);
+                realized = realized.add(amount.subtract(costBasis));
+            }
+        }
+        return realized;
+    }
+}
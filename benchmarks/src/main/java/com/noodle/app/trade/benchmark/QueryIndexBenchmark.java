@@ -0,0 +1,243 @@
+package com.noodle.app.trade.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import com.noodle.app.trade.loadtest.Options;
+
+/**
+ * 查询索引基准
+ * 在独立的bench_前缀表中生成数据，分别在无索引和加上生产索引后测量典型查询的延迟。
+ * 需要一个可写的MySQL库，每次运行先生成千万行数据再建索引，不适合JMH按轮次重复执行的模型，作为独立程序运行：
+ *
+ *   java -cp benchmarks/target/benchmarks.jar com.noodle.app.trade.benchmark.QueryIndexBenchmark \
+ *        --jdbc-url="jdbc:mysql://localhost:3306/trade_bench?rewriteBatchedStatements=true" \
+ *        --user=root --password=xxx --rows=10000000 [--keep]
+ */
+public class QueryIndexBenchmark {
+
+    private static final String[] SYMBOLS = { "BTC", "ETH", "BNB", "XRP", "DOGE", "SOL", "ADA", "TRX", "DOT", "LTC",
+            "LINK", "AVAX", "ATOM", "XLM", "ETC", "FIL", "APT", "ARB", "OP", "NEAR" };
+    private static final int ACCOUNTS = 200;
+    private static final long START_MILLIS = 1704038400000L; // 2024-01-01 00:00 北京时间
+    private static final long STEP_MILLIS = 1000L;
+    private static final int ITERATIONS = 20;
+    private static final int BATCH_SIZE = 10000;
+
+    private final String jdbcUrl;
+    private final String user;
+    private final String password;
+    private final long rows;
+    private final boolean keepTables;
+
+    QueryIndexBenchmark(Options options) {
+        this.jdbcUrl = options.getString("jdbc-url", null);
+        if (jdbcUrl == null) {
+            throw new IllegalArgumentException("缺少参数 --jdbc-url");
+        }
+        this.user = options.getString("user", "root");
+        this.password = options.getString("password", "");
+        this.rows = options.getLong("rows", 10_000_000L);
+        this.keepTables = Boolean.parseBoolean(options.getString("keep", "false"));
+    }
+
+    void run() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, user, password)) {
+            connection.setAutoCommit(false);
+            try {
+                createTables(connection);
+                loadData(connection);
+
+                long end = START_MILLIS + rows * STEP_MILLIS;
+                long day = 24 * 60 * 60 * 1000L;
+                List<BenchQuery> queries = Arrays.asList(
+                        new BenchQuery("最新价格(symbol, ORDER BY last_updated DESC LIMIT 1)",
+                                "SELECT price FROM bench_crypto_currency WHERE symbol = ? ORDER BY last_updated DESC LIMIT 1", "ETH"),
+                        new BenchQuery("价格历史(symbol, 1天范围)",
+                                "SELECT last_updated, price, volume FROM bench_crypto_currency WHERE symbol = ? AND last_updated BETWEEN ? AND ? ORDER BY last_updated",
+                                "ETH", end - day, end),
+                        new BenchQuery("降采样(symbol, 7天, 1小时窗口)",
+                                "SELECT (last_updated DIV 3600000) * 3600000 AS bucket, AVG(price), AVG(volume) FROM bench_crypto_currency "
+                                        + "WHERE symbol = ? AND last_updated BETWEEN ? AND ? GROUP BY bucket ORDER BY bucket",
+                                "ETH", end - 7 * day, end),
+                        new BenchQuery("过期数据范围(last_updated < ?)",
+                                "SELECT COUNT(*) FROM bench_crypto_currency WHERE last_updated < ?", START_MILLIS + day),
+                        new BenchQuery("账户交易(account_name, ORDER BY trade_time)",
+                                "SELECT * FROM bench_trade_record WHERE account_name = ? ORDER BY trade_time", "account-42"),
+                        new BenchQuery("最新交易(ORDER BY trade_time DESC, id DESC LIMIT 50)",
+                                "SELECT * FROM bench_trade_record ORDER BY trade_time DESC, id DESC LIMIT 50"),
+                        new BenchQuery("账户价值历史(account_name, 30天范围)",
+                                "SELECT id, account_name, total_value, record_time FROM bench_account_value_history "
+                                        + "WHERE account_name = ? AND record_time BETWEEN ? AND ? ORDER BY record_time",
+                                "account-42", end - 30 * day, end));
+
+                long[][] before = measure(connection, queries);
+
+                long indexStart = System.nanoTime();
+                createIndexes(connection);
+                System.out.printf("创建索引耗时 %d ms%n", (System.nanoTime() - indexStart) / 1000000);
+
+                long[][] after = measure(connection, queries);
+
+                System.out.printf("==== 查询延迟（%d 行, 每个查询 %d 次）====%n", rows, ITERATIONS);
+                System.out.printf("%-50s %14s %14s %14s %14s%n", "查询", "无索引p50(ms)", "无索引p95(ms)", "有索引p50(ms)", "有索引p95(ms)");
+                for (int i = 0; i < queries.size(); i++) {
+                    System.out.printf("%-50s %14.2f %14.2f %14.2f %14.2f%n", queries.get(i).name,
+                            before[i][0] / 1e6, before[i][1] / 1e6, after[i][0] / 1e6, after[i][1] / 1e6);
+                }
+            } finally {
+                if (!keepTables) {
+                    dropTables(connection);
+                }
+            }
+        }
+    }
+
+    private void createTables(Connection connection) throws SQLException {
+        dropTables(connection);
+        execute(connection,
+                "CREATE TABLE bench_crypto_currency (id BIGINT AUTO_INCREMENT PRIMARY KEY, symbol VARCHAR(255) NOT NULL, "
+                        + "name VARCHAR(255), price DECIMAL(20,10), price_change DECIMAL(20,10), price_change_percent DECIMAL(10,3), "
+                        + "volume DECIMAL(20,10), last_updated BIGINT)",
+                "CREATE TABLE bench_trade_record (id BIGINT AUTO_INCREMENT PRIMARY KEY, symbol VARCHAR(255) NOT NULL, "
+                        + "trade_type VARCHAR(255) NOT NULL, price DECIMAL(20,10), quantity DECIMAL(20,10), amount DECIMAL(20,10), "
+                        + "trade_time BIGINT NOT NULL, strategy VARCHAR(255), account_name VARCHAR(255))",
+                "CREATE TABLE bench_account_value_history (id BIGINT AUTO_INCREMENT PRIMARY KEY, account_name VARCHAR(255) NOT NULL, "
+                        + "total_value DECIMAL(20,10), record_time BIGINT)");
+    }
+
+    private void createIndexes(Connection connection) throws SQLException {
+        execute(connection,
+                "ALTER TABLE bench_crypto_currency ADD INDEX idx_symbol_time (symbol, last_updated, price, volume), ADD INDEX idx_time (last_updated)",
+                "ALTER TABLE bench_trade_record ADD INDEX idx_account_time (account_name, trade_time), "
+                        + "ADD INDEX idx_symbol_time (symbol, trade_time), ADD INDEX idx_time (trade_time)",
+                "ALTER TABLE bench_account_value_history ADD INDEX idx_account_time (account_name, record_time, total_value), "
+                        + "ADD INDEX idx_time (record_time)",
+                "ANALYZE TABLE bench_crypto_currency, bench_trade_record, bench_account_value_history");
+    }
+
+    private void dropTables(Connection connection) throws SQLException {
+        execute(connection, "DROP TABLE IF EXISTS bench_crypto_currency, bench_trade_record, bench_account_value_history");
+    }
+
+    private void loadData(Connection connection) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement crypto = connection.prepareStatement(
+                "INSERT INTO bench_crypto_currency (symbol, name, price, price_change, price_change_percent, volume, last_updated) VALUES (?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement trade = connection.prepareStatement(
+                "INSERT INTO bench_trade_record (symbol, trade_type, price, quantity, amount, trade_time, strategy, account_name) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement history = connection.prepareStatement(
+                "INSERT INTO bench_account_value_history (account_name, total_value, record_time) VALUES (?, ?, ?)")) {
+            for (long i = 0; i < rows; i++) {
+                String symbol = SYMBOLS[(int) (i % SYMBOLS.length)];
+                String account = "account-" + (i % ACCOUNTS);
+                long time = START_MILLIS + i * STEP_MILLIS;
+                double price = 100 + (i % 1000) / 10.0;
+
+                crypto.setString(1, symbol);
+                crypto.setString(2, symbol);
+                crypto.setDouble(3, price);
+                crypto.setDouble(4, 0.5);
+                crypto.setDouble(5, 0.1);
+                crypto.setDouble(6, 1000 + i % 500);
+                crypto.setLong(7, time);
+                crypto.addBatch();
+
+                trade.setString(1, symbol);
+                trade.setString(2, i % 2 == 0 ? "BUY" : "SELL");
+                trade.setDouble(3, price);
+                trade.setDouble(4, 1);
+                trade.setDouble(5, price);
+                trade.setLong(6, time);
+                trade.setString(7, account);
+                trade.setString(8, account);
+                trade.addBatch();
+
+                history.setString(1, account);
+                history.setDouble(2, 10000 + i % 777);
+                history.setLong(3, time);
+                history.addBatch();
+
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    crypto.executeBatch();
+                    trade.executeBatch();
+                    history.executeBatch();
+                    connection.commit();
+                }
+                if ((i + 1) % 1_000_000 == 0) {
+                    System.out.printf("已生成 %d 行%n", i + 1);
+                }
+            }
+            crypto.executeBatch();
+            trade.executeBatch();
+            history.executeBatch();
+            connection.commit();
+        }
+        System.out.printf("生成 %d 行 x 3 张表耗时 %d s%n", rows, (System.nanoTime() - start) / 1000000000);
+    }
+
+    /**
+     * @return 每个查询的 [p50, p95] 延迟(ns)
+     */
+    private long[][] measure(Connection connection, List<BenchQuery> queries) throws SQLException {
+        long[][] result = new long[queries.size()][];
+        for (int q = 0; q < queries.size(); q++) {
+            BenchQuery query = queries.get(q);
+            // 预热一次，让缓冲池加载相关页
+            run(connection, query);
+            long[] samples = new long[ITERATIONS];
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                run(connection, query);
+                samples[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(samples);
+            result[q] = new long[] { samples[ITERATIONS / 2], samples[(int) Math.ceil(ITERATIONS * 0.95) - 1] };
+        }
+        return result;
+    }
+
+    private void run(Connection connection, BenchQuery query) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query.sql)) {
+            for (int i = 0; i < query.params.length; i++) {
+                statement.setObject(i + 1, query.params[i]);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    // 读取全部结果
+                }
+            }
+        }
+    }
+
+    private void execute(Connection connection, String... statements) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+        connection.commit();
+    }
+
+    public static void main(String[] args) throws SQLException {
+        new QueryIndexBenchmark(new Options(args)).run();
+    }
+
+    private static final class BenchQuery {
+        private final String name;
+        private final String sql;
+        private final Object[] params;
+
+        private BenchQuery(String name, String sql, Object... params) {
+            this.name = name;
+            this.sql = sql;
+            this.params = params;
+        }
+    }
+}
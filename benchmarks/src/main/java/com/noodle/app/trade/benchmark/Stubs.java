@@ -0,0 +1,63 @@
+package com.noodle.app.trade.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * 基准测试用的桩对象
+ * 仓库接口用JDK动态代理按方法名返回预先准备的结果（开销是一次反射调用，远小于被测代码），
+ * 依赖通过反射写入 @Autowired 字段，不启动Spring容器。
+ */
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * 创建返回固定结果的仓库
+     * @param type 仓库接口
+     * @param results 方法名 -> 返回值，未列出的方法抛出 UnsupportedOperationException
+     */
+    public static <T> T repository(Class<T> type, Map<String, Object> results) {
+        Map<String, Object> copy = new HashMap<>(results);
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (target, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals": return target == args[0];
+                    case "hashCode": return System.identityHashCode(target);
+                    default: return type.getSimpleName() + " stub";
+                }
+            }
+            if (!copy.containsKey(method.getName())) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+            return copy.get(method.getName());
+        });
+        return type.cast(proxy);
+    }
+
+    /**
+     * 只有一个方法的仓库
+     */
+    public static <T> T repository(Class<T> type, String method, Object result) {
+        Map<String, Object> results = new HashMap<>();
+        results.put(method, result);
+        return repository(type, results);
+    }
+
+    /**
+     * 写入私有字段（@Autowired 依赖）
+     */
+    public static void inject(Object target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException(target.getClass().getSimpleName() + " 没有字段 " + fieldName);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
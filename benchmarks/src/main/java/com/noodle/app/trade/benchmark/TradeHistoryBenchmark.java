@@ -0,0 +1,65 @@
+package com.noodle.app.trade.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.noodle.app.trade.entity.TradeRecordEntity;
+import com.noodle.app.trade.model.TradeRecord;
+import com.noodle.app.trade.repository.TradeRecordRepository;
+import com.noodle.app.trade.service.TradeHistoryService;
+
+/**
+ * 交易记录实体转换为模型（TradeHistoryService.convertToModelList）
+ * 通过 getTradeRecordsBySymbol 调用，仓库直接返回准备好的实体列表，records 为记录数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TradeHistoryBenchmark {
+
+    @Param({ "100", "10000" })
+    public int records;
+
+    private TradeHistoryService tradeHistoryService;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<TradeRecordEntity> entities = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            BigDecimal price = new BigDecimal("60000.1200000000").add(BigDecimal.valueOf(i));
+            BigDecimal quantity = new BigDecimal("0.0012500000");
+            TradeRecordEntity entity = new TradeRecordEntity("BTC", i % 2 == 0 ? "BUY" : "SELL", price, quantity,
+                    price.multiply(quantity), base.plusSeconds(i), "DeepSeek AI", "alice");
+            entity.setId((long) i + 1);
+            entities.add(entity);
+        }
+
+        tradeHistoryService = new TradeHistoryService();
+        Stubs.inject(tradeHistoryService, "tradeRecordRepository",
+                Stubs.repository(TradeRecordRepository.class, "findBySymbol", entities));
+    }
+
+    @Benchmark
+    public List<TradeRecord> convertToModelList() {
+        return tradeHistoryService.getTradeRecordsBySymbol("BTC");
+    }
+}
@@ -0,0 +1,93 @@
+package com.noodle.app.trade.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.noodle.app.trade.entity.TradeRecordEntity;
+import com.noodle.app.trade.model.TradePage;
+import com.noodle.app.trade.repository.TradeRecordRepository;
+import com.noodle.app.trade.service.TradeHistoryService;
+
+/**
+ * 交易历史分页的日志开销
+ * 8个线程并发调用 getTradePage（每页500条，仓库返回准备好的实体），比较：
+ * - sampledLogging：现实现，按级别判断并采样的SLF4J日志
+ * - perRecordPrintln：原实现，每条记录同步打印3行，输出到临时文件模拟控制台/日志文件的同步写入
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class TradeHistoryLoggingBenchmark {
+
+    private static final int PAGE_SIZE = 500;
+
+    private TradeHistoryService tradeHistoryService;
+    private File sinkFile;
+    private PrintStream sink;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<TradeRecordEntity> entities = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0, 0);
+        for (int i = 0; i <= PAGE_SIZE; i++) {
+            TradeRecordEntity entity = new TradeRecordEntity("BTC", i % 2 == 0 ? "BUY" : "SELL", new BigDecimal("42000.12"),
+                    new BigDecimal("0.015"), new BigDecimal("630.0018"), base.minusSeconds(i), "bench", "bench");
+            entity.setId((long) (PAGE_SIZE - i));
+            entities.add(entity);
+        }
+        tradeHistoryService = new TradeHistoryService();
+        Stubs.inject(tradeHistoryService, "tradeRecordRepository",
+                Stubs.repository(TradeRecordRepository.class, "findLatestTrades", entities));
+
+        sinkFile = File.createTempFile("trade-history-println", ".log");
+        sink = new PrintStream(new BufferedOutputStream(new FileOutputStream(sinkFile)), true, "UTF-8");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sink.close();
+        sinkFile.delete();
+    }
+
+    @Benchmark
+    public TradePage sampledLogging() {
+        return tradeHistoryService.getTradePage(null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public TradePage perRecordPrintln() {
+        TradePage page = tradeHistoryService.getTradePage(null, null, PAGE_SIZE);
+        page.getRecords().forEach(record -> {
+            sink.println("Converting entity: " + record.getSymbol() + ", " + record.getTradeType() + ", " + record.getStrategy());
+            sink.println("Entity tradeTime: " + record.getTradeTime());
+            sink.println("Successfully converted entity");
+        });
+        return page;
+    }
+}
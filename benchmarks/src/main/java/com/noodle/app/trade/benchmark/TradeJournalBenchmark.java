@@ -0,0 +1,86 @@
+package com.noodle.app.trade.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.noodle.app.trade.book.AccountBook;
+import com.noodle.app.trade.book.AccountJournal;
+import com.noodle.app.trade.book.FileAccountJournal;
+import com.noodle.app.trade.book.JournalEntry;
+import com.noodle.app.trade.book.MappedTradeJournal;
+
+/**
+ * 交易日志确认延迟
+ * 16个线程并发在内存账户簿中买入，每笔成交落盘（force）后才返回，比较单文件日志和内存映射日志；
+ * 并发的刷盘请求合并为一次force，线程越多单次刷盘分摊的成交越多。
+ * SampleTime 模式输出确认延迟的分位数，吞吐量为 线程数 / 平均延迟。
+ * 日志写在系统临时目录，结果取决于该目录所在磁盘的刷盘延迟。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class TradeJournalBenchmark {
+
+    private static final BigDecimal PRICE = new BigDecimal("64123.45");
+    private static final BigDecimal QUANTITY = new BigDecimal("0.001");
+
+    @Param({ "file", "mmap" })
+    public String journalType;
+
+    @Param({ "50" })
+    public int accounts;
+
+    private Path dir;
+    private AccountJournal journal;
+    private AccountBook book;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("trade-journal-bench");
+        journal = "mmap".equals(journalType)
+                ? new MappedTradeJournal(dir.resolve("mmap"), 65536, true, 0)
+                : new FileAccountJournal(dir.resolve("account-book.journal"), true, Long.MAX_VALUE);
+        book = new AccountBook(journal);
+        for (int i = 0; i < accounts; i++) {
+            book.load(i + 1, "account-" + i, new BigDecimal("1000000000000"), null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public JournalEntry buy() {
+        return book.buy("account-" + ThreadLocalRandom.current().nextInt(accounts), "BTC", PRICE, QUANTITY, "benchmark");
+    }
+}
@@ -0,0 +1,121 @@
+package com.noodle.app.trade.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * 按接口记录请求耗时（微秒），输出 p50/p90/p99/max、吞吐量和失败数
+ * 所有请求（包括失败和超时）都计入耗时分布；失败分为两类：
+ * - errors：网络异常、超时和非2xx状态码
+ * - rejected：HTTP 200 但业务返回 success=false（如余额或持仓不足）
+ */
+class LatencyRecorder {
+
+    enum Outcome { OK, REJECTED, ERROR }
+
+    private static final class EndpointStats {
+
+        private long[] samples = new long[1024];
+        private int size;
+        private long rejected;
+        private long errors;
+
+        synchronized void record(long micros, Outcome outcome) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = micros;
+            if (outcome == Outcome.REJECTED) {
+                rejected++;
+            } else if (outcome == Outcome.ERROR) {
+                errors++;
+            }
+        }
+
+        synchronized Summary summarize() {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            return new Summary(size, rejected, errors,
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                    size > 0 ? sorted[size - 1] : 0);
+        }
+    }
+
+    static final class Summary {
+
+        final long count;
+        final long rejected;
+        final long errors;
+        final long p50;
+        final long p90;
+        final long p99;
+        final long max;
+
+        Summary(long count, long rejected, long errors, long p50, long p90, long p99, long max) {
+            this.count = count;
+            this.rejected = rejected;
+            this.errors = errors;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+    }
+
+    // 按接口名排序输出
+    private final ConcurrentMap<String, EndpointStats> endpoints = new ConcurrentSkipListMap<>();
+
+    void record(String endpoint, long micros, Outcome outcome) {
+        endpoints.computeIfAbsent(endpoint, key -> new EndpointStats()).record(micros, outcome);
+    }
+
+    /**
+     * 最近秩法计算百分位
+     */
+    static long percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    void printReport(PrintStream out, double seconds) {
+        out.printf("%-60s %8s %8s %8s %10s %10s %10s %10s %8s%n",
+                "接口", "请求数", "拒绝", "错误", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)", "req/s");
+        for (Map.Entry<String, EndpointStats> entry : endpoints.entrySet()) {
+            Summary summary = entry.getValue().summarize();
+            out.printf("%-60s %8d %8d %8d %10.1f %10.1f %10.1f %10.1f %8.1f%n", entry.getKey(),
+                    summary.count, summary.rejected, summary.errors,
+                    summary.p50 / 1000.0, summary.p90 / 1000.0, summary.p99 / 1000.0, summary.max / 1000.0,
+                    summary.count / seconds);
+        }
+    }
+
+    ObjectNode toJson(ObjectMapper objectMapper, double seconds) {
+        ObjectNode report = objectMapper.createObjectNode();
+        report.put("durationSeconds", seconds);
+        ArrayNode results = report.putArray("endpoints");
+        for (Map.Entry<String, EndpointStats> entry : endpoints.entrySet()) {
+            Summary summary = entry.getValue().summarize();
+            ObjectNode result = results.addObject();
+            result.put("endpoint", entry.getKey());
+            result.put("count", summary.count);
+            result.put("rejected", summary.rejected);
+            result.put("errors", summary.errors);
+            result.put("throughput", summary.count / seconds);
+            result.put("p50Ms", summary.p50 / 1000.0);
+            result.put("p90Ms", summary.p90 / 1000.0);
+            result.put("p99Ms", summary.p99 / 1000.0);
+            result.put("maxMs", summary.max / 1000.0);
+        }
+        return report;
+    }
+}
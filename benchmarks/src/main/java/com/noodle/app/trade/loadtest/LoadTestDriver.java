@@ -0,0 +1,267 @@
+package com.noodle.app.trade.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import okhttp3.ConnectionPool;
+import okhttp3.FormBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * 压测场景驱动：多个虚拟用户按权重重放仪表盘和交易流量，按接口统计耗时分布
+ * - dashboard：打开仪表盘时的请求序列（行情、账户、持仓分布、账户价值历史、价格历史、交易记录）
+ * - trade：查询价格后买入一手，或卖出之前买入的一手，再刷新账户
+ * - ai：查询AI交易信号（每5次附带一次AI余额查询）
+ * 每个虚拟用户固定使用一个压测账户（loadtest-N），开始前创建或重置为初始余额。
+ * 预热阶段的请求不计入统计，结果输出为表格并写入JSON文件：
+ *
+ *   java -cp benchmarks/target/benchmarks.jar com.noodle.app.trade.loadtest.LoadTestDriver \
+ *        --target=http://localhost:8080 --users=20 --duration-seconds=60 --warmup-seconds=10 \
+ *        --think-ms=500 --dashboard-weight=70 --trade-weight=25 --ai-weight=5 --report=loadtest-report.json
+ */
+public class LoadTestDriver {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String[] SYMBOLS = { "BTC", "ETH", "BNB", "XRP", "DOGE" };
+
+    // 每手数量，按默认价格约合100 USDT
+    private static final Map<String, String> LOT_SIZES = new HashMap<>();
+    static {
+        LOT_SIZES.put("BTC", "0.0015");
+        LOT_SIZES.put("ETH", "0.03");
+        LOT_SIZES.put("BNB", "0.2");
+        LOT_SIZES.put("XRP", "200");
+        LOT_SIZES.put("DOGE", "700");
+    }
+
+    private final String target;
+    private final OkHttpClient client;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final int dashboardWeight;
+    private final int tradeWeight;
+    private final int aiWeight;
+    private final long thinkMs;
+
+    // 预热结束时间（System.nanoTime），之前的请求不记录
+    private volatile long measureFrom;
+
+    LoadTestDriver(Options options) {
+        int users = options.getInt("users", 20);
+        long timeoutMs = options.getLong("timeout-ms", 30000);
+        this.target = options.getString("target", "http://localhost:8080");
+        this.dashboardWeight = options.getInt("dashboard-weight", 70);
+        this.tradeWeight = options.getInt("trade-weight", 25);
+        this.aiWeight = options.getInt("ai-weight", 5);
+        this.thinkMs = options.getLong("think-ms", 500);
+        this.client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(users, 5, TimeUnit.MINUTES))
+                .connectTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 虚拟用户，单线程执行
+     */
+    private final class VirtualUser implements Runnable {
+
+        private final String accountName;
+        private final long deadline;
+        // 已买入、尚未卖出的手数
+        private final Map<String, Integer> lots = new HashMap<>();
+
+        VirtualUser(String accountName, long deadline) {
+            this.accountName = accountName;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try {
+                // 错开各用户的起始时间
+                think();
+                while (System.nanoTime() < deadline) {
+                    int pick = random.nextInt(dashboardWeight + tradeWeight + aiWeight);
+                    if (pick < dashboardWeight) {
+                        dashboard();
+                    } else if (pick < dashboardWeight + tradeWeight) {
+                        trade();
+                    } else {
+                        ai();
+                    }
+                    think();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void dashboard() throws InterruptedException {
+            String symbol = randomSymbol();
+            get("GET /api/trading/market-data", "/api/trading/market-data");
+            get("GET /api/trading/account/{accountName}", "/api/trading/account/" + accountName);
+            get("GET /api/charts/portfolio-distribution", "/api/charts/portfolio-distribution?accountName=" + accountName);
+            get("GET /api/charts/account-value-history", "/api/charts/account-value-history?accountName=" + accountName + "&days=7");
+            get("GET /api/charts/price-history", "/api/charts/price-history?symbol=" + symbol + "&days=1");
+            get("GET /api/trading/trade/history/{accountName}", "/api/trading/trade/history/" + accountName + "?limit=20");
+        }
+
+        private void trade() throws InterruptedException {
+            String symbol = randomSymbol();
+            get("GET /api/trading/price/{symbol}", "/api/trading/price/" + symbol + "USDT");
+            think();
+            int held = lots.getOrDefault(symbol, 0);
+            boolean sell = held > 0 && ThreadLocalRandom.current().nextBoolean();
+            String action = sell ? "sell" : "buy";
+            LatencyRecorder.Outcome outcome = post("POST /api/trading/trade/" + action, "/api/trading/trade/" + action, new FormBody.Builder()
+                    .add("accountName", accountName)
+                    .add("symbol", symbol)
+                    .add("quantity", LOT_SIZES.get(symbol))
+                    .add("strategy", "loadtest")
+                    .build());
+            if (outcome == LatencyRecorder.Outcome.OK) {
+                lots.put(symbol, sell ? held - 1 : held + 1);
+            }
+            get("GET /api/trading/account/{accountName}", "/api/trading/account/" + accountName);
+        }
+
+        private void ai() {
+            get("GET /api/trading/ai/signal/{symbol}", "/api/trading/ai/signal/" + randomSymbol());
+            if (ThreadLocalRandom.current().nextInt(5) == 0) {
+                get("GET /api/trading/ai/balance", "/api/trading/ai/balance");
+            }
+        }
+
+        private void think() throws InterruptedException {
+            if (thinkMs > 0) {
+                TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(thinkMs * 2));
+            }
+        }
+    }
+
+    private static String randomSymbol() {
+        return SYMBOLS[ThreadLocalRandom.current().nextInt(SYMBOLS.length)];
+    }
+
+    private LatencyRecorder.Outcome get(String endpoint, String path) {
+        return execute(endpoint, new Request.Builder().url(target + path).get().build());
+    }
+
+    private LatencyRecorder.Outcome post(String endpoint, String path, FormBody body) {
+        return execute(endpoint, new Request.Builder().url(target + path).post(body).build());
+    }
+
+    /**
+     * 执行请求并记录耗时（包括读取响应体），响应为 success=false 时记为拒绝
+     */
+    private LatencyRecorder.Outcome execute(String endpoint, Request request) {
+        long start = System.nanoTime();
+        LatencyRecorder.Outcome outcome;
+        try (Response response = client.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            String content = body != null ? body.string() : "";
+            if (!response.isSuccessful()) {
+                outcome = LatencyRecorder.Outcome.ERROR;
+            } else {
+                outcome = isRejected(content) ? LatencyRecorder.Outcome.REJECTED : LatencyRecorder.Outcome.OK;
+            }
+        } catch (IOException e) {
+            outcome = LatencyRecorder.Outcome.ERROR;
+        }
+        if (start >= measureFrom) {
+            recorder.record(endpoint, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start), outcome);
+        }
+        return outcome;
+    }
+
+    private static boolean isRejected(String content) {
+        try {
+            JsonNode json = OBJECT_MAPPER.readTree(content);
+            return json.has("success") && !json.path("success").asBoolean();
+        } catch (IOException e) {
+            // 非JSON响应（如页面）不检查业务结果
+            return false;
+        }
+    }
+
+    /**
+     * 创建压测账户，已存在时重置为初始余额
+     */
+    private void prepareAccount(String accountName, String initialBalance) throws IOException {
+        for (String action : new String[] { "create", "reset" }) {
+            Request request = new Request.Builder()
+                    .url(target + "/api/trading/account/" + action)
+                    .post(new FormBody.Builder().add("accountName", accountName).add("initialBalance", initialBalance).build())
+                    .build();
+            try (Response response = client.newCall(request).execute()) {
+                ResponseBody body = response.body();
+                if (response.isSuccessful() && body != null && !isRejected(body.string())) {
+                    return;
+                }
+            }
+        }
+        throw new IOException("无法创建或重置压测账户: " + accountName);
+    }
+
+    void run(int users, String initialBalance, long warmupSeconds, long durationSeconds, File report) throws Exception {
+        for (int i = 0; i < users; i++) {
+            prepareAccount("loadtest-" + i, initialBalance);
+        }
+        System.out.printf("已准备 %d 个压测账户，预热 %ds，测量 %ds，目标 %s%n", users, warmupSeconds, durationSeconds, target);
+
+        long start = System.nanoTime();
+        measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long deadline = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        List<VirtualUser> virtualUsers = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            virtualUsers.add(new VirtualUser("loadtest-" + i, deadline));
+        }
+        virtualUsers.forEach(executor::execute);
+        executor.shutdown();
+        executor.awaitTermination(warmupSeconds + durationSeconds + 600, TimeUnit.SECONDS);
+        // 最后一批请求可能在截止时间之后完成，按实际测量时长计算吞吐量
+        double seconds = (System.nanoTime() - measureFrom) / 1e9;
+
+        recorder.printReport(System.out, seconds);
+        ObjectNode json = recorder.toJson(OBJECT_MAPPER, seconds);
+        json.put("target", target);
+        json.put("users", users);
+        json.put("thinkMs", thinkMs);
+        json.put("dashboardWeight", dashboardWeight);
+        json.put("tradeWeight", tradeWeight);
+        json.put("aiWeight", aiWeight);
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(report, json);
+        System.out.println("结果已写入 " + report.getAbsolutePath());
+
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        new LoadTestDriver(options).run(
+                options.getInt("users", 20),
+                options.getString("initial-balance", "100000"),
+                options.getLong("warmup-seconds", 10),
+                options.getLong("duration-seconds", 60),
+                new File(options.getString("report", "loadtest-report.json")));
+    }
+}
@@ -0,0 +1,434 @@
+package com.noodle.app.trade.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 本地模拟的 Binance 行情接口和 DeepSeek 接口，用于压测时替代外部服务
+ * - Binance：/api/v3/ticker/price、/api/v3/ticker/24hr（单个、symbols=[...]、全市场）、/api/v3/exchangeInfo，价格随请求随机游走
+ * - DeepSeek：/v1/chat/completions、/v1/user/balance，交易信号提示词返回 BUY/SELL/HOLD，其余返回固定格式的建议
+ * - /mock/stats：各路径的请求数和注入的故障数
+ * 两类后端分别配置延迟和故障：延迟为 latency-ms 加 [0, jitter-ms) 的均匀抖动，
+ * 按 error-rate 返回 error-status（如500、429），按 hang-rate 额外等待 hang-ms（用于触发调用方超时）：
+ *
+ *   java -cp benchmarks/target/benchmarks.jar com.noodle.app.trade.loadtest.MockExchangeServer \
+ *        --port=18080 --binance.latency-ms=30 --binance.jitter-ms=40 --binance.error-rate=0.01 \
+ *        --deepseek.latency-ms=1500 --deepseek.jitter-ms=1000 --deepseek.error-status=429
+ *
+ * 应用启动参数：--binance.api.url=http://localhost:18080 --deepseek.api.url=http://localhost:18080/v1 --binance.stream.enabled=false
+ */
+public class MockExchangeServer {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // 与 BinanceApiService 默认支持的币种一致，初始价格接近真实行情
+    private static final String[][] DEFAULT_SYMBOLS = {
+            { "BTC", "65000.00", "0.01000000", "0.00001000" },
+            { "ETH", "3200.00", "0.01000000", "0.00010000" },
+            { "BNB", "580.00", "0.01000000", "0.00100000" },
+            { "XRP", "0.5200", "0.00010000", "1.00000000" },
+            { "DOGE", "0.15000", "0.00001000", "1.00000000" },
+    };
+
+    private static final String[] SIGNALS = { "BUY", "SELL", "HOLD" };
+
+    /**
+     * 单个后端的延迟和故障注入配置
+     */
+    static final class FaultProfile {
+
+        final long latencyMs;
+        final long jitterMs;
+        final double errorRate;
+        final int errorStatus;
+        final double hangRate;
+        final long hangMs;
+
+        FaultProfile(long latencyMs, long jitterMs, double errorRate, int errorStatus, double hangRate, long hangMs) {
+            this.latencyMs = latencyMs;
+            this.jitterMs = jitterMs;
+            this.errorRate = errorRate;
+            this.errorStatus = errorStatus;
+            this.hangRate = hangRate;
+            this.hangMs = hangMs;
+        }
+
+        static FaultProfile of(Options options, String prefix, long defaultLatencyMs, long defaultJitterMs) {
+            return new FaultProfile(
+                    options.getLong(prefix + ".latency-ms", defaultLatencyMs),
+                    options.getLong(prefix + ".jitter-ms", defaultJitterMs),
+                    options.getDouble(prefix + ".error-rate", 0),
+                    options.getInt(prefix + ".error-status", 500),
+                    options.getDouble(prefix + ".hang-rate", 0),
+                    options.getLong(prefix + ".hang-ms", 30000));
+        }
+
+        long nextDelayMs() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs) : 0);
+            if (hangRate > 0 && random.nextDouble() < hangRate) {
+                delay += hangMs;
+            }
+            return delay;
+        }
+
+        boolean nextFails() {
+            return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("延迟 %d+[0,%d)ms，错误率 %.2f%%（HTTP %d），挂起率 %.2f%%（%dms）",
+                    latencyMs, jitterMs, errorRate * 100, errorStatus, hangRate * 100, hangMs);
+        }
+    }
+
+    /**
+     * 模拟的交易对行情
+     */
+    private static final class Market {
+
+        final String baseAsset;
+        final String tickSize;
+        final String stepSize;
+        final int priceScale;
+        final double openPrice;
+        volatile double price;
+
+        Market(String baseAsset, String price, String tickSize, String stepSize) {
+            this.baseAsset = baseAsset;
+            this.tickSize = tickSize;
+            this.stepSize = stepSize;
+            this.priceScale = new BigDecimal(tickSize).stripTrailingZeros().scale();
+            this.openPrice = Double.parseDouble(price);
+            this.price = openPrice;
+        }
+
+        /**
+         * 每次被查询时价格随机游走一步（标准差0.05%）
+         */
+        synchronized BigDecimal nextPrice() {
+            price = Math.max(price * (1 + ThreadLocalRandom.current().nextGaussian() * 0.0005), openPrice * 0.01);
+            return BigDecimal.valueOf(price).setScale(priceScale, RoundingMode.HALF_UP);
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final FaultProfile binanceProfile;
+    private final FaultProfile deepSeekProfile;
+    private final Map<String, Market> markets = new LinkedHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> failureCounts = new ConcurrentHashMap<>();
+
+    /**
+     * @param port 监听端口，0表示随机端口
+     * @param binanceProfile Binance接口的延迟和故障配置
+     * @param deepSeekProfile DeepSeek接口的延迟和故障配置
+     * @param extraSymbols 额外生成的交易对数量，使全市场24hr行情接近真实大小
+     */
+    public MockExchangeServer(int port, FaultProfile binanceProfile, FaultProfile deepSeekProfile, int extraSymbols) throws IOException {
+        this.binanceProfile = binanceProfile;
+        this.deepSeekProfile = deepSeekProfile;
+        for (String[] symbol : DEFAULT_SYMBOLS) {
+            markets.put(symbol[0] + "USDT", new Market(symbol[0], symbol[1], symbol[2], symbol[3]));
+        }
+        for (int i = 0; i < extraSymbols; i++) {
+            markets.put("SYM" + i + "USDT", new Market("SYM" + i, BigDecimal.valueOf(1 + i % 500).toPlainString(), "0.00010000", "0.01000000"));
+        }
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        // 延迟通过sleep模拟，每个请求占用一个线程，线程池不设上限以免排队放大延迟
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mock-exchange");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/api/v3/", exchange -> handle(exchange, binanceProfile, this::routeBinance));
+        server.createContext("/v1/", exchange -> handle(exchange, deepSeekProfile, this::routeDeepSeek));
+        server.createContext("/mock/stats", exchange -> respond(exchange, 200, stats()));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private interface Route {
+        /**
+         * @return 响应体，null表示路径不存在
+         */
+        JsonNode apply(HttpExchange exchange, Map<String, String> query) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, FaultProfile profile, Route route) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        requestCounts.computeIfAbsent(path, key -> new AtomicLong()).incrementAndGet();
+        try {
+            long delay = profile.nextDelayMs();
+            if (delay > 0) {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            }
+            if (profile.nextFails()) {
+                failureCounts.computeIfAbsent(path, key -> new AtomicLong()).incrementAndGet();
+                ObjectNode error = OBJECT_MAPPER.createObjectNode();
+                error.put("code", profile.errorStatus == 429 ? -1003 : -1000);
+                error.put("msg", "injected failure");
+                respond(exchange, profile.errorStatus, error);
+                return;
+            }
+            JsonNode body = route.apply(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+            if (body == null) {
+                ObjectNode error = OBJECT_MAPPER.createObjectNode();
+                error.put("code", -1121);
+                error.put("msg", "Invalid symbol or path: " + path);
+                respond(exchange, 400, error);
+            } else {
+                respond(exchange, 200, body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        } catch (RuntimeException e) {
+            ObjectNode error = OBJECT_MAPPER.createObjectNode();
+            error.put("code", -1000);
+            error.put("msg", String.valueOf(e.getMessage()));
+            respond(exchange, 500, error);
+        }
+    }
+
+    private JsonNode routeBinance(HttpExchange exchange, Map<String, String> query) {
+        switch (exchange.getRequestURI().getPath()) {
+            case "/api/v3/ticker/price": {
+                Market market = markets.get(query.get("symbol"));
+                if (market == null) {
+                    return null;
+                }
+                ObjectNode ticker = OBJECT_MAPPER.createObjectNode();
+                ticker.put("symbol", query.get("symbol"));
+                ticker.put("price", market.nextPrice().toPlainString());
+                return ticker;
+            }
+            case "/api/v3/ticker/24hr": {
+                if (query.containsKey("symbol")) {
+                    Market market = markets.get(query.get("symbol"));
+                    return market != null ? ticker24hr(query.get("symbol"), market) : null;
+                }
+                ArrayNode tickers = OBJECT_MAPPER.createArrayNode();
+                for (String symbol : selectSymbols(query)) {
+                    Market market = markets.get(symbol);
+                    if (market != null) {
+                        tickers.add(ticker24hr(symbol, market));
+                    }
+                }
+                return tickers;
+            }
+            case "/api/v3/exchangeInfo": {
+                ObjectNode info = OBJECT_MAPPER.createObjectNode();
+                info.put("timezone", "UTC");
+                info.put("serverTime", System.currentTimeMillis());
+                ArrayNode symbols = info.putArray("symbols");
+                for (String symbol : selectSymbols(query)) {
+                    Market market = markets.get(symbol);
+                    if (market != null) {
+                        symbols.add(symbolInfo(symbol, market));
+                    }
+                }
+                return info;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private JsonNode routeDeepSeek(HttpExchange exchange, Map<String, String> query) throws IOException {
+        switch (exchange.getRequestURI().getPath()) {
+            case "/v1/chat/completions": {
+                JsonNode request;
+                try (InputStream in = exchange.getRequestBody()) {
+                    request = OBJECT_MAPPER.readTree(in);
+                }
+                String prompt = request.path("messages").path(request.path("messages").size() - 1).path("content").asText();
+                // generateTradingSignal 要求只回复一个信号，其余接口返回逐币种建议
+                String content = prompt.contains("请仅回复")
+                        ? SIGNALS[ThreadLocalRandom.current().nextInt(SIGNALS.length)]
+                        : advice();
+
+                ObjectNode completion = OBJECT_MAPPER.createObjectNode();
+                completion.put("id", "mock-" + System.nanoTime());
+                completion.put("object", "chat.completion");
+                completion.put("created", System.currentTimeMillis() / 1000);
+                completion.put("model", request.path("model").asText("deepseek-chat"));
+                ObjectNode choice = completion.putArray("choices").addObject();
+                choice.put("index", 0);
+                ObjectNode message = choice.putObject("message");
+                message.put("role", "assistant");
+                message.put("content", content);
+                choice.put("finish_reason", "stop");
+                ObjectNode usage = completion.putObject("usage");
+                usage.put("prompt_tokens", prompt.length());
+                usage.put("completion_tokens", content.length());
+                usage.put("total_tokens", prompt.length() + content.length());
+                return completion;
+            }
+            case "/v1/user/balance": {
+                ObjectNode balance = OBJECT_MAPPER.createObjectNode();
+                balance.put("is_available", true);
+                ObjectNode info = balance.putArray("balance_infos").addObject();
+                info.put("currency", "CNY");
+                info.put("total_balance", "100.00");
+                info.put("granted_balance", "0.00");
+                info.put("topped_up_balance", "100.00");
+                return balance;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private String advice() {
+        StringBuilder advice = new StringBuilder();
+        for (String[] symbol : DEFAULT_SYMBOLS) {
+            String signal = SIGNALS[ThreadLocalRandom.current().nextInt(SIGNALS.length)];
+            advice.append(symbol[0]).append(" (").append(signal).append("): 模拟建议，价格在区间内震荡。风险等级：中。\n");
+        }
+        return advice.toString();
+    }
+
+    private ObjectNode ticker24hr(String symbol, Market market) {
+        BigDecimal price = market.nextPrice();
+        BigDecimal open = BigDecimal.valueOf(market.openPrice).setScale(market.priceScale, RoundingMode.HALF_UP);
+        BigDecimal change = price.subtract(open);
+        ObjectNode ticker = OBJECT_MAPPER.createObjectNode();
+        ticker.put("symbol", symbol);
+        ticker.put("priceChange", change.toPlainString());
+        ticker.put("priceChangePercent", change.multiply(BigDecimal.valueOf(100)).divide(open, 3, RoundingMode.HALF_UP).toPlainString());
+        ticker.put("weightedAvgPrice", price.toPlainString());
+        ticker.put("prevClosePrice", open.toPlainString());
+        ticker.put("lastPrice", price.toPlainString());
+        ticker.put("openPrice", open.toPlainString());
+        ticker.put("highPrice", price.max(open).toPlainString());
+        ticker.put("lowPrice", price.min(open).toPlainString());
+        ticker.put("volume", "12345.67800000");
+        ticker.put("quoteVolume", price.multiply(new BigDecimal("12345.678")).setScale(8, RoundingMode.HALF_UP).toPlainString());
+        long now = System.currentTimeMillis();
+        ticker.put("openTime", now - TimeUnit.DAYS.toMillis(1));
+        ticker.put("closeTime", now);
+        ticker.put("count", 100000);
+        return ticker;
+    }
+
+    private ObjectNode symbolInfo(String symbol, Market market) {
+        ObjectNode info = OBJECT_MAPPER.createObjectNode();
+        info.put("symbol", symbol);
+        info.put("status", "TRADING");
+        info.put("baseAsset", market.baseAsset);
+        info.put("quoteAsset", "USDT");
+        ArrayNode filters = info.putArray("filters");
+        ObjectNode priceFilter = filters.addObject();
+        priceFilter.put("filterType", "PRICE_FILTER");
+        priceFilter.put("tickSize", market.tickSize);
+        ObjectNode lotSize = filters.addObject();
+        lotSize.put("filterType", "LOT_SIZE");
+        lotSize.put("stepSize", market.stepSize);
+        return info;
+    }
+
+    /**
+     * symbols=["BTCUSDT","ETHUSDT"] 指定的交易对，未指定时为全部
+     */
+    private List<String> selectSymbols(Map<String, String> query) {
+        String symbols = query.get("symbols");
+        if (symbols == null) {
+            return new ArrayList<>(markets.keySet());
+        }
+        List<String> selected = new ArrayList<>();
+        for (String symbol : symbols.replaceAll("[\\[\\]\"\\s]", "").split(",")) {
+            if (!symbol.isEmpty()) {
+                selected.add(symbol);
+            }
+        }
+        return selected;
+    }
+
+    private JsonNode stats() {
+        ObjectNode stats = OBJECT_MAPPER.createObjectNode();
+        ObjectNode requests = stats.putObject("requests");
+        requestCounts.forEach((path, count) -> requests.put(path, count.get()));
+        ObjectNode failures = stats.putObject("injectedFailures");
+        failureCounts.forEach((path, count) -> failures.put(path, count.get()));
+        return stats;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws IOException {
+        Map<String, String> query = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int index = pair.indexOf('=');
+            String key = index < 0 ? pair : pair.substring(0, index);
+            String value = index < 0 ? "" : pair.substring(index + 1);
+            query.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return query;
+    }
+
+    private static void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = OBJECT_MAPPER.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = new Options(args);
+        FaultProfile binance = FaultProfile.of(options, "binance", 30, 40);
+        FaultProfile deepSeek = FaultProfile.of(options, "deepseek", 1500, 1000);
+        MockExchangeServer server = new MockExchangeServer(options.getInt("port", 18080), binance, deepSeek,
+                options.getInt("extra-symbols", 0));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("模拟服务请求统计: " + server.stats());
+            server.stop();
+        }));
+        System.out.printf("模拟服务已启动: http://localhost:%d%n", server.getPort());
+        System.out.println("Binance:  " + binance);
+        System.out.println("DeepSeek: " + deepSeek);
+    }
+}
@@ -0,0 +1,46 @@
+package com.noodle.app.trade.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 解析 --key=value 形式的命令行参数，未给出的参数取默认值
+ */
+public class Options {
+
+    private final Map<String, String> values = new LinkedHashMap<>();
+
+    public Options(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("参数格式应为 --key=value: " + arg);
+            }
+            int index = arg.indexOf('=');
+            if (index < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, index), arg.substring(index + 1));
+            }
+        }
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = values.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = values.get(key);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        String value = values.get(key);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+}
@@ -0,0 +1,90 @@
+package com.noodle.app.trade.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noodle.app.trade.model.CryptoCurrency;
+
+/**
+ * Binance 24小时行情解析（BinanceApiService 的包内方法，因此放在同名包下）
+ * - parseCryptoCurrency：已解析为JsonNode的单个行情转换为CryptoCurrency
+ * - parseMarketSnapshot：批量/全市场接口的响应体，从字符串开始解析，tickers 为数组长度（全市场约2000个交易对）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarketDataParsingBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BinanceApiService binanceApiService = new BinanceApiService();
+    private JsonNode ticker;
+
+    /**
+     * 行情数组响应体
+     */
+    @State(Scope.Benchmark)
+    public static class Snapshot {
+        @Param({ "5", "2000" })
+        public int tickers;
+
+        private String body;
+
+        @Setup
+        public void setUp() {
+            StringBuilder builder = new StringBuilder("[");
+            for (int i = 0; i < tickers; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(tickerJson("C" + i + "USDT", 60000 + i));
+            }
+            body = builder.append(']').toString();
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        ticker = objectMapper.readTree(tickerJson("BTCUSDT", 60000));
+    }
+
+    @Benchmark
+    public CryptoCurrency parseCryptoCurrency() {
+        return binanceApiService.parseCryptoCurrency(ticker, "BTCUSDT");
+    }
+
+    @Benchmark
+    public List<CryptoCurrency> parseMarketSnapshot(Snapshot snapshot) throws IOException {
+        return binanceApiService.parseMarketDataArray(objectMapper.readTree(snapshot.body));
+    }
+
+    /**
+     * /api/v3/ticker/24hr 单个交易对的完整响应
+     */
+    private static String tickerJson(String symbol, int price) {
+        return "{\"symbol\":\"" + symbol + "\",\"priceChange\":\"-94.99999800\",\"priceChangePercent\":\"-95.960\","
+                + "\"weightedAvgPrice\":\"0.29628482\",\"prevClosePrice\":\"0.10002000\",\"lastPrice\":\"" + price + ".12000000\","
+                + "\"lastQty\":\"200.00000000\",\"bidPrice\":\"4.00000000\",\"bidQty\":\"100.00000000\","
+                + "\"askPrice\":\"4.00000200\",\"askQty\":\"100.00000000\",\"openPrice\":\"99.00000000\","
+                + "\"highPrice\":\"100.00000000\",\"lowPrice\":\"0.10000000\",\"volume\":\"8913.30000000\","
+                + "\"quoteVolume\":\"15.30000000\",\"openTime\":1499783499040,\"closeTime\":1499869899040,"
+                + "\"firstId\":28385,\"lastId\":28460,\"count\":76}";
+    }
+}
@@ -4,12 +4,15 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -18,11 +21,21 @@ import com.noodle.app.trade.entity.AccountEntity;
 import com.noodle.app.trade.entity.AccountValueHistory;
 import com.noodle.app.trade.entity.CryptoCurrencyEntity;
 import com.noodle.app.trade.entity.HoldingEntity;
+import com.noodle.app.trade.entity.PriceCandleEntity;
+import com.noodle.app.trade.history.LttbDownsampler;
+import com.noodle.app.trade.history.PriceHistoryStore;
+import com.noodle.app.trade.model.CandleInterval;
+import com.noodle.app.trade.model.PricePoint;
 import com.noodle.app.trade.repository.AccountRepository;
 import com.noodle.app.trade.repository.AccountValueHistoryRepository;
 import com.noodle.app.trade.repository.CryptoCurrencyRepository;
 import com.noodle.app.trade.repository.HoldingRepository;
+import com.noodle.app.trade.service.CandleService;
+import com.noodle.app.trade.util.TimeUtils;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @RestController
 @RequestMapping("/api/charts")
 public class ChartController {
@@ -39,14 +52,24 @@ public class ChartController {
     @Autowired
     private AccountValueHistoryRepository accountValueHistoryRepository;
     
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+    
+    @Autowired
+    private CandleService candleService;
+    
     /**
      * 获取指定币种的价格历史数据用于图表展示
      * @param symbol 币种符号
      * @param days 天数
+     * @param window 降采样窗口（如 1m、5m、1h、1d），不传时返回原始数据
+     * @param maxPoints 最多返回的点数，超过时使用LTTB降采样，不传时不限制
      * @return 价格历史数据
      */
     @GetMapping("/price-history")
-    public Map<String, Object> getPriceHistory(@RequestParam String symbol, @RequestParam(defaultValue = "7") int days) {
+    public Map<String, Object> getPriceHistory(@RequestParam String symbol, @RequestParam(defaultValue = "7") int days,
+                                               @RequestParam(required = false) String window,
+                                               @RequestParam(defaultValue = "0") int maxPoints) {
         Map<String, Object> response = new HashMap<>();
         
         try {
@@ -57,22 +80,30 @@ public class ChartController {
             // 处理币种符号，去掉USDT后缀用于数据库查询
             String dbSymbol = symbol;
             if (symbol.endsWith("USDT")) {
-                dbSymbol = symbol.substring(0, symbol.length() - 5);
+                dbSymbol = symbol.substring(0, symbol.length() - 4);
+            }
+            
+            // 指定窗口时由存储端完成降采样，按时间升序排列
+            List<PricePoint> points;
+            if (window != null && !window.isEmpty()) {
+                points = priceHistoryStore.queryWindowed(dbSymbol, startTime, endTime, TimeUtils.parseInterval(window));
+            } else {
+                points = priceHistoryStore.query(dbSymbol, startTime, endTime);
             }
             
-            // 直接使用数据库查询方法获取时间范围内的数据，按时间升序排列
-            List<CryptoCurrencyEntity> entities = cryptoCurrencyRepository.findBySymbolAndLastUpdatedBetweenOrderByLastUpdatedAsc(dbSymbol, startTime, endTime);
+            // 按屏幕可显示的点数降采样，保留峰谷形状
+            points = LttbDownsampler.downsample(points, maxPoints,
+                    point -> TimeUtils.toEpochMilli(point.getTime()),
+                    point -> point.getPrice() != null ? point.getPrice().doubleValue() : 0.0);
             
             // 准备图表数据
             List<Map<String, Object>> chartData = new ArrayList<>();
-            for (CryptoCurrencyEntity entity : entities) {
-                if (entity != null) {
-                    Map<String, Object> dataPoint = new HashMap<>();
-                    dataPoint.put("time", entity.getLastUpdated() != null ? entity.getLastUpdated().toString() : "");
-                    dataPoint.put("price", entity.getPrice());
-                    dataPoint.put("volume", entity.getVolume());
-                    chartData.add(dataPoint);
-                }
+            for (PricePoint point : points) {
+                Map<String, Object> dataPoint = new HashMap<>();
+                dataPoint.put("time", point.getTime() != null ? point.getTime().toString() : "");
+                dataPoint.put("price", point.getPrice());
+                dataPoint.put("volume", point.getVolume());
+                chartData.add(dataPoint);
             }
             
             response.put("success", true);
@@ -86,6 +117,74 @@ public class ChartController {
         return response;
     }
     
+    /**
+     * 获取指定币种的K线数据（OHLCV）
+     * @param symbol 币种符号
+     * @param interval K线周期：1m、5m、1h、1d
+     * @param days 天数
+     * @return K线数据
+     */
+    @GetMapping("/candles")
+    public Map<String, Object> getCandles(@RequestParam String symbol, @RequestParam(defaultValue = "1h") String interval,
+                                          @RequestParam(defaultValue = "7") int days) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            CandleInterval candleInterval = CandleInterval.fromCode(interval);
+            LocalDateTime endTime = TimeUtils.getBeijingTime();
+            LocalDateTime startTime = endTime.minusDays(days);
+            
+            // 去掉USDT后缀用于数据库查询
+            String dbSymbol = symbol.endsWith("USDT") ? symbol.substring(0, symbol.length() - 4) : symbol;
+            
+            List<PriceCandleEntity> candles = candleService.getCandles(dbSymbol, candleInterval, startTime, endTime);
+            
+            List<Map<String, Object>> chartData = new ArrayList<>(candles.size());
+            for (PriceCandleEntity candle : candles) {
+                Map<String, Object> dataPoint = new HashMap<>();
+                dataPoint.put("time", candle.getOpenTime() != null ? candle.getOpenTime().toString() : "");
+                dataPoint.put("open", candle.getOpenPrice());
+                dataPoint.put("high", candle.getHighPrice());
+                dataPoint.put("low", candle.getLowPrice());
+                dataPoint.put("close", candle.getClosePrice());
+                dataPoint.put("volume", candle.getVolume());
+                chartData.add(dataPoint);
+            }
+            
+            response.put("success", true);
+            response.put("symbol", symbol);
+            response.put("interval", candleInterval.getCode());
+            response.put("data", chartData);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", "获取K线数据失败: " + e.getMessage());
+        }
+        
+        return response;
+    }
+    
+    /**
+     * 使用历史行情快照回填K线
+     * @param days 回填天数
+     * @return 回填结果
+     */
+    @PostMapping("/candles/backfill")
+    public Map<String, Object> backfillCandles(@RequestParam(defaultValue = "30") int days) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            LocalDateTime endTime = TimeUtils.getBeijingTime();
+            int written = candleService.backfill(endTime.minusDays(days), endTime);
+            response.put("success", true);
+            response.put("candles", written);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", "回填K线数据失败: " + e.getMessage());
+        }
+        
+        return response;
+    }
+    
     /**
      * 获取指定账户的持仓分布数据用于饼图展示
      * @param accountName 账户名称
@@ -127,6 +226,20 @@ public class ChartController {
                 return response;
             }
             
+            // 一次查询获取所有持仓币种的最新价格 (注意数据库中存储的是不带USDT的符号)
+            Set<String> symbols = new HashSet<>();
+            for (HoldingEntity holding : holdings) {
+                if (holding != null && holding.getSymbol() != null) {
+                    symbols.add(holding.getSymbol());
+                }
+            }
+            Map<String, BigDecimal> latestPrices = new HashMap<>();
+            if (!symbols.isEmpty()) {
+                for (CryptoCurrencyEntity entity : cryptoCurrencyRepository.findLatestBySymbolIn(symbols)) {
+                    latestPrices.put(entity.getSymbol(), entity.getPrice());
+                }
+            }
+            
             // 计算每个持仓的当前价值
             BigDecimal totalValue = BigDecimal.ZERO;
             List<Map<String, Object>> holdingValues = new ArrayList<>();
@@ -136,21 +249,17 @@ public class ChartController {
                     String symbol = holding.getSymbol();
                     BigDecimal quantity = holding.getQuantity();
                     
-                    // 获取当前价格 (注意数据库中存储的是不带USDT的符号)
-                    List<CryptoCurrencyEntity> priceEntities = cryptoCurrencyRepository.findBySymbolOrderByLastUpdatedDesc(symbol);
-                    if (priceEntities != null && !priceEntities.isEmpty() && priceEntities.get(0) != null) {
-                        BigDecimal currentPrice = priceEntities.get(0).getPrice();
-                        if (currentPrice != null) {
-                            BigDecimal value = currentPrice.multiply(quantity);
-                            totalValue = totalValue.add(value);
-                            
-                            Map<String, Object> holdingValue = new HashMap<>();
-                            holdingValue.put("symbol", symbol);
-                            holdingValue.put("quantity", quantity);
-                            holdingValue.put("price", currentPrice);
-                            holdingValue.put("value", value);
-                            holdingValues.add(holdingValue);
-                        }
+                    BigDecimal currentPrice = latestPrices.get(symbol);
+                    if (currentPrice != null) {
+                        BigDecimal value = currentPrice.multiply(quantity);
+                        totalValue = totalValue.add(value);
+                        
+                        Map<String, Object> holdingValue = new HashMap<>();
+                        holdingValue.put("symbol", symbol);
+                        holdingValue.put("quantity", quantity);
+                        holdingValue.put("price", currentPrice);
+                        holdingValue.put("value", value);
+                        holdingValues.add(holdingValue);
                     }
                 }
             }
@@ -183,7 +292,7 @@ public class ChartController {
             response.put("accountName", accountName);
             response.put("data", chartData);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("获取持仓分布数据失败", e);
             response.put("success", false);
             response.put("error", "获取持仓分布数据失败: " + e.getMessage());
         }
@@ -195,10 +304,12 @@ public class ChartController {
      * 获取指定账户的价值历史数据用于图表展示
      * @param accountName 账户名称
      * @param days 天数
+     * @param maxPoints 最多返回的点数，超过时使用LTTB降采样，不传时不限制
      * @return 账户价值历史数据
      */
     @GetMapping("/account-value-history")
-    public Map<String, Object> getAccountValueHistory(@RequestParam String accountName, @RequestParam(defaultValue = "30") int days) {
+    public Map<String, Object> getAccountValueHistory(@RequestParam String accountName, @RequestParam(defaultValue = "30") int days,
+                                                      @RequestParam(defaultValue = "0") int maxPoints) {
         Map<String, Object> response = new HashMap<>();
         
         try {
@@ -209,6 +320,11 @@ public class ChartController {
             // 获取账户价值历史记录
             List<AccountValueHistory> valueHistories = accountValueHistoryRepository.findByAccountNameAndRecordTimeBetweenOrderByRecordTimeAsc(accountName, startTime, endTime);
             
+            // 按屏幕可显示的点数降采样，保留峰谷形状
+            valueHistories = LttbDownsampler.downsample(valueHistories, maxPoints,
+                    history -> history.getRecordTime() != null ? TimeUtils.toEpochMilli(history.getRecordTime()) : 0L,
+                    history -> history.getTotalValue() != null ? history.getTotalValue().doubleValue() : 0.0);
+            
             // 准备图表数据
             List<Map<String, Object>> chartData = new ArrayList<>();
             for (AccountValueHistory history : valueHistories) {
@@ -224,7 +340,7 @@ public class ChartController {
             response.put("accountName", accountName);
             response.put("data", chartData);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("获取账户价值历史数据失败", e);
             response.put("success", false);
             response.put("error", "获取账户价值历史数据失败: " + e.getMessage());
         }
@@ -6,6 +6,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -19,13 +24,20 @@ import org.springframework.web.bind.annotation.RestController;
 import com.noodle.app.trade.entity.CryptoCurrencyEntity;
 import com.noodle.app.trade.model.Account;
 import com.noodle.app.trade.model.CryptoCurrency;
+import com.noodle.app.trade.model.PortfolioValuation;
+import com.noodle.app.trade.model.TradePage;
 import com.noodle.app.trade.model.TradeRecord;
 import com.noodle.app.trade.repository.CryptoCurrencyRepository;
 import com.noodle.app.trade.service.BinanceApiService;
 import com.noodle.app.trade.service.DeepSeekAiService;
+import com.noodle.app.trade.service.PortfolioValuationService;
+import com.noodle.app.trade.service.TradeExportService;
 import com.noodle.app.trade.service.TradeHistoryService;
 import com.noodle.app.trade.service.TradingService;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @RestController
 @RequestMapping("/api/trading")
 public class TradingController {
@@ -39,31 +51,61 @@ public class TradingController {
     @Autowired
     private TradeHistoryService tradeHistoryService;
     
+    @Autowired
+    private TradeExportService tradeExportService;
+    
     @Autowired
     private DeepSeekAiService deepSeekAiService;
     
     @Autowired
     private CryptoCurrencyRepository cryptoCurrencyRepository;
     
+    @Autowired
+    private PortfolioValuationService portfolioValuationService;
+    
     /**
      * 获取指定币种的当前价格
      * @param symbol 币种符号，如 "DOGEUSDT"
      * @return 当前价格
      */
     @GetMapping("/price/{symbol}")
-    public Map<String, Object> getCurrentPrice(@PathVariable String symbol) {
+    public CompletableFuture<Map<String, Object>> getCurrentPrice(@PathVariable String symbol) {
+        // 异步等待Binance响应，不占用Web工作线程
+        return binanceApiService.getCurrentPriceAsync(symbol).handle((price, error) -> {
+            Map<String, Object> response = new HashMap<>();
+            if (error == null) {
+                response.put("success", true);
+                response.put("symbol", symbol);
+                response.put("price", price);
+            } else {
+                response.put("success", false);
+                response.put("error", "获取价格失败: " + rootMessage(error));
+            }
+            return response;
+        });
+    }
+    
+    /**
+     * 获取价格缓存统计信息
+     * @return 命中率等缓存指标
+     */
+    @GetMapping("/price-cache/stats")
+    public Map<String, Object> getPriceCacheStats() {
         Map<String, Object> response = new HashMap<>();
-        
-        try {
-            BigDecimal price = binanceApiService.getCurrentPrice(symbol);
-            response.put("success", true);
-            response.put("symbol", symbol);
-            response.put("price", price);
-        } catch (IOException e) {
-            response.put("success", false);
-            response.put("error", "获取价格失败: " + e.getMessage());
-        }
-        
+        response.put("success", true);
+        response.put("data", binanceApiService.getPriceCacheStats());
+        return response;
+    }
+    
+    /**
+     * 获取订单执行统计信息
+     * @return 执行数、锁竞争、等待时间，以及乐观锁冲突和重试次数
+     */
+    @GetMapping("/orders/stats")
+    public Map<String, Object> getOrderStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", tradingService.getOrderStats());
         return response;
     }
     
@@ -102,29 +144,13 @@ public class TradingController {
         try {
             Account account = tradingService.getAccount(accountName);
             
-            // 计算账户总价值
-            BigDecimal totalValue = account.getBalance();
-            for (Map.Entry<String, BigDecimal> entry : account.getHoldings().entrySet()) {
-                String symbol = entry.getKey();
-                BigDecimal quantity = entry.getValue();
-                
-                if (quantity.compareTo(BigDecimal.ZERO) > 0) {
-                    try {
-                        BigDecimal price = binanceApiService.getCurrentPrice(symbol + "USDT");
-                        BigDecimal holdingValue = price.multiply(quantity);
-                        totalValue = totalValue.add(holdingValue);
-                    } catch (Exception e) {
-                        // 如果无法获取价格，使用默认价格
-                        BigDecimal defaultPrice = BigDecimal.valueOf(100); // 默认价格
-                        BigDecimal holdingValue = defaultPrice.multiply(quantity);
-                        totalValue = totalValue.add(holdingValue);
-                    }
-                }
-            }
+            // 并行获取所有持仓的价格并计算账户总价值
+            PortfolioValuation valuation = portfolioValuationService.valuate(account);
+            account.setTotalValue(valuation.getTotalValue());
             
-            account.setTotalValue(totalValue);
             response.put("success", true);
             response.put("data", account);
+            response.put("valuation", valuation);
         } catch (Exception e) {
             response.put("success", false);
             response.put("error", "获取账户信息失败: " + e.getMessage());
@@ -190,23 +216,22 @@ public class TradingController {
             try {
                 cryptoList = binanceApiService.getMarketData(symbols);
             } catch (Exception e) {
-                System.err.println("从Binance API获取数据失败: " + e.getMessage());
+                log.warn("从Binance API获取{}价格失败，改用数据库数据: {}", symbol, e.getMessage());
                 // 如果从API获取失败，使用数据库中的数据
                 cryptoList = new ArrayList<>();
             }
             
             // 如果API获取失败或没有数据，尝试从数据库获取
             if (cryptoList == null || cryptoList.isEmpty()) {
-                System.out.println("尝试从数据库获取币种数据");
                 // 从数据库获取最新数据
                 String dbSymbol = symbol;
                 if (symbol.endsWith("USDT")) {
-                    dbSymbol = symbol.substring(0, symbol.length() - 5);
+                    dbSymbol = symbol.substring(0, symbol.length() - 4);
                 }
                 
-                List<CryptoCurrencyEntity> entities = cryptoCurrencyRepository.findBySymbolOrderByLastUpdatedDesc(dbSymbol);
-                if (!entities.isEmpty()) {
-                    CryptoCurrencyEntity entity = entities.get(0);
+                Optional<CryptoCurrencyEntity> latest = cryptoCurrencyRepository.findFirstBySymbolOrderByLastUpdatedDesc(dbSymbol);
+                if (latest.isPresent()) {
+                    CryptoCurrencyEntity entity = latest.get();
                     CryptoCurrency crypto = new CryptoCurrency();
                     crypto.setSymbol(entity.getSymbol());
                     crypto.setName(entity.getName());
@@ -216,7 +241,7 @@ public class TradingController {
                     crypto.setVolume(entity.getVolume());
                     crypto.setLastUpdated(entity.getLastUpdated());
                     cryptoList.add(crypto);
-                    System.out.println("从数据库获取到币种数据: " + crypto.getSymbol() + ", 价格: " + crypto.getPrice());
+                    log.debug("从数据库获取到币种数据: symbol={}, price={}", crypto.getSymbol(), crypto.getPrice());
                 }
             }
             
@@ -233,14 +258,12 @@ public class TradingController {
                 return response;
             }
             
-            System.out.println("获取到币种信息: " + crypto.getSymbol() + ", 价格: " + crypto.getPrice());
-            
             TradeRecord tradeRecord = tradingService.executeBuy(accountName, crypto, quantityValue, strategy);
             
             response.put("success", true);
             response.put("data", tradeRecord);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("买入交易失败", e);
             response.put("success", false);
             response.put("error", "买入交易失败: " + e.getMessage());
         }
@@ -305,23 +328,22 @@ public class TradingController {
             try {
                 cryptoList = binanceApiService.getMarketData(symbols);
             } catch (Exception e) {
-                System.err.println("从Binance API获取数据失败: " + e.getMessage());
+                log.warn("从Binance API获取{}价格失败，改用数据库数据: {}", symbol, e.getMessage());
                 // 如果从API获取失败，使用数据库中的数据
                 cryptoList = new ArrayList<>();
             }
             
             // 如果API获取失败或没有数据，尝试从数据库获取
             if (cryptoList == null || cryptoList.isEmpty()) {
-                System.out.println("尝试从数据库获取币种数据");
                 // 从数据库获取最新数据
                 String dbSymbol = symbol;
                 if (symbol.endsWith("USDT")) {
-                    dbSymbol = symbol.substring(0, symbol.length() - 5);
+                    dbSymbol = symbol.substring(0, symbol.length() - 4);
                 }
                 
-                List<CryptoCurrencyEntity> entities = cryptoCurrencyRepository.findBySymbolOrderByLastUpdatedDesc(dbSymbol);
-                if (!entities.isEmpty()) {
-                    CryptoCurrencyEntity entity = entities.get(0);
+                Optional<CryptoCurrencyEntity> latest = cryptoCurrencyRepository.findFirstBySymbolOrderByLastUpdatedDesc(dbSymbol);
+                if (latest.isPresent()) {
+                    CryptoCurrencyEntity entity = latest.get();
                     CryptoCurrency crypto = new CryptoCurrency();
                     crypto.setSymbol(entity.getSymbol());
                     crypto.setName(entity.getName());
@@ -331,7 +353,7 @@ public class TradingController {
                     crypto.setVolume(entity.getVolume());
                     crypto.setLastUpdated(entity.getLastUpdated());
                     cryptoList.add(crypto);
-                    System.out.println("从数据库获取到币种数据: " + crypto.getSymbol() + ", 价格: " + crypto.getPrice());
+                    log.debug("从数据库获取到币种数据: symbol={}, price={}", crypto.getSymbol(), crypto.getPrice());
                 }
             }
             
@@ -348,14 +370,12 @@ public class TradingController {
                 return response;
             }
             
-            System.out.println("获取到币种信息: " + crypto.getSymbol() + ", 价格: " + crypto.getPrice());
-            
             TradeRecord tradeRecord = tradingService.executeSell(accountName, crypto, quantityValue, strategy);
             
             response.put("success", true);
             response.put("data", tradeRecord);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("卖出交易失败", e);
             response.put("success", false);
             response.put("error", "卖出交易失败: " + e.getMessage());
         }
@@ -364,23 +384,30 @@ public class TradingController {
     }
     
     /**
-     * 获取交易历史记录
+     * 获取交易历史记录（游标分页，按交易时间倒序）
      * @param accountName 账户名称
+     * @param cursor 上一页返回的nextCursor，不传时返回最新一页
+     * @param limit 每页数量（最大500）
      * @return 交易历史记录
      */
     @GetMapping("/trade/history/{accountName}")
-    public Map<String, Object> getTradeHistory(@PathVariable String accountName) {
+    public Map<String, Object> getTradeHistory(@PathVariable String accountName,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "50") int limit) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            System.out.println("Fetching trade history for account: " + accountName);
             // 根据账户名称获取交易记录
-            List<TradeRecord> tradeRecords = tradeHistoryService.getTradeRecordsByAccountName(accountName);
-            System.out.println("Trade records count: " + tradeRecords.size());
+            TradePage page = tradeHistoryService.getTradePage(accountName, cursor, limit);
             response.put("success", true);
-            response.put("data", tradeRecords);
+            response.put("data", page.getRecords());
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasMore", page.isHasMore());
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("获取交易历史失败", e);
             response.put("success", false);
             response.put("error", "获取交易历史失败: " + e.getMessage());
         }
@@ -389,20 +416,28 @@ public class TradingController {
     }
     
     /**
-     * 获取所有交易历史记录
-     * @return 所有交易历史记录
+     * 获取所有账户的交易历史记录（游标分页，按交易时间倒序）
+     * @param cursor 上一页返回的nextCursor，不传时返回最新一页
+     * @param limit 每页数量（最大500）
+     * @return 交易历史记录
      */
     @GetMapping("/trade/history/all")
-    public Map<String, Object> getAllTradeHistory() {
+    public Map<String, Object> getAllTradeHistory(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "50") int limit) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            List<TradeRecord> tradeRecords = tradeHistoryService.getAllTradeRecords();
+            TradePage page = tradeHistoryService.getTradePage(null, cursor, limit);
             response.put("success", true);
-            response.put("data", tradeRecords);
-            response.put("count", tradeRecords.size());
+            response.put("data", page.getRecords());
+            response.put("count", page.getRecords().size());
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasMore", page.isHasMore());
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("获取所有交易记录失败", e);
             response.put("success", false);
             response.put("error", "获取所有交易记录失败: " + e.getMessage());
         }
@@ -411,23 +446,46 @@ public class TradingController {
     }
     
     /**
-     * 获取所有加密货币的实时市场数据
-     * @return 加密货币市场数据列表
+     * 流式导出交易记录，按交易时间升序逐行写入响应，不受记录总数影响
+     * @param format 导出格式：csv、ndjson
+     * @param accountName 账户名称，不传时导出所有账户
+     * @param response HTTP响应
+     * @throws IOException 写入响应失败
      */
-    @GetMapping("/market-data")
-    public Map<String, Object> getMarketData() {
-        Map<String, Object> response = new HashMap<>();
-        
+    @GetMapping("/trade/export")
+    public void exportTradeHistory(@RequestParam(defaultValue = "csv") String format,
+                                   @RequestParam(required = false) String accountName,
+                                   HttpServletResponse response) throws IOException {
+        TradeExportService.Format exportFormat;
         try {
-            List<CryptoCurrency> marketData = binanceApiService.getAllMarketData();
-            response.put("success", true);
-            response.put("data", marketData);
-        } catch (IOException e) {
-            response.put("success", false);
-            response.put("error", "获取市场数据失败: " + e.getMessage());
+            exportFormat = TradeExportService.Format.fromValue(format);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
         }
         
-        return response;
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + TradeExportService.fileName(exportFormat, accountName) + "\"");
+        tradeExportService.export(exportFormat, accountName, response.getOutputStream());
+    }
+    
+    /**
+     * 获取所有加密货币的实时市场数据
+     * @return 加密货币市场数据列表
+     */
+    @GetMapping("/market-data")
+    public CompletableFuture<Map<String, Object>> getMarketData() {
+        return binanceApiService.getAllMarketDataAsync().handle((marketData, error) -> {
+            Map<String, Object> response = new HashMap<>();
+            if (error == null) {
+                response.put("success", true);
+                response.put("data", marketData);
+            } else {
+                response.put("success", false);
+                response.put("error", "获取市场数据失败: " + rootMessage(error));
+            }
+            return response;
+        });
     }
     
     /**
@@ -635,4 +693,14 @@ public class TradingController {
         
         return response;
     }
-}
\ No newline at end of file
+    
+    /**
+     * 获取异步调用异常的原始错误信息
+     * @param error 异常
+     * @return 错误信息
+     */
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage();
+    }
+}
@@ -0,0 +1,416 @@
+package com.noodle.app.trade.book;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.noodle.app.trade.service.PnlLedgerService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 内存账户簿（写回缓存）
+ * 账户余额和持仓以内存为准：成交在账户锁内校验并写入日志，然后修改内存状态，日志落盘后返回；
+ * 数据库由调用方定期通过 snapshot() 取出变更批量写入（同一账户多次成交合并为一次写入）。
+ *
+ * 并发：
+ * - 同一账户的成交在账户对象上串行，不同账户并行
+ * - 成交持有读锁，snapshot() 持有写锁，保证快照中的账户状态、成交列表和日志序号三者一致：
+ *   快照序号之前的成交全部包含在快照中，之后的成交全部不包含
+ *
+ * 刷盘失败：成交在刷盘前已经修改了内存账户，同一账户之后的成交可能已经基于它执行，无法撤销，
+ * 因此仍按已成交返回（随下一次写回进入数据库，写回前进程崩溃会丢失）；
+ * 之后的新订单在修改任何状态之前先重新刷盘，刷盘恢复之前全部拒绝
+ */
+@Slf4j
+public class AccountBook {
+
+    private final AccountJournal journal;
+    private final Map<String, BookAccount> accounts = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyAccounts = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<JournalEntry> pendingTrades = new ConcurrentLinkedQueue<>();
+    private final ReentrantReadWriteLock barrier = new ReentrantReadWriteLock();
+    private final LongAdder syncFailures = new LongAdder();
+    private volatile boolean syncFailed;
+
+    // 上一次写入失败的成交，下一次快照时放在最前面重新写入
+    private List<JournalEntry> carriedTrades = Collections.emptyList();
+
+    public AccountBook(AccountJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * 单个币种的持仓
+     */
+    public static final class Position {
+        private final BigDecimal quantity;
+        private final BigDecimal holdCost;
+
+        public Position(BigDecimal quantity, BigDecimal holdCost) {
+            this.quantity = quantity != null ? quantity : BigDecimal.ZERO;
+            this.holdCost = holdCost != null ? holdCost : BigDecimal.ZERO;
+        }
+
+        public BigDecimal getQuantity() {
+            return quantity;
+        }
+
+        public BigDecimal getHoldCost() {
+            return holdCost;
+        }
+    }
+
+    /**
+     * 账户状态的不可变副本
+     */
+    public static final class AccountState {
+        private final long accountId;
+        private final String accountName;
+        private final BigDecimal balance;
+        private final Map<String, Position> positions;
+
+        AccountState(long accountId, String accountName, BigDecimal balance, Map<String, Position> positions) {
+            this.accountId = accountId;
+            this.accountName = accountName;
+            this.balance = balance;
+            this.positions = Collections.unmodifiableMap(positions);
+        }
+
+        public long getAccountId() {
+            return accountId;
+        }
+
+        public String getAccountName() {
+            return accountName;
+        }
+
+        public BigDecimal getBalance() {
+            return balance;
+        }
+
+        public Map<String, Position> getPositions() {
+            return positions;
+        }
+    }
+
+    /**
+     * 待写入数据库的变更
+     */
+    public static final class Snapshot {
+        private final long seq;
+        private final List<AccountState> accounts;
+        private final List<JournalEntry> trades;
+
+        Snapshot(long seq, List<AccountState> accounts, List<JournalEntry> trades) {
+            this.seq = seq;
+            this.accounts = accounts;
+            this.trades = trades;
+        }
+
+        /**
+         * 快照包含的最大日志序号，写入数据库后作为检查点
+         */
+        public long getSeq() {
+            return seq;
+        }
+
+        public List<AccountState> getAccounts() {
+            return accounts;
+        }
+
+        public List<JournalEntry> getTrades() {
+            return trades;
+        }
+
+        public boolean isEmpty() {
+            return accounts.isEmpty() && trades.isEmpty();
+        }
+    }
+
+    private static final class BookAccount {
+        private final long id;
+        private final String name;
+        private BigDecimal balance;
+        private final Map<String, Position> positions;
+
+        private BookAccount(long id, String name, BigDecimal balance, Map<String, Position> positions) {
+            this.id = id;
+            this.name = name;
+            this.balance = balance != null ? balance : BigDecimal.ZERO;
+            this.positions = positions;
+        }
+
+        private AccountState copy() {
+            return new AccountState(id, name, balance, new HashMap<>(positions));
+        }
+    }
+
+    /**
+     * 加载（或替换）一个账户，用于启动时从数据库加载和账户重置后重新加载
+     * @param accountId 账户ID
+     * @param accountName 账户名称
+     * @param balance 余额
+     * @param positions 币种 -> 持仓
+     */
+    public void load(long accountId, String accountName, BigDecimal balance, Map<String, Position> positions) {
+        Map<String, Position> copy = new HashMap<>();
+        if (positions != null) {
+            copy.putAll(positions);
+        }
+        accounts.put(accountName, new BookAccount(accountId, accountName, balance, copy));
+    }
+
+    /**
+     * 移除账户（账户删除后调用）
+     */
+    public void remove(String accountName) {
+        BookAccount account = accounts.remove(accountName);
+        if (account != null) {
+            dirtyAccounts.remove(account.id);
+        }
+    }
+
+    /**
+     * 重放数据库检查点之后的日志，恢复崩溃前未写入数据库的成交
+     * 必须在加载全部账户之后、接受新成交之前调用
+     * @param checkpointSeq 数据库中记录的已写入序号
+     * @return 重放的成交数
+     * @throws IllegalStateException 日志缺少检查点之后的记录（日志文件丢失或被提前删除），无法恢复
+     */
+    public long recover(long checkpointSeq) {
+        journal.advanceTo(checkpointSeq);
+        long[] expected = { checkpointSeq + 1 };
+        return journal.replay(checkpointSeq, entry -> {
+            if (entry.getSeq() != expected[0]) {
+                throw new IllegalStateException("账户日志缺少序号 " + expected[0] + " 到 " + (entry.getSeq() - 1)
+                        + " 的记录，无法从检查点 " + checkpointSeq + " 恢复");
+            }
+            expected[0]++;
+            BookAccount account = accounts.get(entry.getAccountName());
+            if (account == null || account.id != entry.getAccountId()) {
+                // 账户已被删除（或删除后重建），删除前的成交都已写入数据库，不会出现在检查点之后
+                return;
+            }
+            apply(account, entry);
+            pendingTrades.add(entry);
+            dirtyAccounts.add(account.id);
+        });
+    }
+
+    /**
+     * 买入
+     * @return 带日志序号的成交，返回时日志已落盘（刷盘失败时仍按已成交返回）
+     * @throws RuntimeException 账户不存在、余额不足，或之前的刷盘失败且仍未恢复
+     */
+    public JournalEntry buy(String accountName, String symbol, BigDecimal price, BigDecimal quantity, String strategy) {
+        requireJournal();
+        JournalEntry entry;
+        barrier.readLock().lock();
+        try {
+            BookAccount account = requireAccount(accountName);
+            synchronized (account) {
+                BigDecimal amount = price.multiply(quantity);
+                if (account.balance.compareTo(amount) < 0) {
+                    throw new RuntimeException("余额不足，无法完成交易");
+                }
+                entry = record(account, new JournalEntry(0, JournalEntry.BUY, LocalDateTime.now(), account.id, accountName,
+                        symbol, price, quantity, amount, BigDecimal.ZERO, strategy));
+            }
+        } finally {
+            barrier.readLock().unlock();
+        }
+        sync(entry);
+        return entry;
+    }
+
+    /**
+     * 卖出，持仓成本按平均成本法扣减
+     * @return 带日志序号的成交，返回时日志已落盘（刷盘失败时仍按已成交返回）
+     * @throws RuntimeException 账户不存在、持仓不足，或之前的刷盘失败且仍未恢复
+     */
+    public JournalEntry sell(String accountName, String symbol, BigDecimal price, BigDecimal quantity, String strategy) {
+        requireJournal();
+        JournalEntry entry;
+        barrier.readLock().lock();
+        try {
+            BookAccount account = requireAccount(accountName);
+            synchronized (account) {
+                Position position = account.positions.get(symbol);
+                if (position == null || position.quantity.compareTo(quantity) < 0) {
+                    throw new RuntimeException("持仓不足，无法完成交易");
+                }
+                BigDecimal amount = price.multiply(quantity);
+                BigDecimal costBasis = PnlLedgerService.costBasis(position.quantity, position.holdCost, quantity);
+                entry = record(account, new JournalEntry(0, JournalEntry.SELL, LocalDateTime.now(), account.id, accountName,
+                        symbol, price, quantity, amount, costBasis, strategy));
+            }
+        } finally {
+            barrier.readLock().unlock();
+        }
+        sync(entry);
+        return entry;
+    }
+
+    /**
+     * 读取账户当前状态
+     * @return 账户状态，不存在时返回null
+     */
+    public AccountState get(String accountName) {
+        BookAccount account = accounts.get(accountName);
+        if (account == null) {
+            return null;
+        }
+        synchronized (account) {
+            return account.copy();
+        }
+    }
+
+    /**
+     * 取出自上次快照以来的变更：被修改过的账户的完整状态，以及按日志顺序排列的成交
+     * 写入数据库失败时调用 requeue 放回
+     */
+    public Snapshot snapshot() {
+        barrier.writeLock().lock();
+        try {
+            List<JournalEntry> trades = new ArrayList<>(carriedTrades);
+            carriedTrades = Collections.emptyList();
+            JournalEntry trade;
+            while ((trade = pendingTrades.poll()) != null) {
+                trades.add(trade);
+            }
+
+            List<AccountState> states = new ArrayList<>(dirtyAccounts.size());
+            if (!dirtyAccounts.isEmpty()) {
+                Set<Long> ids = new HashSet<>(dirtyAccounts);
+                dirtyAccounts.clear();
+                for (BookAccount account : accounts.values()) {
+                    if (ids.contains(account.id)) {
+                        states.add(account.copy());
+                    }
+                }
+            }
+            return new Snapshot(journal.lastSeq(), states, trades);
+        } finally {
+            barrier.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 快照写入数据库失败，放回待写入队列（账户状态在下一次快照时重新读取）
+     */
+    public void requeue(Snapshot snapshot) {
+        barrier.writeLock().lock();
+        try {
+            carriedTrades = snapshot.trades;
+            for (AccountState state : snapshot.accounts) {
+                if (accounts.containsKey(state.accountName)) {
+                    dirtyAccounts.add(state.accountId);
+                }
+            }
+        } finally {
+            barrier.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 暂停所有成交，用于需要和数据库直接同步的账户操作（创建、重置、删除）
+     */
+    public void lockExclusive() {
+        barrier.writeLock().lock();
+    }
+
+    public void unlockExclusive() {
+        barrier.writeLock().unlock();
+    }
+
+    public AccountJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * 获取账户簿统计
+     * @return 账户数、待写入账户数和成交数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("accounts", accounts.size());
+        stats.put("dirtyAccounts", dirtyAccounts.size());
+        stats.put("pendingTrades", pendingTrades.size() + carriedTrades.size());
+        stats.put("syncFailures", syncFailures.sum());
+        stats.put("journal", journal.getStats());
+        return stats;
+    }
+
+    private BookAccount requireAccount(String accountName) {
+        BookAccount account = accounts.get(accountName);
+        if (account == null) {
+            throw new RuntimeException("账户不存在: " + accountName);
+        }
+        return account;
+    }
+
+    /**
+     * 上一次刷盘失败时，先把之前的日志刷盘成功再受理新订单
+     */
+    private void requireJournal() {
+        if (syncFailed) {
+            journal.sync(journal.lastSeq());
+            syncFailed = false;
+        }
+    }
+
+    /**
+     * 等待成交落盘；失败时成交已生效不能撤销，记录失败后按已成交返回
+     */
+    private void sync(JournalEntry entry) {
+        try {
+            journal.sync(entry.getSeq());
+        } catch (RuntimeException e) {
+            syncFailed = true;
+            syncFailures.increment();
+            log.error("账户日志刷盘失败，成交 {} 已受理并等待写回数据库，刷盘恢复前拒绝新订单", entry.getSeq(), e);
+        }
+    }
+
+    /**
+     * 写日志并修改内存状态，调用方持有账户锁
+     */
+    private JournalEntry record(BookAccount account, JournalEntry trade) {
+        JournalEntry entry = journal.append(trade);
+        apply(account, entry);
+        pendingTrades.add(entry);
+        dirtyAccounts.add(account.id);
+        return entry;
+    }
+
+    private static void apply(BookAccount account, JournalEntry entry) {
+        Position position = account.positions.get(entry.getSymbol());
+        BigDecimal quantity = position != null ? position.quantity : BigDecimal.ZERO;
+        BigDecimal holdCost = position != null ? position.holdCost : BigDecimal.ZERO;
+        if (entry.isBuy()) {
+            account.balance = account.balance.subtract(entry.getAmount());
+            account.positions.put(entry.getSymbol(),
+                    new Position(quantity.add(entry.getQuantity()), holdCost.add(entry.getAmount())));
+        } else {
+            account.balance = account.balance.add(entry.getAmount());
+            BigDecimal remaining = quantity.subtract(entry.getQuantity());
+            if (remaining.signum() <= 0) {
+                account.positions.remove(entry.getSymbol());
+            } else {
+                account.positions.put(entry.getSymbol(), new Position(remaining, holdCost.subtract(entry.getCostBasis())));
+            }
+        }
+    }
+}
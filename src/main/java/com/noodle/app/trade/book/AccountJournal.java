@@ -0,0 +1,62 @@
+package com.noodle.app.trade.book;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 账户簿的追加写日志
+ * 成交先写日志再修改内存账户，日志序号单调递增；数据库中记录已写入的最大序号（检查点），
+ * 重启时从数据库加载账户后重放检查点之后的日志即可恢复未写入数据库的成交
+ */
+public interface AccountJournal extends Closeable {
+
+    /**
+     * 追加一笔成交，分配日志序号
+     * 返回时数据已写入操作系统，但不保证已落盘，需要持久化时调用 sync
+     * @param entry 成交（序号被忽略）
+     * @return 带序号的成交
+     */
+    JournalEntry append(JournalEntry entry);
+
+    /**
+     * 等待指定序号及之前的日志落盘
+     * 并发调用会合并为一次刷盘（group commit）
+     * @param seq 日志序号
+     */
+    void sync(long seq);
+
+    /**
+     * 按顺序重放指定序号之后的日志
+     * @param afterSeq 起始序号（不含）
+     * @param consumer 成交处理
+     * @return 重放的条数
+     */
+    long replay(long afterSeq, Consumer<JournalEntry> consumer);
+
+    /**
+     * 丢弃指定序号及之前的日志（这些成交已写入数据库）
+     * @param uptoSeq 已写入数据库的最大序号
+     */
+    void compact(long uptoSeq);
+
+    /**
+     * 最后分配的日志序号
+     */
+    long lastSeq();
+
+    /**
+     * 日志被压缩为空后序号从检查点继续，保证新分配的序号大于数据库中记录的检查点
+     * @param seq 已使用过的最大序号
+     */
+    void advanceTo(long seq);
+
+    /**
+     * 获取日志统计
+     * @return 序号、文件大小、刷盘次数等指标
+     */
+    Map<String, Object> getStats();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,295 @@
+package com.noodle.app.trade.book;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于单个文件的账户日志
+ * 每条记录为 [长度 int][CRC32 int][内容]，内容见 JournalEntry.writeTo。
+ * 打开时校验全部记录，末尾不完整或校验失败的记录（写入中途崩溃）被截断。
+ * 刷盘采用group commit：等待落盘的线程中只有一个调用 force，其余线程的日志随同一次刷盘落盘。
+ */
+@Slf4j
+public class FileAccountJournal implements AccountJournal {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final boolean fsync;
+    private final long compactThresholdBytes;
+
+    // 锁顺序：syncLock -> appendLock
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+
+    private FileChannel channel;
+    private volatile long lastSeq;
+    private volatile long durableSeq;
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    /**
+     * @param path 日志文件
+     * @param fsync sync 时是否调用 force 落盘；关闭时只保证写入操作系统缓存
+     * @param compactThresholdBytes 文件超过该大小时压缩时重写文件，去掉已写入数据库的记录
+     */
+    public FileAccountJournal(Path path, boolean fsync, long compactThresholdBytes) {
+        this.path = path;
+        this.fsync = fsync;
+        this.compactThresholdBytes = compactThresholdBytes;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            long[] scanned = scan(path, 0, null);
+            long validLength = scanned[0];
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() > validLength) {
+                log.warn("账户日志末尾存在不完整的记录，截断 {} 字节: {}", channel.size() - validLength, path);
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+            channel.position(validLength);
+            this.lastSeq = scanned[1];
+            this.durableSeq = lastSeq;
+        } catch (IOException e) {
+            throw new IllegalStateException("打开账户日志失败: " + path, e);
+        }
+        log.info("账户日志已打开: {}, 最后序号 {}", path, lastSeq);
+    }
+
+    @Override
+    public JournalEntry append(JournalEntry entry) {
+        synchronized (appendLock) {
+            JournalEntry sequenced = entry.withSeq(lastSeq + 1);
+            try {
+                writeRecord(channel, sequenced);
+            } catch (IOException e) {
+                throw new IllegalStateException("写入账户日志失败: " + path, e);
+            }
+            lastSeq = sequenced.getSeq();
+            appends.increment();
+            return sequenced;
+        }
+    }
+
+    @Override
+    public void sync(long seq) {
+        if (!fsync || seq <= durableSeq) {
+            return;
+        }
+        synchronized (syncLock) {
+            // 等锁期间其他线程的刷盘可能已经包含了这条日志
+            if (seq <= durableSeq) {
+                return;
+            }
+            FileChannel current;
+            long target;
+            synchronized (appendLock) {
+                current = channel;
+                target = lastSeq;
+            }
+            try {
+                current.force(false);
+            } catch (IOException e) {
+                throw new IllegalStateException("账户日志刷盘失败: " + path, e);
+            }
+            durableSeq = target;
+            syncs.increment();
+        }
+    }
+
+    @Override
+    public long replay(long afterSeq, Consumer<JournalEntry> consumer) {
+        synchronized (appendLock) {
+            try {
+                return scan(path, afterSeq, consumer)[2];
+            } catch (IOException e) {
+                throw new IllegalStateException("读取账户日志失败: " + path, e);
+            }
+        }
+    }
+
+    @Override
+    public void compact(long uptoSeq) {
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                try {
+                    if (uptoSeq >= lastSeq) {
+                        // 全部成交已写入数据库，直接清空
+                        if (channel.size() > 0) {
+                            channel.truncate(0);
+                            channel.force(true);
+                            compactions.increment();
+                        }
+                    } else if (channel.size() >= compactThresholdBytes) {
+                        rewrite(uptoSeq);
+                        compactions.increment();
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("压缩账户日志失败: " + path, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public long lastSeq() {
+        return lastSeq;
+    }
+
+    @Override
+    public void advanceTo(long seq) {
+        synchronized (appendLock) {
+            if (seq > lastSeq) {
+                lastSeq = seq;
+                durableSeq = Math.max(durableSeq, seq);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long size;
+        synchronized (appendLock) {
+            try {
+                size = channel.isOpen() ? channel.size() : 0;
+            } catch (IOException e) {
+                size = -1;
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("type", "file");
+        stats.put("lastSeq", lastSeq);
+        stats.put("durableSeq", durableSeq);
+        stats.put("sizeBytes", size);
+        stats.put("appends", appends.sum());
+        stats.put("syncs", syncs.sum());
+        stats.put("compactions", compactions.sum());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                try {
+                    if (channel.isOpen()) {
+                        channel.force(true);
+                        channel.close();
+                    }
+                } catch (IOException e) {
+                    log.warn("关闭账户日志失败: {}", path, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 把序号大于uptoSeq的记录写入临时文件，落盘后原子替换日志文件
+     */
+    private void rewrite(long uptoSeq) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long[] kept = new long[1];
+            scan(path, uptoSeq, entry -> {
+                try {
+                    writeRecord(out, entry);
+                    kept[0]++;
+                } catch (IOException e) {
+                    throw new IllegalStateException("写入账户日志临时文件失败: " + tmp, e);
+                }
+            });
+            out.force(true);
+            log.info("账户日志压缩: 保留 {} 条未写入数据库的记录", kept[0]);
+        }
+        channel.close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        durableSeq = lastSeq;
+    }
+
+    private static void writeRecord(FileChannel out, JournalEntry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        entry.writeTo(new DataOutputStream(bytes));
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * 顺序读取日志，遇到不完整或校验失败的记录时停止
+     * @return [有效长度, 最后序号, 重放条数]
+     */
+    private static long[] scan(Path path, long afterSeq, Consumer<JournalEntry> consumer) throws IOException {
+        long validLength = 0;
+        long lastSeq = 0;
+        long replayed = 0;
+        if (!Files.exists(path)) {
+            return new long[] { validLength, lastSeq, replayed };
+        }
+        try (InputStream stream = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) {
+                        break;
+                    }
+                    checksum = in.readInt();
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                JournalEntry entry = JournalEntry.readFrom(new DataInputStream(new ByteArrayInputStream(payload)));
+                validLength += HEADER_SIZE + length;
+                lastSeq = entry.getSeq();
+                if (consumer != null && entry.getSeq() > afterSeq) {
+                    consumer.accept(entry);
+                    replayed++;
+                }
+            }
+        }
+        return new long[] { validLength, lastSeq, replayed };
+    }
+}
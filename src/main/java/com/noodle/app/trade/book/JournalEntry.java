@@ -0,0 +1,145 @@
+package com.noodle.app.trade.book;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.noodle.app.trade.config.LocalDateTimeConverter;
+
+/**
+ * 账户日志中的一笔成交
+ * 记录重放所需的全部信息：重放时不重新校验余额和持仓，按日志内容直接应用到账户
+ */
+public final class JournalEntry {
+
+    public static final String BUY = "BUY";
+    public static final String SELL = "SELL";
+
+    private static final LocalDateTimeConverter TIME_CONVERTER = new LocalDateTimeConverter();
+
+    private final long seq;
+    private final String tradeType;
+    private final LocalDateTime tradeTime;
+    private final long accountId;
+    private final String accountName;
+    private final String symbol;
+    private final BigDecimal price;
+    private final BigDecimal quantity;
+    private final BigDecimal amount;
+    // 卖出部分的持仓成本（平均成本法），买入时为0
+    private final BigDecimal costBasis;
+    private final String strategy;
+
+    public JournalEntry(long seq, String tradeType, LocalDateTime tradeTime, long accountId, String accountName, String symbol,
+                        BigDecimal price, BigDecimal quantity, BigDecimal amount, BigDecimal costBasis, String strategy) {
+        this.seq = seq;
+        this.tradeType = tradeType;
+        this.tradeTime = tradeTime;
+        this.accountId = accountId;
+        this.accountName = accountName;
+        this.symbol = symbol;
+        this.price = price;
+        this.quantity = quantity;
+        this.amount = amount;
+        this.costBasis = costBasis != null ? costBasis : BigDecimal.ZERO;
+        this.strategy = strategy;
+    }
+
+    /**
+     * 复制一份并设置日志序号（由日志在追加时分配）
+     */
+    public JournalEntry withSeq(long newSeq) {
+        return new JournalEntry(newSeq, tradeType, tradeTime, accountId, accountName, symbol, price, quantity, amount,
+                costBasis, strategy);
+    }
+
+    public boolean isBuy() {
+        return BUY.equals(tradeType);
+    }
+
+    /**
+     * 卖出产生的已实现盈亏
+     */
+    public BigDecimal realizedPnl() {
+        return isBuy() ? BigDecimal.ZERO : amount.subtract(costBasis);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(seq);
+        out.writeBoolean(isBuy());
+        out.writeLong(TIME_CONVERTER.convertToDatabaseColumn(tradeTime));
+        out.writeLong(accountId);
+        out.writeUTF(accountName);
+        out.writeUTF(symbol);
+        out.writeUTF(price.toPlainString());
+        out.writeUTF(quantity.toPlainString());
+        out.writeUTF(amount.toPlainString());
+        out.writeUTF(costBasis.toPlainString());
+        out.writeBoolean(strategy != null);
+        if (strategy != null) {
+            out.writeUTF(strategy);
+        }
+    }
+
+    static JournalEntry readFrom(DataInput in) throws IOException {
+        long seq = in.readLong();
+        String tradeType = in.readBoolean() ? BUY : SELL;
+        LocalDateTime tradeTime = TIME_CONVERTER.convertToEntityAttribute(in.readLong());
+        long accountId = in.readLong();
+        String accountName = in.readUTF();
+        String symbol = in.readUTF();
+        BigDecimal price = new BigDecimal(in.readUTF());
+        BigDecimal quantity = new BigDecimal(in.readUTF());
+        BigDecimal amount = new BigDecimal(in.readUTF());
+        BigDecimal costBasis = new BigDecimal(in.readUTF());
+        String strategy = in.readBoolean() ? in.readUTF() : null;
+        return new JournalEntry(seq, tradeType, tradeTime, accountId, accountName, symbol, price, quantity, amount,
+                costBasis, strategy);
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public String getTradeType() {
+        return tradeType;
+    }
+
+    public LocalDateTime getTradeTime() {
+        return tradeTime;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public String getAccountName() {
+        return accountName;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+}
@@ -0,0 +1,462 @@
+package com.noodle.app.trade.book;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import com.noodle.app.trade.config.LocalDateTimeConverter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 内存映射的定长记录日志
+ * 日志目录下按编号存放段文件（journal-000001.seg ...），每个段固定 recordsPerSegment 条记录，创建时映射整个文件；
+ * 段写满后落盘并切换到下一个段。每条记录固定 RECORD_SIZE 字节，最后4字节为前面内容的CRC32：
+ *
+ * <pre>
+ *   0  seq         long
+ *   8  type        byte   1=BUY 2=SELL
+ *   9  tradeTime   long   北京时间毫秒
+ *  17  accountId   long
+ *  25  price/quantity/amount/costBasis  各17字节：16字节补码unscaledValue + 1字节scale
+ *  93  accountName 1字节长度 + 63字节UTF-8
+ * 157  symbol      1字节长度 + 23字节UTF-8
+ * 181  strategy    1字节长度(-1表示null) + 63字节UTF-8
+ * 252  crc32       int
+ * </pre>
+ *
+ * 新段文件全部为0，打开时从最后一个段的开头向后扫描，遇到序号为0、序号不连续或CRC不匹配的记录即为写入位置，
+ * 之后的内容（崩溃时写了一半的记录）被清零。追加只写映射内存，sync 时调用 force 落盘，并发的 sync 合并为一次。
+ */
+@Slf4j
+public class MappedTradeJournal implements AccountJournal {
+
+    static final int RECORD_SIZE = 256;
+
+    private static final int DECIMAL_SIZE = 17;
+    private static final int NAME_SIZE = 64;
+    private static final int SYMBOL_SIZE = 24;
+    private static final int STRATEGY_SIZE = 64;
+    private static final int CRC_OFFSET = RECORD_SIZE - 4;
+    private static final byte TYPE_BUY = 1;
+    private static final byte TYPE_SELL = 2;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d+)\\.seg");
+    private static final LocalDateTimeConverter TIME_CONVERTER = new LocalDateTimeConverter();
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final boolean fsync;
+    private final int retainSegments;
+
+    // 锁顺序：syncLock -> appendLock
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+
+    // 已写满的段：编号 -> 段内最后序号
+    private final TreeMap<Integer, Long> closedSegments = new TreeMap<>();
+    private int currentIndex;
+    private MappedByteBuffer current;
+    private int currentCount;
+
+    private volatile long lastSeq;
+    private volatile long durableSeq;
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder rolls = new LongAdder();
+    private final LongAdder deletedSegments = new LongAdder();
+
+    /**
+     * @param directory 段文件目录
+     * @param recordsPerSegment 每个段的记录数
+     * @param fsync sync 时是否调用 force 落盘
+     * @param retainSegments 已写入数据库的段额外保留的个数，用于从旧的数据库备份向前恢复
+     */
+    public MappedTradeJournal(Path directory, int recordsPerSegment, boolean fsync, int retainSegments) {
+        this.directory = directory;
+        this.recordsPerSegment = Math.max(1, recordsPerSegment);
+        this.fsync = fsync;
+        this.retainSegments = Math.max(0, retainSegments);
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (IOException e) {
+            throw new IllegalStateException("打开交易日志失败: " + directory, e);
+        }
+        this.durableSeq = lastSeq;
+        log.info("交易日志已打开: {}, {} 个段, 最后序号 {}", directory, closedSegments.size() + 1, lastSeq);
+    }
+
+    @Override
+    public JournalEntry append(JournalEntry entry) {
+        synchronized (appendLock) {
+            JournalEntry sequenced = entry.withSeq(lastSeq + 1);
+            // 先编码再写入，字段超长时不占用日志位置
+            ByteBuffer record = encode(sequenced);
+            try {
+                if (currentCount >= recordsPerSegment) {
+                    roll();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("创建交易日志段失败: " + directory, e);
+            }
+            current.position(currentCount * RECORD_SIZE);
+            current.put(record);
+            currentCount++;
+            lastSeq = sequenced.getSeq();
+            appends.increment();
+            return sequenced;
+        }
+    }
+
+    @Override
+    public void sync(long seq) {
+        if (!fsync || seq <= durableSeq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (seq <= durableSeq) {
+                return;
+            }
+            MappedByteBuffer buffer;
+            long target;
+            synchronized (appendLock) {
+                buffer = current;
+                target = lastSeq;
+            }
+            // 写满的段在切换时已经落盘，这里只需要刷当前段
+            buffer.force();
+            durableSeq = target;
+            syncs.increment();
+        }
+    }
+
+    @Override
+    public long replay(long afterSeq, Consumer<JournalEntry> consumer) {
+        synchronized (appendLock) {
+            long replayed = 0;
+            try {
+                for (Path segment : listSegments().values()) {
+                    replayed += readSegment(segment, afterSeq, consumer);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("读取交易日志失败: " + directory, e);
+            }
+            return replayed;
+        }
+    }
+
+    @Override
+    public void compact(long uptoSeq) {
+        synchronized (appendLock) {
+            // 只删除已写满、且全部记录都已写入数据库的段，保留最近的retainSegments个
+            List<Integer> flushed = new ArrayList<>();
+            for (Map.Entry<Integer, Long> segment : closedSegments.entrySet()) {
+                if (segment.getValue() <= uptoSeq) {
+                    flushed.add(segment.getKey());
+                }
+            }
+            for (int i = 0; i < flushed.size() - retainSegments; i++) {
+                Integer index = flushed.get(i);
+                try {
+                    Files.deleteIfExists(segmentPath(index));
+                    closedSegments.remove(index);
+                    deletedSegments.increment();
+                } catch (IOException e) {
+                    log.warn("删除交易日志段失败: {}", segmentPath(index), e);
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public long lastSeq() {
+        return lastSeq;
+    }
+
+    @Override
+    public void advanceTo(long seq) {
+        synchronized (appendLock) {
+            if (seq > lastSeq) {
+                // 段内序号必须连续，序号跳跃时从新段开始
+                if (currentCount > 0) {
+                    try {
+                        roll();
+                    } catch (IOException e) {
+                        throw new IllegalStateException("创建交易日志段失败: " + directory, e);
+                    }
+                }
+                lastSeq = seq;
+                durableSeq = Math.max(durableSeq, seq);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (appendLock) {
+            stats.put("type", "mmap");
+            stats.put("segments", closedSegments.size() + 1);
+            stats.put("currentSegment", currentIndex);
+            stats.put("currentRecords", currentCount);
+        }
+        stats.put("lastSeq", lastSeq);
+        stats.put("durableSeq", durableSeq);
+        stats.put("appends", appends.sum());
+        stats.put("syncs", syncs.sum());
+        stats.put("rolls", rolls.sum());
+        stats.put("deletedSegments", deletedSegments.sum());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                if (current != null) {
+                    current.force();
+                }
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        TreeMap<Integer, Path> segments = listSegments();
+        if (segments.isEmpty()) {
+            currentIndex = 1;
+            current = map(segmentPath(currentIndex));
+            currentCount = 0;
+            return;
+        }
+        for (Map.Entry<Integer, Path> segment : segments.entrySet()) {
+            long[] lastInSegment = new long[1];
+            readSegment(segment.getValue(), Long.MIN_VALUE, entry -> lastInSegment[0] = entry.getSeq());
+            if (lastInSegment[0] > 0) {
+                lastSeq = lastInSegment[0];
+            }
+            if (!segment.getKey().equals(segments.lastKey())) {
+                closedSegments.put(segment.getKey(), lastInSegment[0]);
+            }
+        }
+
+        currentIndex = segments.lastKey();
+        current = map(segments.lastEntry().getValue());
+        currentCount = validRecords(current);
+        // 清除写入位置之后崩溃时残留的半条记录
+        int dirtyEnd = currentCount;
+        while (dirtyEnd < recordsPerSegment && current.getLong(dirtyEnd * RECORD_SIZE) != 0) {
+            dirtyEnd++;
+        }
+        if (dirtyEnd > currentCount) {
+            log.warn("交易日志段 {} 末尾存在 {} 条不完整的记录，已清除", currentIndex, dirtyEnd - currentCount);
+            for (int i = currentCount * RECORD_SIZE; i < dirtyEnd * RECORD_SIZE; i++) {
+                current.put(i, (byte) 0);
+            }
+            current.force();
+        }
+    }
+
+    /**
+     * 写满的段落盘后切换到新段
+     */
+    private void roll() throws IOException {
+        current.force();
+        closedSegments.put(currentIndex, lastSeq);
+        currentIndex++;
+        current = map(segmentPath(currentIndex));
+        currentCount = 0;
+        rolls.increment();
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // 映射在通道关闭后仍然有效
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+        }
+    }
+
+    /**
+     * 从段开头数出连续有效的记录数
+     */
+    private int validRecords(ByteBuffer segment) {
+        int count = 0;
+        long previous = 0;
+        int capacity = segment.capacity() / RECORD_SIZE;
+        while (count < capacity) {
+            JournalEntry entry = decode(segment, count * RECORD_SIZE);
+            if (entry == null || (previous != 0 && entry.getSeq() != previous + 1)) {
+                break;
+            }
+            previous = entry.getSeq();
+            count++;
+        }
+        return count;
+    }
+
+    private long readSegment(Path path, long afterSeq, Consumer<JournalEntry> consumer) throws IOException {
+        long replayed = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer segment = ByteBuffer.allocate((int) Math.min(channel.size(), (long) recordsPerSegment * RECORD_SIZE));
+            while (segment.hasRemaining() && channel.read(segment) >= 0) {
+                // 读满为止
+            }
+            int valid = validRecords(segment);
+            for (int i = 0; i < valid; i++) {
+                JournalEntry entry = decode(segment, i * RECORD_SIZE);
+                if (entry.getSeq() > afterSeq) {
+                    consumer.accept(entry);
+                    replayed++;
+                }
+            }
+        }
+        return replayed;
+    }
+
+    private TreeMap<Integer, Path> listSegments() throws IOException {
+        TreeMap<Integer, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "journal-*.seg")) {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.put(Integer.parseInt(matcher.group(1)), file);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format("journal-%06d.seg", index));
+    }
+
+    static ByteBuffer encode(JournalEntry entry) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        buffer.putLong(entry.getSeq());
+        buffer.put(entry.isBuy() ? TYPE_BUY : TYPE_SELL);
+        buffer.putLong(TIME_CONVERTER.convertToDatabaseColumn(entry.getTradeTime()));
+        buffer.putLong(entry.getAccountId());
+        putDecimal(buffer, entry.getPrice());
+        putDecimal(buffer, entry.getQuantity());
+        putDecimal(buffer, entry.getAmount());
+        putDecimal(buffer, entry.getCostBasis());
+        putString(buffer, entry.getAccountName(), NAME_SIZE, "账户名称");
+        putString(buffer, entry.getSymbol(), SYMBOL_SIZE, "币种");
+        putString(buffer, entry.getStrategy(), STRATEGY_SIZE, "交易策略");
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, CRC_OFFSET);
+        buffer.putInt(CRC_OFFSET, (int) crc.getValue());
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * 解码指定位置的记录
+     * @return 记录，空位置或CRC不匹配时返回null
+     */
+    static JournalEntry decode(ByteBuffer segment, int offset) {
+        long seq = segment.getLong(offset);
+        if (seq == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[RECORD_SIZE];
+        ByteBuffer source = segment.duplicate();
+        source.position(offset);
+        source.get(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, CRC_OFFSET);
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        if ((int) crc.getValue() != record.getInt(CRC_OFFSET)) {
+            return null;
+        }
+
+        record.position(8);
+        String tradeType = record.get() == TYPE_BUY ? JournalEntry.BUY : JournalEntry.SELL;
+        LocalDateTime tradeTime = TIME_CONVERTER.convertToEntityAttribute(record.getLong());
+        long accountId = record.getLong();
+        BigDecimal price = getDecimal(record);
+        BigDecimal quantity = getDecimal(record);
+        BigDecimal amount = getDecimal(record);
+        BigDecimal costBasis = getDecimal(record);
+        String accountName = getString(record, NAME_SIZE);
+        String symbol = getString(record, SYMBOL_SIZE);
+        String strategy = getString(record, STRATEGY_SIZE);
+        return new JournalEntry(seq, tradeType, tradeTime, accountId, accountName, symbol, price, quantity, amount,
+                costBasis, strategy);
+    }
+
+    private static void putDecimal(ByteBuffer buffer, BigDecimal value) {
+        BigDecimal decimal = value;
+        if (decimal.unscaledValue().bitLength() > 127 || decimal.scale() > Byte.MAX_VALUE || decimal.scale() < Byte.MIN_VALUE) {
+            decimal = decimal.stripTrailingZeros();
+        }
+        if (decimal.unscaledValue().bitLength() > 127 || decimal.scale() > Byte.MAX_VALUE || decimal.scale() < Byte.MIN_VALUE) {
+            throw new IllegalArgumentException("数值超出交易日志字段范围: " + value.toPlainString());
+        }
+        byte[] unscaled = decimal.unscaledValue().toByteArray();
+        byte sign = decimal.signum() < 0 ? (byte) -1 : 0;
+        for (int i = unscaled.length; i < 16; i++) {
+            buffer.put(sign);
+        }
+        buffer.put(unscaled);
+        buffer.put((byte) decimal.scale());
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer buffer) {
+        byte[] unscaled = new byte[DECIMAL_SIZE - 1];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), buffer.get());
+    }
+
+    private static void putString(ByteBuffer buffer, String value, int size, String field) {
+        int end = buffer.position() + size;
+        if (value == null) {
+            buffer.put((byte) -1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > size - 1) {
+                throw new IllegalArgumentException(field + "超出交易日志字段长度(" + (size - 1) + "字节): " + value);
+            }
+            buffer.put((byte) bytes.length);
+            buffer.put(bytes);
+        }
+        buffer.position(end);
+    }
+
+    private static String getString(ByteBuffer buffer, int size) {
+        int end = buffer.position() + size;
+        int length = buffer.get();
+        String value = null;
+        if (length >= 0) {
+            value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        }
+        buffer.position(end);
+        return value;
+    }
+}
@@ -0,0 +1,100 @@
+package com.noodle.app.trade.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Binance WebSocket行情订阅配置
+ * 
+ * 通过binance.stream.enabled控制是否启用实时行情推送
+ * - true: 订阅miniTicker/bookTicker，价格查询优先读取内存行情簿
+ * - false: 仅使用REST接口轮询
+ */
+@Component
+@ConfigurationProperties(prefix = "binance.stream")
+public class BinanceStreamConfig {
+    
+    /**
+     * 是否启用WebSocket行情订阅
+     */
+    private boolean enabled = false;
+    
+    /**
+     * 组合流地址
+     */
+    private String url = "wss://stream.binance.com:9443/stream";
+    
+    /**
+     * 订阅的币种
+     */
+    private List<String> symbols = new ArrayList<>(Arrays.asList("BTCUSDT", "ETHUSDT", "BNBUSDT", "XRPUSDT", "DOGEUSDT"));
+    
+    /**
+     * 重连初始等待时间(ms)
+     */
+    private long reconnectMinDelay = 1000;
+    
+    /**
+     * 重连最大等待时间(ms)
+     */
+    private long reconnectMaxDelay = 60000;
+    
+    /**
+     * 行情最大有效期(ms)，超过后回退到REST接口
+     */
+    private long maxStaleness = 10000;
+    
+    // Getters and Setters
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    public void setUrl(String url) {
+        this.url = url;
+    }
+    
+    public List<String> getSymbols() {
+        return symbols;
+    }
+    
+    public void setSymbols(List<String> symbols) {
+        this.symbols = symbols;
+    }
+    
+    public long getReconnectMinDelay() {
+        return reconnectMinDelay;
+    }
+    
+    public void setReconnectMinDelay(long reconnectMinDelay) {
+        this.reconnectMinDelay = reconnectMinDelay;
+    }
+    
+    public long getReconnectMaxDelay() {
+        return reconnectMaxDelay;
+    }
+    
+    public void setReconnectMaxDelay(long reconnectMaxDelay) {
+        this.reconnectMaxDelay = reconnectMaxDelay;
+    }
+    
+    public long getMaxStaleness() {
+        return maxStaleness;
+    }
+    
+    public void setMaxStaleness(long maxStaleness) {
+        this.maxStaleness = maxStaleness;
+    }
+}
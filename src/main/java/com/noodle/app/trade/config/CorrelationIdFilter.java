@@ -0,0 +1,57 @@
+package com.noodle.app.trade.config;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.noodle.app.trade.util.Tracing;
+
+/**
+ * 请求关联ID过滤器
+ * 读取请求头X-Request-Id（没有或格式不合法时生成新的ID），写入MDC供日志输出，并在响应头中返回
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+    
+    public static final String HEADER = "X-Request-Id";
+    
+    private static final String ATTRIBUTE = CorrelationIdFilter.class.getName() + ".requestId";
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // 异步分派时沿用首次分派生成的ID
+        String requestId = (String) request.getAttribute(ATTRIBUTE);
+        if (requestId == null) {
+            requestId = request.getHeader(HEADER);
+            if (!Tracing.isValidId(requestId)) {
+                requestId = Tracing.newId();
+            }
+            request.setAttribute(ATTRIBUTE, requestId);
+            response.setHeader(HEADER, requestId);
+        }
+        
+        MDC.put(Tracing.MDC_KEY, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(Tracing.MDC_KEY);
+        }
+    }
+    
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // 异步接口（CompletableFuture返回值）在异步分派时重新写入MDC
+        return false;
+    }
+}
@@ -0,0 +1,141 @@
+package com.noodle.app.trade.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 价格历史存储配置
+ * 
+ * 通过trading.history.store选择存储实现
+ * - jpa: MySQL crypto_currency表（默认）
+ * - influx: InfluxDB时序库，按窗口降采样在服务端完成
+ * - memory: 进程内存储，仅用于本地调试和测试
+ */
+@Component
+@ConfigurationProperties(prefix = "trading.history")
+public class PriceHistoryConfig {
+    
+    /**
+     * 存储实现：jpa、influx、memory
+     */
+    private String store = "jpa";
+    
+    /**
+     * InfluxDB配置
+     */
+    private Influx influx = new Influx();
+    
+    public static class Influx {
+        
+        /**
+         * InfluxDB地址
+         */
+        private String url = "http://localhost:8086";
+        
+        /**
+         * 访问令牌
+         */
+        private String token = "";
+        
+        /**
+         * 组织
+         */
+        private String org = "trade";
+        
+        /**
+         * 存储桶
+         */
+        private String bucket = "prices";
+        
+        /**
+         * 写入批次大小
+         */
+        private int batchSize = 1000;
+        
+        /**
+         * 写入缓冲最长等待时间(ms)
+         */
+        private int flushInterval = 1000;
+        
+        /**
+         * 是否同时写入MySQL（最新价格查询和估值回退仍依赖crypto_currency表）
+         */
+        private boolean mirrorToDatabase = true;
+        
+        // Getters and Setters
+        
+        public String getUrl() {
+            return url;
+        }
+        
+        public void setUrl(String url) {
+            this.url = url;
+        }
+        
+        public String getToken() {
+            return token;
+        }
+        
+        public void setToken(String token) {
+            this.token = token;
+        }
+        
+        public String getOrg() {
+            return org;
+        }
+        
+        public void setOrg(String org) {
+            this.org = org;
+        }
+        
+        public String getBucket() {
+            return bucket;
+        }
+        
+        public void setBucket(String bucket) {
+            this.bucket = bucket;
+        }
+        
+        public int getBatchSize() {
+            return batchSize;
+        }
+        
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+        
+        public int getFlushInterval() {
+            return flushInterval;
+        }
+        
+        public void setFlushInterval(int flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+        
+        public boolean isMirrorToDatabase() {
+            return mirrorToDatabase;
+        }
+        
+        public void setMirrorToDatabase(boolean mirrorToDatabase) {
+            this.mirrorToDatabase = mirrorToDatabase;
+        }
+    }
+    
+    // Getters and Setters
+    
+    public String getStore() {
+        return store;
+    }
+    
+    public void setStore(String store) {
+        this.store = store;
+    }
+    
+    public Influx getInflux() {
+        return influx;
+    }
+    
+    public void setInflux(Influx influx) {
+        this.influx = influx;
+    }
+}
@@ -7,10 +7,14 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Entity
-@Table(name = "account")
+@Table(name = "account", indexes = {
+        @Index(name = "idx_account_name", columnList = "account_name")
+})
 public class AccountEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -26,6 +30,11 @@ public class AccountEntity {
     @Column(name = "total_value", precision = 20, scale = 10)
     private BigDecimal totalValue;
     
+    // 乐观锁版本号，余额变化时递增（总价值由估值任务单独更新，不递增版本）
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+    
     // Constructors
     public AccountEntity() {}
     
@@ -67,4 +76,12 @@ public class AccountEntity {
     public void setTotalValue(BigDecimal totalValue) {
         this.totalValue = totalValue;
     }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
@@ -8,10 +8,14 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
 @Entity
-@Table(name = "account_value_history")
+@Table(name = "account_value_history", indexes = {
+        @Index(name = "idx_account_value_history_account_time", columnList = "account_name, record_time, total_value"),
+        @Index(name = "idx_account_value_history_time", columnList = "record_time")
+})
 public class AccountValueHistory {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
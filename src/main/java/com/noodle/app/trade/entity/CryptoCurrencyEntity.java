@@ -9,12 +9,16 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
 import com.noodle.app.trade.config.LocalDateTimeConverter;
 
 @Entity
-@Table(name = "crypto_currency")
+@Table(name = "crypto_currency", indexes = {
+        @Index(name = "idx_crypto_currency_symbol_time", columnList = "symbol, last_updated, price, volume"),
+        @Index(name = "idx_crypto_currency_time", columnList = "last_updated")
+})
 public class CryptoCurrencyEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
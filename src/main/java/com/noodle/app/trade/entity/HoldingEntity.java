@@ -7,10 +7,14 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Entity
-@Table(name = "holding")
+@Table(name = "holding", indexes = {
+        @Index(name = "idx_holding_account_symbol", columnList = "account_id, symbol")
+})
 public class HoldingEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,6 +33,11 @@ public class HoldingEntity {
     @Column(name = "hold_cost", precision = 20, scale = 10)
     private BigDecimal holdCost;
     
+    // 乐观锁版本号
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+    
     // Constructors
     public HoldingEntity() {}
     
@@ -78,4 +87,12 @@ public class HoldingEntity {
 	public void setHoldCost(BigDecimal holdCost) {
 		this.holdCost = holdCost;
 	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
 }
\ No newline at end of file
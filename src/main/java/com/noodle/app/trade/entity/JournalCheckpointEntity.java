@@ -0,0 +1,60 @@
+package com.noodle.app.trade.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * 日志检查点：已写入数据库的最大日志序号
+ * 与账户、持仓、交易记录在同一个事务中更新，重启时只重放大于该序号的日志
+ */
+@Entity
+@Table(name = "journal_checkpoint")
+public class JournalCheckpointEntity {
+    @Id
+    @Column(name = "name", nullable = false, length = 64)
+    private String name;
+
+    @Column(name = "seq", nullable = false)
+    private long seq;
+
+    @Column(name = "updated_time")
+    private LocalDateTime updatedTime;
+
+    // Constructors
+    public JournalCheckpointEntity() {}
+
+    public JournalCheckpointEntity(String name, long seq, LocalDateTime updatedTime) {
+        this.name = name;
+        this.seq = seq;
+        this.updatedTime = updatedTime;
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public LocalDateTime getUpdatedTime() {
+        return updatedTime;
+    }
+
+    public void setUpdatedTime(LocalDateTime updatedTime) {
+        this.updatedTime = updatedTime;
+    }
+}
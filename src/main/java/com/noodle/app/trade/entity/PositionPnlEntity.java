@@ -0,0 +1,129 @@
+package com.noodle.app.trade.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * 账户在单个币种上的已实现盈亏（平均成本法），每次卖出时增量更新
+ * 持仓清空后持仓记录会被删除，已实现盈亏保留在本表中
+ */
+@Entity
+@Table(name = "position_pnl", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_position_pnl_account_symbol", columnNames = {"account_id", "symbol"})
+})
+public class PositionPnlEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "symbol", nullable = false, length = 20)
+    private String symbol;
+
+    // 累计卖出数量
+    @Column(name = "sold_quantity", precision = 20, scale = 10)
+    private BigDecimal soldQuantity;
+
+    // 累计卖出部分的持仓成本
+    @Column(name = "sold_cost", precision = 20, scale = 10)
+    private BigDecimal soldCost;
+
+    // 累计卖出金额
+    @Column(name = "sell_proceeds", precision = 20, scale = 10)
+    private BigDecimal sellProceeds;
+
+    // 已实现盈亏 = 卖出金额 - 卖出部分的持仓成本
+    @Column(name = "realized_pnl", precision = 20, scale = 10)
+    private BigDecimal realizedPnl;
+
+    @Column(name = "updated_time")
+    private LocalDateTime updatedTime;
+
+    // Constructors
+    public PositionPnlEntity() {}
+
+    public PositionPnlEntity(Long accountId, String symbol) {
+        this.accountId = accountId;
+        this.symbol = symbol;
+        this.soldQuantity = BigDecimal.ZERO;
+        this.soldCost = BigDecimal.ZERO;
+        this.sellProceeds = BigDecimal.ZERO;
+        this.realizedPnl = BigDecimal.ZERO;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public BigDecimal getSoldQuantity() {
+        return soldQuantity;
+    }
+
+    public void setSoldQuantity(BigDecimal soldQuantity) {
+        this.soldQuantity = soldQuantity;
+    }
+
+    public BigDecimal getSoldCost() {
+        return soldCost;
+    }
+
+    public void setSoldCost(BigDecimal soldCost) {
+        this.soldCost = soldCost;
+    }
+
+    public BigDecimal getSellProceeds() {
+        return sellProceeds;
+    }
+
+    public void setSellProceeds(BigDecimal sellProceeds) {
+        this.sellProceeds = sellProceeds;
+    }
+
+    public BigDecimal getRealizedPnl() {
+        return realizedPnl;
+    }
+
+    public void setRealizedPnl(BigDecimal realizedPnl) {
+        this.realizedPnl = realizedPnl;
+    }
+
+    public LocalDateTime getUpdatedTime() {
+        return updatedTime;
+    }
+
+    public void setUpdatedTime(LocalDateTime updatedTime) {
+        this.updatedTime = updatedTime;
+    }
+}
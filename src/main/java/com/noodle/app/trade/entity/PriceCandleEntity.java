@@ -0,0 +1,124 @@
+package com.noodle.app.trade.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+@Entity
+@Table(name = "price_candle", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_price_candle_symbol_interval_time", columnNames = {"symbol", "interval_code", "open_time"})
+})
+public class PriceCandleEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+    
+    @Column(name = "symbol", nullable = false, length = 20)
+    private String symbol;
+    
+    @Column(name = "interval_code", nullable = false, length = 8)
+    private String intervalCode;
+    
+    @Column(name = "open_time", nullable = false)
+    private LocalDateTime openTime;
+    
+    @Column(name = "open_price", precision = 20, scale = 10)
+    private BigDecimal openPrice;
+    
+    @Column(name = "high_price", precision = 20, scale = 10)
+    private BigDecimal highPrice;
+    
+    @Column(name = "low_price", precision = 20, scale = 10)
+    private BigDecimal lowPrice;
+    
+    @Column(name = "close_price", precision = 20, scale = 10)
+    private BigDecimal closePrice;
+    
+    // 行情源只提供24小时滚动成交量，这里记录K线收盘时的值
+    @Column(name = "volume", precision = 30, scale = 10)
+    private BigDecimal volume;
+    
+    // Constructors
+    public PriceCandleEntity() {}
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getSymbol() {
+        return symbol;
+    }
+    
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+    
+    public String getIntervalCode() {
+        return intervalCode;
+    }
+    
+    public void setIntervalCode(String intervalCode) {
+        this.intervalCode = intervalCode;
+    }
+    
+    public LocalDateTime getOpenTime() {
+        return openTime;
+    }
+    
+    public void setOpenTime(LocalDateTime openTime) {
+        this.openTime = openTime;
+    }
+    
+    public BigDecimal getOpenPrice() {
+        return openPrice;
+    }
+    
+    public void setOpenPrice(BigDecimal openPrice) {
+        this.openPrice = openPrice;
+    }
+    
+    public BigDecimal getHighPrice() {
+        return highPrice;
+    }
+    
+    public void setHighPrice(BigDecimal highPrice) {
+        this.highPrice = highPrice;
+    }
+    
+    public BigDecimal getLowPrice() {
+        return lowPrice;
+    }
+    
+    public void setLowPrice(BigDecimal lowPrice) {
+        this.lowPrice = lowPrice;
+    }
+    
+    public BigDecimal getClosePrice() {
+        return closePrice;
+    }
+    
+    public void setClosePrice(BigDecimal closePrice) {
+        this.closePrice = closePrice;
+    }
+    
+    public BigDecimal getVolume() {
+        return volume;
+    }
+    
+    public void setVolume(BigDecimal volume) {
+        this.volume = volume;
+    }
+}
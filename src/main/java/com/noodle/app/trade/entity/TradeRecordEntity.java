@@ -9,12 +9,18 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
 import com.noodle.app.trade.config.LocalDateTimeConverter;
 
 @Entity
-@Table(name = "trade_record")
+@Table(name = "trade_record", indexes = {
+        @Index(name = "idx_trade_record_account_time", columnList = "account_name, trade_time"),
+        @Index(name = "idx_trade_record_symbol_time", columnList = "symbol, trade_time"),
+        @Index(name = "idx_trade_record_symbol_amount", columnList = "symbol, amount"),
+        @Index(name = "idx_trade_record_time", columnList = "trade_time")
+})
 public class TradeRecordEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,91 @@
+package com.noodle.app.trade.history;
+
+import java.math.BigDecimal;
+
+import com.noodle.app.trade.model.CandleInterval;
+
+/**
+ * 聚合中的K线（OHLCV）
+ */
+public class Candle {
+    private final String symbol;
+    private final CandleInterval interval;
+    private final long openTime; // 开盘时间(ms)
+    private BigDecimal open;
+    private BigDecimal high;
+    private BigDecimal low;
+    private BigDecimal close;
+    private BigDecimal volume; // 收盘时的24小时滚动成交量
+    
+    Candle(String symbol, CandleInterval interval, long openTime, BigDecimal price, BigDecimal volume) {
+        this.symbol = symbol;
+        this.interval = interval;
+        this.openTime = openTime;
+        this.open = price;
+        this.high = price;
+        this.low = price;
+        this.close = price;
+        this.volume = volume;
+    }
+    
+    private Candle(Candle other) {
+        this.symbol = other.symbol;
+        this.interval = other.interval;
+        this.openTime = other.openTime;
+        this.open = other.open;
+        this.high = other.high;
+        this.low = other.low;
+        this.close = other.close;
+        this.volume = other.volume;
+    }
+    
+    void update(BigDecimal price, BigDecimal volume) {
+        if (price.compareTo(high) > 0) {
+            high = price;
+        }
+        if (price.compareTo(low) < 0) {
+            low = price;
+        }
+        close = price;
+        if (volume != null) {
+            this.volume = volume;
+        }
+    }
+    
+    Candle copy() {
+        return new Candle(this);
+    }
+    
+    // Getters
+    public String getSymbol() {
+        return symbol;
+    }
+    
+    public CandleInterval getInterval() {
+        return interval;
+    }
+    
+    public long getOpenTime() {
+        return openTime;
+    }
+    
+    public BigDecimal getOpen() {
+        return open;
+    }
+    
+    public BigDecimal getHigh() {
+        return high;
+    }
+    
+    public BigDecimal getLow() {
+        return low;
+    }
+    
+    public BigDecimal getClose() {
+        return close;
+    }
+    
+    public BigDecimal getVolume() {
+        return volume;
+    }
+}
@@ -0,0 +1,91 @@
+package com.noodle.app.trade.history;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.noodle.app.trade.model.CandleInterval;
+import com.noodle.app.trade.util.TimeUtils;
+
+/**
+ * K线聚合器
+ * 每个 币种 x 周期 维护一根当前K线，价格点进入后更新对应K线；被更新过的K线记为待写入，
+ * 由调用方通过drainDirty()取出后批量保存，保存失败时用requeue()放回。早于当前K线开盘时间的乱序价格点会被忽略。
+ */
+public class CandleAggregator {
+    
+    private final CandleInterval[] intervals;
+    private final Map<String, Candle> current = new HashMap<>();
+    private final Map<String, Candle> dirty = new LinkedHashMap<>();
+    
+    public CandleAggregator() {
+        this(CandleInterval.values());
+    }
+    
+    public CandleAggregator(CandleInterval... intervals) {
+        this.intervals = intervals;
+    }
+    
+    /**
+     * 加入一个价格点
+     * @param symbol 币种符号
+     * @param timeMillis 时间(ms)
+     * @param price 价格
+     * @param volume 24小时滚动成交量，可为null
+     */
+    public synchronized void addTick(String symbol, long timeMillis, BigDecimal price, BigDecimal volume) {
+        if (symbol == null || price == null) {
+            return;
+        }
+        for (CandleInterval interval : intervals) {
+            long openTime = TimeUtils.windowStart(timeMillis, interval.getMillis());
+            String key = symbol + '|' + interval.getCode();
+            Candle candle = current.get(key);
+            if (candle == null || openTime > candle.getOpenTime()) {
+                candle = new Candle(symbol, interval, openTime, price, volume);
+                current.put(key, candle);
+            } else if (openTime == candle.getOpenTime()) {
+                candle.update(price, volume);
+            } else {
+                continue;
+            }
+            dirty.put(key + '|' + openTime, candle);
+        }
+    }
+    
+    /**
+     * 取出自上次调用以来被更新过的K线（包括已结束和仍在进行中的K线）
+     * @return K线副本列表
+     */
+    public synchronized List<Candle> drainDirty() {
+        List<Candle> candles = new ArrayList<>(dirty.size());
+        for (Candle candle : dirty.values()) {
+            candles.add(candle.copy());
+        }
+        dirty.clear();
+        return candles;
+    }
+    
+    /**
+     * 把写入失败的K线放回待写入集合，下一次drainDirty()时重新取出
+     * 取出之后同一根K线又有新价格点时，待写入集合中已经是更新后的K线，保留它
+     * @param candles drainDirty()取出的K线
+     */
+    public synchronized void requeue(List<Candle> candles) {
+        for (Candle candle : candles) {
+            String key = candle.getSymbol() + '|' + candle.getInterval().getCode() + '|' + candle.getOpenTime();
+            dirty.putIfAbsent(key, candle.copy());
+        }
+    }
+    
+    /**
+     * 待写入的K线数量
+     * @return 数量
+     */
+    public synchronized int dirtyCount() {
+        return dirty.size();
+    }
+}
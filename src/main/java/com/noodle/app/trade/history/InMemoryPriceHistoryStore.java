@@ -0,0 +1,96 @@
+package com.noodle.app.trade.history;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.noodle.app.trade.model.CryptoCurrency;
+import com.noodle.app.trade.model.PricePoint;
+import com.noodle.app.trade.util.TimeUtils;
+
+/**
+ * 进程内价格历史存储，用于本地调试和测试，重启后数据丢失
+ */
+@Component
+@ConditionalOnProperty(prefix = "trading.history", name = "store", havingValue = "memory")
+public class InMemoryPriceHistoryStore implements PriceHistoryStore {
+    
+    private final ConcurrentMap<String, NavigableMap<Long, PricePoint>> series = new ConcurrentHashMap<>();
+    
+    @Override
+    public void write(List<CryptoCurrency> cryptoCurrencies, LocalDateTime snapshotTime) {
+        if (cryptoCurrencies == null) {
+            return;
+        }
+        long time = TimeUtils.toEpochMilli(snapshotTime);
+        for (CryptoCurrency crypto : cryptoCurrencies) {
+            if (crypto == null || crypto.getSymbol() == null || crypto.getPrice() == null) {
+                continue;
+            }
+            series.computeIfAbsent(crypto.getSymbol(), key -> new ConcurrentSkipListMap<>())
+                    .put(time, new PricePoint(snapshotTime, crypto.getPrice(), crypto.getVolume()));
+        }
+    }
+    
+    @Override
+    public List<PricePoint> query(String symbol, LocalDateTime startTime, LocalDateTime endTime) {
+        return new ArrayList<>(range(symbol, startTime, endTime).values());
+    }
+    
+    @Override
+    public List<PricePoint> queryWindowed(String symbol, LocalDateTime startTime, LocalDateTime endTime, Duration window) {
+        long windowMillis = window.toMillis();
+        List<PricePoint> points = new ArrayList<>();
+        long currentBucket = 0;
+        BigDecimal priceSum = BigDecimal.ZERO;
+        BigDecimal volumeSum = BigDecimal.ZERO;
+        int count = 0;
+        int volumeCount = 0;
+        for (Map.Entry<Long, PricePoint> entry : range(symbol, startTime, endTime).entrySet()) {
+            long bucket = TimeUtils.windowStart(entry.getKey(), windowMillis);
+            if (count > 0 && bucket != currentBucket) {
+                points.add(average(currentBucket, priceSum, count, volumeSum, volumeCount));
+                priceSum = BigDecimal.ZERO;
+                volumeSum = BigDecimal.ZERO;
+                count = 0;
+                volumeCount = 0;
+            }
+            currentBucket = bucket;
+            priceSum = priceSum.add(entry.getValue().getPrice());
+            count++;
+            if (entry.getValue().getVolume() != null) {
+                volumeSum = volumeSum.add(entry.getValue().getVolume());
+                volumeCount++;
+            }
+        }
+        if (count > 0) {
+            points.add(average(currentBucket, priceSum, count, volumeSum, volumeCount));
+        }
+        return points;
+    }
+    
+    private NavigableMap<Long, PricePoint> range(String symbol, LocalDateTime startTime, LocalDateTime endTime) {
+        NavigableMap<Long, PricePoint> points = series.get(symbol);
+        if (points == null) {
+            return new ConcurrentSkipListMap<>();
+        }
+        return points.subMap(TimeUtils.toEpochMilli(startTime), true, TimeUtils.toEpochMilli(endTime), true);
+    }
+    
+    private PricePoint average(long bucket, BigDecimal priceSum, int count, BigDecimal volumeSum, int volumeCount) {
+        BigDecimal price = priceSum.divide(BigDecimal.valueOf(count), 8, RoundingMode.HALF_UP);
+        BigDecimal volume = volumeCount > 0 ? volumeSum.divide(BigDecimal.valueOf(volumeCount), 8, RoundingMode.HALF_UP) : null;
+        return new PricePoint(TimeUtils.fromEpochMilli(bucket), price, volume);
+    }
+}
@@ -0,0 +1,167 @@
+package com.noodle.app.trade.history;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.influxdb.client.InfluxDBClient;
+import com.influxdb.client.InfluxDBClientFactory;
+import com.influxdb.client.WriteApi;
+import com.influxdb.client.WriteOptions;
+import com.influxdb.client.domain.WritePrecision;
+import com.influxdb.client.write.Point;
+import com.influxdb.query.FluxRecord;
+import com.influxdb.query.FluxTable;
+import com.noodle.app.trade.config.PriceHistoryConfig;
+import com.noodle.app.trade.model.CryptoCurrency;
+import com.noodle.app.trade.model.PricePoint;
+import com.noodle.app.trade.service.MarketSnapshotWriter;
+import com.noodle.app.trade.util.TimeUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于InfluxDB的价格历史存储
+ * 写入通过客户端的批量缓冲异步提交；降采样使用Flux aggregateWindow在服务端完成
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "trading.history", name = "store", havingValue = "influx")
+public class InfluxPriceHistoryStore implements PriceHistoryStore {
+    
+    static final String MEASUREMENT = "price";
+    
+    @Autowired
+    private PriceHistoryConfig historyConfig;
+    
+    @Autowired
+    private MarketSnapshotWriter marketSnapshotWriter;
+    
+    private InfluxDBClient client;
+    private WriteApi writeApi;
+    
+    @PostConstruct
+    public void init() {
+        PriceHistoryConfig.Influx influx = historyConfig.getInflux();
+        this.client = InfluxDBClientFactory.create(influx.getUrl(), influx.getToken().toCharArray(), influx.getOrg(), influx.getBucket());
+        this.writeApi = client.makeWriteApi(WriteOptions.builder()
+                .batchSize(influx.getBatchSize())
+                .flushInterval(influx.getFlushInterval())
+                .build());
+        log.info("价格历史使用InfluxDB存储: {} bucket={}", influx.getUrl(), influx.getBucket());
+    }
+    
+    @PreDestroy
+    public void close() {
+        if (writeApi != null) {
+            writeApi.close();
+        }
+        if (client != null) {
+            client.close();
+        }
+    }
+    
+    @Override
+    public void write(List<CryptoCurrency> cryptoCurrencies, LocalDateTime snapshotTime) {
+        if (cryptoCurrencies == null || cryptoCurrencies.isEmpty()) {
+            return;
+        }
+        long time = TimeUtils.toEpochMilli(snapshotTime);
+        List<Point> points = new ArrayList<>(cryptoCurrencies.size());
+        for (CryptoCurrency crypto : cryptoCurrencies) {
+            if (crypto == null || crypto.getSymbol() == null || crypto.getPrice() == null) {
+                continue;
+            }
+            Point point = Point.measurement(MEASUREMENT)
+                    .addTag("symbol", crypto.getSymbol())
+                    .addField("price", crypto.getPrice().doubleValue())
+                    .time(time, WritePrecision.MS);
+            if (crypto.getVolume() != null) {
+                point.addField("volume", crypto.getVolume().doubleValue());
+            }
+            points.add(point);
+        }
+        writeApi.writePoints(points);
+        
+        // 最新价格查询和估值回退仍读取crypto_currency表
+        if (historyConfig.getInflux().isMirrorToDatabase()) {
+            marketSnapshotWriter.writeSnapshots(cryptoCurrencies, snapshotTime);
+        }
+    }
+    
+    @Override
+    public List<PricePoint> query(String symbol, LocalDateTime startTime, LocalDateTime endTime) {
+        return toPricePoints(client.getQueryApi().query(buildRangeQuery(historyConfig.getInflux().getBucket(),
+                symbol, toInstant(startTime), toInstant(endTime), null)));
+    }
+    
+    @Override
+    public List<PricePoint> queryWindowed(String symbol, LocalDateTime startTime, LocalDateTime endTime, Duration window) {
+        return toPricePoints(client.getQueryApi().query(buildRangeQuery(historyConfig.getInflux().getBucket(),
+                symbol, toInstant(startTime), toInstant(endTime), window)));
+    }
+    
+    /**
+     * 生成Flux查询
+     * @param bucket 存储桶
+     * @param symbol 币种符号
+     * @param start 开始时间（包含）
+     * @param end 结束时间（包含）
+     * @param window 降采样窗口，为null时返回原始数据
+     * @return Flux查询语句
+     */
+    static String buildRangeQuery(String bucket, String symbol, Instant start, Instant end, Duration window) {
+        StringBuilder flux = new StringBuilder()
+                .append("from(bucket: \"").append(escape(bucket)).append("\")\n")
+                // range的stop不包含边界，加1ms与JPA实现的BETWEEN保持一致
+                .append("  |> range(start: ").append(start).append(", stop: ").append(end.plusMillis(1)).append(")\n")
+                .append("  |> filter(fn: (r) => r._measurement == \"").append(MEASUREMENT)
+                .append("\" and r.symbol == \"").append(escape(symbol)).append("\")\n");
+        if (window != null) {
+            long windowMillis = window.toMillis();
+            // 窗口按北京时间对齐，与TimeUtils.windowStart一致
+            flux.append("  |> aggregateWindow(every: ").append(windowMillis).append("ms, offset: ")
+                    .append(Math.floorMod(-TimeUtils.BEIJING_OFFSET_MILLIS, windowMillis))
+                    .append("ms, fn: mean, createEmpty: false, timeSrc: \"_start\")\n");
+        }
+        flux.append("  |> pivot(rowKey: [\"_time\"], columnKey: [\"_field\"], valueColumn: \"_value\")\n")
+                .append("  |> sort(columns: [\"_time\"])");
+        return flux.toString();
+    }
+    
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+    
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return Instant.ofEpochMilli(TimeUtils.toEpochMilli(dateTime));
+    }
+    
+    private List<PricePoint> toPricePoints(List<FluxTable> tables) {
+        List<PricePoint> points = new ArrayList<>();
+        for (FluxTable table : tables) {
+            for (FluxRecord record : table.getRecords()) {
+                Object price = record.getValueByKey("price");
+                if (record.getTime() == null || !(price instanceof Number)) {
+                    continue;
+                }
+                Object volume = record.getValueByKey("volume");
+                points.add(new PricePoint(
+                        TimeUtils.fromEpochMilli(record.getTime().toEpochMilli()),
+                        BigDecimal.valueOf(((Number) price).doubleValue()),
+                        volume instanceof Number ? BigDecimal.valueOf(((Number) volume).doubleValue()) : null));
+            }
+        }
+        return points;
+    }
+}
@@ -0,0 +1,72 @@
+package com.noodle.app.trade.history;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.noodle.app.trade.entity.CryptoCurrencyEntity;
+import com.noodle.app.trade.model.CryptoCurrency;
+import com.noodle.app.trade.model.PricePoint;
+import com.noodle.app.trade.repository.CryptoCurrencyRepository;
+import com.noodle.app.trade.service.MarketSnapshotWriter;
+import com.noodle.app.trade.util.TimeUtils;
+
+/**
+ * 基于MySQL crypto_currency表的价格历史存储（默认实现）
+ * 降采样在数据库中按窗口GROUP BY完成，只返回每个窗口的聚合结果
+ */
+@Component
+@ConditionalOnProperty(prefix = "trading.history", name = "store", havingValue = "jpa", matchIfMissing = true)
+public class JpaPriceHistoryStore implements PriceHistoryStore {
+    
+    // 窗口按北京时间对齐，与TimeUtils.windowStart一致
+    private static final String WINDOWED_SQL = "SELECT ((last_updated + ?) DIV ?) * ? - ? AS bucket, "
+            + "AVG(price) AS price, AVG(volume) AS volume "
+            + "FROM crypto_currency "
+            + "WHERE symbol = ? AND last_updated BETWEEN ? AND ? "
+            + "GROUP BY bucket ORDER BY bucket";
+    
+    @Autowired
+    private CryptoCurrencyRepository cryptoCurrencyRepository;
+    
+    @Autowired
+    private MarketSnapshotWriter marketSnapshotWriter;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void write(List<CryptoCurrency> cryptoCurrencies, LocalDateTime snapshotTime) {
+        marketSnapshotWriter.writeSnapshots(cryptoCurrencies, snapshotTime);
+    }
+    
+    @Override
+    public List<PricePoint> query(String symbol, LocalDateTime startTime, LocalDateTime endTime) {
+        List<CryptoCurrencyEntity> entities = cryptoCurrencyRepository.findBySymbolAndLastUpdatedBetweenOrderByLastUpdatedAsc(symbol, startTime, endTime);
+        List<PricePoint> points = new ArrayList<>(entities.size());
+        for (CryptoCurrencyEntity entity : entities) {
+            if (entity != null) {
+                points.add(new PricePoint(entity.getLastUpdated(), entity.getPrice(), entity.getVolume()));
+            }
+        }
+        return points;
+    }
+    
+    @Override
+    public List<PricePoint> queryWindowed(String symbol, LocalDateTime startTime, LocalDateTime endTime, Duration window) {
+        long windowMillis = window.toMillis();
+        return jdbcTemplate.query(WINDOWED_SQL,
+                (rs, rowNum) -> new PricePoint(
+                        TimeUtils.fromEpochMilli(rs.getLong("bucket")),
+                        rs.getBigDecimal("price"),
+                        rs.getBigDecimal("volume")),
+                TimeUtils.BEIJING_OFFSET_MILLIS, windowMillis, windowMillis, TimeUtils.BEIJING_OFFSET_MILLIS,
+                symbol, TimeUtils.toEpochMilli(startTime), TimeUtils.toEpochMilli(endTime));
+    }
+}
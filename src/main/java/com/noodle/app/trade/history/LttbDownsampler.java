@@ -0,0 +1,87 @@
+package com.noodle.app.trade.history;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Largest-Triangle-Three-Buckets降采样
+ * 在保留曲线形状（峰值、谷值）的前提下把时间序列压缩到指定点数。直接在查询结果上按下标单遍扫描，
+ * 只返回被选中的原始对象，不生成中间数据结构。
+ */
+public final class LttbDownsampler {
+    
+    private LttbDownsampler() {
+    }
+    
+    /**
+     * 降采样
+     * @param points 按时间升序排列的数据点（需支持随机访问）
+     * @param maxPoints 最多保留的点数，小于等于0或不小于数据点数时原样返回
+     * @param x 横坐标（时间）
+     * @param y 纵坐标（数值）
+     * @return 选中的原始数据点，按时间升序
+     */
+    public static <T> List<T> downsample(List<T> points, int maxPoints, ToLongFunction<T> x, ToDoubleFunction<T> y) {
+        int size = points.size();
+        if (maxPoints <= 0 || maxPoints >= size) {
+            return points;
+        }
+        List<T> sampled = new ArrayList<>(maxPoints);
+        if (maxPoints == 1) {
+            sampled.add(points.get(size - 1));
+            return sampled;
+        }
+        if (maxPoints == 2) {
+            sampled.add(points.get(0));
+            sampled.add(points.get(size - 1));
+            return sampled;
+        }
+        
+        // 首尾点固定保留，中间的点分成maxPoints-2个桶，每个桶选一个点
+        double bucketSize = (double) (size - 2) / (maxPoints - 2);
+        int selected = 0;
+        sampled.add(points.get(0));
+        
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int bucketStart = (int) Math.floor(bucket * bucketSize) + 1;
+            int bucketEnd = Math.min((int) Math.floor((bucket + 1) * bucketSize) + 1, size - 1);
+            
+            // 下一个桶的平均点（最后一个桶使用终点）
+            int nextStart = bucketEnd;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, size);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                T point = points.get(i);
+                avgX += x.applyAsLong(point);
+                avgY += y.applyAsDouble(point);
+            }
+            int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+            
+            // 选择与上一个选中点、下一个桶平均点构成三角形面积最大的点
+            T anchor = points.get(selected);
+            double anchorX = x.applyAsLong(anchor);
+            double anchorY = y.applyAsDouble(anchor);
+            double maxArea = -1;
+            int maxIndex = bucketStart;
+            for (int i = bucketStart; i < bucketEnd; i++) {
+                T point = points.get(i);
+                double area = Math.abs((anchorX - avgX) * (y.applyAsDouble(point) - anchorY)
+                        - (anchorX - x.applyAsLong(point)) * (avgY - anchorY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIndex = i;
+                }
+            }
+            sampled.add(points.get(maxIndex));
+            selected = maxIndex;
+        }
+        
+        sampled.add(points.get(size - 1));
+        return sampled;
+    }
+}
@@ -0,0 +1,41 @@
+package com.noodle.app.trade.history;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.noodle.app.trade.model.CryptoCurrency;
+import com.noodle.app.trade.model.PricePoint;
+
+/**
+ * 价格历史存储
+ * 通过 trading.history.store 选择实现：jpa（默认，MySQL crypto_currency表）、influx（InfluxDB）、memory（内存，用于本地和测试）
+ */
+public interface PriceHistoryStore {
+    
+    /**
+     * 写入一次行情的全部快照
+     * @param cryptoCurrencies 市场数据列表（币种符号不带USDT后缀）
+     * @param snapshotTime 快照时间（北京时间）
+     */
+    void write(List<CryptoCurrency> cryptoCurrencies, LocalDateTime snapshotTime);
+    
+    /**
+     * 查询原始价格点，按时间升序
+     * @param symbol 币种符号（不带USDT后缀）
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 价格点列表
+     */
+    List<PricePoint> query(String symbol, LocalDateTime startTime, LocalDateTime endTime);
+    
+    /**
+     * 按固定时间窗口降采样查询，每个窗口返回一个点（窗口开始时间、均价、平均交易量），按时间升序
+     * @param symbol 币种符号（不带USDT后缀）
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param window 窗口长度
+     * @return 降采样后的价格点列表
+     */
+    List<PricePoint> queryWindowed(String symbol, LocalDateTime startTime, LocalDateTime endTime, Duration window);
+}
@@ -0,0 +1,42 @@
+package com.noodle.app.trade.model;
+
+/**
+ * K线周期
+ */
+public enum CandleInterval {
+    M1("1m", 60 * 1000L),
+    M5("5m", 5 * 60 * 1000L),
+    H1("1h", 60 * 60 * 1000L),
+    D1("1d", 24 * 60 * 60 * 1000L);
+    
+    private final String code;
+    private final long millis;
+    
+    CandleInterval(String code, long millis) {
+        this.code = code;
+        this.millis = millis;
+    }
+    
+    public String getCode() {
+        return code;
+    }
+    
+    public long getMillis() {
+        return millis;
+    }
+    
+    /**
+     * 根据周期代码获取K线周期
+     * @param code 周期代码，如 1m、5m、1h、1d
+     * @return K线周期
+     * @throws IllegalArgumentException 不支持的周期
+     */
+    public static CandleInterval fromCode(String code) {
+        for (CandleInterval interval : values()) {
+            if (interval.code.equals(code)) {
+                return interval;
+            }
+        }
+        throw new IllegalArgumentException("不支持的K线周期: " + code + "，可选值: 1m、5m、1h、1d");
+    }
+}
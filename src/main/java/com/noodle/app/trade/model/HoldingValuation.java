@@ -0,0 +1,122 @@
+package com.noodle.app.trade.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class HoldingValuation {
+    
+    /**
+     * 价格来源状态
+     * LIVE: 实时价格（行情推送、缓存或Binance API）
+     * STALE: 实时价格获取失败，使用数据库中最近一次行情快照
+     * MISSING: 没有任何可用价格，不计入总价值
+     */
+    public enum PriceStatus {
+        LIVE, STALE, MISSING
+    }
+    
+    private String symbol; // 币种符号
+    private BigDecimal quantity; // 持有数量
+    private BigDecimal price; // 估值价格
+    private BigDecimal value; // 持仓价值
+    private PriceStatus priceStatus; // 价格状态
+    private LocalDateTime priceTime; // 价格时间（STALE时为快照时间）
+    private BigDecimal holdCost; // 持仓成本（平均成本法）
+    private BigDecimal unrealizedPnl; // 未实现盈亏 = 持仓价值 - 持仓成本，没有价格时为null
+    private BigDecimal realizedPnl; // 已实现盈亏
+    
+    // 构造函数
+    public HoldingValuation() {}
+    
+    public HoldingValuation(String symbol, BigDecimal quantity, BigDecimal price, 
+                           PriceStatus priceStatus, LocalDateTime priceTime) {
+        this.symbol = symbol;
+        this.quantity = quantity;
+        this.price = price;
+        this.value = price != null ? price.multiply(quantity) : null;
+        this.priceStatus = priceStatus;
+        this.priceTime = priceTime;
+    }
+    
+    public HoldingValuation(String symbol, BigDecimal quantity, BigDecimal price, 
+                           PriceStatus priceStatus, LocalDateTime priceTime,
+                           BigDecimal holdCost, BigDecimal realizedPnl) {
+        this(symbol, quantity, price, priceStatus, priceTime);
+        this.holdCost = holdCost;
+        this.realizedPnl = realizedPnl;
+        this.unrealizedPnl = value != null && holdCost != null ? value.subtract(holdCost) : null;
+    }
+    
+    // Getters and Setters
+    public String getSymbol() {
+        return symbol;
+    }
+    
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+    
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(BigDecimal quantity) {
+        this.quantity = quantity;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+    
+    public BigDecimal getValue() {
+        return value;
+    }
+    
+    public void setValue(BigDecimal value) {
+        this.value = value;
+    }
+    
+    public PriceStatus getPriceStatus() {
+        return priceStatus;
+    }
+    
+    public void setPriceStatus(PriceStatus priceStatus) {
+        this.priceStatus = priceStatus;
+    }
+    
+    public LocalDateTime getPriceTime() {
+        return priceTime;
+    }
+    
+    public void setPriceTime(LocalDateTime priceTime) {
+        this.priceTime = priceTime;
+    }
+    
+    public BigDecimal getHoldCost() {
+        return holdCost;
+    }
+    
+    public void setHoldCost(BigDecimal holdCost) {
+        this.holdCost = holdCost;
+    }
+    
+    public BigDecimal getUnrealizedPnl() {
+        return unrealizedPnl;
+    }
+    
+    public void setUnrealizedPnl(BigDecimal unrealizedPnl) {
+        this.unrealizedPnl = unrealizedPnl;
+    }
+    
+    public BigDecimal getRealizedPnl() {
+        return realizedPnl;
+    }
+    
+    public void setRealizedPnl(BigDecimal realizedPnl) {
+        this.realizedPnl = realizedPnl;
+    }
+}
@@ -0,0 +1,93 @@
+package com.noodle.app.trade.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PortfolioValuation {
+    private BigDecimal balance; // 账户余额
+    private BigDecimal totalValue; // 总价值（余额 + 有价格的持仓价值）
+    private List<HoldingValuation> holdings; // 各持仓估值
+    private boolean complete; // 是否所有持仓都取得了实时价格
+    private BigDecimal realizedPnl; // 已实现盈亏合计（包括已清仓的币种）
+    private BigDecimal unrealizedPnl; // 未实现盈亏合计（只计有价格的持仓）
+    
+    // 构造函数
+    public PortfolioValuation() {
+        this.holdings = new ArrayList<>();
+        this.totalValue = BigDecimal.ZERO;
+    }
+    
+    public PortfolioValuation(BigDecimal balance, List<HoldingValuation> holdings) {
+        this(balance, holdings, BigDecimal.ZERO);
+    }
+    
+    public PortfolioValuation(BigDecimal balance, List<HoldingValuation> holdings, BigDecimal realizedPnl) {
+        this.balance = balance;
+        this.holdings = holdings;
+        this.totalValue = balance;
+        this.complete = true;
+        this.realizedPnl = realizedPnl;
+        this.unrealizedPnl = BigDecimal.ZERO;
+        for (HoldingValuation holding : holdings) {
+            if (holding.getValue() != null) {
+                this.totalValue = this.totalValue.add(holding.getValue());
+            }
+            if (holding.getUnrealizedPnl() != null) {
+                this.unrealizedPnl = this.unrealizedPnl.add(holding.getUnrealizedPnl());
+            }
+            if (holding.getPriceStatus() != HoldingValuation.PriceStatus.LIVE) {
+                this.complete = false;
+            }
+        }
+    }
+    
+    // Getters and Setters
+    public BigDecimal getBalance() {
+        return balance;
+    }
+    
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+    
+    public BigDecimal getTotalValue() {
+        return totalValue;
+    }
+    
+    public void setTotalValue(BigDecimal totalValue) {
+        this.totalValue = totalValue;
+    }
+    
+    public List<HoldingValuation> getHoldings() {
+        return holdings;
+    }
+    
+    public void setHoldings(List<HoldingValuation> holdings) {
+        this.holdings = holdings;
+    }
+    
+    public boolean isComplete() {
+        return complete;
+    }
+    
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+    
+    public BigDecimal getRealizedPnl() {
+        return realizedPnl;
+    }
+    
+    public void setRealizedPnl(BigDecimal realizedPnl) {
+        this.realizedPnl = realizedPnl;
+    }
+    
+    public BigDecimal getUnrealizedPnl() {
+        return unrealizedPnl;
+    }
+    
+    public void setUnrealizedPnl(BigDecimal unrealizedPnl) {
+        this.unrealizedPnl = unrealizedPnl;
+    }
+}
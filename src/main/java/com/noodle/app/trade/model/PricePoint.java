@@ -0,0 +1,44 @@
+package com.noodle.app.trade.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class PricePoint {
+    private LocalDateTime time; // 时间（降采样时为窗口开始时间）
+    private BigDecimal price; // 价格（降采样时为窗口内均价）
+    private BigDecimal volume; // 交易量（降采样时为窗口内均值）
+    
+    // 构造函数
+    public PricePoint() {}
+    
+    public PricePoint(LocalDateTime time, BigDecimal price, BigDecimal volume) {
+        this.time = time;
+        this.price = price;
+        this.volume = volume;
+    }
+    
+    // Getters and Setters
+    public LocalDateTime getTime() {
+        return time;
+    }
+    
+    public void setTime(LocalDateTime time) {
+        this.time = time;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+    
+    public BigDecimal getVolume() {
+        return volume;
+    }
+    
+    public void setVolume(BigDecimal volume) {
+        this.volume = volume;
+    }
+}
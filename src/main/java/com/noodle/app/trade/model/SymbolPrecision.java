@@ -0,0 +1,63 @@
+package com.noodle.app.trade.model;
+
+import java.math.BigDecimal;
+
+/**
+ * 交易对的价格和数量精度（来自交易所 exchangeInfo 的 PRICE_FILTER.tickSize 和 LOT_SIZE.stepSize）
+ * 精度为小数位数，如 tickSize 0.01000000 对应 priceScale 2
+ */
+public class SymbolPrecision {
+
+    /**
+     * 未获取到交易所规则时使用：按数值本身的小数位表示
+     */
+    public static final SymbolPrecision NATURAL = new SymbolPrecision(null, 0, 0);
+
+    private final String symbol; // 币种符号，如 BTC, ETH 等
+    private final int priceScale; // 价格小数位数
+    private final int quantityScale; // 数量小数位数
+
+    public SymbolPrecision(String symbol, int priceScale, int quantityScale) {
+        this.symbol = symbol;
+        this.priceScale = priceScale;
+        this.quantityScale = quantityScale;
+    }
+
+    /**
+     * 由交易所的最小变动单位计算精度
+     * @param symbol 币种符号
+     * @param tickSize 价格最小变动单位
+     * @param stepSize 数量最小变动单位
+     */
+    public static SymbolPrecision of(String symbol, BigDecimal tickSize, BigDecimal stepSize) {
+        return new SymbolPrecision(symbol, scaleOf(tickSize), scaleOf(stepSize));
+    }
+
+    private static int scaleOf(BigDecimal increment) {
+        if (increment == null || increment.signum() <= 0) {
+            return 0;
+        }
+        return Math.max(0, increment.stripTrailingZeros().scale());
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getPriceScale() {
+        return priceScale;
+    }
+
+    public int getQuantityScale() {
+        return quantityScale;
+    }
+
+    @Override
+    public String toString() {
+        return "SymbolPrecision{" +
+                "symbol='" + symbol + '\'' +
+                ", priceScale=" + priceScale +
+                ", quantityScale=" + quantityScale +
+                '}';
+    }
+}
@@ -0,0 +1,100 @@
+package com.noodle.app.trade.model;
+
+import java.math.BigDecimal;
+
+/**
+ * 单个币种的实时行情快照（不可变）
+ * miniTicker提供最新价/开盘价/成交量，bookTicker提供买一卖一
+ */
+public final class TickerSnapshot {
+    private final String symbol; // 交易对，如 BTCUSDT
+    private final BigDecimal lastPrice; // 最新成交价
+    private final BigDecimal openPrice; // 24小时开盘价
+    private final BigDecimal highPrice; // 24小时最高价
+    private final BigDecimal lowPrice; // 24小时最低价
+    private final BigDecimal volume; // 24小时成交量
+    private final BigDecimal bidPrice; // 买一价
+    private final BigDecimal askPrice; // 卖一价
+    private final long eventTime; // 交易所事件时间(ms)
+    private final long receivedAt; // 本地接收时间(ms)
+
+    public TickerSnapshot(String symbol, BigDecimal lastPrice, BigDecimal openPrice, BigDecimal highPrice,
+                          BigDecimal lowPrice, BigDecimal volume, BigDecimal bidPrice, BigDecimal askPrice,
+                          long eventTime, long receivedAt) {
+        this.symbol = symbol;
+        this.lastPrice = lastPrice;
+        this.openPrice = openPrice;
+        this.highPrice = highPrice;
+        this.lowPrice = lowPrice;
+        this.volume = volume;
+        this.bidPrice = bidPrice;
+        this.askPrice = askPrice;
+        this.eventTime = eventTime;
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * 合并miniTicker数据，保留原有的买卖盘
+     */
+    public TickerSnapshot withMiniTicker(BigDecimal lastPrice, BigDecimal openPrice, BigDecimal highPrice,
+                                         BigDecimal lowPrice, BigDecimal volume, long eventTime, long receivedAt) {
+        return new TickerSnapshot(symbol, lastPrice, openPrice, highPrice, lowPrice, volume,
+                bidPrice, askPrice, eventTime, receivedAt);
+    }
+
+    /**
+     * 合并bookTicker数据，保留原有的24小时统计
+     */
+    public TickerSnapshot withBookTicker(BigDecimal bidPrice, BigDecimal askPrice, long receivedAt) {
+        return new TickerSnapshot(symbol, lastPrice, openPrice, highPrice, lowPrice, volume,
+                bidPrice, askPrice, eventTime, receivedAt);
+    }
+
+    /**
+     * 是否已经收到过miniTicker（只有买卖盘时没有24小时统计）
+     */
+    public boolean hasTradeData() {
+        return lastPrice != null && openPrice != null;
+    }
+
+    // Getters
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public BigDecimal getLastPrice() {
+        return lastPrice;
+    }
+
+    public BigDecimal getOpenPrice() {
+        return openPrice;
+    }
+
+    public BigDecimal getHighPrice() {
+        return highPrice;
+    }
+
+    public BigDecimal getLowPrice() {
+        return lowPrice;
+    }
+
+    public BigDecimal getVolume() {
+        return volume;
+    }
+
+    public BigDecimal getBidPrice() {
+        return bidPrice;
+    }
+
+    public BigDecimal getAskPrice() {
+        return askPrice;
+    }
+
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+}
@@ -0,0 +1,60 @@
+package com.noodle.app.trade.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import com.noodle.app.trade.util.TimeUtils;
+
+/**
+ * 交易记录分页游标，指向上一页最后一条记录的 (trade_time, id)
+ * 对外编码为不透明的URL安全字符串
+ */
+public final class TradeCursor {
+    private final LocalDateTime tradeTime; // 上一页最后一条记录的交易时间
+    private final long id; // 上一页最后一条记录的ID
+    
+    public TradeCursor(LocalDateTime tradeTime, long id) {
+        this.tradeTime = tradeTime;
+        this.id = id;
+    }
+    
+    /**
+     * 编码为游标字符串
+     * @return 游标字符串
+     */
+    public String encode() {
+        String raw = TimeUtils.toEpochMilli(tradeTime) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解析游标字符串
+     * @param cursor 游标字符串
+     * @return 游标
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    public static TradeCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("无效的分页游标: " + cursor);
+            }
+            long tradeTime = Long.parseLong(raw.substring(0, separator));
+            long id = Long.parseLong(raw.substring(separator + 1));
+            return new TradeCursor(TimeUtils.fromEpochMilli(tradeTime), id);
+        } catch (IllegalArgumentException e) {
+            // Base64解码失败和NumberFormatException都是IllegalArgumentException
+            throw new IllegalArgumentException("无效的分页游标: " + cursor, e);
+        }
+    }
+    
+    public LocalDateTime getTradeTime() {
+        return tradeTime;
+    }
+    
+    public long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,43 @@
+package com.noodle.app.trade.model;
+
+import java.util.List;
+
+public class TradePage {
+    private List<TradeRecord> records; // 本页交易记录，按交易时间倒序
+    private String nextCursor; // 下一页游标，没有更多数据时为null
+    private boolean hasMore; // 是否还有更多数据
+    
+    // 构造函数
+    public TradePage() {}
+    
+    public TradePage(List<TradeRecord> records, String nextCursor, boolean hasMore) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+    
+    // Getters and Setters
+    public List<TradeRecord> getRecords() {
+        return records;
+    }
+    
+    public void setRecords(List<TradeRecord> records) {
+        this.records = records;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
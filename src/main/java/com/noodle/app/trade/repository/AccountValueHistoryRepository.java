@@ -4,7 +4,11 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.noodle.app.trade.entity.AccountValueHistory;
 
@@ -28,8 +32,12 @@ public interface AccountValueHistoryRepository extends JpaRepository<AccountValu
     List<AccountValueHistory> findByAccountNameAndRecordTimeBetweenOrderByRecordTimeAsc(String accountName, LocalDateTime startTime, LocalDateTime endTime);
     
     /**
-     * 删除指定时间之前的所有账户价值历史记录
+     * 删除指定时间之前的所有账户价值历史记录（单条DELETE语句，使用record_time索引，不加载实体）
      * @param dateTime 时间
+     * @return 删除的记录数
      */
-    void deleteByRecordTimeBefore(LocalDateTime dateTime);
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AccountValueHistory h WHERE h.recordTime < :dateTime")
+    int deleteByRecordTimeBefore(@Param("dateTime") LocalDateTime dateTime);
 }
\ No newline at end of file
@@ -1,10 +1,16 @@
 package com.noodle.app.trade.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.noodle.app.trade.entity.CryptoCurrencyEntity;
 
@@ -19,11 +25,22 @@ public interface CryptoCurrencyRepository extends JpaRepository<CryptoCurrencyEn
     List<CryptoCurrencyEntity> findBySymbol(String symbol);
     
     /**
-     * 根据币种符号查找所有加密货币记录，按更新时间降序排列
+     * 查找币种最新的一条记录（LIMIT 1，沿(symbol, last_updated)索引倒序读取一行）
      * @param symbol 币种符号
-     * @return 加密货币实体列表
+     * @return 最新的加密货币记录
+     */
+    Optional<CryptoCurrencyEntity> findFirstBySymbolOrderByLastUpdatedDesc(String symbol);
+    
+    /**
+     * 批量查找多个币种各自最新的一条记录
+     * 子查询按(symbol, last_updated)索引为每个币种取MAX，再回表读取对应行
+     * @param symbols 币种符号
+     * @return 每个币种最新的加密货币记录
      */
-    List<CryptoCurrencyEntity> findBySymbolOrderByLastUpdatedDesc(String symbol);
+    @Query(value = "SELECT c.* FROM crypto_currency c "
+            + "JOIN (SELECT symbol, MAX(last_updated) AS last_updated FROM crypto_currency WHERE symbol IN (:symbols) GROUP BY symbol) latest "
+            + "ON c.symbol = latest.symbol AND c.last_updated = latest.last_updated", nativeQuery = true)
+    List<CryptoCurrencyEntity> findLatestBySymbolIn(@Param("symbols") Collection<String> symbols);
     
     /**
      * 根据币种符号和更新时间范围查找加密货币记录，按更新时间升序排列
@@ -52,8 +69,12 @@ public interface CryptoCurrencyRepository extends JpaRepository<CryptoCurrencyEn
     List<CryptoCurrencyEntity> findByLastUpdatedBetween(LocalDateTime startTime, LocalDateTime endTime);
     
     /**
-     * 删除指定时间之前的所有加密货币记录
+     * 删除指定时间之前的所有加密货币记录（单条DELETE语句，使用last_updated索引，不加载实体）
      * @param dateTime 时间
+     * @return 删除的记录数
      */
-    void deleteByLastUpdatedBefore(LocalDateTime dateTime);
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CryptoCurrencyEntity c WHERE c.lastUpdated < :dateTime")
+    int deleteByLastUpdatedBefore(@Param("dateTime") LocalDateTime dateTime);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.noodle.app.trade.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,4 +26,11 @@ public interface HoldingRepository extends JpaRepository<HoldingEntity, Long> {
      * @return 持仓实体列表
      */
     List<HoldingEntity> findByAccountId(Long accountId);
+    
+    /**
+     * 根据多个账户ID一次性查找持仓
+     * @param accountIds 账户ID集合
+     * @return 持仓实体列表
+     */
+    List<HoldingEntity> findByAccountIdIn(Collection<Long> accountIds);
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.noodle.app.trade.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.noodle.app.trade.entity.PositionPnlEntity;
+
+@Repository
+public interface PositionPnlRepository extends JpaRepository<PositionPnlEntity, Long> {
+
+    /**
+     * 根据账户ID和币种符号查找已实现盈亏
+     * @param accountId 账户ID
+     * @param symbol 币种符号
+     * @return 已实现盈亏记录
+     */
+    Optional<PositionPnlEntity> findByAccountIdAndSymbol(Long accountId, String symbol);
+
+    /**
+     * 查找账户在所有币种上的已实现盈亏
+     * @param accountId 账户ID
+     * @return 已实现盈亏记录列表
+     */
+    List<PositionPnlEntity> findByAccountId(Long accountId);
+
+    /**
+     * 汇总所有账户在指定币种上的已实现盈亏
+     * @param symbol 币种符号
+     * @return 已实现盈亏合计，没有卖出时为0
+     */
+    @Query("SELECT COALESCE(SUM(p.realizedPnl), 0) FROM PositionPnlEntity p WHERE p.symbol = :symbol")
+    BigDecimal sumRealizedPnlBySymbol(@Param("symbol") String symbol);
+
+    /**
+     * 删除账户的所有已实现盈亏记录（单条DELETE语句，不加载实体）
+     * @param accountId 账户ID
+     * @return 删除的记录数
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PositionPnlEntity p WHERE p.accountId = :accountId")
+    int deleteAllByAccountId(@Param("accountId") Long accountId);
+}
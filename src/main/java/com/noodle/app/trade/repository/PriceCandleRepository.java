@@ -0,0 +1,23 @@
+package com.noodle.app.trade.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.noodle.app.trade.entity.PriceCandleEntity;
+
+@Repository
+public interface PriceCandleRepository extends JpaRepository<PriceCandleEntity, Long> {
+    
+    /**
+     * 根据币种、周期和开盘时间范围查找K线，按开盘时间升序排列
+     * @param symbol 币种符号
+     * @param intervalCode 周期代码
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return K线列表
+     */
+    List<PriceCandleEntity> findBySymbolAndIntervalCodeAndOpenTimeBetweenOrderByOpenTimeAsc(String symbol, String intervalCode, LocalDateTime startTime, LocalDateTime endTime);
+}
\ No newline at end of file
@@ -1,11 +1,16 @@
 package com.noodle.app.trade.repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.noodle.app.trade.entity.TradeRecordEntity;
 
@@ -13,11 +18,14 @@ import com.noodle.app.trade.entity.TradeRecordEntity;
 public interface TradeRecordRepository extends JpaRepository<TradeRecordEntity, Long> {
     
     /**
-     * 根据账户名称查找交易记录
+     * 删除指定账户的所有交易记录（单条DELETE语句，不加载实体）
      * @param accountName 账户名称
-     * @return 交易记录列表
+     * @return 删除的记录数
      */
-    List<TradeRecordEntity> findByAccountName(String accountName);
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TradeRecordEntity t WHERE t.accountName = :accountName")
+    int deleteAllByAccountName(@Param("accountName") String accountName);
     
     /**
      * 根据币种符号查找交易记录
@@ -26,6 +34,14 @@ public interface TradeRecordRepository extends JpaRepository<TradeRecordEntity,
      */
     List<TradeRecordEntity> findBySymbol(String symbol);
     
+    /**
+     * 汇总指定币种的成交金额（走(symbol, amount)覆盖索引）
+     * @param symbol 币种符号
+     * @return 成交金额合计，没有成交时为0
+     */
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM TradeRecordEntity t WHERE t.symbol = :symbol")
+    BigDecimal sumAmountBySymbol(@Param("symbol") String symbol);
+    
     /**
      * 根据交易类型查找交易记录
      * @param tradeType 交易类型 (BUY/SELL)
@@ -51,12 +67,46 @@ public interface TradeRecordRepository extends JpaRepository<TradeRecordEntity,
     List<TradeRecordEntity> findBySymbolAndTradeTimeBetween(String symbol, LocalDateTime startTime, LocalDateTime endTime);
     
     /**
-     * 查找最新的交易记录
-     * @param limit 数量限制
-     * @return 交易记录列表
+     * 查找最新的交易记录（第一页）
+     * @param pageable 只使用其中的数量限制，如 PageRequest.of(0, limit)
+     * @return 交易记录列表，按 (交易时间, ID) 倒序
+     */
+    @Query("SELECT t FROM TradeRecordEntity t ORDER BY t.tradeTime DESC, t.id DESC")
+    List<TradeRecordEntity> findLatestTrades(Pageable pageable);
+    
+    /**
+     * 查找游标之前的交易记录（keyset分页，沿trade_time索引定位，不使用OFFSET）
+     * @param tradeTime 上一页最后一条记录的交易时间
+     * @param id 上一页最后一条记录的ID
+     * @param pageable 只使用其中的数量限制
+     * @return 交易记录列表，按 (交易时间, ID) 倒序
+     */
+    @Query("SELECT t FROM TradeRecordEntity t WHERE t.tradeTime < :tradeTime OR (t.tradeTime = :tradeTime AND t.id < :id) "
+            + "ORDER BY t.tradeTime DESC, t.id DESC")
+    List<TradeRecordEntity> findTradesBefore(@Param("tradeTime") LocalDateTime tradeTime, @Param("id") Long id, Pageable pageable);
+    
+    /**
+     * 查找指定账户最新的交易记录（第一页）
+     * @param accountName 账户名称
+     * @param pageable 只使用其中的数量限制
+     * @return 交易记录列表，按 (交易时间, ID) 倒序
+     */
+    @Query("SELECT t FROM TradeRecordEntity t WHERE t.accountName = :accountName ORDER BY t.tradeTime DESC, t.id DESC")
+    List<TradeRecordEntity> findLatestTradesByAccountName(@Param("accountName") String accountName, Pageable pageable);
+    
+    /**
+     * 查找指定账户游标之前的交易记录（keyset分页，沿(account_name, trade_time)索引定位）
+     * @param accountName 账户名称
+     * @param tradeTime 上一页最后一条记录的交易时间
+     * @param id 上一页最后一条记录的ID
+     * @param pageable 只使用其中的数量限制
+     * @return 交易记录列表，按 (交易时间, ID) 倒序
      */
-    @Query("SELECT t FROM TradeRecordEntity t ORDER BY t.tradeTime DESC")
-    List<TradeRecordEntity> findLatestTrades(int limit);
+    @Query("SELECT t FROM TradeRecordEntity t WHERE t.accountName = :accountName "
+            + "AND (t.tradeTime < :tradeTime OR (t.tradeTime = :tradeTime AND t.id < :id)) "
+            + "ORDER BY t.tradeTime DESC, t.id DESC")
+    List<TradeRecordEntity> findTradesByAccountNameBefore(@Param("accountName") String accountName, @Param("tradeTime") LocalDateTime tradeTime,
+                                                          @Param("id") Long id, Pageable pageable);
     
     /**
      * 根据交易策略查找交易记录
@@ -0,0 +1,300 @@
+package com.noodle.app.trade.service;
+
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.noodle.app.trade.book.AccountBook;
+import com.noodle.app.trade.book.AccountJournal;
+import com.noodle.app.trade.book.FileAccountJournal;
+import com.noodle.app.trade.book.JournalEntry;
+import com.noodle.app.trade.book.MappedTradeJournal;
+import com.noodle.app.trade.entity.AccountEntity;
+import com.noodle.app.trade.entity.HoldingEntity;
+import com.noodle.app.trade.model.Account;
+import com.noodle.app.trade.repository.AccountRepository;
+import com.noodle.app.trade.repository.HoldingRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 写回模式的账户服务（trading.book.enabled=true 时启用）
+ * 账户余额和持仓以内存账户簿为准，成交只写本地日志，定期批量写回数据库：
+ * - 启动：从数据库加载全部账户和持仓，重放检查点之后的日志，恢复上次退出（包括崩溃）前未写回的成交
+ * - 成交：AccountBook 在内存中校验并执行，日志落盘后返回
+ * - 写回：每隔flush-interval取出变更，在一个事务中写入账户、持仓、交易记录和检查点，成功后压缩日志
+ * - 账户创建/重置/删除：暂停成交，先写回全部变更再直接修改数据库，然后重新加载该账户
+ * 账户簿只在单个实例中有效，多实例共享数据库时不能开启。交易记录、估值和盈亏查询读取数据库，最多落后一个写回周期。
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "trading.book", name = "enabled", havingValue = "true")
+// 启动时先完成盈亏账本回填，再加载持仓成本
+@DependsOn("pnlLedgerBackfill")
+public class AccountBookService {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private HoldingRepository holdingRepository;
+
+    @Autowired
+    private AccountBookWriter accountBookWriter;
+
+    @Autowired
+    private AccountValuationEngine accountValuationEngine;
+
+    // 日志实现：mmap 内存映射定长记录分段日志；file 单文件日志
+    @Value("${trading.book.journal.type:mmap}")
+    private String journalType;
+
+    // 日志路径：mmap 为段文件目录，file 为日志文件
+    @Value("${trading.book.journal.path:data/account-book}")
+    private String journalPath;
+
+    // 成交返回前是否等待日志落盘
+    @Value("${trading.book.journal.fsync:true}")
+    private boolean journalFsync;
+
+    // file：日志超过该大小(字节)时，写回后重写日志去掉已写入数据库的记录
+    @Value("${trading.book.journal.compact-threshold:67108864}")
+    private long compactThresholdBytes;
+
+    // mmap：每个段的记录数
+    @Value("${trading.book.journal.segment-records:65536}")
+    private int segmentRecords;
+
+    // mmap：已写回数据库的段额外保留的个数
+    @Value("${trading.book.journal.retain-segments:8}")
+    private int retainSegments;
+
+    // 指定从哪个序号之后开始重放（用于检查点丢失的数据库备份），小于0时使用数据库中的检查点
+    @Value("${trading.book.replay.from-seq:-1}")
+    private long replayFromSeq;
+
+    private AccountBook accountBook;
+
+    // 写回串行执行，保证检查点按顺序前进
+    private final Object flushLock = new Object();
+
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder flushedTrades = new LongAdder();
+    private volatile long checkpointSeq;
+    private volatile long recoveredTrades;
+    private volatile long lastFlushMillis;
+
+    @PostConstruct
+    public void init() {
+        AccountJournal journal = "file".equalsIgnoreCase(journalType)
+                ? new FileAccountJournal(Paths.get(journalPath, "account-book.journal"), journalFsync, compactThresholdBytes)
+                : new MappedTradeJournal(Paths.get(journalPath), segmentRecords, journalFsync, retainSegments);
+        accountBook = new AccountBook(journal);
+
+        Map<Long, Map<String, AccountBook.Position>> positions = new HashMap<>();
+        for (HoldingEntity holding : holdingRepository.findAll()) {
+            if (holding.getQuantity() == null || holding.getQuantity().signum() <= 0) {
+                continue;
+            }
+            positions.computeIfAbsent(holding.getAccountId(), k -> new HashMap<>())
+                    .put(holding.getSymbol(), new AccountBook.Position(holding.getQuantity(), holding.getHoldCost()));
+        }
+        List<AccountEntity> accounts = accountRepository.findAll();
+        for (AccountEntity account : accounts) {
+            accountBook.load(account.getId(), account.getAccountName(), account.getBalance(), positions.get(account.getId()));
+        }
+
+        checkpointSeq = accountBookWriter.readCheckpoint();
+        long replayFrom = checkpointSeq;
+        if (replayFromSeq >= 0) {
+            log.warn("忽略数据库检查点 {}，从序号 {} 之后开始重放日志", checkpointSeq, replayFromSeq);
+            replayFrom = replayFromSeq;
+        }
+        long recovered = accountBook.recover(replayFrom);
+        recoveredTrades = recovered;
+        log.info("账户簿已加载 {} 个账户，检查点 {}，从日志恢复 {} 笔未写回的成交", accounts.size(), replayFrom, recovered);
+        if (recovered > 0) {
+            flush();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        accountBook.getJournal().close();
+    }
+
+    /**
+     * 买入
+     * @return 成交，返回时已写入日志，交易记录在下一次写回时插入数据库
+     */
+    public JournalEntry buy(String accountName, String symbol, BigDecimal price, BigDecimal quantity, String strategy) {
+        return accountBook.buy(accountName, symbol, price, quantity, strategy);
+    }
+
+    /**
+     * 卖出
+     * @return 成交，返回时已写入日志，交易记录在下一次写回时插入数据库
+     */
+    public JournalEntry sell(String accountName, String symbol, BigDecimal price, BigDecimal quantity, String strategy) {
+        return accountBook.sell(accountName, symbol, price, quantity, strategy);
+    }
+
+    /**
+     * 读取账户（内存中的最新状态）
+     * @return 账户，不存在时返回null
+     */
+    public Account getAccount(String accountName) {
+        AccountBook.AccountState state = accountBook.get(accountName);
+        if (state == null) {
+            return null;
+        }
+        Account account = new Account(state.getAccountName(), state.getBalance());
+        account.setId(state.getAccountId());
+        List<HoldingEntity> holdingList = new ArrayList<>(state.getPositions().size());
+        for (Map.Entry<String, AccountBook.Position> entry : state.getPositions().entrySet()) {
+            account.addHolding(entry.getKey(), entry.getValue().getQuantity());
+            HoldingEntity holding = new HoldingEntity(state.getAccountId(), entry.getKey(), entry.getValue().getQuantity());
+            holding.setHoldCost(entry.getValue().getHoldCost());
+            holdingList.add(holding);
+        }
+        account.setHoldingList(holdingList);
+        return account;
+    }
+
+    /**
+     * 直接修改数据库中的账户（创建、重置、删除）
+     * 执行期间暂停所有成交；执行前写回全部变更，执行后按数据库重新加载该账户
+     * @param accountName 账户名称
+     * @param action 数据库操作
+     * @return 操作结果
+     */
+    public <T> T exclusive(String accountName, Supplier<T> action) {
+        synchronized (flushLock) {
+            accountBook.lockExclusive();
+            try {
+                if (flushLocked() < 0) {
+                    throw new RuntimeException("账户簿写回数据库失败，请稍后重试: " + accountName);
+                }
+                T result = action.get();
+                Optional<AccountEntity> account = accountRepository.findByAccountName(accountName);
+                if (account.isPresent()) {
+                    Map<String, AccountBook.Position> positions = new HashMap<>();
+                    for (HoldingEntity holding : holdingRepository.findByAccountId(account.get().getId())) {
+                        positions.put(holding.getSymbol(), new AccountBook.Position(holding.getQuantity(), holding.getHoldCost()));
+                    }
+                    accountBook.load(account.get().getId(), accountName, account.get().getBalance(), positions);
+                } else {
+                    accountBook.remove(accountName);
+                }
+                return result;
+            } finally {
+                accountBook.unlockExclusive();
+            }
+        }
+    }
+
+    /**
+     * 定期写回数据库
+     */
+    @Scheduled(fixedDelayString = "${trading.book.flush-interval:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * 立即写回全部变更
+     * @return 写入的交易记录数，失败时返回-1（变更保留到下一次写回）
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            return flushLocked();
+        }
+    }
+
+    private int flushLocked() {
+        AccountBook.Snapshot snapshot = accountBook.snapshot();
+        if (snapshot.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        int trades;
+        try {
+            trades = accountBookWriter.write(snapshot);
+        } catch (RuntimeException e) {
+            accountBook.requeue(snapshot);
+            flushFailures.increment();
+            log.error("账户簿写回失败，{} 笔成交保留到下一次写回", snapshot.getTrades().size(), e);
+            return -1;
+        }
+        checkpointSeq = snapshot.getSeq();
+        flushes.increment();
+        flushedTrades.add(trades);
+        lastFlushMillis = (System.nanoTime() - start) / 1000000;
+
+        for (AccountBook.AccountState state : snapshot.getAccounts()) {
+            accountValuationEngine.invalidateAccount(state.getAccountId());
+        }
+        try {
+            accountBook.getJournal().compact(snapshot.getSeq());
+        } catch (RuntimeException e) {
+            // 压缩失败不影响正确性，重放时会跳过检查点之前的记录
+            log.warn("账户日志压缩失败: {}", e.getMessage());
+        }
+        log.debug("账户簿写回完成: 账户 {}, 交易 {}, 检查点 {}, 耗时 {} ms", snapshot.getAccounts().size(), trades,
+                snapshot.getSeq(), lastFlushMillis);
+        return trades;
+    }
+
+    /**
+     * 按顺序读取日志中检查点之前和之后的全部记录（只读）
+     * @param consumer 记录处理
+     * @return 记录数
+     */
+    public long scanJournal(Consumer<JournalEntry> consumer) {
+        return accountBook.getJournal().replay(0, consumer);
+    }
+
+    public long getCheckpointSeq() {
+        return checkpointSeq;
+    }
+
+    public long getRecoveredTrades() {
+        return recoveredTrades;
+    }
+
+    /**
+     * 获取账户簿统计
+     * @return 账户数、待写回变更、检查点和写回次数等指标
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(accountBook.getStats());
+        stats.put("checkpointSeq", checkpointSeq);
+        stats.put("recoveredTrades", recoveredTrades);
+        stats.put("flushes", flushes.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        stats.put("flushedTrades", flushedTrades.sum());
+        stats.put("lastFlushMillis", lastFlushMillis);
+        return stats;
+    }
+}
@@ -0,0 +1,152 @@
+package com.noodle.app.trade.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.noodle.app.trade.book.AccountBook;
+import com.noodle.app.trade.book.JournalEntry;
+import com.noodle.app.trade.config.LocalDateTimeConverter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 账户簿写回
+ * 一次快照在一个事务中写入：账户余额、持仓（按账户整体替换）、交易记录、已实现盈亏增量和日志检查点。
+ * 同一账户在两次写回之间的多笔成交只产生一次账户更新和一组持仓写入。
+ */
+@Slf4j
+@Service
+public class AccountBookWriter {
+
+    public static final String CHECKPOINT_NAME = "account-book";
+
+    private static final String UPDATE_ACCOUNT_SQL = "UPDATE account SET balance = ?, version = version + 1 WHERE id = ?";
+
+    private static final String DELETE_HOLDINGS_SQL = "DELETE FROM holding WHERE account_id = ?";
+
+    private static final String INSERT_HOLDING_SQL = "INSERT INTO holding (account_id, symbol, quantity, hold_cost, version) VALUES (?, ?, ?, ?, 0)";
+
+    private static final String INSERT_TRADE_SQL = "INSERT INTO trade_record "
+            + "(symbol, trade_type, price, quantity, amount, trade_time, strategy, account_name) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPSERT_PNL_SQL = "INSERT INTO position_pnl "
+            + "(account_id, symbol, sold_quantity, sold_cost, sell_proceeds, realized_pnl, updated_time) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE sold_quantity = sold_quantity + VALUES(sold_quantity), "
+            + "sold_cost = sold_cost + VALUES(sold_cost), sell_proceeds = sell_proceeds + VALUES(sell_proceeds), "
+            + "realized_pnl = realized_pnl + VALUES(realized_pnl), updated_time = VALUES(updated_time)";
+
+    // 检查点只前进不后退
+    private static final String UPSERT_CHECKPOINT_SQL = "INSERT INTO journal_checkpoint (name, seq, updated_time) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE seq = GREATEST(seq, VALUES(seq)), updated_time = VALUES(updated_time)";
+
+    private static final String SELECT_CHECKPOINT_SQL = "SELECT seq FROM journal_checkpoint WHERE name = ?";
+
+    private static final LocalDateTimeConverter TIME_CONVERTER = new LocalDateTimeConverter();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 每个JDBC批次的最大行数
+    @Value("${trading.book.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 同一账户同一币种在一次写回中的卖出合计
+     */
+    private static final class PnlTotal {
+        private final long accountId;
+        private final String symbol;
+        private BigDecimal soldQuantity = BigDecimal.ZERO;
+        private BigDecimal soldCost = BigDecimal.ZERO;
+        private BigDecimal proceeds = BigDecimal.ZERO;
+        private LocalDateTime lastTradeTime;
+
+        private PnlTotal(long accountId, String symbol) {
+            this.accountId = accountId;
+            this.symbol = symbol;
+        }
+
+        private void add(JournalEntry sell) {
+            soldQuantity = soldQuantity.add(sell.getQuantity());
+            soldCost = soldCost.add(sell.getCostBasis());
+            proceeds = proceeds.add(sell.getAmount());
+            lastTradeTime = sell.getTradeTime();
+        }
+    }
+
+    /**
+     * 在一个事务中写入一次快照，并把检查点推进到快照序号
+     * @param snapshot 账户簿快照
+     * @return 写入的交易记录数
+     */
+    @Transactional
+    public int write(AccountBook.Snapshot snapshot) {
+        List<Object[]> accounts = new ArrayList<>();
+        List<Object[]> holdingDeletes = new ArrayList<>();
+        List<Object[]> holdingInserts = new ArrayList<>();
+        for (AccountBook.AccountState state : snapshot.getAccounts()) {
+            accounts.add(new Object[] { state.getBalance(), state.getAccountId() });
+            holdingDeletes.add(new Object[] { state.getAccountId() });
+            for (Map.Entry<String, AccountBook.Position> position : state.getPositions().entrySet()) {
+                holdingInserts.add(new Object[] { state.getAccountId(), position.getKey(),
+                        position.getValue().getQuantity(), position.getValue().getHoldCost() });
+            }
+        }
+
+        List<Object[]> trades = new ArrayList<>(snapshot.getTrades().size());
+        Map<String, PnlTotal> pnl = new LinkedHashMap<>();
+        for (JournalEntry trade : snapshot.getTrades()) {
+            trades.add(new Object[] { trade.getSymbol(), trade.getTradeType(), trade.getPrice(), trade.getQuantity(),
+                    trade.getAmount(), TIME_CONVERTER.convertToDatabaseColumn(trade.getTradeTime()), trade.getStrategy(),
+                    trade.getAccountName() });
+            if (!trade.isBuy()) {
+                pnl.computeIfAbsent(trade.getAccountId() + ":" + trade.getSymbol(),
+                        k -> new PnlTotal(trade.getAccountId(), trade.getSymbol())).add(trade);
+            }
+        }
+        List<Object[]> pnlUpserts = new ArrayList<>(pnl.size());
+        for (PnlTotal total : pnl.values()) {
+            pnlUpserts.add(new Object[] { total.accountId, total.symbol, total.soldQuantity, total.soldCost, total.proceeds,
+                    total.proceeds.subtract(total.soldCost), TIME_CONVERTER.convertToDatabaseColumn(total.lastTradeTime) });
+        }
+
+        batch(UPDATE_ACCOUNT_SQL, accounts);
+        batch(DELETE_HOLDINGS_SQL, holdingDeletes);
+        batch(INSERT_HOLDING_SQL, holdingInserts);
+        batch(INSERT_TRADE_SQL, trades);
+        batch(UPSERT_PNL_SQL, pnlUpserts);
+        jdbcTemplate.update(UPSERT_CHECKPOINT_SQL, CHECKPOINT_NAME, snapshot.getSeq(),
+                TIME_CONVERTER.convertToDatabaseColumn(LocalDateTime.now()));
+
+        log.debug("账户簿写回: 账户 {}, 持仓 {}, 交易 {}, 检查点 {}", accounts.size(), holdingInserts.size(), trades.size(),
+                snapshot.getSeq());
+        return trades.size();
+    }
+
+    /**
+     * 读取检查点
+     * @return 已写入数据库的最大日志序号，没有记录时返回0
+     */
+    public long readCheckpoint() {
+        List<Long> seq = jdbcTemplate.queryForList(SELECT_CHECKPOINT_SQL, Long.class, CHECKPOINT_NAME);
+        return seq.isEmpty() || seq.get(0) == null ? 0 : seq.get(0);
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + batchSize)));
+        }
+    }
+}
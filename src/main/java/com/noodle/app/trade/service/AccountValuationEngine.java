@@ -0,0 +1,401 @@
+package com.noodle.app.trade.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.noodle.app.trade.config.LocalDateTimeConverter;
+import com.noodle.app.trade.entity.AccountEntity;
+import com.noodle.app.trade.entity.HoldingEntity;
+import com.noodle.app.trade.repository.AccountRepository;
+import com.noodle.app.trade.repository.HoldingRepository;
+import com.noodle.app.trade.util.FixedPoint;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 增量账户估值引擎
+ * 在内存中维护账户余额、持仓和 币种 -> 账户 的敞口索引，每次行情更新只重新估值
+ * 持有价格变动币种的账户以及发生过交易的账户，并批量写入账户总价值和价值历史。
+ * 估值用定点数（long + 小数位数，数量精度取交易所规则）计算，不分配中间对象；写入数据库时精确转换为BigDecimal。
+ * <p>
+ * 本节点的交易通过 {@link #invalidateAccount(Long)} 立即标记；其他节点（或直接执行的SQL）提交的变动依赖 account.version：
+ * 每次估值前读取全部账户的 (id, version)，版本与内存中不同、新增或已删除的账户都会重新加载。
+ * 因此余额和持仓的任何修改都必须同时递增 account.version（TradeExecutor、AccountBookWriter 和JPA保存都会递增），
+ * 只改 holding 表而不递增账户版本的修改不会被其他节点发现。
+ */
+@Slf4j
+@Service
+public class AccountValuationEngine {
+
+    private static final LocalDateTimeConverter TIME_CONVERTER = new LocalDateTimeConverter();
+
+    private static final String SELECT_VERSIONS_SQL = "SELECT id, version FROM account";
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private HoldingRepository holdingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SymbolPrecisionService symbolPrecisionService;
+
+    /**
+     * 账户在内存中的估值视图
+     * 余额和持仓数量同时保存BigDecimal和定点数（按币种数量精度），估值时优先用定点数计算
+     */
+    private static final class Position {
+        private final String accountName;
+        // 加载时的 account.version，用于发现其他节点提交的变动
+        private final long version;
+        private final BigDecimal balance;
+        private final String[] symbols;
+        private final BigDecimal[] quantities;
+        // 定点数表示，fixedPoint为false时（超出long范围或精度）只能用BigDecimal计算
+        private final boolean fixedPoint;
+        private final long balanceUnscaled;
+        private final int balanceScale;
+        private final long[] quantityUnscaled;
+        private final int[] quantityScales;
+
+        private Position(String accountName, long version, BigDecimal balance, String[] symbols, BigDecimal[] quantities,
+                int[] preferredScales) {
+            this.accountName = accountName;
+            this.version = version;
+            this.balance = balance != null ? balance : BigDecimal.ZERO;
+            this.symbols = symbols;
+            this.quantities = quantities;
+            this.quantityUnscaled = new long[symbols.length];
+            this.quantityScales = new int[symbols.length];
+
+            boolean exact = true;
+            long unscaledBalance = 0;
+            int scaleOfBalance = 0;
+            try {
+                scaleOfBalance = FixedPoint.scaleFor(this.balance, 0);
+                unscaledBalance = FixedPoint.toScaled(this.balance, scaleOfBalance);
+                for (int i = 0; i < symbols.length; i++) {
+                    quantityScales[i] = FixedPoint.scaleFor(quantities[i], preferredScales[i]);
+                    quantityUnscaled[i] = FixedPoint.toScaled(quantities[i], quantityScales[i]);
+                }
+            } catch (ArithmeticException e) {
+                exact = false;
+            }
+            this.fixedPoint = exact;
+            this.balanceUnscaled = unscaledBalance;
+            this.balanceScale = scaleOfBalance;
+        }
+    }
+
+    /**
+     * 币种最近一次的价格
+     */
+    private static final class Quote {
+        private final BigDecimal price;
+        private final boolean fixedPoint;
+        private final long unscaled;
+        private final int scale;
+
+        private Quote(BigDecimal price, int preferredScale) {
+            this.price = price;
+            boolean exact = true;
+            long unscaledPrice = 0;
+            int scaleOfPrice = 0;
+            try {
+                scaleOfPrice = FixedPoint.scaleFor(price, preferredScale);
+                unscaledPrice = FixedPoint.toScaled(price, scaleOfPrice);
+            } catch (ArithmeticException e) {
+                exact = false;
+            }
+            this.fixedPoint = exact;
+            this.unscaled = unscaledPrice;
+            this.scale = scaleOfPrice;
+        }
+    }
+
+    private final ConcurrentMap<Long, Position> positions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Long>> exposure = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Quote> lastPrices = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyAccounts = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingWrites = ConcurrentHashMap.newKeySet();
+    private volatile boolean initialized;
+
+    /**
+     * 标记账户需要在下一次估值时从数据库重新加载（交易、重置、删除后调用）
+     * @param accountId 账户ID
+     */
+    public void invalidateAccount(Long accountId) {
+        if (accountId != null) {
+            dirtyAccounts.add(accountId);
+        }
+    }
+
+    /**
+     * 获取当前所有账户持有的币种
+     * @return 币种符号集合（不带USDT后缀）
+     */
+    public Set<String> getExposedSymbols() {
+        Set<String> symbols = new HashSet<>();
+        for (Map.Entry<String, Set<Long>> entry : exposure.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                symbols.add(entry.getKey());
+            }
+        }
+        return symbols;
+    }
+
+    /**
+     * 获取账户当前的估值（基于最近一次行情）
+     * @param accountId 账户ID
+     * @return 账户总价值，账户不在引擎中时返回null
+     */
+    public BigDecimal getAccountValue(Long accountId) {
+        Position position = positions.get(accountId);
+        return position != null ? valueOf(position) : null;
+    }
+
+    /**
+     * 根据最新行情增量估值
+     * @param prices 最新价格，key为币种符号（不带USDT后缀）
+     * @param recordTime 记录时间
+     * @return 本次重新估值的账户数量
+     */
+    @Transactional
+    public synchronized int revalue(Map<String, BigDecimal> prices, LocalDateTime recordTime) {
+        if (!initialized) {
+            rebuild();
+        } else {
+            detectExternalChanges();
+        }
+
+        // 重建后尚未写入的账户
+        Set<Long> affected = new HashSet<>(pendingWrites);
+        pendingWrites.removeAll(affected);
+
+        // 重新加载发生过变动的账户
+        if (!dirtyAccounts.isEmpty()) {
+            List<Long> reload = new ArrayList<>();
+            Iterator<Long> iterator = dirtyAccounts.iterator();
+            while (iterator.hasNext()) {
+                reload.add(iterator.next());
+                iterator.remove();
+            }
+            reloadAccounts(reload);
+            affected.addAll(reload);
+        }
+
+        // 只处理价格发生变化的币种
+        for (Map.Entry<String, BigDecimal> entry : prices.entrySet()) {
+            BigDecimal price = entry.getValue();
+            if (price == null) {
+                continue;
+            }
+            Quote previous = lastPrices.get(entry.getKey());
+            if (previous == null || previous.price.compareTo(price) != 0) {
+                lastPrices.put(entry.getKey(), new Quote(price, symbolPrecisionService.get(entry.getKey()).getPriceScale()));
+                Set<Long> holders = exposure.get(entry.getKey());
+                if (holders != null) {
+                    affected.addAll(holders);
+                }
+            }
+        }
+
+        List<Object[]> valueUpdates = new ArrayList<>(affected.size());
+        List<Object[]> historyInserts = new ArrayList<>(affected.size());
+        Long recordTimeValue = TIME_CONVERTER.convertToDatabaseColumn(recordTime);
+        for (Long accountId : affected) {
+            Position position = positions.get(accountId);
+            if (position == null) {
+                continue;
+            }
+            BigDecimal totalValue = valueOf(position);
+            valueUpdates.add(new Object[] { totalValue, accountId });
+            historyInserts.add(new Object[] { position.accountName, totalValue, recordTimeValue });
+        }
+
+        if (!valueUpdates.isEmpty()) {
+            try {
+                jdbcTemplate.batchUpdate("UPDATE account SET total_value = ? WHERE id = ?", valueUpdates);
+                jdbcTemplate.batchUpdate("INSERT INTO account_value_history (account_name, total_value, record_time) VALUES (?, ?, ?)", historyInserts);
+            } catch (RuntimeException e) {
+                // 写入随事务回滚，内存中的价格和持仓已经是最新的：把本次的账户放回待写入集合，下一次估值时重新写入
+                pendingWrites.addAll(affected);
+                throw e;
+            }
+        }
+
+        log.info("增量估值完成: 账户总数 {}, 重新估值 {}", positions.size(), valueUpdates.size());
+        return valueUpdates.size();
+    }
+
+    /**
+     * 从数据库完整重建内存状态（两次查询：全部账户 + 全部持仓），所有账户都会在下一次估值中写入
+     */
+    public synchronized void rebuild() {
+        positions.clear();
+        exposure.clear();
+        // 先清空再查询，查询期间发生的交易仍会在下一次估值时重新加载
+        dirtyAccounts.clear();
+
+        List<AccountEntity> accounts = accountRepository.findAll();
+        Map<Long, Map<String, BigDecimal>> holdingsByAccount = groupHoldings(holdingRepository.findAll());
+        for (AccountEntity account : accounts) {
+            putPosition(account, holdingsByAccount.get(account.getId()));
+            pendingWrites.add(account.getId());
+        }
+        initialized = true;
+        log.info("估值引擎已加载 {} 个账户, {} 个持仓币种", positions.size(), exposure.size());
+    }
+
+    /**
+     * 比较数据库中的账户版本和内存中的版本，把版本不同、新增和已删除的账户标记为需要重新加载
+     */
+    private void detectExternalChanges() {
+        Map<Long, Long> versions = new HashMap<>();
+        jdbcTemplate.query(SELECT_VERSIONS_SQL, rs -> {
+            versions.put(rs.getLong("id"), rs.getLong("version"));
+        });
+
+        int changed = 0;
+        for (Map.Entry<Long, Long> entry : versions.entrySet()) {
+            Position position = positions.get(entry.getKey());
+            if (position == null || position.version != entry.getValue()) {
+                changed += dirtyAccounts.add(entry.getKey()) ? 1 : 0;
+            }
+        }
+        for (Long accountId : positions.keySet()) {
+            if (!versions.containsKey(accountId)) {
+                changed += dirtyAccounts.add(accountId) ? 1 : 0;
+            }
+        }
+        if (changed > 0) {
+            log.debug("发现 {} 个账户的版本发生变化，将重新加载", changed);
+        }
+    }
+
+    private void reloadAccounts(Collection<Long> accountIds) {
+        for (Long accountId : accountIds) {
+            removePosition(accountId);
+        }
+
+        List<AccountEntity> accounts = accountRepository.findAllById(accountIds);
+        Map<Long, Map<String, BigDecimal>> holdingsByAccount = groupHoldings(holdingRepository.findByAccountIdIn(accountIds));
+        for (AccountEntity account : accounts) {
+            putPosition(account, holdingsByAccount.get(account.getId()));
+        }
+    }
+
+    private Map<Long, Map<String, BigDecimal>> groupHoldings(List<HoldingEntity> holdings) {
+        Map<Long, Map<String, BigDecimal>> grouped = new HashMap<>();
+        for (HoldingEntity holding : holdings) {
+            if (holding == null || holding.getSymbol() == null || holding.getQuantity() == null
+                    || holding.getQuantity().compareTo(BigDecimal.ZERO) <= 0) {
+                continue;
+            }
+            Map<String, BigDecimal> accountHoldings = grouped.get(holding.getAccountId());
+            if (accountHoldings == null) {
+                accountHoldings = new HashMap<>();
+                grouped.put(holding.getAccountId(), accountHoldings);
+            }
+            accountHoldings.merge(holding.getSymbol(), holding.getQuantity(), BigDecimal::add);
+        }
+        return grouped;
+    }
+
+    private void putPosition(AccountEntity account, Map<String, BigDecimal> holdings) {
+        int size = holdings != null ? holdings.size() : 0;
+        String[] symbols = new String[size];
+        BigDecimal[] quantities = new BigDecimal[size];
+        int[] preferredScales = new int[size];
+        if (holdings != null) {
+            int i = 0;
+            for (Map.Entry<String, BigDecimal> holding : holdings.entrySet()) {
+                symbols[i] = holding.getKey();
+                quantities[i] = holding.getValue();
+                preferredScales[i] = symbolPrecisionService.get(holding.getKey()).getQuantityScale();
+                i++;
+            }
+        }
+        positions.put(account.getId(), new Position(account.getAccountName(), account.getVersion(), account.getBalance(),
+                symbols, quantities, preferredScales));
+        for (String symbol : symbols) {
+            exposure.computeIfAbsent(symbol, key -> ConcurrentHashMap.newKeySet()).add(account.getId());
+        }
+    }
+
+    private void removePosition(Long accountId) {
+        Position previous = positions.remove(accountId);
+        if (previous != null) {
+            for (String symbol : previous.symbols) {
+                Set<Long> holders = exposure.get(symbol);
+                if (holders != null) {
+                    holders.remove(accountId);
+                }
+            }
+        }
+    }
+
+    private BigDecimal valueOf(Position position) {
+        if (position.fixedPoint) {
+            try {
+                return fixedPointValueOf(position);
+            } catch (ArithmeticException e) {
+                // 超出long范围，改用BigDecimal
+            }
+        }
+        BigDecimal totalValue = position.balance;
+        for (int i = 0; i < position.symbols.length; i++) {
+            Quote quote = lastPrices.get(position.symbols[i]);
+            if (quote != null) {
+                totalValue = totalValue.add(quote.price.multiply(position.quantities[i]));
+            }
+        }
+        return totalValue;
+    }
+
+    /**
+     * 用定点数估值：乘积和累加都是精确的，累加精度取各项精度的最大值，结果与BigDecimal计算相等
+     * @throws ArithmeticException 溢出或价格无法用定点数表示
+     */
+    private BigDecimal fixedPointValueOf(Position position) {
+        long total = position.balanceUnscaled;
+        int scale = position.balanceScale;
+        for (int i = 0; i < position.symbols.length; i++) {
+            Quote quote = lastPrices.get(position.symbols[i]);
+            if (quote == null) {
+                continue;
+            }
+            if (!quote.fixedPoint) {
+                throw new ArithmeticException("价格超出定点数范围");
+            }
+            long term = Math.multiplyExact(quote.unscaled, position.quantityUnscaled[i]);
+            int termScale = quote.scale + position.quantityScales[i];
+            if (termScale > scale) {
+                total = FixedPoint.rescale(total, scale, termScale);
+                scale = termScale;
+            } else {
+                term = FixedPoint.rescale(term, termScale, scale);
+            }
+            total = Math.addExact(total, term);
+        }
+        return FixedPoint.toDecimal(total, scale);
+    }
+}
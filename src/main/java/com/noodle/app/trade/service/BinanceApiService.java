@@ -2,35 +2,56 @@ package com.noodle.app.trade.service;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.noodle.app.trade.config.BinanceConfig;
+import com.noodle.app.trade.config.BinanceStreamConfig;
 import com.noodle.app.trade.config.ProxyConfig;
 import com.noodle.app.trade.model.CryptoCurrency;
+import com.noodle.app.trade.model.SymbolPrecision;
+import com.noodle.app.trade.model.TickerSnapshot;
+import com.noodle.app.trade.stream.TickerBook;
 
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.Authenticator;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.Credentials;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 import okhttp3.Route;
 @Slf4j
 @Service
@@ -45,8 +66,38 @@ public class BinanceApiService {
     @Autowired
     private ProxyConfig proxyConfig;
     
-    // Binance API基础URL
-    private static final String BASE_URL = "https://api.binance.com";
+    @Autowired
+    private BinanceStreamConfig streamConfig;
+    
+    @Autowired
+    private TickerBook tickerBook;
+    
+    // 价格缓存有效期(ms)，0表示不缓存
+    @Value("${binance.price-cache.ttl:5000}")
+    private long priceCacheTtl;
+    
+    // 缓存过期后仍可返回旧价格并后台刷新的时间窗口(ms)
+    @Value("${binance.price-cache.stale-window:30000}")
+    private long priceCacheStaleWindow;
+    
+    private PriceCache priceCache;
+    
+    // Binance API默认基础URL，binance.api.url 未配置时使用
+    private static final String DEFAULT_BASE_URL = "https://api.binance.com";
+    
+    // 异步请求并发限制
+    private static final int MAX_ASYNC_REQUESTS = 64;
+    private static final int MAX_ASYNC_REQUESTS_PER_HOST = 32;
+    
+    // 默认支持的币种
+    private static final List<String> SUPPORTED_SYMBOLS = Collections.unmodifiableList(Arrays.asList(
+            "BTCUSDT",
+            "ETHUSDT",
+            "BNBUSDT",
+            // "SOLUSDT",
+            "XRPUSDT",
+            "DOGEUSDT"
+    ));
     
     public BinanceApiService() {
         // 构造函数中不初始化client，避免依赖未注入的问题
@@ -58,15 +109,12 @@ public class BinanceApiService {
     @Autowired
     public void initializeHttpClient() {
         OkHttpClient.Builder builder = new OkHttpClient.Builder();
-        log.info("=========proxyConfig===getHttpHost====="+proxyConfig.getHttpHost());
-        log.info("=========proxyConfig========"+proxyConfig.isHttpProxyConfigured());
-        log.info("=========proxyConfig====getHttpPort===="+proxyConfig.getHttpPort());
         // 配置代理
         if (proxyConfig != null && proxyConfig.isHttpProxyConfigured()) {
             Proxy proxy = new Proxy(Proxy.Type.HTTP, 
                 new InetSocketAddress(proxyConfig.getHttpHost(), proxyConfig.getHttpPort()));
             builder.proxy(proxy);
-            log.info("=========proxyConfig========"+proxyConfig.getHttpHost());
+            log.info("Binance API使用HTTP代理: {}:{}", proxyConfig.getHttpHost(), proxyConfig.getHttpPort());
             // 如果配置了代理认证
             if (proxyConfig.getUsername() != null && !proxyConfig.getUsername().isEmpty() &&
                 proxyConfig.getPassword() != null && !proxyConfig.getPassword().isEmpty()) {
@@ -83,21 +131,68 @@ public class BinanceApiService {
             }
         }
         
+        // 异步调用时OkHttp默认每个主机最多5个并发请求，这里放宽限制
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_ASYNC_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_ASYNC_REQUESTS_PER_HOST);
+        builder.dispatcher(dispatcher);
+        
         this.client = builder.build();
     }
     
+    /**
+     * 初始化价格缓存
+     */
+    @PostConstruct
+    public void initializePriceCache() {
+        if (priceCacheTtl > 0) {
+            ExecutorService refreshExecutor = Executors.newFixedThreadPool(2, r -> {
+                Thread thread = new Thread(r, "price-cache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.priceCache = new PriceCache(priceCacheTtl, priceCacheStaleWindow, refreshExecutor);
+        }
+    }
+    
     /**
      * 获取指定币种的当前价格
      * @param symbol 币种符号，如 "DOGEUSDT"
      * @return 当前价格
      */
     public BigDecimal getCurrentPrice(String symbol) throws IOException {
+        // 优先读取WebSocket推送的内存行情
+        TickerSnapshot ticker = getStreamTicker(symbol);
+        if (ticker != null) {
+            return ticker.getLastPrice();
+        }
+        
+        if (priceCache == null) {
+            return fetchCurrentPrice(symbol);
+        }
+        return priceCache.get(symbol, this::fetchCurrentPrice);
+    }
+    
+    /**
+     * 获取价格缓存统计
+     * @return 缓存统计信息，未启用缓存时返回空Map
+     */
+    public Map<String, Object> getPriceCacheStats() {
+        return priceCache != null ? priceCache.getStats() : new HashMap<String, Object>();
+    }
+    
+    /**
+     * 从Binance API获取指定币种的当前价格（不经过缓存）
+     * @param symbol 币种符号，如 "DOGEUSDT"
+     * @return 当前价格
+     */
+    private BigDecimal fetchCurrentPrice(String symbol) throws IOException {
         // 确保client已初始化
         if (client == null) {
             initializeHttpClient();
         }
         
-        String url = BASE_URL + "/api/v3/ticker/price?symbol=" + symbol;
+        String url = baseUrl() + "/api/v3/ticker/price?symbol=" + symbol;
         Request request = new Request.Builder()
                 .url(url)
                 .build();
@@ -114,8 +209,9 @@ public class BinanceApiService {
     
     /**
      * 获取指定币种的市场数据
+     * 多个币种时使用 symbols=[...] 批量接口，一次请求返回全部结果
      * @param symbols 币种符号列表，如 ["BTCUSDT", "ETHUSDT"]
-     * @return 加密货币市场数据列表
+     * @return 加密货币市场数据列表，顺序与传入的币种列表一致
      */
     public List<CryptoCurrency> getMarketData(List<String> symbols) throws IOException {
         // 确保client已初始化
@@ -123,10 +219,182 @@ public class BinanceApiService {
             initializeHttpClient();
         }
         
+        if (symbols == null || symbols.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        // 所有币种都有实时行情时直接从内存返回
+        List<CryptoCurrency> fromStream = getMarketDataFromStream(symbols);
+        if (fromStream != null) {
+            return fromStream;
+        }
+        
+        if (symbols.size() == 1) {
+            return getMarketDataOneByOne(symbols);
+        }
+        
+        HttpUrl url = HttpUrl.parse(baseUrl() + "/api/v3/ticker/24hr").newBuilder()
+                .addQueryParameter("symbols", toSymbolsParameter(symbols))
+                .build();
+        Request request = new Request.Builder()
+                .url(url)
+                .build();
+        
+        try (Response response = client.newCall(request).execute()) {
+            if (response.isSuccessful() && response.body() != null) {
+                JsonNode jsonNode = objectMapper.readTree(response.body().string());
+                return cachePrices(orderBySymbols(parseMarketDataArray(jsonNode), symbols));
+            }
+            // 批量请求中只要有一个无效币种，Binance就会整体返回400，此时退回逐个查询以跳过无效币种
+            log.warn("批量获取市场数据失败，HTTP状态码: {}，改为逐个查询", response.code());
+        }
+        
+        return getMarketDataOneByOne(symbols);
+    }
+    
+    /**
+     * 获取交易所全部币种的24小时行情快照（不带symbol参数，一次请求）
+     * @return 加密货币市场数据列表
+     */
+    public List<CryptoCurrency> getFullMarketSnapshot() throws IOException {
+        // 确保client已初始化
+        if (client == null) {
+            initializeHttpClient();
+        }
+        
+        Request request = new Request.Builder()
+                .url(baseUrl() + "/api/v3/ticker/24hr")
+                .build();
+        
+        try (Response response = client.newCall(request).execute()) {
+            if (response.isSuccessful() && response.body() != null) {
+                JsonNode jsonNode = objectMapper.readTree(response.body().string());
+                return parseMarketDataArray(jsonNode);
+            }
+        }
+        throw new IOException("无法获取全市场行情快照");
+    }
+
+    /**
+     * 获取默认支持币种的价格和数量精度（exchangeInfo 中的 PRICE_FILTER 和 LOT_SIZE）
+     * @return 精度，key为币种符号（不带USDT后缀）
+     */
+    public Map<String, SymbolPrecision> getSymbolPrecisions() throws IOException {
+        // 确保client已初始化
+        if (client == null) {
+            initializeHttpClient();
+        }
+
+        HttpUrl url = HttpUrl.parse(baseUrl() + "/api/v3/exchangeInfo").newBuilder()
+                .addQueryParameter("symbols", toSymbolsParameter(SUPPORTED_SYMBOLS))
+                .build();
+        Request request = new Request.Builder()
+                .url(url)
+                .build();
+
+        try (Response response = client.newCall(request).execute()) {
+            if (response.isSuccessful() && response.body() != null) {
+                return parseSymbolPrecisions(objectMapper.readTree(response.body().string()));
+            }
+        }
+        throw new IOException("无法获取交易规则");
+    }
+
+    /**
+     * 解析 exchangeInfo 中USDT交易对的价格和数量精度
+     * @param jsonNode exchangeInfo返回的JSON
+     * @return 精度，key为币种符号（不带USDT后缀）
+     */
+    Map<String, SymbolPrecision> parseSymbolPrecisions(JsonNode jsonNode) {
+        Map<String, SymbolPrecision> precisions = new HashMap<>();
+        JsonNode symbols = jsonNode != null ? jsonNode.get("symbols") : null;
+        if (symbols == null || !symbols.isArray()) {
+            return precisions;
+        }
+
+        for (JsonNode item : symbols) {
+            if (!"USDT".equals(item.path("quoteAsset").asText()) || item.get("baseAsset") == null) {
+                continue;
+            }
+            BigDecimal tickSize = null;
+            BigDecimal stepSize = null;
+            for (JsonNode filter : item.path("filters")) {
+                String filterType = filter.path("filterType").asText();
+                if ("PRICE_FILTER".equals(filterType) && filter.hasNonNull("tickSize")) {
+                    tickSize = new BigDecimal(filter.get("tickSize").asText());
+                } else if ("LOT_SIZE".equals(filterType) && filter.hasNonNull("stepSize")) {
+                    stepSize = new BigDecimal(filter.get("stepSize").asText());
+                }
+            }
+            String symbol = item.get("baseAsset").asText();
+            precisions.put(symbol, SymbolPrecision.of(symbol, tickSize, stepSize));
+        }
+
+        return precisions;
+    }
+
+    /**
+     * 从内存行情簿读取在有效期内的行情
+     * @param symbol 币种符号，如 "DOGEUSDT"
+     * @return 行情快照，未启用推送或行情过期时返回null
+     */
+    private TickerSnapshot getStreamTicker(String symbol) {
+        if (streamConfig == null || !streamConfig.isEnabled() || tickerBook == null) {
+            return null;
+        }
+        return tickerBook.getFresh(symbol, streamConfig.getMaxStaleness());
+    }
+    
+    /**
+     * 从内存行情簿构造市场数据
+     * @param symbols 币种符号列表
+     * @return 市场数据列表，任一币种缺少实时行情时返回null
+     */
+    private List<CryptoCurrency> getMarketDataFromStream(List<String> symbols) {
+        List<CryptoCurrency> cryptoCurrencies = new ArrayList<>(symbols.size());
+        for (String symbol : symbols) {
+            TickerSnapshot ticker = getStreamTicker(symbol);
+            if (ticker == null) {
+                return null;
+            }
+            cryptoCurrencies.add(toCryptoCurrency(ticker));
+        }
+        return cryptoCurrencies;
+    }
+    
+    /**
+     * 将行情快照转换为CryptoCurrency对象
+     * @param ticker 行情快照
+     * @return CryptoCurrency对象
+     */
+    private CryptoCurrency toCryptoCurrency(TickerSnapshot ticker) {
+        String symbol = ticker.getSymbol();
+        BigDecimal priceChange = ticker.getLastPrice().subtract(ticker.getOpenPrice());
+        BigDecimal priceChangePercent = ticker.getOpenPrice().signum() == 0 ? BigDecimal.ZERO
+                : priceChange.multiply(BigDecimal.valueOf(100)).divide(ticker.getOpenPrice(), 3, RoundingMode.HALF_UP);
+        LocalDateTime lastUpdated = LocalDateTime.ofInstant(Instant.ofEpochMilli(ticker.getEventTime()), ZoneId.of("Asia/Shanghai"));
+        
+        return new CryptoCurrency(
+                symbol.replace("USDT", ""),
+                getCurrencyNameFromSymbol(symbol),
+                ticker.getLastPrice(),
+                priceChange,
+                priceChangePercent,
+                ticker.getVolume(),
+                lastUpdated
+        );
+    }
+    
+    /**
+     * 逐个币种请求市场数据，获取失败的币种会被跳过
+     * @param symbols 币种符号列表
+     * @return 加密货币市场数据列表
+     */
+    private List<CryptoCurrency> getMarketDataOneByOne(List<String> symbols) throws IOException {
         List<CryptoCurrency> cryptoCurrencies = new ArrayList<>();
         
         for (String symbol : symbols) {
-            String url = BASE_URL + "/api/v3/ticker/24hr?symbol=" + symbol;
+            String url = baseUrl() + "/api/v3/ticker/24hr?symbol=" + symbol;
             Request request = new Request.Builder()
                     .url(url)
                     .build();
@@ -142,6 +410,20 @@ public class BinanceApiService {
             }
         }
         
+        return cachePrices(cryptoCurrencies);
+    }
+    
+    /**
+     * 将行情接口返回的价格写入价格缓存，后续的getCurrentPrice可以直接命中
+     * @param cryptoCurrencies 市场数据列表
+     * @return 原市场数据列表
+     */
+    private List<CryptoCurrency> cachePrices(List<CryptoCurrency> cryptoCurrencies) {
+        if (priceCache != null) {
+            for (CryptoCurrency crypto : cryptoCurrencies) {
+                priceCache.put(crypto.getSymbol() + "USDT", crypto.getPrice());
+            }
+        }
         return cryptoCurrencies;
     }
     
@@ -150,15 +432,67 @@ public class BinanceApiService {
      * @return 加密货币市场数据列表
      */
     public List<CryptoCurrency> getAllMarketData() throws IOException {
-        List<String> symbols = new ArrayList<>();
-        symbols.add("BTCUSDT");
-        symbols.add("ETHUSDT");
-        symbols.add("BNBUSDT");
-        // symbols.add("SOLUSDT");
-        symbols.add("XRPUSDT");
-        symbols.add("DOGEUSDT");
+        return getMarketData(SUPPORTED_SYMBOLS);
+    }
+    
+    /**
+     * 解析24小时行情数组（批量接口和全市场接口的返回格式）
+     * @param jsonNode JSON数组节点，每个元素都带有symbol字段
+     * @return CryptoCurrency对象列表
+     */
+    List<CryptoCurrency> parseMarketDataArray(JsonNode jsonNode) {
+        List<CryptoCurrency> cryptoCurrencies = new ArrayList<>();
+        if (jsonNode == null || !jsonNode.isArray()) {
+            return cryptoCurrencies;
+        }
         
-        return getMarketData(symbols);
+        for (JsonNode item : jsonNode) {
+            JsonNode symbolNode = item.get("symbol");
+            if (symbolNode == null || item.get("lastPrice") == null) {
+                continue;
+            }
+            cryptoCurrencies.add(parseCryptoCurrency(item, symbolNode.asText()));
+        }
+        
+        return cryptoCurrencies;
+    }
+    
+    /**
+     * 按请求的币种顺序重新排列结果，批量接口不保证返回顺序
+     * @param cryptoCurrencies 解析后的市场数据
+     * @param symbols 请求的币种符号列表（带USDT后缀）
+     * @return 排序后的市场数据
+     */
+    private List<CryptoCurrency> orderBySymbols(List<CryptoCurrency> cryptoCurrencies, List<String> symbols) {
+        Map<String, CryptoCurrency> bySymbol = new HashMap<>();
+        for (CryptoCurrency crypto : cryptoCurrencies) {
+            bySymbol.put(crypto.getSymbol(), crypto);
+        }
+        
+        List<CryptoCurrency> ordered = new ArrayList<>(cryptoCurrencies.size());
+        for (String symbol : symbols) {
+            CryptoCurrency crypto = bySymbol.get(symbol.replace("USDT", ""));
+            if (crypto != null) {
+                ordered.add(crypto);
+            }
+        }
+        return ordered;
+    }
+    
+    /**
+     * 生成批量接口需要的symbols参数，格式为 ["BTCUSDT","ETHUSDT"]
+     * @param symbols 币种符号列表
+     * @return symbols参数值（未编码，由HttpUrl负责编码）
+     */
+    private String toSymbolsParameter(List<String> symbols) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < symbols.size(); i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append('"').append(symbols.get(i)).append('"');
+        }
+        return builder.append(']').toString();
     }
     
     /**
@@ -167,7 +501,7 @@ public class BinanceApiService {
      * @param symbol 币种符号
      * @return CryptoCurrency对象
      */
-    private CryptoCurrency parseCryptoCurrency(JsonNode jsonNode, String symbol) {
+    CryptoCurrency parseCryptoCurrency(JsonNode jsonNode, String symbol) {
         String name = getCurrencyNameFromSymbol(symbol);
         BigDecimal price = new BigDecimal(jsonNode.get("lastPrice").asText());
         BigDecimal priceChange = new BigDecimal(jsonNode.get("priceChange").asText());
@@ -203,6 +537,17 @@ public class BinanceApiService {
         }
     }
     
+    /**
+     * 行情接口的基础URL，取 binance.api.url（压测时指向本地模拟服务），未配置时使用官方地址
+     */
+    private String baseUrl() {
+        String url = binanceConfig != null ? binanceConfig.getUrl() : null;
+        if (url == null || url.isEmpty()) {
+            return DEFAULT_BASE_URL;
+        }
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
     /**
      * 生成签名
      * @param data 需要签名的数据
@@ -381,21 +726,7 @@ public class BinanceApiService {
             throw new IOException("Binance API密钥未配置");
         }
         
-        long timestamp = System.currentTimeMillis();
-        StringBuilder paramsBuilder = new StringBuilder();
-        paramsBuilder.append("symbol=").append(symbol);
-        paramsBuilder.append("&side=").append(side);
-        paramsBuilder.append("&type=").append(price == null ? "MARKET" : "LIMIT");
-        paramsBuilder.append("&quantity=").append(quantity.toPlainString());
-        
-        if (price != null) {
-            paramsBuilder.append("&price=").append(price.toPlainString());
-            paramsBuilder.append("&timeInForce=GTC");
-        }
-        
-        paramsBuilder.append("&timestamp=").append(timestamp);
-        
-        String params = paramsBuilder.toString();
+        String params = buildOrderParams(symbol, side, quantity, price);
         
         try {
             String signature = generateSignature(params);
@@ -420,4 +751,287 @@ public class BinanceApiService {
         
         throw new IOException("下单失败");
     }
-}
\ No newline at end of file
+    
+    /**
+     * 生成下单参数
+     * @param symbol 币种符号
+     * @param side 交易方向（BUY/SELL）
+     * @param quantity 数量
+     * @param price 价格（市价单可为null）
+     * @return 带时间戳的参数字符串
+     */
+    private String buildOrderParams(String symbol, String side, BigDecimal quantity, BigDecimal price) {
+        long timestamp = System.currentTimeMillis();
+        StringBuilder paramsBuilder = new StringBuilder();
+        paramsBuilder.append("symbol=").append(symbol);
+        paramsBuilder.append("&side=").append(side);
+        paramsBuilder.append("&type=").append(price == null ? "MARKET" : "LIMIT");
+        paramsBuilder.append("&quantity=").append(quantity.toPlainString());
+        
+        if (price != null) {
+            paramsBuilder.append("&price=").append(price.toPlainString());
+            paramsBuilder.append("&timeInForce=GTC");
+        }
+        
+        paramsBuilder.append("&timestamp=").append(timestamp);
+        
+        return paramsBuilder.toString();
+    }
+    
+    /**
+     * 异步获取指定币种的当前价格
+     * @param symbol 币种符号，如 "DOGEUSDT"
+     * @return 当前价格
+     */
+    public CompletableFuture<BigDecimal> getCurrentPriceAsync(final String symbol) {
+        TickerSnapshot ticker = getStreamTicker(symbol);
+        if (ticker != null) {
+            return CompletableFuture.completedFuture(ticker.getLastPrice());
+        }
+        
+        if (priceCache == null) {
+            return fetchCurrentPriceAsync(symbol);
+        }
+        // 未命中时与同步调用共用同一次加载
+        return priceCache.getAsync(symbol, this::fetchCurrentPriceAsync);
+    }
+    
+    private CompletableFuture<BigDecimal> fetchCurrentPriceAsync(final String symbol) {
+        Request request = new Request.Builder()
+                .url(baseUrl() + "/api/v3/ticker/price?symbol=" + symbol)
+                .build();
+        
+        return executeAsync(request).thenApply(jsonData -> {
+            try {
+                JsonNode jsonNode = objectMapper.readTree(jsonData);
+                return new BigDecimal(jsonNode.get("price").asText());
+            } catch (IOException | RuntimeException e) {
+                throw new CompletionException(new IOException("无法获取币种 " + symbol + " 的当前价格", e));
+            }
+        });
+    }
+    
+    /**
+     * 异步获取指定币种的市场数据
+     * @param symbols 币种符号列表，如 ["BTCUSDT", "ETHUSDT"]
+     * @return 加密货币市场数据列表，顺序与传入的币种列表一致
+     */
+    public CompletableFuture<List<CryptoCurrency>> getMarketDataAsync(final List<String> symbols) {
+        if (symbols == null || symbols.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<CryptoCurrency>());
+        }
+        
+        List<CryptoCurrency> fromStream = getMarketDataFromStream(symbols);
+        if (fromStream != null) {
+            return CompletableFuture.completedFuture(fromStream);
+        }
+        
+        if (symbols.size() == 1) {
+            return getMarketDataOneByOneAsync(symbols);
+        }
+        
+        HttpUrl url = HttpUrl.parse(baseUrl() + "/api/v3/ticker/24hr").newBuilder()
+                .addQueryParameter("symbols", toSymbolsParameter(symbols))
+                .build();
+        Request request = new Request.Builder()
+                .url(url)
+                .build();
+        
+        return executeAsync(request)
+                .thenApply(jsonData -> cachePrices(orderBySymbols(parseMarketDataArray(readTree(jsonData)), symbols)))
+                .handle((result, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(result);
+                    }
+                    // 与同步版本一致：批量请求被拒绝时逐个查询，网络错误直接返回失败
+                    if (unwrap(error) instanceof HttpStatusException) {
+                        log.warn("批量获取市场数据失败，改为逐个查询: {}", unwrap(error).getMessage());
+                        return getMarketDataOneByOneAsync(symbols);
+                    }
+                    CompletableFuture<List<CryptoCurrency>> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(unwrap(error));
+                    return failed;
+                })
+                .thenCompose(future -> future);
+    }
+    
+    /**
+     * 异步获取所有支持币种的市场数据
+     * @return 加密货币市场数据列表
+     */
+    public CompletableFuture<List<CryptoCurrency>> getAllMarketDataAsync() {
+        return getMarketDataAsync(SUPPORTED_SYMBOLS);
+    }
+    
+    /**
+     * 异步查询账户信息
+     * @return 账户信息JSON字符串
+     */
+    public CompletableFuture<String> getAccountInfoAsync() {
+        try {
+            return executeAsync(buildSignedRequest("/api/v3/account", "timestamp=" + System.currentTimeMillis(), false));
+        } catch (IOException e) {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+    
+    /**
+     * 异步下单交易（买入）
+     * @param symbol 币种符号
+     * @param quantity 购买数量
+     * @param price 价格（市价单可为null）
+     * @return 交易结果JSON字符串
+     */
+    public CompletableFuture<String> placeBuyOrderAsync(String symbol, BigDecimal quantity, BigDecimal price) {
+        return placeOrderAsync(symbol, "BUY", quantity, price);
+    }
+    
+    /**
+     * 异步下单交易（卖出）
+     * @param symbol 币种符号
+     * @param quantity 卖出数量
+     * @param price 价格（市价单可为null）
+     * @return 交易结果JSON字符串
+     */
+    public CompletableFuture<String> placeSellOrderAsync(String symbol, BigDecimal quantity, BigDecimal price) {
+        return placeOrderAsync(symbol, "SELL", quantity, price);
+    }
+    
+    private CompletableFuture<String> placeOrderAsync(String symbol, String side, BigDecimal quantity, BigDecimal price) {
+        try {
+            return executeAsync(buildSignedRequest("/api/v3/order", buildOrderParams(symbol, side, quantity, price), true));
+        } catch (IOException e) {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+    
+    /**
+     * 逐个币种异步请求市场数据，与同步版本一致：返回非2xx响应的币种会被跳过，网络错误和解析错误使整体失败
+     * @param symbols 币种符号列表
+     * @return 加密货币市场数据列表
+     */
+    private CompletableFuture<List<CryptoCurrency>> getMarketDataOneByOneAsync(List<String> symbols) {
+        final List<CompletableFuture<CryptoCurrency>> futures = new ArrayList<>(symbols.size());
+        for (final String symbol : symbols) {
+            Request request = new Request.Builder()
+                    .url(baseUrl() + "/api/v3/ticker/24hr?symbol=" + symbol)
+                    .build();
+            futures.add(executeAsync(request)
+                    .thenApply(jsonData -> parseCryptoCurrency(readTree(jsonData), symbol))
+                    .handle((crypto, error) -> {
+                        if (error == null) {
+                            return crypto;
+                        }
+                        if (unwrap(error) instanceof HttpStatusException) {
+                            log.debug("获取 {} 市场数据失败，跳过: {}", symbol, unwrap(error).getMessage());
+                            return null;
+                        }
+                        throw new CompletionException(unwrap(error));
+                    }));
+        }
+        
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            List<CryptoCurrency> cryptoCurrencies = new ArrayList<>(futures.size());
+            for (CompletableFuture<CryptoCurrency> future : futures) {
+                CryptoCurrency crypto = future.join();
+                if (crypto != null) {
+                    cryptoCurrencies.add(crypto);
+                }
+            }
+            return cachePrices(cryptoCurrencies);
+        });
+    }
+    
+    /**
+     * 生成带签名的请求
+     * @param path 接口路径
+     * @param params 参数字符串（需包含timestamp）
+     * @param post 是否为POST请求
+     * @return 请求对象
+     * @throws IOException API密钥未配置或签名失败
+     */
+    private Request buildSignedRequest(String path, String params, boolean post) throws IOException {
+        // 检查API密钥是否配置
+        if (binanceConfig.getKey() == null || binanceConfig.getKey().isEmpty() || 
+            binanceConfig.getSecret() == null || binanceConfig.getSecret().isEmpty()) {
+            throw new IOException("Binance API密钥未配置");
+        }
+        
+        String signature;
+        try {
+            signature = generateSignature(params);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IOException("签名失败: " + e.getMessage(), e);
+        }
+        
+        Request.Builder builder = new Request.Builder()
+                .url(binanceConfig.getUrl() + path + "?" + params + "&signature=" + signature)
+                .addHeader("X-MBX-APIKEY", binanceConfig.getKey());
+        if (post) {
+            builder.post(RequestBody.create(new byte[0], MediaType.parse("application/json")));
+        }
+        return builder.build();
+    }
+    
+    /**
+     * 通过OkHttp的enqueue异步执行请求，不占用调用线程
+     * @param request 请求对象
+     * @return 响应体字符串；非2xx响应以HttpStatusException结束
+     */
+    private CompletableFuture<String> executeAsync(Request request) {
+        // 确保client已初始化
+        if (client == null) {
+            initializeHttpClient();
+        }
+        
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+            
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody body = response.body()) {
+                    String content = body != null ? body.string() : null;
+                    if (response.isSuccessful() && content != null) {
+                        future.complete(content);
+                    } else {
+                        future.completeExceptionally(new HttpStatusException(response.code(), "Binance API错误: " + content));
+                    }
+                } catch (IOException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+    
+    private JsonNode readTree(String jsonData) {
+        try {
+            return objectMapper.readTree(jsonData);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+    
+    /**
+     * 非2xx响应
+     */
+    private static class HttpStatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        HttpStatusException(int code, String message) {
+            super("HTTP " + code + " " + message);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.noodle.app.trade.service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.noodle.app.trade.config.BinanceStreamConfig;
+import com.noodle.app.trade.entity.PriceCandleEntity;
+import com.noodle.app.trade.history.Candle;
+import com.noodle.app.trade.history.CandleAggregator;
+import com.noodle.app.trade.model.CandleInterval;
+import com.noodle.app.trade.model.CryptoCurrency;
+import com.noodle.app.trade.model.TickerSnapshot;
+import com.noodle.app.trade.repository.PriceCandleRepository;
+import com.noodle.app.trade.stream.TickerBook;
+import com.noodle.app.trade.util.TimeUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * K线（OHLCV）聚合服务
+ * - 增量：定时行情快照和WebSocket行情簿的价格进入内存聚合器，定期批量写入price_candle表
+ * - 回填：按时间顺序流式读取crypto_currency历史快照，重新生成K线
+ */
+@Slf4j
+@Service
+public class CandleService {
+    
+    // 增量写入：进行中的K线可能在重启后从中途重新开始，开盘价保留已有值，最高/最低价取并集
+    private static final String MERGE_SQL = "INSERT INTO price_candle "
+            + "(symbol, interval_code, open_time, open_price, high_price, low_price, close_price, volume) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE high_price = GREATEST(high_price, VALUES(high_price)), "
+            + "low_price = LEAST(low_price, VALUES(low_price)), "
+            + "close_price = VALUES(close_price), volume = VALUES(volume)";
+    
+    // 回填：由完整的历史快照计算，直接覆盖
+    private static final String REPLACE_SQL = "INSERT INTO price_candle "
+            + "(symbol, interval_code, open_time, open_price, high_price, low_price, close_price, volume) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE open_price = VALUES(open_price), high_price = VALUES(high_price), "
+            + "low_price = VALUES(low_price), close_price = VALUES(close_price), volume = VALUES(volume)";
+    
+    private static final String BACKFILL_SYMBOLS_SQL = "SELECT DISTINCT symbol FROM crypto_currency WHERE last_updated BETWEEN ? AND ?";
+    
+    private static final String BACKFILL_ROWS_SQL = "SELECT last_updated, price, volume FROM crypto_currency "
+            + "WHERE symbol = ? AND last_updated BETWEEN ? AND ? ORDER BY last_updated";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PriceCandleRepository priceCandleRepository;
+    
+    @Autowired
+    private TickerBook tickerBook;
+    
+    @Autowired
+    private BinanceStreamConfig streamConfig;
+    
+    // 每个JDBC批次的最大行数
+    @Value("${trading.candles.batch-size:500}")
+    private int batchSize;
+    
+    private final CandleAggregator aggregator = new CandleAggregator();
+    private final Map<String, Long> lastSampledEvent = new ConcurrentHashMap<>();
+    
+    /**
+     * 将一次行情快照加入K线聚合
+     * @param cryptoCurrencies 市场数据列表（币种符号不带USDT后缀）
+     * @param snapshotTime 快照时间（北京时间）
+     */
+    public void onSnapshots(List<CryptoCurrency> cryptoCurrencies, LocalDateTime snapshotTime) {
+        if (cryptoCurrencies == null) {
+            return;
+        }
+        long time = TimeUtils.toEpochMilli(snapshotTime);
+        for (CryptoCurrency crypto : cryptoCurrencies) {
+            if (crypto != null) {
+                aggregator.addTick(crypto.getSymbol(), time, crypto.getPrice(), crypto.getVolume());
+            }
+        }
+    }
+    
+    /**
+     * 采样WebSocket行情簿中的最新成交价
+     */
+    @Scheduled(fixedDelayString = "${trading.candles.sample-interval:1000}")
+    public void sampleTickerBook() {
+        if (!streamConfig.isEnabled()) {
+            return;
+        }
+        for (TickerSnapshot snapshot : tickerBook.snapshot()) {
+            if (!snapshot.hasTradeData() || !snapshot.getSymbol().endsWith("USDT")) {
+                continue;
+            }
+            // 同一条推送只计入一次
+            Long previous = lastSampledEvent.put(snapshot.getSymbol(), snapshot.getEventTime());
+            if (previous != null && previous == snapshot.getEventTime()) {
+                continue;
+            }
+            String symbol = snapshot.getSymbol().substring(0, snapshot.getSymbol().length() - 4);
+            aggregator.addTick(symbol, snapshot.getEventTime(), snapshot.getLastPrice(), snapshot.getVolume());
+        }
+    }
+    
+    /**
+     * 批量写入有更新的K线
+     * @return 写入的K线数量
+     */
+    @Scheduled(fixedDelayString = "${trading.candles.flush-interval:10000}")
+    public int flush() {
+        List<Candle> candles = aggregator.drainDirty();
+        if (candles.isEmpty()) {
+            return 0;
+        }
+        try {
+            writeBatches(MERGE_SQL, candles);
+        } catch (Exception e) {
+            // 已结束的K线不会再被更新，放回聚合器在下一次写入时重试（MERGE_SQL重复写入同一根K线结果不变）
+            aggregator.requeue(candles);
+            log.error("写入K线失败，{} 根K线将在下次重试: {}", candles.size(), e.getMessage(), e);
+            return 0;
+        }
+        log.debug("写入K线 {} 根", candles.size());
+        return candles.size();
+    }
+    
+    /**
+     * 用crypto_currency中的历史快照回填K线，开始时间向下对齐到北京时间0点以保证每根K线完整
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 写入的K线数量
+     */
+    public int backfill(LocalDateTime startTime, LocalDateTime endTime) {
+        long start = TimeUtils.windowStart(TimeUtils.toEpochMilli(startTime), CandleInterval.D1.getMillis());
+        long end = TimeUtils.toEpochMilli(endTime);
+        long begin = System.nanoTime();
+        
+        List<String> symbols = jdbcTemplate.queryForList(BACKFILL_SYMBOLS_SQL, String.class, start, end);
+        int written = 0;
+        for (String symbol : symbols) {
+            written += backfillSymbol(symbol, start, end);
+        }
+        
+        log.info("K线回填完成: 币种 {}, K线 {} 根, 耗时 {} ms", symbols.size(), written, (System.nanoTime() - begin) / 1000000);
+        return written;
+    }
+    
+    private int backfillSymbol(final String symbol, long start, long end) {
+        final CandleAggregator backfillAggregator = new CandleAggregator();
+        final int[] written = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(BACKFILL_ROWS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL驱动逐行流式读取，避免把整个时间范围的快照加载到内存
+            statement.setFetchSize(Integer.MIN_VALUE);
+            statement.setString(1, symbol);
+            statement.setLong(2, start);
+            statement.setLong(3, end);
+            return statement;
+        }, (ResultSet rs) -> {
+            backfillAggregator.addTick(symbol, rs.getLong("last_updated"), rs.getBigDecimal("price"), rs.getBigDecimal("volume"));
+            if (backfillAggregator.dirtyCount() >= batchSize) {
+                written[0] += writeBatches(REPLACE_SQL, backfillAggregator.drainDirty());
+            }
+        });
+        written[0] += writeBatches(REPLACE_SQL, backfillAggregator.drainDirty());
+        return written[0];
+    }
+    
+    private int writeBatches(String sql, List<Candle> candles) {
+        List<Object[]> batch = new ArrayList<>(Math.min(candles.size(), batchSize));
+        for (Candle candle : candles) {
+            batch.add(new Object[] {
+                    candle.getSymbol(),
+                    candle.getInterval().getCode(),
+                    candle.getOpenTime(),
+                    candle.getOpen(),
+                    candle.getHigh(),
+                    candle.getLow(),
+                    candle.getClose(),
+                    candle.getVolume()
+            });
+            if (batch.size() >= batchSize) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+        return candles.size();
+    }
+    
+    /**
+     * 查询K线
+     * @param symbol 币种符号（不带USDT后缀）
+     * @param interval K线周期
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return K线列表，按开盘时间升序
+     */
+    public List<PriceCandleEntity> getCandles(String symbol, CandleInterval interval, LocalDateTime startTime, LocalDateTime endTime) {
+        return priceCandleRepository.findBySymbolAndIntervalCodeAndOpenTimeBetweenOrderByOpenTimeAsc(symbol, interval.getCode(), startTime, endTime);
+    }
+}
@@ -110,17 +110,17 @@ public class DeepSeekAiService {
             try (Response response = client.newCall(request).execute()) {
                 if (response.isSuccessful() && response.body() != null) {
                     String jsonData = response.body().string();
-                    System.out.println("DeepSeek API余额信息: " + jsonData);
+                    log.debug("DeepSeek API余额信息: {}", jsonData);
                     return jsonData;
                 } else {
                     String errorMessage = "获取DeepSeek API余额失败，HTTP状态码: " + response.code();
-                    System.err.println(errorMessage);
+                    log.warn(errorMessage);
                     return errorMessage;
                 }
             }
         } catch (IOException e) {
             String errorMessage = "获取DeepSeek API余额时发生网络错误: " + e.getMessage();
-            System.err.println(errorMessage);
+            log.warn(errorMessage, e);
             return errorMessage;
         }
     }
@@ -170,8 +170,7 @@ public class DeepSeekAiService {
         messages.add(message);
         requestBody.set("messages", messages);
         requestBody.put("temperature", 0.7);
-        log.info("DeepSeek AI问: " + prompt.toString());
-        System.out.println("DeepSeek AI问: " + prompt.toString());
+        log.debug("DeepSeek AI问: {}", prompt);
         // 创建请求
         Request request = new Request.Builder()
                 .url(baseUrl + "/chat/completions")
@@ -184,7 +183,7 @@ public class DeepSeekAiService {
         try (Response response = client.newCall(request).execute()) {
             if (response.isSuccessful() && response.body() != null) {
                 String jsonData = response.body().string();
-                 log.info("DeepSeek AI回复: " + jsonData);
+                 log.debug("DeepSeek AI回复: {}", jsonData);
                 JsonNode jsonResponse = objectMapper.readTree(jsonData);
                
                 // 解析AI的回复
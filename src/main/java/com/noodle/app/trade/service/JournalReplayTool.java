@@ -0,0 +1,76 @@
+package com.noodle.app.trade.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 交易日志回放工具
+ * 用日志把数据库中的 account、holding、trade_record（以及 position_pnl）恢复到日志中最后一笔成交之后的状态，
+ * 例如从数据库备份恢复后向前追平，或在不接受交易的情况下处理崩溃后遗留的日志：
+ *
+ * <pre>
+ *   java -jar app.jar --spring.main.web-application-type=none \
+ *        --trading.book.enabled=true --trading.book.replay.enabled=true [--trading.book.replay.from-seq=N]
+ * </pre>
+ *
+ * 重放本身由 AccountBookService 启动时完成（加载数据库 -> 重放检查点之后的日志 -> 写回），
+ * 本工具在启动完成后校验日志、确认全部写回并退出；备份中没有检查点记录时用 from-seq 指定备份对应的序号。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "trading.book.replay", name = "enabled", havingValue = "true")
+public class JournalReplayTool implements ApplicationRunner {
+
+    @Autowired(required = false)
+    private AccountBookService accountBookService;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    // 回放完成后退出进程
+    @Value("${trading.book.replay.exit:true}")
+    private boolean exitAfterReplay;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (accountBookService == null) {
+            throw new IllegalStateException("交易日志回放需要同时开启 trading.book.enabled");
+        }
+
+        long[] summary = new long[5]; // 记录数, 第一个序号, 最后序号, 买入, 卖出
+        long[] gaps = new long[1];
+        accountBookService.scanJournal(entry -> {
+            if (summary[0] == 0) {
+                summary[1] = entry.getSeq();
+            } else if (entry.getSeq() != summary[2] + 1) {
+                gaps[0]++;
+            }
+            summary[0]++;
+            summary[2] = entry.getSeq();
+            summary[entry.isBuy() ? 3 : 4]++;
+        });
+        log.info("交易日志: {} 条记录, 序号 {} - {}, 买入 {}, 卖出 {}, 序号不连续 {} 处", summary[0], summary[1], summary[2],
+                summary[3], summary[4], gaps[0]);
+
+        int written = accountBookService.flush();
+        int exitCode = written < 0 ? 1 : 0;
+        if (exitCode == 0) {
+            log.info("交易日志回放完成: 重放 {} 笔成交, 数据库检查点 {}", accountBookService.getRecoveredTrades(),
+                    accountBookService.getCheckpointSeq());
+        } else {
+            log.error("交易日志回放失败: 写回数据库失败");
+        }
+
+        if (exitAfterReplay) {
+            System.exit(SpringApplication.exit(context, () -> exitCode));
+        }
+    }
+}
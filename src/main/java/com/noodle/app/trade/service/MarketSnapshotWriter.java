@@ -0,0 +1,90 @@
+package com.noodle.app.trade.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.noodle.app.trade.config.LocalDateTimeConverter;
+import com.noodle.app.trade.model.CryptoCurrency;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 行情快照批量写入
+ * crypto_currency表使用IDENTITY主键，Hibernate无法批量插入，这里直接使用JDBC批处理，
+ * 配合MySQL驱动的rewriteBatchedStatements=true会被改写为多行INSERT
+ */
+@Slf4j
+@Service
+public class MarketSnapshotWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO crypto_currency "
+            + "(symbol, name, price, price_change, price_change_percent, volume, last_updated) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final LocalDateTimeConverter TIME_CONVERTER = new LocalDateTimeConverter();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 每个JDBC批次的最大行数
+    @Value("${trading.snapshot.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 在一个事务中写入一次行情的全部快照
+     * @param cryptoCurrencies 市场数据列表
+     * @param snapshotTime 快照时间（北京时间）
+     * @return 写入的行数
+     */
+    @Transactional
+    public int writeSnapshots(List<CryptoCurrency> cryptoCurrencies, LocalDateTime snapshotTime) {
+        if (cryptoCurrencies == null || cryptoCurrencies.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        Long lastUpdated = TIME_CONVERTER.convertToDatabaseColumn(snapshotTime);
+        List<Object[]> batch = new ArrayList<>(Math.min(cryptoCurrencies.size(), batchSize));
+        int rows = 0;
+        for (CryptoCurrency crypto : cryptoCurrencies) {
+            if (crypto == null || crypto.getSymbol() == null) {
+                continue;
+            }
+            batch.add(new Object[] {
+                    crypto.getSymbol(),
+                    crypto.getName(),
+                    crypto.getPrice(),
+                    crypto.getPriceChange(),
+                    crypto.getPriceChangePercent(),
+                    crypto.getVolume(),
+                    lastUpdated
+            });
+            if (batch.size() >= batchSize) {
+                rows += flush(batch);
+            }
+        }
+        rows += flush(batch);
+
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        log.info("写入行情快照 {} 行, 耗时 {} ms, {} 行/秒", rows, elapsedNanos / 1000000,
+                (long) (rows * 1_000_000_000.0 / elapsedNanos));
+        return rows;
+    }
+
+    private int flush(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int size = batch.size();
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        batch.clear();
+        return size;
+    }
+}
@@ -0,0 +1,123 @@
+package com.noodle.app.trade.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+import javax.persistence.OptimisticLockException;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 乐观锁冲突重试
+ * 版本号冲突时整个事务重新执行，最多重试maxAttempts次；
+ * 每次重试前等待 [0, min(maxDelay, baseDelay * 2^n)] 之间的随机时间（full jitter），避免冲突的节点同时重试
+ */
+@Slf4j
+public class OptimisticRetry {
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final LongConsumer sleeper;
+    private final Random random;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    /**
+     * @param maxAttempts 最多执行次数（包括第一次）
+     * @param baseDelayMillis 第一次重试的最大等待时间(ms)
+     * @param maxDelayMillis 单次重试的等待时间上限(ms)
+     */
+    public OptimisticRetry(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this(maxAttempts, baseDelayMillis, maxDelayMillis, OptimisticRetry::sleep, null);
+    }
+
+    OptimisticRetry(int maxAttempts, long baseDelayMillis, long maxDelayMillis, LongConsumer sleeper, Random random) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(0, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.sleeper = sleeper;
+        this.random = random;
+    }
+
+    /**
+     * 执行操作，遇到乐观锁冲突时重试
+     * @param action 需要重试的完整操作（通常是一个事务）
+     * @return 操作结果
+     * @throws OptimisticLockingFailureException 重试次数用完仍然冲突
+     */
+    public <T> T execute(Supplier<T> action) {
+        calls.increment();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("乐观锁冲突，已重试{}次仍失败: {}", attempt - 1, e.getMessage());
+                    throw e instanceof OptimisticLockingFailureException
+                            ? (OptimisticLockingFailureException) e
+                            : new OptimisticLockingFailureException(e.getMessage(), e);
+                }
+                retries.increment();
+                long delay = backoffMillis(attempt);
+                log.debug("乐观锁冲突，第{}次重试，等待{}ms", attempt, delay);
+                sleeper.accept(delay);
+            }
+        }
+    }
+
+    /**
+     * 第attempt次失败后的等待时间
+     */
+    long backoffMillis(int attempt) {
+        long ceiling = baseDelayMillis << Math.min(attempt - 1, 20);
+        ceiling = Math.min(maxDelayMillis, ceiling);
+        if (ceiling <= 0) {
+            return 0;
+        }
+        Random rnd = random != null ? random : ThreadLocalRandom.current();
+        return (long) (rnd.nextDouble() * (ceiling + 1));
+    }
+
+    /**
+     * 获取重试统计
+     * @return 调用数、冲突数、重试数、重试用尽数和冲突率
+     */
+    public Map<String, Object> getStats() {
+        long callCount = calls.sum();
+        long conflictCount = conflicts.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("calls", callCount);
+        stats.put("conflicts", conflictCount);
+        stats.put("retries", retries.sum());
+        stats.put("exhausted", exhausted.sum());
+        stats.put("conflictRate", callCount > 0 ? (double) conflictCount / callCount : 0.0);
+        return stats;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OptimisticLockingFailureException("重试等待时被中断", e);
+        }
+    }
+}
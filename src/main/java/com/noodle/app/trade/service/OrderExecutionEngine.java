@@ -0,0 +1,109 @@
+package com.noodle.app.trade.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 按账户串行执行订单
+ * 账户名哈希到固定数量的锁分段上：同一账户的订单按到达顺序依次执行，不同账户（落在不同分段时）完全并行。
+ * 串行化在进程内完成，交易执行本身不需要数据库悲观锁；多实例部署时需要配合数据库行锁或乐观锁。
+ */
+public class OrderExecutionEngine {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long lockTimeoutNanos;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    /**
+     * @param stripeCount 锁分段数，向上取整为2的幂
+     * @param lockTimeoutMillis 等待账户锁的最长时间(ms)，超时的订单直接失败
+     */
+    public OrderExecutionEngine(int stripeCount, long lockTimeoutMillis) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            // 公平锁：同一账户的订单按等待顺序执行
+            this.stripes[i] = new ReentrantLock(true);
+        }
+        this.mask = size - 1;
+        this.lockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(lockTimeoutMillis);
+    }
+
+    /**
+     * 在账户锁内执行订单
+     * @param accountName 账户名称
+     * @param order 订单执行逻辑
+     * @return 执行结果
+     * @throws RuntimeException 等待账户锁超时或被中断，或订单本身执行失败
+     */
+    public <T> T execute(String accountName, Supplier<T> order) {
+        ReentrantLock lock = stripeFor(accountName);
+        long start = System.nanoTime();
+        boolean acquired = lock.tryLock();
+        if (!acquired) {
+            contended.increment();
+            try {
+                acquired = lock.tryLock(lockTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("等待账户锁时被中断: " + accountName, e);
+            }
+            if (!acquired) {
+                timeouts.increment();
+                throw new RuntimeException("账户订单繁忙，请稍后重试: " + accountName);
+            }
+        }
+        waitNanos.add(System.nanoTime() - start);
+
+        try {
+            T result = order.get();
+            executed.increment();
+            return result;
+        } catch (RuntimeException e) {
+            failed.increment();
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取执行统计
+     * @return 执行数、失败数、锁竞争与等待时间等指标
+     */
+    public Map<String, Object> getStats() {
+        long executedCount = executed.sum();
+        long failedCount = failed.sum();
+        long total = executedCount + failedCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stripes", stripes.length);
+        stats.put("executed", executedCount);
+        stats.put("failed", failedCount);
+        stats.put("contended", contended.sum());
+        stats.put("lockTimeouts", timeouts.sum());
+        stats.put("avgLockWaitMicros", total > 0 ? waitNanos.sum() / total / 1000 : 0);
+        return stats;
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    ReentrantLock stripeFor(String accountName) {
+        int h = accountName != null ? accountName.hashCode() : 0;
+        // 混合高位，避免相近的账户名集中到少数分段
+        h ^= (h >>> 16);
+        return stripes[h & mask];
+    }
+}
@@ -0,0 +1,191 @@
+package com.noodle.app.trade.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.noodle.app.trade.config.LocalDateTimeConverter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 盈亏账本回填（一次性）
+ * position_pnl 只记录上线之后的卖出，旧数据库中的 holding.hold_cost 也是按卖出金额扣减的（与平均成本法不一致）。
+ * 启动时如果 position_pnl 为空且存在卖出记录，按 (交易时间, ID) 顺序逐账户、逐币种重放 trade_record：
+ * - 买入：持仓数量和成本累加成交金额
+ * - 卖出：按 PnlLedgerService.costBasis 扣减成本，累加已实现盈亏
+ * 重放结果在一个事务中写入 position_pnl，并更新 holding.hold_cost。
+ * 重置账户不会删除交易记录，重放得到的持仓数量可能与数据库不一致：只有数量相同的持仓才更新成本，其余保留原值并记录警告。
+ * 账户簿（trading.book.enabled）依赖本服务，回填在账户簿加载持仓之前完成。
+ */
+@Slf4j
+@Service
+public class PnlLedgerBackfill {
+
+    private static final String COUNT_PNL_SQL = "SELECT COUNT(*) FROM position_pnl";
+
+    private static final String COUNT_SELLS_SQL = "SELECT COUNT(*) FROM trade_record WHERE trade_type = 'SELL'";
+
+    private static final String SELECT_ACCOUNTS_SQL = "SELECT id, account_name FROM account";
+
+    // 走 (account_name, trade_time) 索引，同一账户的交易连续返回
+    private static final String SELECT_TRADES_SQL = "SELECT account_name, symbol, trade_type, quantity, amount, trade_time "
+            + "FROM trade_record WHERE account_name IS NOT NULL ORDER BY account_name, trade_time, id";
+
+    private static final String INSERT_PNL_SQL = "INSERT INTO position_pnl "
+            + "(account_id, symbol, sold_quantity, sold_cost, sell_proceeds, realized_pnl, updated_time) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // 只更新数量与重放结果一致的持仓
+    private static final String UPDATE_HOLD_COST_SQL = "UPDATE holding SET hold_cost = ?, version = version + 1 "
+            + "WHERE account_id = ? AND symbol = ? AND quantity = ?";
+
+    private static final LocalDateTimeConverter TIME_CONVERTER = new LocalDateTimeConverter();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${trading.pnl.backfill.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 单个账户单个币种的重放状态
+     */
+    static final class PositionReplay {
+        final long accountId;
+        final String symbol;
+        BigDecimal quantity = BigDecimal.ZERO;
+        BigDecimal holdCost = BigDecimal.ZERO;
+        BigDecimal soldQuantity = BigDecimal.ZERO;
+        BigDecimal soldCost = BigDecimal.ZERO;
+        BigDecimal sellProceeds = BigDecimal.ZERO;
+        LocalDateTime lastSellTime;
+
+        PositionReplay(long accountId, String symbol) {
+            this.accountId = accountId;
+            this.symbol = symbol;
+        }
+
+        void buy(BigDecimal buyQuantity, BigDecimal amount) {
+            quantity = quantity.add(buyQuantity);
+            holdCost = holdCost.add(amount);
+        }
+
+        void sell(BigDecimal sellQuantity, BigDecimal amount, LocalDateTime tradeTime) {
+            BigDecimal costBasis = PnlLedgerService.costBasis(quantity, holdCost, sellQuantity);
+            // 卖出超过重放出的持仓（账户重置前的数据）时按清仓处理
+            quantity = quantity.subtract(sellQuantity).max(BigDecimal.ZERO);
+            holdCost = quantity.signum() == 0 ? BigDecimal.ZERO : holdCost.subtract(costBasis);
+            soldQuantity = soldQuantity.add(sellQuantity);
+            soldCost = soldCost.add(costBasis);
+            sellProceeds = sellProceeds.add(amount);
+            lastSellTime = tradeTime;
+        }
+
+        BigDecimal realizedPnl() {
+            return sellProceeds.subtract(soldCost);
+        }
+    }
+
+    @PostConstruct
+    public void backfillIfEmpty() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Long ledgerRows = jdbcTemplate.queryForObject(COUNT_PNL_SQL, Long.class);
+            if (ledgerRows != null && ledgerRows > 0) {
+                return;
+            }
+            Long sells = jdbcTemplate.queryForObject(COUNT_SELLS_SQL, Long.class);
+            if (sells == null || sells == 0) {
+                return;
+            }
+            new TransactionTemplate(transactionManager).execute(status -> backfill());
+        } catch (RuntimeException e) {
+            // 回填失败不影响启动，下次启动时 position_pnl 仍为空会重新执行
+            log.error("盈亏账本回填失败", e);
+        }
+    }
+
+    /**
+     * 重放全部交易记录，写入 position_pnl 并更新持仓成本，调用方负责事务
+     * @return 写入的 position_pnl 行数
+     */
+    int backfill() {
+        long start = System.currentTimeMillis();
+        Map<String, Long> accountIds = new HashMap<>();
+        jdbcTemplate.query(SELECT_ACCOUNTS_SQL, rs -> {
+            accountIds.put(rs.getString("account_name"), rs.getLong("id"));
+        });
+
+        Map<String, PositionReplay> positions = new LinkedHashMap<>();
+        long[] skipped = { 0 };
+        jdbcTemplate.query(SELECT_TRADES_SQL, rs -> {
+            Long accountId = accountIds.get(rs.getString("account_name"));
+            if (accountId == null) {
+                // 账户已删除，交易记录不再计入任何持仓
+                skipped[0]++;
+                return;
+            }
+            String symbol = rs.getString("symbol");
+            PositionReplay position = positions.computeIfAbsent(accountId + ":" + symbol, k -> new PositionReplay(accountId, symbol));
+            replay(position, rs.getString("trade_type"), rs.getBigDecimal("quantity"), rs.getBigDecimal("amount"),
+                    TIME_CONVERTER.convertToEntityAttribute(rs.getLong("trade_time")));
+        });
+
+        List<Object[]> pnlRows = new ArrayList<>();
+        List<Object[]> holdCostRows = new ArrayList<>();
+        for (PositionReplay position : positions.values()) {
+            if (position.soldQuantity.signum() > 0) {
+                pnlRows.add(new Object[] { position.accountId, position.symbol, position.soldQuantity, position.soldCost,
+                        position.sellProceeds, position.realizedPnl(), TIME_CONVERTER.convertToDatabaseColumn(position.lastSellTime) });
+            }
+            if (position.quantity.signum() > 0) {
+                holdCostRows.add(new Object[] { position.holdCost, position.accountId, position.symbol, position.quantity });
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_PNL_SQL, pnlRows);
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_HOLD_COST_SQL, holdCostRows);
+
+        int mismatched = 0;
+        for (int i = 0; i < updated.length; i++) {
+            // 批量更新的驱动可能返回 SUCCESS_NO_INFO(-2)，只统计明确未命中的行
+            if (updated[i] == 0) {
+                mismatched++;
+                log.warn("持仓数量与交易记录不一致，保留原持仓成本: account_id={}, symbol={}", holdCostRows.get(i)[1],
+                        holdCostRows.get(i)[2]);
+            }
+        }
+        log.info("盈亏账本回填完成: 已实现盈亏 {} 条，持仓成本更新 {} 条（不一致 {} 条），跳过已删除账户的交易 {} 笔，耗时 {} ms",
+                pnlRows.size(), holdCostRows.size() - mismatched, mismatched, skipped[0], System.currentTimeMillis() - start);
+        return pnlRows.size();
+    }
+
+    static void replay(PositionReplay position, String tradeType, BigDecimal quantity, BigDecimal amount, LocalDateTime tradeTime) {
+        if (quantity == null || amount == null) {
+            return;
+        }
+        if ("BUY".equals(tradeType)) {
+            position.buy(quantity, amount);
+        } else if ("SELL".equals(tradeType)) {
+            position.sell(quantity, amount, tradeTime);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.noodle.app.trade.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.noodle.app.trade.entity.PositionPnlEntity;
+import com.noodle.app.trade.repository.PositionPnlRepository;
+
+/**
+ * 盈亏账本（平均成本法）
+ * - 持仓成本：HoldingEntity.holdCost 为当前持仓的总成本，买入时加上成交金额，卖出时减去卖出部分的成本
+ * - 已实现盈亏：每次卖出时按 卖出金额 - 卖出部分的成本 累加到 position_pnl，O(1) 更新（见 TradeExecutor.sell）
+ * - 未实现盈亏：当前市值 - holdCost，估值时直接计算
+ */
+@Service
+public class PnlLedgerService {
+
+    private static final int COST_SCALE = 10;
+
+    @Autowired
+    private PositionPnlRepository positionPnlRepository;
+
+    /**
+     * 计算卖出部分的持仓成本（平均成本法）
+     * 全部卖出时返回全部持仓成本，避免除法舍入留下零头
+     * @param holdQuantity 卖出前的持仓数量
+     * @param holdCost 卖出前的持仓总成本
+     * @param sellQuantity 卖出数量
+     * @return 卖出部分的成本
+     */
+    public static BigDecimal costBasis(BigDecimal holdQuantity, BigDecimal holdCost, BigDecimal sellQuantity) {
+        if (holdCost == null || holdQuantity == null || holdQuantity.signum() <= 0) {
+            return BigDecimal.ZERO;
+        }
+        if (sellQuantity.compareTo(holdQuantity) >= 0) {
+            return holdCost;
+        }
+        return holdCost.multiply(sellQuantity).divide(holdQuantity, COST_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 获取账户各币种的已实现盈亏
+     * @param accountId 账户ID
+     * @return 币种 -> 已实现盈亏
+     */
+    public Map<String, BigDecimal> getRealizedPnl(Long accountId) {
+        Map<String, BigDecimal> realized = new HashMap<>();
+        for (PositionPnlEntity pnl : positionPnlRepository.findByAccountId(accountId)) {
+            realized.put(pnl.getSymbol(), pnl.getRealizedPnl());
+        }
+        return realized;
+    }
+
+    /**
+     * 获取所有账户在指定币种上的已实现盈亏合计
+     * @param symbol 币种符号
+     * @return 已实现盈亏
+     */
+    public BigDecimal getRealizedPnlBySymbol(String symbol) {
+        BigDecimal realized = positionPnlRepository.sumRealizedPnlBySymbol(symbol);
+        return realized != null ? realized : BigDecimal.ZERO;
+    }
+
+    /**
+     * 清空账户的已实现盈亏（重置或删除账户时调用）
+     * @param accountId 账户ID
+     */
+    public void clear(Long accountId) {
+        positionPnlRepository.deleteAllByAccountId(accountId);
+    }
+}
@@ -0,0 +1,135 @@
+package com.noodle.app.trade.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.noodle.app.trade.entity.CryptoCurrencyEntity;
+import com.noodle.app.trade.entity.HoldingEntity;
+import com.noodle.app.trade.model.Account;
+import com.noodle.app.trade.model.HoldingValuation;
+import com.noodle.app.trade.model.HoldingValuation.PriceStatus;
+import com.noodle.app.trade.model.PortfolioValuation;
+import com.noodle.app.trade.repository.CryptoCurrencyRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 账户持仓估值
+ * 所有持仓的价格并行查询，整体受一个截止时间约束；超时或失败的币种使用数据库快照并标记为STALE
+ */
+@Slf4j
+@Service
+public class PortfolioValuationService {
+
+    @Autowired
+    private BinanceApiService binanceApiService;
+
+    @Autowired
+    private CryptoCurrencyRepository cryptoCurrencyRepository;
+
+    @Autowired
+    private PnlLedgerService pnlLedgerService;
+
+    // 单次估值等待实时价格的最长时间(ms)
+    @Value("${trading.valuation.deadline:3000}")
+    private long deadlineMillis;
+
+    /**
+     * 计算账户估值
+     * @param account 账户对象（包含持仓）
+     * @return 估值结果
+     */
+    public PortfolioValuation valuate(Account account) {
+        // 并行发起所有持仓的价格查询
+        Map<String, CompletableFuture<BigDecimal>> pending = new LinkedHashMap<>();
+        for (Map.Entry<String, BigDecimal> entry : account.getHoldings().entrySet()) {
+            if (entry.getValue() != null && entry.getValue().compareTo(BigDecimal.ZERO) > 0) {
+                pending.put(entry.getKey(), binanceApiService.getCurrentPriceAsync(entry.getKey() + "USDT"));
+            }
+        }
+
+        // 持仓成本随持仓一起加载，已实现盈亏从账本一次读取
+        Map<String, BigDecimal> holdCosts = new HashMap<>();
+        if (account.getHoldingList() != null) {
+            for (HoldingEntity holding : account.getHoldingList()) {
+                if (holding != null && holding.getSymbol() != null && holding.getHoldCost() != null) {
+                    holdCosts.put(holding.getSymbol(), holding.getHoldCost());
+                }
+            }
+        }
+        Map<String, BigDecimal> realized = account.getId() != null
+                ? pnlLedgerService.getRealizedPnl(account.getId())
+                : Collections.<String, BigDecimal>emptyMap();
+
+        // 所有请求共享同一个截止时间
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        List<HoldingValuation> holdings = new ArrayList<>(pending.size());
+        for (Map.Entry<String, CompletableFuture<BigDecimal>> entry : pending.entrySet()) {
+            String symbol = entry.getKey();
+            BigDecimal quantity = account.getHolding(symbol);
+            BigDecimal livePrice = awaitPrice(symbol, entry.getValue(), deadline);
+            BigDecimal holdCost = holdCosts.get(symbol);
+            BigDecimal realizedPnl = realized.getOrDefault(symbol, BigDecimal.ZERO);
+
+            if (livePrice != null) {
+                holdings.add(new HoldingValuation(symbol, quantity, livePrice, PriceStatus.LIVE, null, holdCost, realizedPnl));
+            } else {
+                holdings.add(valuateFromSnapshot(symbol, quantity, holdCost, realizedPnl));
+            }
+        }
+
+        BigDecimal totalRealized = BigDecimal.ZERO;
+        for (BigDecimal pnl : realized.values()) {
+            if (pnl != null) {
+                totalRealized = totalRealized.add(pnl);
+            }
+        }
+        return new PortfolioValuation(account.getBalance(), holdings, totalRealized);
+    }
+
+    private BigDecimal awaitPrice(String symbol, CompletableFuture<BigDecimal> future, long deadline) {
+        long remaining = deadline - System.nanoTime();
+        try {
+            if (remaining <= 0) {
+                return future.getNow(null);
+            }
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.warn("获取币种 {} 实时价格失败: {}", symbol, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 使用数据库中最近的行情快照估值
+     * @param symbol 币种符号
+     * @param quantity 持有数量
+     * @param holdCost 持仓成本
+     * @param realizedPnl 已实现盈亏
+     * @return 持仓估值，没有快照时价格状态为MISSING
+     */
+    private HoldingValuation valuateFromSnapshot(String symbol, BigDecimal quantity, BigDecimal holdCost, BigDecimal realizedPnl) {
+        Optional<CryptoCurrencyEntity> snapshot = cryptoCurrencyRepository.findFirstBySymbolOrderByLastUpdatedDesc(symbol);
+        if (snapshot.isPresent() && snapshot.get().getPrice() != null) {
+            CryptoCurrencyEntity latest = snapshot.get();
+            return new HoldingValuation(symbol, quantity, latest.getPrice(), PriceStatus.STALE, latest.getLastUpdated(),
+                    holdCost, realizedPnl);
+        }
+        return new HoldingValuation(symbol, quantity, null, PriceStatus.MISSING, null, holdCost, realizedPnl);
+    }
+}
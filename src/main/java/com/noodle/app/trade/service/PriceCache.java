@@ -0,0 +1,258 @@
+package com.noodle.app.trade.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 进程内价格缓存
+ * - TTL内直接返回缓存价格
+ * - 超过TTL但仍在容忍窗口内时先返回旧价格，同时在后台刷新（stale-while-revalidate）
+ * - 同一币种的并发未命中只会触发一次加载（single-flight），同步和异步调用共用同一个加载中的请求
+ */
+@Slf4j
+public class PriceCache {
+
+    /**
+     * 价格加载器
+     */
+    public interface PriceLoader {
+        BigDecimal load(String symbol) throws IOException;
+    }
+
+    /**
+     * 异步价格加载器，失败时以异常完成返回的future
+     */
+    public interface AsyncPriceLoader {
+        CompletableFuture<BigDecimal> load(String symbol);
+    }
+
+    private static final class Entry {
+        private final BigDecimal price;
+        private final long loadedAt;
+
+        private Entry(BigDecimal price, long loadedAt) {
+            this.price = price;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<BigDecimal>> inFlight = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final long staleWindowMillis;
+    private final Executor refreshExecutor;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+
+    /**
+     * @param ttlMillis 缓存有效期(ms)
+     * @param staleWindowMillis 过期后仍可返回旧值的时间窗口(ms)，0表示不返回旧值
+     * @param refreshExecutor 后台刷新使用的线程池
+     */
+    public PriceCache(long ttlMillis, long staleWindowMillis, Executor refreshExecutor) {
+        this(ttlMillis, staleWindowMillis, refreshExecutor, System::currentTimeMillis);
+    }
+
+    PriceCache(long ttlMillis, long staleWindowMillis, Executor refreshExecutor, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.staleWindowMillis = staleWindowMillis;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+    }
+
+    /**
+     * 获取价格，未命中时通过loader加载
+     * @param symbol 币种符号，如 "DOGEUSDT"
+     * @param loader 价格加载器
+     * @return 价格
+     * @throws IOException 加载失败且没有可用的旧值
+     */
+    public BigDecimal get(String symbol, PriceLoader loader) throws IOException {
+        Entry entry = entries.get(symbol);
+        if (entry != null) {
+            long age = clock.getAsLong() - entry.loadedAt;
+            if (age < ttlMillis) {
+                hits.increment();
+                return entry.price;
+            }
+            if (age < ttlMillis + staleWindowMillis) {
+                staleHits.increment();
+                refreshAsync(symbol, loader);
+                return entry.price;
+            }
+        }
+
+        misses.increment();
+        return await(loadOnce(symbol, loader));
+    }
+
+    /**
+     * 异步获取价格，未命中时通过loader加载；与 get 相同的TTL、旧值容忍和single-flight规则
+     * @param symbol 币种符号，如 "DOGEUSDT"
+     * @param loader 异步价格加载器
+     * @return 价格，加载失败且没有可用的旧值时以异常完成
+     */
+    public CompletableFuture<BigDecimal> getAsync(String symbol, AsyncPriceLoader loader) {
+        Entry entry = entries.get(symbol);
+        if (entry != null) {
+            long age = clock.getAsLong() - entry.loadedAt;
+            if (age < ttlMillis) {
+                hits.increment();
+                return CompletableFuture.completedFuture(entry.price);
+            }
+            if (age < ttlMillis + staleWindowMillis) {
+                staleHits.increment();
+                loadOnceAsync(symbol, loader, false);
+                return CompletableFuture.completedFuture(entry.price);
+            }
+        }
+
+        misses.increment();
+        return loadOnceAsync(symbol, loader, true);
+    }
+
+    /**
+     * 直接写入价格（例如批量行情接口返回的价格）
+     * @param symbol 币种符号，如 "DOGEUSDT"
+     * @param price 价格
+     */
+    public void put(String symbol, BigDecimal price) {
+        if (symbol != null && price != null) {
+            entries.put(symbol, new Entry(price, clock.getAsLong()));
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * 获取缓存统计
+     * @return 命中、未命中、合并请求和加载次数等指标
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long staleHitCount = staleHits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + staleHitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("hits", hitCount);
+        stats.put("staleHits", staleHitCount);
+        stats.put("misses", missCount);
+        stats.put("coalesced", coalesced.sum());
+        stats.put("loads", loads.sum());
+        stats.put("loadFailures", loadFailures.sum());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) (hitCount + staleHitCount) / total);
+        return stats;
+    }
+
+    private void refreshAsync(final String symbol, final PriceLoader loader) {
+        final CompletableFuture<BigDecimal> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(symbol, future) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> load(symbol, loader, future));
+        } catch (RuntimeException e) {
+            inFlight.remove(symbol, future);
+            log.warn("提交价格刷新任务失败: {}", e.getMessage());
+        }
+    }
+
+    private CompletableFuture<BigDecimal> loadOnce(String symbol, PriceLoader loader) {
+        CompletableFuture<BigDecimal> future = new CompletableFuture<>();
+        CompletableFuture<BigDecimal> existing = inFlight.putIfAbsent(symbol, future);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+        load(symbol, loader, future);
+        return future;
+    }
+
+    private CompletableFuture<BigDecimal> loadOnceAsync(String symbol, AsyncPriceLoader loader, boolean miss) {
+        CompletableFuture<BigDecimal> future = new CompletableFuture<>();
+        CompletableFuture<BigDecimal> existing = inFlight.putIfAbsent(symbol, future);
+        if (existing != null) {
+            if (miss) {
+                coalesced.increment();
+            }
+            return existing;
+        }
+        loads.increment();
+        CompletableFuture<BigDecimal> loading;
+        try {
+            loading = loader.load(symbol);
+        } catch (RuntimeException e) {
+            loading = new CompletableFuture<>();
+            loading.completeExceptionally(e);
+        }
+        loading.whenComplete((price, error) -> {
+            try {
+                if (error == null) {
+                    entries.put(symbol, new Entry(price, clock.getAsLong()));
+                    future.complete(price);
+                } else {
+                    loadFailures.increment();
+                    future.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                }
+            } finally {
+                inFlight.remove(symbol, future);
+            }
+        });
+        return future;
+    }
+
+    private void load(String symbol, PriceLoader loader, CompletableFuture<BigDecimal> future) {
+        loads.increment();
+        try {
+            BigDecimal price = loader.load(symbol);
+            entries.put(symbol, new Entry(price, clock.getAsLong()));
+            future.complete(price);
+        } catch (Exception e) {
+            loadFailures.increment();
+            future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(symbol, future);
+        }
+    }
+
+    private BigDecimal await(CompletableFuture<BigDecimal> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待价格加载时被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause != null ? cause.getMessage() : e.getMessage(), cause);
+        }
+    }
+}
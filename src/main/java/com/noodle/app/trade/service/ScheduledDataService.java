@@ -2,24 +2,24 @@ package com.noodle.app.trade.service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import com.noodle.app.trade.entity.AccountEntity;
-import com.noodle.app.trade.entity.AccountValueHistory;
-import com.noodle.app.trade.entity.CryptoCurrencyEntity;
-import com.noodle.app.trade.entity.HoldingEntity;
+import com.noodle.app.trade.history.PriceHistoryStore;
 import com.noodle.app.trade.model.CryptoCurrency;
-import com.noodle.app.trade.repository.AccountRepository;
 import com.noodle.app.trade.repository.AccountValueHistoryRepository;
 import com.noodle.app.trade.repository.CryptoCurrencyRepository;
-import com.noodle.app.trade.repository.HoldingRepository;
 import com.noodle.app.trade.util.TimeUtils;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Service
 public class ScheduledDataService {
     
@@ -30,13 +30,16 @@ public class ScheduledDataService {
     private CryptoCurrencyRepository cryptoCurrencyRepository;
     
     @Autowired
-    private AccountRepository accountRepository;
+    private AccountValueHistoryRepository accountValueHistoryRepository;
     
     @Autowired
-    private AccountValueHistoryRepository accountValueHistoryRepository;
+    private AccountValuationEngine accountValuationEngine;
+    
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
     
     @Autowired
-    private HoldingRepository holdingRepository;
+    private CandleService candleService;
     
     /**
      * 每30分钟执行一次的定时任务，获取最新的市场数据并保存到数据库
@@ -44,142 +47,66 @@ public class ScheduledDataService {
     @Scheduled(fixedRate = 10 * 60 * 1000) // 30分钟 = 30 * 60 * 1000毫秒
     public void updateMarketData() {
         try {
-            System.out.println("开始更新加密货币市场数据 - " + TimeUtils.getCurrentBeijingTimeFormatted());
+            log.info("开始更新加密货币市场数据");
+            long startNanos = System.nanoTime();
             
             // 从Binance API获取所有市场数据
             List<CryptoCurrency> cryptoCurrencies = binanceApiService.getAllMarketData();
             
-            // 保存到数据库
-            for (CryptoCurrency crypto : cryptoCurrencies) {
-                // 转换为实体对象
-                CryptoCurrencyEntity entity = new CryptoCurrencyEntity();
-                BeanUtils.copyProperties(crypto, entity);
-                
-                // 设置最后更新时间为当前北京时间
-                entity.setLastUpdated(TimeUtils.getBeijingTime());
-                
-                // 保存到数据库
-                cryptoCurrencyRepository.save(entity);
-            }
+            // 一次JDBC批处理保存本次全部币种，最后更新时间为当前北京时间
+            LocalDateTime snapshotTime = TimeUtils.getBeijingTime();
+            priceHistoryStore.write(cryptoCurrencies, snapshotTime);
+            candleService.onSnapshots(cryptoCurrencies, snapshotTime);
             
-            System.out.println("加密货币市场数据更新完成 - " + TimeUtils.getCurrentBeijingTimeFormatted());
+            log.info("加密货币市场数据更新完成: 币种数={}, 耗时={}ms", cryptoCurrencies.size(),
+                    (System.nanoTime() - startNanos) / 1_000_000);
             
-            // 更新所有账户的总价值
-            updateAllAccountValues();
+            // 增量更新账户的总价值
+            updateAllAccountValues(cryptoCurrencies);
             
         } catch (Exception e) {
-            System.err.println("更新加密货币市场数据时发生错误: " + e.getMessage());
-            e.printStackTrace();
+            log.error("更新加密货币市场数据时发生错误", e);
         }
     }
     
     /**
-     * 更新所有账户的总价值并保存到历史记录中
+     * 更新账户总价值并保存到历史记录中
+     * 只有持有价格变动币种的账户或发生过交易的账户会被重新估值
+     * @param cryptoCurrencies 本次获取的市场数据
      */
-    private void updateAllAccountValues() {
+    private void updateAllAccountValues(List<CryptoCurrency> cryptoCurrencies) {
         try {
-            System.out.println("开始更新账户总价值 - " + TimeUtils.getCurrentBeijingTimeFormatted());
+            log.debug("开始更新账户总价值");
             
-            // 获取所有账户
-            List<AccountEntity> accounts = accountRepository.findAll();
-            
-            LocalDateTime currentTime = TimeUtils.getBeijingTime();
+            Map<String, BigDecimal> prices = new HashMap<>();
+            for (CryptoCurrency crypto : cryptoCurrencies) {
+                prices.put(crypto.getSymbol(), crypto.getPrice());
+            }
             
-            for (AccountEntity account : accounts) {
+            // 账户持有但不在默认行情列表中的币种，批量补充价格
+            List<String> missingSymbols = new ArrayList<>();
+            for (String symbol : accountValuationEngine.getExposedSymbols()) {
+                if (!prices.containsKey(symbol)) {
+                    missingSymbols.add(symbol + "USDT");
+                }
+            }
+            if (!missingSymbols.isEmpty()) {
                 try {
-                    // 计算账户总价值
-                    BigDecimal totalValue = calculateAccountTotalValue(account);
-                    
-                    // 更新账户的总价值字段
-                    account.setTotalValue(totalValue);
-                    accountRepository.save(account);
-                    
-                    // 创建账户价值历史记录
-                    AccountValueHistory valueHistory = new AccountValueHistory(
-                        account.getAccountName(),
-                        totalValue,
-                        currentTime
-                    );
-                    
-                    // 保存到数据库
-                    accountValueHistoryRepository.save(valueHistory);
-                    
-                    System.out.println("账户 " + account.getAccountName() + " 总价值更新完成: " + totalValue);
+                    for (CryptoCurrency crypto : binanceApiService.getMarketData(missingSymbols)) {
+                        prices.put(crypto.getSymbol(), crypto.getPrice());
+                    }
                 } catch (Exception e) {
-                    System.err.println("更新账户 " + account.getAccountName() + " 总价值时发生错误: " + e.getMessage());
-                    e.printStackTrace();
+                    // 获取失败的币种沿用上一次的价格
+                    log.warn("获取持仓币种价格失败: symbols={}, error={}", missingSymbols, e.getMessage());
                 }
             }
             
-            System.out.println("所有账户总价值更新完成 - " + TimeUtils.getCurrentBeijingTimeFormatted());
-        } catch (Exception e) {
-            System.err.println("更新账户总价值时发生错误: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-    
-    /**
-     * 计算账户总价值（余额 + 持仓价值）
-     * @param account 账户实体
-     * @return 账户总价值
-     */
-    private BigDecimal calculateAccountTotalValue(AccountEntity account) {
-        BigDecimal totalValue = account.getBalance();
-        
-        try {
-            // 获取账户持仓
-            List<HoldingEntity> holdings = holdingRepository.findByAccountId(account.getId());
+            int revalued = accountValuationEngine.revalue(prices, TimeUtils.getBeijingTime());
             
-            // 计算每个持仓的价值
-            for (HoldingEntity holding : holdings) {
-                if (holding != null && holding.getQuantity() != null && holding.getQuantity().compareTo(BigDecimal.ZERO) > 0) {
-                    String symbol = holding.getSymbol();
-                    BigDecimal quantity = holding.getQuantity();
-                    
-                    try {
-                        // 获取当前价格
-                        BigDecimal price = getCurrentPrice(symbol);
-                        if (price != null) {
-                            BigDecimal holdingValue = price.multiply(quantity);
-                            totalValue = totalValue.add(holdingValue);
-                        }
-                    } catch (Exception e) {
-                        System.err.println("获取币种 " + symbol + " 价格时发生错误: " + e.getMessage());
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("计算账户 " + account.getAccountName() + " 持仓价值时发生错误: " + e.getMessage());
-        }
-        
-        return totalValue;
-    }
-    
-    /**
-     * 获取币种当前价格
-     * @param symbol 币种符号
-     * @return 当前价格
-     */
-    private BigDecimal getCurrentPrice(String symbol) {
-        try {
-            // 首先尝试从Binance API获取
-            BigDecimal price = binanceApiService.getCurrentPrice(symbol + "USDT");
-            return price;
+            log.info("账户总价值更新完成，重新估值账户数: {}", revalued);
         } catch (Exception e) {
-            System.err.println("从Binance API获取 " + symbol + " 价格失败: " + e.getMessage());
-            
-            try {
-                // 如果API获取失败，尝试从数据库获取最新价格
-                List<CryptoCurrencyEntity> entities = cryptoCurrencyRepository.findBySymbolOrderByLastUpdatedDesc(symbol);
-                if (!entities.isEmpty() && entities.get(0) != null) {
-                    return entities.get(0).getPrice();
-                }
-            } catch (Exception dbException) {
-                System.err.println("从数据库获取 " + symbol + " 价格失败: " + dbException.getMessage());
-            }
+            log.error("更新账户总价值时发生错误", e);
         }
-        
-        return null;
     }
     
     /**
@@ -188,21 +115,20 @@ public class ScheduledDataService {
     @Scheduled(cron = "0 0 2 * * ?") // 每天凌晨2点执行
     public void cleanupOldData() {
         try {
-            System.out.println("开始清理过期的市场数据 - " + TimeUtils.getCurrentBeijingTimeFormatted());
+            log.info("开始清理过期的市场数据");
             
             // 计算30天前的北京时间
             LocalDateTime thirtyDaysAgo = TimeUtils.getBeijingTime().minusDays(30);
             
             // 删除超过30天的数据
-            cryptoCurrencyRepository.deleteByLastUpdatedBefore(thirtyDaysAgo);
+            int prices = cryptoCurrencyRepository.deleteByLastUpdatedBefore(thirtyDaysAgo);
             
             // 删除超过30天的账户价值历史数据
-            accountValueHistoryRepository.deleteByRecordTimeBefore(thirtyDaysAgo);
+            int values = accountValueHistoryRepository.deleteByRecordTimeBefore(thirtyDaysAgo);
             
-            System.out.println("过期市场数据清理完成 - " + TimeUtils.getCurrentBeijingTimeFormatted());
+            log.info("过期市场数据清理完成: 行情记录={}, 账户价值记录={}", prices, values);
         } catch (Exception e) {
-            System.err.println("清理过期市场数据时发生错误: " + e.getMessage());
-            e.printStackTrace();
+            log.error("清理过期市场数据时发生错误", e);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.noodle.app.trade.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.noodle.app.trade.model.SymbolPrecision;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 交易对精度注册表
+ * 定期从交易所 exchangeInfo 读取各币种的价格/数量精度，供内存中的定点数估值使用；
+ * 读取失败时保留上一次的结果，从未读取成功的币种按数值本身的小数位处理（SymbolPrecision.NATURAL）。
+ */
+@Slf4j
+@Service
+public class SymbolPrecisionService {
+
+    @Autowired
+    private BinanceApiService binanceApiService;
+
+    private volatile Map<String, SymbolPrecision> precisions = Collections.emptyMap();
+
+    /**
+     * 获取币种精度
+     * @param symbol 币种符号（不带USDT后缀）
+     * @return 精度，未知币种返回 SymbolPrecision.NATURAL
+     */
+    public SymbolPrecision get(String symbol) {
+        SymbolPrecision precision = precisions.get(symbol);
+        return precision != null ? precision : SymbolPrecision.NATURAL;
+    }
+
+    /**
+     * 定期刷新交易规则（交易所很少调整精度）
+     */
+    @Scheduled(fixedDelayString = "${trading.precision.refresh-interval:3600000}")
+    public void refresh() {
+        try {
+            Map<String, SymbolPrecision> loaded = binanceApiService.getSymbolPrecisions();
+            if (!loaded.isEmpty()) {
+                update(loaded);
+                log.info("已加载 {} 个币种的交易精度", loaded.size());
+            }
+        } catch (Exception e) {
+            log.warn("获取交易精度失败，继续使用已有精度: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 合并新的精度（按币种覆盖）
+     * @param loaded 精度，key为币种符号（不带USDT后缀）
+     */
+    public void update(Map<String, SymbolPrecision> loaded) {
+        Map<String, SymbolPrecision> merged = new HashMap<>(precisions);
+        merged.putAll(loaded);
+        precisions = Collections.unmodifiableMap(merged);
+    }
+}
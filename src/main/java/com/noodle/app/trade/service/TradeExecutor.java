@@ -0,0 +1,238 @@
+package com.noodle.app.trade.service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.noodle.app.trade.config.LocalDateTimeConverter;
+import com.noodle.app.trade.entity.TradeRecordEntity;
+
+/**
+ * 单事务交易执行
+ * 每笔交易在一个事务内完成：
+ * 1. 读取账户余额和该币种的持仓；同一账户的订单已由 OrderExecutionEngine 在进程内串行，
+ *    多实例共享数据库时开启 trading.orders.row-lock，改为 SELECT ... FOR UPDATE 锁定账户行
+ * 2. 条件更新余额（买入时 balance >= amount 才扣款）
+ * 3. 持仓插入/更新/删除（卖出时 quantity >= 卖出数量 才扣减）
+ * 4. 卖出时累加已实现盈亏（INSERT ... ON DUPLICATE KEY UPDATE）
+ * 5. 插入交易记录
+ * 买入4次数据库往返，卖出5次；任何一步失败整个事务回滚。
+ * 余额和持仓的扣减都带条件（balance >= amount、quantity >= 卖出数量），即使没有锁也不会透支。
+ * 账户和持仓的更新都校验并递增version，读取之后被其他节点修改时抛出 OptimisticLockingFailureException，
+ * 由调用方重新执行整个事务
+ */
+@Service
+public class TradeExecutor {
+
+    private static final String POSITION_SQL = "SELECT a.id, a.balance, a.version, h.id AS holding_id, h.quantity, h.hold_cost, "
+            + "h.version AS holding_version "
+            + "FROM account a LEFT JOIN holding h ON h.account_id = a.id AND h.symbol = ? "
+            + "WHERE a.account_name = ?";
+
+    private static final String DEBIT_SQL = "UPDATE account SET balance = balance - ?, version = version + 1 "
+            + "WHERE id = ? AND version = ? AND balance >= ?";
+
+    private static final String CREDIT_SQL = "UPDATE account SET balance = balance + ?, version = version + 1 WHERE id = ? AND version = ?";
+
+    private static final String INSERT_HOLDING_SQL = "INSERT INTO holding (account_id, symbol, quantity, hold_cost, version) VALUES (?, ?, ?, ?, 0)";
+
+    private static final String ADD_HOLDING_SQL = "UPDATE holding SET quantity = quantity + ?, hold_cost = COALESCE(hold_cost, 0) + ?, "
+            + "version = version + 1 WHERE id = ? AND version = ?";
+
+    private static final String REDUCE_HOLDING_SQL = "UPDATE holding SET quantity = quantity - ?, hold_cost = ?, version = version + 1 "
+            + "WHERE id = ? AND version = ? AND quantity >= ?";
+
+    private static final String DELETE_HOLDING_SQL = "DELETE FROM holding WHERE id = ? AND version = ?";
+
+    private static final String UPSERT_PNL_SQL = "INSERT INTO position_pnl "
+            + "(account_id, symbol, sold_quantity, sold_cost, sell_proceeds, realized_pnl, updated_time) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE sold_quantity = sold_quantity + VALUES(sold_quantity), "
+            + "sold_cost = sold_cost + VALUES(sold_cost), sell_proceeds = sell_proceeds + VALUES(sell_proceeds), "
+            + "realized_pnl = realized_pnl + VALUES(realized_pnl), updated_time = VALUES(updated_time)";
+
+    private static final String INSERT_TRADE_SQL = "INSERT INTO trade_record "
+            + "(symbol, trade_type, price, quantity, amount, trade_time, strategy, account_name) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final LocalDateTimeConverter TIME_CONVERTER = new LocalDateTimeConverter();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccountValuationEngine accountValuationEngine;
+
+    // 是否在数据库中锁定账户行（多实例部署时开启）
+    @Value("${trading.orders.row-lock:false}")
+    private boolean rowLock;
+
+    /**
+     * 锁定后读取到的账户与持仓
+     */
+    private static final class LockedPosition {
+        private final long accountId;
+        private final BigDecimal balance;
+        private final long version;
+        private final Long holdingId;
+        private final BigDecimal quantity;
+        private final BigDecimal holdCost;
+        private final long holdingVersion;
+
+        private LockedPosition(long accountId, BigDecimal balance, long version, Long holdingId, BigDecimal quantity,
+                               BigDecimal holdCost, long holdingVersion) {
+            this.accountId = accountId;
+            this.balance = balance != null ? balance : BigDecimal.ZERO;
+            this.version = version;
+            this.holdingId = holdingId;
+            this.quantity = quantity != null ? quantity : BigDecimal.ZERO;
+            this.holdCost = holdCost != null ? holdCost : BigDecimal.ZERO;
+            this.holdingVersion = holdingVersion;
+        }
+    }
+
+    /**
+     * 执行买入
+     * @param accountName 账户名称
+     * @param symbol 币种符号
+     * @param price 成交价格
+     * @param quantity 买入数量
+     * @param strategy 交易策略
+     * @return 已保存的交易记录
+     * @throws RuntimeException 账户不存在或余额不足
+     */
+    @Transactional
+    public TradeRecordEntity buy(String accountName, String symbol, BigDecimal price, BigDecimal quantity, String strategy) {
+        LockedPosition position = lock(accountName, symbol);
+        BigDecimal amount = price.multiply(quantity);
+
+        if (position.balance.compareTo(amount) < 0) {
+            throw new RuntimeException("余额不足，无法完成交易");
+        }
+        // 读取时余额足够，更新失败说明账户已被其他事务修改
+        checkUpdated(jdbcTemplate.update(DEBIT_SQL, amount, position.accountId, position.version, amount), "account", position.accountId);
+
+        if (position.holdingId == null) {
+            jdbcTemplate.update(INSERT_HOLDING_SQL, position.accountId, symbol, quantity, amount);
+        } else {
+            checkUpdated(jdbcTemplate.update(ADD_HOLDING_SQL, quantity, amount, position.holdingId, position.holdingVersion),
+                    "holding", position.holdingId);
+        }
+
+        return insertTrade(position.accountId, accountName, symbol, "BUY", price, quantity, amount, strategy, LocalDateTime.now());
+    }
+
+    /**
+     * 执行卖出，持仓成本按平均成本法扣减，已实现盈亏记入账本
+     * @param accountName 账户名称
+     * @param symbol 币种符号
+     * @param price 成交价格
+     * @param quantity 卖出数量
+     * @param strategy 交易策略
+     * @return 已保存的交易记录
+     * @throws RuntimeException 账户不存在或持仓不足
+     */
+    @Transactional
+    public TradeRecordEntity sell(String accountName, String symbol, BigDecimal price, BigDecimal quantity, String strategy) {
+        LockedPosition position = lock(accountName, symbol);
+        if (position.holdingId == null || position.quantity.compareTo(quantity) < 0) {
+            throw new RuntimeException("持仓不足，无法完成交易");
+        }
+
+        BigDecimal amount = price.multiply(quantity);
+        BigDecimal costBasis = PnlLedgerService.costBasis(position.quantity, position.holdCost, quantity);
+        checkUpdated(jdbcTemplate.update(CREDIT_SQL, amount, position.accountId, position.version), "account", position.accountId);
+
+        // 全部卖出时删除持仓记录，否则扣减数量和对应的持仓成本
+        int updated = position.quantity.compareTo(quantity) == 0
+                ? jdbcTemplate.update(DELETE_HOLDING_SQL, position.holdingId, position.holdingVersion)
+                : jdbcTemplate.update(REDUCE_HOLDING_SQL, quantity, position.holdCost.subtract(costBasis), position.holdingId,
+                        position.holdingVersion, quantity);
+        checkUpdated(updated, "holding", position.holdingId);
+
+        LocalDateTime tradeTime = LocalDateTime.now();
+        jdbcTemplate.update(UPSERT_PNL_SQL, position.accountId, symbol, quantity, costBasis, amount,
+                amount.subtract(costBasis), TIME_CONVERTER.convertToDatabaseColumn(tradeTime));
+
+        return insertTrade(position.accountId, accountName, symbol, "SELL", price, quantity, amount, strategy, tradeTime);
+    }
+
+    /**
+     * 读取账户和指定币种的持仓，开启row-lock时同时锁定账户行
+     */
+    private LockedPosition lock(String accountName, String symbol) {
+        String sql = rowLock ? POSITION_SQL + " FOR UPDATE" : POSITION_SQL;
+        List<LockedPosition> rows = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            long holdingId = rs.getLong("holding_id");
+            Long holding = rs.wasNull() ? null : holdingId;
+            return new LockedPosition(rs.getLong("id"), rs.getBigDecimal("balance"), rs.getLong("version"), holding,
+                    rs.getBigDecimal("quantity"), rs.getBigDecimal("hold_cost"), rs.getLong("holding_version"));
+        }, symbol, accountName);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("账户不存在: " + accountName);
+        }
+        return rows.get(0);
+    }
+
+    /**
+     * 带版本号的更新没有命中任何行时，说明读取之后记录已被其他事务修改或删除
+     */
+    private static void checkUpdated(int rows, String table, Object id) {
+        if (rows == 0) {
+            throw new OptimisticLockingFailureException(table + " " + id + " 已被其他事务修改");
+        }
+    }
+
+    private TradeRecordEntity insertTrade(long accountId, String accountName, String symbol, String tradeType,
+                                          BigDecimal price, BigDecimal quantity, BigDecimal amount, String strategy,
+                                          LocalDateTime tradeTime) {
+        TradeRecordEntity trade = new TradeRecordEntity(symbol, tradeType, price, quantity, amount, tradeTime, strategy, accountName);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_TRADE_SQL, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, symbol);
+            ps.setString(2, tradeType);
+            ps.setBigDecimal(3, price);
+            ps.setBigDecimal(4, quantity);
+            ps.setBigDecimal(5, amount);
+            ps.setLong(6, TIME_CONVERTER.convertToDatabaseColumn(tradeTime));
+            ps.setString(7, strategy);
+            ps.setString(8, accountName);
+            return ps;
+        }, keyHolder);
+        Number id = keyHolder.getKey();
+        trade.setId(id != null ? id.longValue() : null);
+
+        invalidateAfterCommit(accountId);
+        return trade;
+    }
+
+    /**
+     * 事务提交后再通知估值引擎重新加载账户，避免估值读到未提交前的持仓
+     */
+    private void invalidateAfterCommit(long accountId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accountValuationEngine.invalidateAccount(accountId);
+                }
+            });
+        } else {
+            accountValuationEngine.invalidateAccount(accountId);
+        }
+    }
+}
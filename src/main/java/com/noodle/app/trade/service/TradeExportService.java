@@ -0,0 +1,267 @@
+package com.noodle.app.trade.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.noodle.app.trade.util.TimeUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 交易记录流式导出
+ * 通过JDBC游标逐行读取（MySQL驱动fetchSize=Integer.MIN_VALUE），每行直接写入输出流，
+ * 不生成实体和中间列表，导出任意行数时堆内存占用保持不变
+ */
+@Slf4j
+@Service
+public class TradeExportService {
+    
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson;charset=UTF-8", "ndjson");
+        
+        private final String contentType;
+        private final String extension;
+        
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+        
+        public String getContentType() {
+            return contentType;
+        }
+        
+        public String getExtension() {
+            return extension;
+        }
+        
+        /**
+         * 解析导出格式
+         * @param value 格式名称：csv、ndjson
+         * @return 导出格式
+         * @throws IllegalArgumentException 不支持的格式
+         */
+        public static Format fromValue(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("不支持的导出格式: " + value + "，可选值: csv、ndjson");
+        }
+    }
+    
+    private static final String COLUMNS = "id, account_name, symbol, trade_type, price, quantity, amount, trade_time, strategy";
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM trade_record ORDER BY trade_time, id";
+    private static final String SELECT_BY_ACCOUNT_SQL = "SELECT " + COLUMNS + " FROM trade_record WHERE account_name = ? ORDER BY trade_time, id";
+    private static final String[] HEADER = {"id", "accountName", "symbol", "tradeType", "price", "quantity", "amount", "tradeTime", "strategy"};
+    
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * 按交易时间升序导出交易记录
+     * @param format 导出格式
+     * @param accountName 账户名称，为null时导出所有账户
+     * @param output 输出流（调用方负责关闭）
+     * @return 导出的行数
+     * @throws IOException 写入失败（如客户端断开）
+     */
+    public long export(Format format, final String accountName, OutputStream output) throws IOException {
+        long start = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        final RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        final long[] rows = {0};
+        
+        rowWriter.begin();
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(accountName != null ? SELECT_BY_ACCOUNT_SQL : SELECT_ALL_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // MySQL驱动逐行流式读取
+                statement.setFetchSize(Integer.MIN_VALUE);
+                if (accountName != null) {
+                    statement.setString(1, accountName);
+                }
+                return statement;
+            }, (ResultSet rs) -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        rowWriter.end();
+        writer.flush();
+        
+        log.info("导出交易记录 {} 行, 格式 {}, 账户 {}, 耗时 {} ms", rows[0], format, accountName != null ? accountName : "全部",
+                (System.nanoTime() - start) / 1000000);
+        return rows[0];
+    }
+    
+    /**
+     * 单行写入器
+     */
+    private interface RowWriter {
+        void begin() throws IOException;
+        
+        void write(ResultSet rs) throws SQLException, IOException;
+        
+        void end() throws IOException;
+    }
+    
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        
+        private CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+        
+        @Override
+        public void begin() throws IOException {
+            writer.write(String.join(",", HEADER));
+            writer.write('\n');
+        }
+        
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            writer.write(Long.toString(rs.getLong("id")));
+            writer.write(',');
+            writeText(rs.getString("account_name"));
+            writer.write(',');
+            writeText(rs.getString("symbol"));
+            writer.write(',');
+            writeText(rs.getString("trade_type"));
+            writer.write(',');
+            writeDecimal(rs.getBigDecimal("price"));
+            writer.write(',');
+            writeDecimal(rs.getBigDecimal("quantity"));
+            writer.write(',');
+            writeDecimal(rs.getBigDecimal("amount"));
+            writer.write(',');
+            writer.write(TimeUtils.fromEpochMilli(rs.getLong("trade_time")).toString());
+            writer.write(',');
+            writeText(rs.getString("strategy"));
+            writer.write('\n');
+        }
+        
+        @Override
+        public void end() {
+        }
+        
+        private void writeDecimal(BigDecimal value) throws IOException {
+            if (value != null) {
+                writer.write(value.toPlainString());
+            }
+        }
+        
+        private void writeText(String value) throws IOException {
+            writer.write(escapeCsv(value));
+        }
+    }
+    
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        
+        private NdjsonRowWriter(Writer writer) throws IOException {
+            this.generator = JSON_FACTORY.createGenerator(writer);
+            // 由外层统一flush和关闭
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            this.generator.setRootValueSeparator(null);
+        }
+        
+        @Override
+        public void begin() {
+        }
+        
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong("id"));
+            generator.writeStringField("accountName", rs.getString("account_name"));
+            generator.writeStringField("symbol", rs.getString("symbol"));
+            generator.writeStringField("tradeType", rs.getString("trade_type"));
+            writeDecimal("price", rs.getBigDecimal("price"));
+            writeDecimal("quantity", rs.getBigDecimal("quantity"));
+            writeDecimal("amount", rs.getBigDecimal("amount"));
+            generator.writeStringField("tradeTime", TimeUtils.fromEpochMilli(rs.getLong("trade_time")).toString());
+            generator.writeStringField("strategy", rs.getString("strategy"));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        
+        @Override
+        public void end() throws IOException {
+            generator.flush();
+        }
+        
+        private void writeDecimal(String field, BigDecimal value) throws IOException {
+            if (value != null) {
+                generator.writeNumberField(field, value);
+            } else {
+                generator.writeNullField(field);
+            }
+        }
+    }
+    
+    /**
+     * CSV字段转义：包含逗号、引号或换行时用双引号包裹，引号写两次
+     * @param value 字段值
+     * @return 转义后的字段
+     */
+    static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+    
+    /**
+     * 导出文件名
+     * @param format 导出格式
+     * @param accountName 账户名称，为null时表示所有账户
+     * @return 文件名
+     */
+    public static String fileName(Format format, String accountName) {
+        String scope = accountName != null ? accountName.replaceAll("[^A-Za-z0-9_-]", "_") : "all";
+        return "trades-" + scope.toLowerCase(Locale.ROOT) + "." + format.getExtension();
+    }
+}
@@ -6,18 +6,35 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import com.noodle.app.trade.entity.TradeRecordEntity;
+import com.noodle.app.trade.model.TradeCursor;
+import com.noodle.app.trade.model.TradePage;
 import com.noodle.app.trade.model.TradeRecord;
 import com.noodle.app.trade.repository.TradeRecordRepository;
+import com.noodle.app.trade.util.Tracing;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Service
 public class TradeHistoryService {
     
+    // 逐条转换的跟踪日志每100条输出一条
+    private static final Tracing.Sampler CONVERT_TRACE_SAMPLER = new Tracing.Sampler(100);
+    
+    // 分页查询每页最多返回的记录数
+    private static final int MAX_PAGE_SIZE = 500;
+    
     @Autowired
     private TradeRecordRepository tradeRecordRepository;
     
+    @Autowired
+    private PnlLedgerService pnlLedgerService;
+    
     /**
      * 获取指定币种的交易记录
      * @param symbol 币种符号
@@ -67,17 +84,50 @@ public class TradeHistoryService {
      * @return 交易记录列表
      */
     public List<TradeRecord> getLatestTradeRecords(int limit) {
-        List<TradeRecordEntity> entities = tradeRecordRepository.findLatestTrades(limit);
+        List<TradeRecordEntity> entities = tradeRecordRepository.findLatestTrades(PageRequest.of(0, clampPageSize(limit)));
         return convertToModelList(entities);
     }
     
     /**
-     * 获取所有交易记录
-     * @return 交易记录列表
+     * 按游标分页获取交易记录，按 (交易时间, ID) 倒序
+     * 每页通过索引直接定位到游标位置，耗时与历史总量无关
+     * @param accountName 账户名称，为null时查询所有账户
+     * @param cursor 上一页返回的游标，为null时从最新的记录开始
+     * @param limit 每页数量
+     * @return 交易记录分页
+     * @throws IllegalArgumentException 游标格式错误
      */
-    public List<TradeRecord> getAllTradeRecords() {
-        List<TradeRecordEntity> entities = tradeRecordRepository.findAll();
-        return convertToModelList(entities);
+    public TradePage getTradePage(String accountName, String cursor, int limit) {
+        int pageSize = clampPageSize(limit);
+        // 多取一条用于判断是否还有下一页
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        
+        List<TradeRecordEntity> entities;
+        if (cursor == null || cursor.isEmpty()) {
+            entities = accountName != null
+                    ? tradeRecordRepository.findLatestTradesByAccountName(accountName, pageable)
+                    : tradeRecordRepository.findLatestTrades(pageable);
+        } else {
+            TradeCursor position = TradeCursor.decode(cursor);
+            entities = accountName != null
+                    ? tradeRecordRepository.findTradesByAccountNameBefore(accountName, position.getTradeTime(), position.getId(), pageable)
+                    : tradeRecordRepository.findTradesBefore(position.getTradeTime(), position.getId(), pageable);
+        }
+        
+        boolean hasMore = entities.size() > pageSize;
+        if (hasMore) {
+            entities = entities.subList(0, pageSize);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            TradeRecordEntity last = entities.get(entities.size() - 1);
+            nextCursor = new TradeCursor(last.getTradeTime(), last.getId()).encode();
+        }
+        return new TradePage(convertToModelList(entities), nextCursor, hasMore);
+    }
+    
+    private int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
     }
     
 
@@ -88,67 +138,18 @@ public class TradeHistoryService {
      * @return 总交易量
      */
     public BigDecimal getTotalVolumeBySymbol(String symbol) {
-        List<TradeRecordEntity> entities = tradeRecordRepository.findBySymbol(symbol);
-        BigDecimal totalVolume = BigDecimal.ZERO;
-        
-        for (TradeRecordEntity entity : entities) {
-            totalVolume = totalVolume.add(entity.getAmount());
-        }
-        
-        return totalVolume;
+        BigDecimal totalVolume = tradeRecordRepository.sumAmountBySymbol(symbol);
+        return totalVolume != null ? totalVolume : BigDecimal.ZERO;
     }
     
     /**
-     * 计算指定币种的盈亏情况
+     * 计算指定币种的已实现盈亏（所有账户合计）
+     * 直接读取卖出时增量维护的盈亏账本，不再扫描交易记录
      * @param symbol 币种符号
      * @return 盈亏金额
      */
     public BigDecimal calculateProfitLoss(String symbol) {
-        List<TradeRecordEntity> allRecords = tradeRecordRepository.findBySymbol(symbol);
-        List<TradeRecordEntity> buyRecords = new ArrayList<>();
-        List<TradeRecordEntity> sellRecords = new ArrayList<>();
-        
-        // 分离买入和卖出记录
-        for (TradeRecordEntity record : allRecords) {
-            if ("BUY".equals(record.getTradeType())) {
-                buyRecords.add(record);
-            } else if ("SELL".equals(record.getTradeType())) {
-                sellRecords.add(record);
-            }
-        }
-        
-        BigDecimal totalBuyAmount = BigDecimal.ZERO;
-        BigDecimal totalSellAmount = BigDecimal.ZERO;
-        BigDecimal totalBuyQuantity = BigDecimal.ZERO;
-        BigDecimal totalSellQuantity = BigDecimal.ZERO;
-        
-        // 计算总买入金额和数量
-        for (TradeRecordEntity record : buyRecords) {
-            totalBuyAmount = totalBuyAmount.add(record.getAmount());
-            totalBuyQuantity = totalBuyQuantity.add(record.getQuantity());
-        }
-        
-        // 计算总卖出金额和数量
-        for (TradeRecordEntity record : sellRecords) {
-            totalSellAmount = totalSellAmount.add(record.getAmount());
-            totalSellQuantity = totalSellQuantity.add(record.getQuantity());
-        }
-        
-        // 计算盈亏（仅计算已完全卖出的部分）
-        BigDecimal soldQuantity = totalBuyQuantity.min(totalSellQuantity);
-        if (soldQuantity.compareTo(BigDecimal.ZERO) <= 0) {
-            return BigDecimal.ZERO;
-        }
-        
-        // 计算平均买入价格和卖出价格
-        BigDecimal avgBuyPrice = totalBuyQuantity.compareTo(BigDecimal.ZERO) > 0 ? 
-            totalBuyAmount.divide(totalBuyQuantity, 10, BigDecimal.ROUND_HALF_UP) : BigDecimal.ZERO;
-        BigDecimal avgSellPrice = totalSellQuantity.compareTo(BigDecimal.ZERO) > 0 ? 
-            totalSellAmount.divide(totalSellQuantity, 10, BigDecimal.ROUND_HALF_UP) : BigDecimal.ZERO;
-        
-        // 计算盈亏
-        BigDecimal profitLoss = (avgSellPrice.subtract(avgBuyPrice)).multiply(soldQuantity);
-        return profitLoss;
+        return pnlLedgerService.getRealizedPnlBySymbol(symbol);
     }
     
     /**
@@ -162,8 +163,10 @@ public class TradeHistoryService {
         if (entities != null) {
             for (TradeRecordEntity entity : entities) {
                 if (entity != null) {
-                    System.out.println("Converting entity: " + entity.getSymbol() + ", " + entity.getTradeType() + ", " + entity.getAccountName());
-                    System.out.println("Entity tradeTime: " + entity.getTradeTime());
+                    if (log.isTraceEnabled() && CONVERT_TRACE_SAMPLER.sample()) {
+                        log.trace("转换交易记录: id={}, symbol={}, type={}, account={}, tradeTime={}", entity.getId(),
+                                entity.getSymbol(), entity.getTradeType(), entity.getAccountName(), entity.getTradeTime());
+                    }
                     try {
                         TradeRecord record = new TradeRecord(
                             entity.getSymbol() != null ? entity.getSymbol() : "",
@@ -176,10 +179,8 @@ public class TradeHistoryService {
                         );
                         record.setId(entity.getId());
                         records.add(record);
-                        System.out.println("Successfully converted entity");
                     } catch (Exception e) {
-                        System.err.println("Error converting entity: " + e.getMessage());
-                        e.printStackTrace();
+                        log.error("转换交易记录失败: id={}", entity.getId(), e);
                     }
                 }
             }
@@ -198,22 +199,5 @@ public class TradeHistoryService {
         return convertToModelList(entities);
     }
     
-    /**
-     * 根据账户名称获取交易记录
-     * @param accountName 账户名称
-     * @return 交易记录列表
-     */
-    public List<TradeRecord> getTradeRecordsByAccountName(String accountName) {
-        System.out.println("Fetching trade records for account: " + accountName);
-        List<TradeRecordEntity> entities = tradeRecordRepository.findByAccountName(accountName);
-        System.out.println("Found " + entities.size() + " entities");
-        for (TradeRecordEntity entity : entities) {
-            System.out.println("Entity: " + entity.getSymbol() + ", " + entity.getTradeType() + ", " + entity.getAccountName() + ", " + entity.getTradeTime());
-        }
-        List<TradeRecord> records = convertToModelList(entities);
-        System.out.println("Converted to " + records.size() + " records");
-        return records;
-    }
-    
 
 }
\ No newline at end of file
@@ -1,13 +1,18 @@
 package com.noodle.app.trade.service;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import javax.annotation.PostConstruct;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.noodle.app.trade.book.JournalEntry;
 import com.noodle.app.trade.entity.AccountEntity;
 import com.noodle.app.trade.entity.HoldingEntity;
 import com.noodle.app.trade.entity.TradeRecordEntity;
@@ -17,10 +22,17 @@ import com.noodle.app.trade.model.TradeRecord;
 import com.noodle.app.trade.repository.AccountRepository;
 import com.noodle.app.trade.repository.HoldingRepository;
 import com.noodle.app.trade.repository.TradeRecordRepository;
+import com.noodle.app.trade.util.Tracing;
+
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Service
 public class TradingService {
     
+    // 账户加载的调试日志每100次输出一次
+    private static final Tracing.Sampler ACCOUNT_DEBUG_SAMPLER = new Tracing.Sampler(100);
+    
     @Autowired
     private AccountRepository accountRepository;
     
@@ -30,6 +42,49 @@ public class TradingService {
     @Autowired
     private HoldingRepository holdingRepository;
     
+    @Autowired
+    private AccountValuationEngine accountValuationEngine;
+    
+    @Autowired
+    private PnlLedgerService pnlLedgerService;
+    
+    @Autowired
+    private TradeExecutor tradeExecutor;
+    
+    // 写回模式的内存账户簿，trading.book.enabled=true 时存在
+    @Autowired(required = false)
+    private AccountBookService accountBookService;
+    
+    // 账户锁分段数
+    @Value("${trading.orders.lock-stripes:256}")
+    private int lockStripes;
+    
+    // 等待账户锁的最长时间(ms)
+    @Value("${trading.orders.lock-timeout:5000}")
+    private long lockTimeoutMillis;
+    
+    // 乐观锁冲突时最多执行的次数（包括第一次）
+    @Value("${trading.orders.retry.max-attempts:5}")
+    private int retryMaxAttempts;
+    
+    // 第一次重试的最大等待时间(ms)，之后每次翻倍
+    @Value("${trading.orders.retry.base-delay:10}")
+    private long retryBaseDelayMillis;
+    
+    // 单次重试的最长等待时间(ms)
+    @Value("${trading.orders.retry.max-delay:200}")
+    private long retryMaxDelayMillis;
+    
+    private OrderExecutionEngine orderExecutionEngine;
+    
+    private OptimisticRetry optimisticRetry;
+    
+    @PostConstruct
+    public void initOrderExecutionEngine() {
+        orderExecutionEngine = new OrderExecutionEngine(lockStripes, lockTimeoutMillis);
+        optimisticRetry = new OptimisticRetry(retryMaxAttempts, retryBaseDelayMillis, retryMaxDelayMillis);
+    }
+    
     /**
      * 创建模拟账户
      * @param accountName 账户名称
@@ -37,6 +92,13 @@ public class TradingService {
      * @return 账户对象
      */
     public Account createAccount(String accountName, BigDecimal initialBalance) {
+        if (accountBookService != null) {
+            return accountBookService.exclusive(accountName, () -> doCreateAccount(accountName, initialBalance));
+        }
+        return doCreateAccount(accountName, initialBalance);
+    }
+    
+    private Account doCreateAccount(String accountName, BigDecimal initialBalance) {
         // 检查账户是否已存在
         Optional<AccountEntity> existingAccount = accountRepository.findByAccountName(accountName);
         if (existingAccount.isPresent()) {
@@ -46,6 +108,7 @@ public class TradingService {
         // 创建新账户
         AccountEntity accountEntity = new AccountEntity(accountName, initialBalance);
         accountEntity = accountRepository.save(accountEntity);
+        accountValuationEngine.invalidateAccount(accountEntity.getId());
         
         // 转换为模型对象
         Account account = new Account(accountName, initialBalance);
@@ -61,6 +124,13 @@ public class TradingService {
      * @return 重置后的账户对象
      */
     public Account resetAccount(String accountName, BigDecimal initialBalance) {
+        if (accountBookService != null) {
+            return accountBookService.exclusive(accountName, () -> doResetAccount(accountName, initialBalance));
+        }
+        return doResetAccount(accountName, initialBalance);
+    }
+    
+    private Account doResetAccount(String accountName, BigDecimal initialBalance) {
         // 查找现有账户
         Optional<AccountEntity> existingAccount = accountRepository.findByAccountName(accountName);
         
@@ -72,12 +142,13 @@ public class TradingService {
             accountEntity.setTotalValue(initialBalance);
             accountEntity = accountRepository.save(accountEntity);
             
-            // 删除该账户的所有持仓
+            // 删除该账户的所有持仓和已实现盈亏
             if (accountEntity.getId() != null) {
                 List<HoldingEntity> holdings = holdingRepository.findByAccountId(accountEntity.getId());
                 if (holdings != null && !holdings.isEmpty()) {
                     holdingRepository.deleteAll(holdings);
                 }
+                pnlLedgerService.clear(accountEntity.getId());
             }
             
             // 注意：由于交易记录没有直接关联账户的字段，我们暂时不删除交易记录
@@ -91,6 +162,7 @@ public class TradingService {
         if (accountEntity == null) {
             throw new RuntimeException("账户实体保存失败");
         }
+        accountValuationEngine.invalidateAccount(accountEntity.getId());
         
         // 转换为模型对象
         Account account = new Account(accountName, initialBalance);
@@ -105,47 +177,51 @@ public class TradingService {
      * @return 账户对象
      */
     public Account getAccount(String accountName) {
-        System.out.println("Getting account: " + accountName);
+        if (accountBookService != null) {
+            Account account = accountBookService.getAccount(accountName);
+            if (account == null) {
+                throw new RuntimeException("账户不存在: " + accountName);
+            }
+            return account;
+        }
+        
         Optional<AccountEntity> accountEntityOptional = accountRepository.findByAccountName(accountName);
-        System.out.println("Account entity optional present: " + accountEntityOptional.isPresent());
         
         if (!accountEntityOptional.isPresent()) {
             throw new RuntimeException("账户不存在: " + accountName);
         }
         
         AccountEntity accountEntity = accountEntityOptional.get();
-        System.out.println("Account entity ID: " + accountEntity.getId());
-        System.out.println("Account entity name: " + accountEntity.getAccountName());
-        System.out.println("Account entity balance: " + accountEntity.getBalance());
         
         Account account = new Account(accountEntity.getAccountName(), accountEntity.getBalance());
         account.setId(accountEntity.getId());
         
         // 获取持仓信息
         if (accountEntity.getId() != null) {
-            System.out.println("Fetching holdings for account ID: " + accountEntity.getId());
             List<HoldingEntity> holdings = holdingRepository.findByAccountId(accountEntity.getId());
-            System.out.println("Holdings count: " + holdings.size());
             
             for (HoldingEntity holding : holdings) {
                 if (holding != null && holding.getSymbol() != null && holding.getQuantity() != null) {
-                    System.out.println("Adding holding: " + holding.getSymbol() + " = " + holding.getQuantity());
                     account.addHolding(holding.getSymbol(), holding.getQuantity());
-                    System.out.println("Holding added successfully");
                 } else {
-                    System.out.println("Skipping invalid holding: " + holding);
+                    log.warn("跳过无效持仓: accountId={}, holding={}", accountEntity.getId(), holding);
                 }
             }
             
             account.setHoldingList(holdings);
         }
         
-        System.out.println("Account creation completed");
+        if (log.isDebugEnabled() && ACCOUNT_DEBUG_SAMPLER.sample()) {
+            log.debug("加载账户: id={}, name={}, balance={}, holdings={}", account.getId(), account.getAccountName(),
+                    account.getBalance(), account.getHoldings().size());
+        }
         return account;
     }
     
     /**
      * 执行买入交易
+     * 同一账户的订单在账户锁内按顺序执行，每笔订单在一个事务中扣减余额、增加持仓并记录交易
+     * 开启写回模式（trading.book.enabled）时在内存账户簿中执行，交易记录随下一次写回插入数据库
      * @param accountName 账户名称
      * @param cryptoCurrency 加密货币信息
      * @param quantity 购买数量
@@ -153,56 +229,19 @@ public class TradingService {
      * @return 交易记录
      */
     public TradeRecord executeBuy(String accountName, CryptoCurrency cryptoCurrency, BigDecimal quantity, String strategy) {
-        // 获取账户信息
-        Account account = getAccount(accountName);
-        
-        // 计算交易金额
-        BigDecimal price = cryptoCurrency.getPrice();
-        BigDecimal amount = price.multiply(quantity);
-        
-        // 检查余额是否足够
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new RuntimeException("余额不足，无法完成交易");
+        if (accountBookService != null) {
+            return toModel(accountBookService.buy(accountName, cryptoCurrency.getSymbol(), cryptoCurrency.getPrice(), quantity, strategy));
         }
-        
-        // 更新账户余额
-        AccountEntity accountEntity = accountRepository.findByAccountName(accountName).get();
-        accountEntity.setBalance(accountEntity.getBalance().subtract(amount));
-        accountRepository.save(accountEntity);
-        
-        // 更新持仓
-        updateHoldingAdd(accountEntity.getId(), cryptoCurrency.getSymbol(), quantity,amount);
-        
-        // 记录交易
-        TradeRecordEntity tradeRecordEntity = new TradeRecordEntity(
-                cryptoCurrency.getSymbol(),
-                "BUY",
-                price,
-                quantity,
-                amount,
-                LocalDateTime.now(),
-                strategy,
-                accountName
-        );
-        tradeRecordEntity = tradeRecordRepository.save(tradeRecordEntity);
-        
-        // 转换为模型对象
-        TradeRecord tradeRecord = new TradeRecord(
-                cryptoCurrency.getSymbol(),
-                "BUY",
-                price,
-                quantity,
-                amount,
-                tradeRecordEntity.getTradeTime(),
-                strategy
-        );
-        tradeRecord.setId(tradeRecordEntity.getId());
-        
-        return tradeRecord;
+        // 其他节点并发修改同一账户导致版本冲突时，在账户锁外等待后重新执行整个事务
+        TradeRecordEntity tradeRecordEntity = optimisticRetry.execute(() -> orderExecutionEngine.execute(accountName,
+                () -> tradeExecutor.buy(accountName, cryptoCurrency.getSymbol(), cryptoCurrency.getPrice(), quantity, strategy)));
+        return toModel(tradeRecordEntity);
     }
     
     /**
      * 执行卖出交易
+     * 同一账户的订单在账户锁内按顺序执行，每笔订单在一个事务中增加余额、按平均成本扣减持仓、记录已实现盈亏和交易
+     * 开启写回模式（trading.book.enabled）时在内存账户簿中执行，交易记录随下一次写回插入数据库
      * @param accountName 账户名称
      * @param cryptoCurrency 加密货币信息
      * @param quantity 卖出数量
@@ -210,113 +249,49 @@ public class TradingService {
      * @return 交易记录
      */
     public TradeRecord executeSell(String accountName, CryptoCurrency cryptoCurrency, BigDecimal quantity, String strategy) {
-        // 获取账户信息
-        Account account = getAccount(accountName);
-        
-        // 检查持仓是否足够
-        BigDecimal holdingQuantity = account.getHolding(cryptoCurrency.getSymbol());
-        if (holdingQuantity.compareTo(quantity) < 0) {
-            throw new RuntimeException("持仓不足，无法完成交易");
+        if (accountBookService != null) {
+            return toModel(accountBookService.sell(accountName, cryptoCurrency.getSymbol(), cryptoCurrency.getPrice(), quantity, strategy));
         }
-        
-        // 计算交易金额
-        BigDecimal price = cryptoCurrency.getPrice();
-        BigDecimal amount = price.multiply(quantity);
-        
-        // 更新账户余额
-        AccountEntity accountEntity = accountRepository.findByAccountName(accountName).get();
-        accountEntity.setBalance(accountEntity.getBalance().add(amount));
-        accountRepository.save(accountEntity);
-        
-        // 更新持仓
-        updateHoldingReduce(accountEntity.getId(), cryptoCurrency.getSymbol(), quantity,amount);
-        
-        // 记录交易
-        TradeRecordEntity tradeRecordEntity = new TradeRecordEntity(
-                cryptoCurrency.getSymbol(),
-                "SELL",
-                price,
-                quantity,
-                amount,
-                LocalDateTime.now(),
-                strategy,
-                accountName
-        );
-        tradeRecordEntity = tradeRecordRepository.save(tradeRecordEntity);
-        
-        // 转换为模型对象
-        TradeRecord tradeRecord = new TradeRecord(
-                cryptoCurrency.getSymbol(),
-                "SELL",
-                price,
-                quantity,
-                amount,
-                tradeRecordEntity.getTradeTime(),
-                strategy
-        );
-        tradeRecord.setId(tradeRecordEntity.getId());
-        
-        return tradeRecord;
+        TradeRecordEntity tradeRecordEntity = optimisticRetry.execute(() -> orderExecutionEngine.execute(accountName,
+                () -> tradeExecutor.sell(accountName, cryptoCurrency.getSymbol(), cryptoCurrency.getPrice(), quantity, strategy)));
+        return toModel(tradeRecordEntity);
     }
     
     /**
-     * 更新持仓
-     * @param accountId 账户ID
-     * @param symbol 币种符号
-     * @param quantity 变化数量（正数表示增加，负数表示减少）
+     * 获取订单执行统计
+     * @return engine: 执行数、锁竞争等指标；optimisticRetry: 版本冲突数、重试数、冲突率；
+     *         accountBook: 写回模式下的待写回变更和日志指标
      */
-    private void updateHoldingAdd(Long accountId, String symbol, BigDecimal quantity,BigDecimal holdCost) {
-        Optional<HoldingEntity> holdingOptional = holdingRepository.findByAccountIdAndSymbol(accountId, symbol);
-        
-        if (holdingOptional.isPresent()) {
-            // 更新现有持仓
-            HoldingEntity holding = holdingOptional.get();
-            BigDecimal newQuantity = holding.getQuantity().add(quantity);
-            BigDecimal newHoldCost = holding.getHoldCost().add(holdCost);
-            
-            if (newQuantity.compareTo(BigDecimal.ZERO) <= 0) {
-                // 如果持仓为0或负数，则删除持仓记录
-                holdingRepository.delete(holding);
-            } else {
-                // 更新持仓数量
-                holding.setQuantity(newQuantity);
-                holding.setHoldCost(newHoldCost);
-                holdingRepository.save(holding);
-            }
-        } else {
-            // 创建新持仓
-            if (quantity.compareTo(BigDecimal.ZERO) > 0) {
-                HoldingEntity holding = new HoldingEntity(accountId, symbol, quantity);
-                holding.setHoldCost(holdCost);
-                holdingRepository.save(holding);
-            }
+    public Map<String, Object> getOrderStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("engine", orderExecutionEngine.getStats());
+        stats.put("optimisticRetry", optimisticRetry.getStats());
+        if (accountBookService != null) {
+            stats.put("accountBook", accountBookService.getStats());
         }
+        return stats;
     }
+    
     /**
-     * 更新持仓
-     * @param accountId 账户ID
-     * @param symbol 币种符号
-     * @param quantity 变化数量（正数表示增加，负数表示减少）
+     * 写回模式的成交在写回数据库之前没有交易记录ID
      */
-    private void updateHoldingReduce(Long accountId, String symbol, BigDecimal quantity,BigDecimal holdCost) {
-    	Optional<HoldingEntity> holdingOptional = holdingRepository.findByAccountIdAndSymbol(accountId, symbol);
-    	
-    	if (holdingOptional.isPresent()) {
-    		// 更新现有持仓
-    		HoldingEntity holding = holdingOptional.get();
-    		BigDecimal newQuantity = holding.getQuantity().subtract(quantity);
-    		BigDecimal newHoldCost = holding.getHoldCost().subtract(holdCost);
-    		
-    		if (newQuantity.compareTo(BigDecimal.ZERO) <= 0) {
-    			// 如果持仓为0或负数，则删除持仓记录
-    			holdingRepository.delete(holding);
-    		} else {
-    			// 更新持仓数量
-    			holding.setQuantity(newQuantity);
-    			holding.setHoldCost(newHoldCost);
-    			holdingRepository.save(holding);
-    		}
-    	} 
+    private TradeRecord toModel(JournalEntry entry) {
+        return new TradeRecord(entry.getSymbol(), entry.getTradeType(), entry.getPrice(), entry.getQuantity(),
+                entry.getAmount(), entry.getTradeTime(), entry.getStrategy());
+    }
+    
+    private TradeRecord toModel(TradeRecordEntity tradeRecordEntity) {
+        TradeRecord tradeRecord = new TradeRecord(
+                tradeRecordEntity.getSymbol(),
+                tradeRecordEntity.getTradeType(),
+                tradeRecordEntity.getPrice(),
+                tradeRecordEntity.getQuantity(),
+                tradeRecordEntity.getAmount(),
+                tradeRecordEntity.getTradeTime(),
+                tradeRecordEntity.getStrategy()
+        );
+        tradeRecord.setId(tradeRecordEntity.getId());
+        return tradeRecord;
     }
     
     /**
@@ -325,6 +300,13 @@ public class TradingService {
      * @return 是否删除成功
      */
     public boolean deleteAccount(String accountName) {
+        if (accountBookService != null) {
+            return accountBookService.exclusive(accountName, () -> doDeleteAccount(accountName));
+        }
+        return doDeleteAccount(accountName);
+    }
+    
+    private boolean doDeleteAccount(String accountName) {
         // 查找账户
         Optional<AccountEntity> accountEntityOptional = accountRepository.findByAccountName(accountName);
         
@@ -341,15 +323,14 @@ public class TradingService {
                 holdingRepository.deleteAll(holdings);
             }
             
-            // 删除该账户的所有交易记录
-            List<TradeRecordEntity> tradeRecords = tradeRecordRepository.findByAccountName(accountName);
-            if (tradeRecords != null && !tradeRecords.isEmpty()) {
-                tradeRecordRepository.deleteAll(tradeRecords);
-            }
+            // 删除该账户的所有交易记录和已实现盈亏
+            tradeRecordRepository.deleteAllByAccountName(accountName);
+            pnlLedgerService.clear(accountEntity.getId());
         }
         
         // 删除账户
         accountRepository.delete(accountEntity);
+        accountValuationEngine.invalidateAccount(accountEntity.getId());
         
         return true;
     }
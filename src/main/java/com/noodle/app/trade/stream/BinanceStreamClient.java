@@ -0,0 +1,212 @@
+package com.noodle.app.trade.stream;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.noodle.app.trade.config.BinanceStreamConfig;
+import com.noodle.app.trade.config.ProxyConfig;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Credentials;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+/**
+ * Binance WebSocket行情订阅
+ * 订阅miniTicker和bookTicker组合流，写入内存行情簿；断线或被服务端关闭后按指数退避自动重连
+ */
+@Slf4j
+@Service
+public class BinanceStreamClient {
+
+    @Autowired
+    private BinanceStreamConfig streamConfig;
+
+    @Autowired
+    private ProxyConfig proxyConfig;
+
+    @Autowired
+    private TickerBook tickerBook;
+
+    private OkHttpClient client;
+    private BinanceStreamMessageHandler messageHandler;
+    private ScheduledExecutorService reconnectScheduler;
+    private volatile WebSocket webSocket;
+    private volatile boolean running;
+    private volatile boolean connected;
+    private int reconnectAttempts;
+
+    @PostConstruct
+    public void start() {
+        if (!streamConfig.isEnabled()) {
+            log.info("Binance行情推送未启用");
+            return;
+        }
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .pingInterval(20, TimeUnit.SECONDS);
+        if (proxyConfig != null && proxyConfig.isHttpsProxyConfigured()) {
+            builder.proxy(new Proxy(Proxy.Type.HTTP,
+                    new InetSocketAddress(proxyConfig.getHttpsHost(), proxyConfig.getHttpsPort())));
+            if (proxyConfig.getUsername() != null && !proxyConfig.getUsername().isEmpty()
+                    && proxyConfig.getPassword() != null && !proxyConfig.getPassword().isEmpty()) {
+                builder.proxyAuthenticator((route, response) -> response.request().newBuilder()
+                        .header("Proxy-Authorization", Credentials.basic(proxyConfig.getUsername(), proxyConfig.getPassword()))
+                        .build());
+            }
+        }
+
+        this.client = builder.build();
+        this.messageHandler = new BinanceStreamMessageHandler(tickerBook);
+        this.reconnectScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "binance-stream-reconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.running = true;
+        connect();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (webSocket != null) {
+            webSocket.close(1000, "shutdown");
+        }
+        if (reconnectScheduler != null) {
+            reconnectScheduler.shutdownNow();
+        }
+        if (client != null) {
+            client.dispatcher().executorService().shutdown();
+        }
+    }
+
+    /**
+     * 当前是否已连接
+     * @return 是否已连接
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    private void connect() {
+        if (!running) {
+            return;
+        }
+        Request request = new Request.Builder()
+                .url(buildStreamUrl(streamConfig.getUrl(), streamConfig.getSymbols()))
+                .build();
+        webSocket = client.newWebSocket(request, new WebSocketListener() {
+            // 同一个连接的 onClosing、onClosed、onFailure 可能先后触发，只重连一次
+            private final AtomicBoolean reconnecting = new AtomicBoolean();
+
+            @Override
+            public void onOpen(WebSocket socket, Response response) {
+                connected = true;
+                synchronized (BinanceStreamClient.this) {
+                    reconnectAttempts = 0;
+                }
+                log.info("Binance行情推送已连接, 订阅币种: {}", streamConfig.getSymbols());
+            }
+
+            @Override
+            public void onMessage(WebSocket socket, String text) {
+                messageHandler.handle(text);
+            }
+
+            @Override
+            public void onClosing(WebSocket socket, int code, String reason) {
+                // 服务端主动关闭（如24小时断开）：回应关闭帧完成握手，不等 onClosed 直接安排重连
+                connected = false;
+                log.warn("Binance行情推送被服务端关闭: {} {}", code, reason);
+                socket.close(1000, null);
+                reconnect();
+            }
+
+            @Override
+            public void onClosed(WebSocket socket, int code, String reason) {
+                connected = false;
+                log.warn("Binance行情推送连接关闭: {} {}", code, reason);
+                reconnect();
+            }
+
+            @Override
+            public void onFailure(WebSocket socket, Throwable t, Response response) {
+                connected = false;
+                log.warn("Binance行情推送连接失败: {}", t.getMessage());
+                reconnect();
+            }
+
+            private void reconnect() {
+                if (reconnecting.compareAndSet(false, true)) {
+                    scheduleReconnect();
+                }
+            }
+        });
+    }
+
+    private void scheduleReconnect() {
+        if (!running) {
+            return;
+        }
+        long delay;
+        synchronized (this) {
+            delay = backoffDelay(reconnectAttempts++, streamConfig.getReconnectMinDelay(), streamConfig.getReconnectMaxDelay());
+        }
+        log.info("{} ms后重连Binance行情推送", delay);
+        try {
+            reconnectScheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 已关闭，忽略
+        }
+    }
+
+    /**
+     * 计算带抖动的指数退避时间
+     * @param attempt 已重试次数
+     * @param minDelay 初始等待时间(ms)
+     * @param maxDelay 最大等待时间(ms)
+     * @return 等待时间(ms)
+     */
+    static long backoffDelay(int attempt, long minDelay, long maxDelay) {
+        long base = minDelay << Math.min(attempt, 16);
+        long capped = Math.min(Math.max(base, minDelay), maxDelay);
+        // 在[capped/2, capped]之间随机，避免多个实例同时重连
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    /**
+     * 生成组合流地址，如 wss://.../stream?streams=btcusdt@miniTicker/btcusdt@bookTicker
+     * @param baseUrl 组合流基础地址
+     * @param symbols 订阅的币种
+     * @return 完整地址
+     */
+    static String buildStreamUrl(String baseUrl, List<String> symbols) {
+        StringBuilder builder = new StringBuilder(baseUrl).append("?streams=");
+        for (int i = 0; i < symbols.size(); i++) {
+            String symbol = symbols.get(i).toLowerCase(Locale.ROOT);
+            if (i > 0) {
+                builder.append('/');
+            }
+            builder.append(symbol).append("@miniTicker/").append(symbol).append("@bookTicker");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package com.noodle.app.trade.stream;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noodle.app.trade.model.TickerSnapshot;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 解析Binance组合流消息并写入行情簿
+ * 支持 {"stream":"btcusdt@miniTicker","data":{...}} 组合格式，也支持直接推送的单流格式
+ */
+@Slf4j
+public class BinanceStreamMessageHandler {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TickerBook tickerBook;
+    
+    public BinanceStreamMessageHandler(TickerBook tickerBook) {
+        this.tickerBook = tickerBook;
+    }
+    
+    /**
+     * 处理一条文本消息
+     * @param text 原始JSON文本
+     * @return 是否成功写入行情簿
+     */
+    public boolean handle(String text) {
+        try {
+            JsonNode root = objectMapper.readTree(text);
+            JsonNode data = root.has("data") ? root.get("data") : root;
+            return apply(data, System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            log.warn("无法解析行情推送消息: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    private boolean apply(JsonNode data, final long receivedAt) {
+        if (data == null || !data.has("s")) {
+            return false;
+        }
+        final String symbol = data.get("s").asText();
+        
+        if ("24hrMiniTicker".equals(text(data, "e"))) {
+            final BigDecimal last = decimal(data, "c");
+            final BigDecimal open = decimal(data, "o");
+            final BigDecimal high = decimal(data, "h");
+            final BigDecimal low = decimal(data, "l");
+            final BigDecimal volume = decimal(data, "v");
+            final long eventTime = data.has("E") ? data.get("E").asLong() : receivedAt;
+            tickerBook.update(symbol, current -> current == null
+                    ? new TickerSnapshot(symbol, last, open, high, low, volume, null, null, eventTime, receivedAt)
+                    : current.withMiniTicker(last, open, high, low, volume, eventTime, receivedAt));
+            return true;
+        }
+        
+        // bookTicker没有事件类型字段，通过b/a字段识别
+        if (data.has("b") && data.has("a")) {
+            final BigDecimal bid = decimal(data, "b");
+            final BigDecimal ask = decimal(data, "a");
+            tickerBook.update(symbol, current -> current == null
+                    ? new TickerSnapshot(symbol, null, null, null, null, null, bid, ask, receivedAt, receivedAt)
+                    : current.withBookTicker(bid, ask, receivedAt));
+            return true;
+        }
+        
+        return false;
+    }
+    
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null ? value.asText() : null;
+    }
+    
+    private static BigDecimal decimal(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null ? new BigDecimal(value.asText()) : null;
+    }
+}
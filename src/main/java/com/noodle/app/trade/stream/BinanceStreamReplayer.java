@@ -0,0 +1,40 @@
+package com.noodle.app.trade.stream;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * 行情回放工具
+ * 逐行读取录制的推送消息（每行一条JSON）并交给消息处理器，用于离线测试，无需连接交易所
+ */
+public class BinanceStreamReplayer {
+    
+    private final BinanceStreamMessageHandler handler;
+    
+    public BinanceStreamReplayer(BinanceStreamMessageHandler handler) {
+        this.handler = handler;
+    }
+    
+    /**
+     * 回放录制的消息
+     * @param reader 消息来源，空行会被忽略
+     * @return 成功写入行情簿的消息数量
+     * @throws IOException 读取失败
+     */
+    public int replay(Reader reader) throws IOException {
+        int applied = 0;
+        BufferedReader bufferedReader = reader instanceof BufferedReader
+                ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            if (handler.handle(line)) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,90 @@
+package com.noodle.app.trade.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import org.springframework.stereotype.Component;
+
+import com.noodle.app.trade.model.TickerSnapshot;
+
+/**
+ * 内存行情簿
+ * 每个币种一个AtomicReference，写入通过CAS替换不可变快照，读取无锁
+ */
+@Component
+public class TickerBook {
+    
+    private final ConcurrentMap<String, AtomicReference<TickerSnapshot>> tickers = new ConcurrentHashMap<>();
+    
+    /**
+     * 更新指定币种的行情
+     * @param symbol 交易对，如 BTCUSDT
+     * @param updater 根据旧快照（可能为null）生成新快照
+     */
+    public void update(String symbol, UnaryOperator<TickerSnapshot> updater) {
+        AtomicReference<TickerSnapshot> ref = tickers.get(symbol);
+        if (ref == null) {
+            ref = tickers.computeIfAbsent(symbol, key -> new AtomicReference<>());
+        }
+        
+        TickerSnapshot current;
+        TickerSnapshot next;
+        do {
+            current = ref.get();
+            next = updater.apply(current);
+        } while (!ref.compareAndSet(current, next));
+    }
+    
+    /**
+     * 获取指定币种的最新行情
+     * @param symbol 交易对，如 BTCUSDT
+     * @return 行情快照，没有数据时返回null
+     */
+    public TickerSnapshot get(String symbol) {
+        AtomicReference<TickerSnapshot> ref = tickers.get(symbol);
+        return ref != null ? ref.get() : null;
+    }
+    
+    /**
+     * 获取指定币种在有效期内的行情
+     * @param symbol 交易对，如 BTCUSDT
+     * @param maxAgeMillis 最大有效期(ms)
+     * @return 行情快照，没有数据或已过期时返回null
+     */
+    public TickerSnapshot getFresh(String symbol, long maxAgeMillis) {
+        TickerSnapshot snapshot = get(symbol);
+        if (snapshot == null || !snapshot.hasTradeData()) {
+            return null;
+        }
+        if (System.currentTimeMillis() - snapshot.getReceivedAt() > maxAgeMillis) {
+            return null;
+        }
+        return snapshot;
+    }
+    
+    /**
+     * 获取所有币种的行情快照
+     * @return 行情快照列表
+     */
+    public List<TickerSnapshot> snapshot() {
+        List<TickerSnapshot> result = new ArrayList<>(tickers.size());
+        for (AtomicReference<TickerSnapshot> ref : tickers.values()) {
+            TickerSnapshot snapshot = ref.get();
+            if (snapshot != null) {
+                result.add(snapshot);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 清空行情簿
+     */
+    public void clear() {
+        tickers.clear();
+    }
+}
@@ -0,0 +1,114 @@
+package com.noodle.app.trade.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 定点数运算
+ * 金额、价格和数量用 (long unscaled, int scale) 表示，值为 unscaled / 10^scale，运算全部在long上完成，不分配对象。
+ * - 与BigDecimal之间的转换是精确的：无法用long精确表示时抛出 ArithmeticException，不会静默舍入
+ * - 乘法结果需要降低精度时按 HALF_UP 舍入（与MySQL DECIMAL列写入时的舍入方式一致）
+ * - 溢出时抛出 ArithmeticException，调用方退回BigDecimal计算
+ */
+public final class FixedPoint {
+
+    /**
+     * 支持的最大精度，10^18 是long能表示的最大的10的幂
+     */
+    public static final int MAX_SCALE = 18;
+
+    private static final long[] POW10 = new long[MAX_SCALE + 1];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private FixedPoint() {
+    }
+
+    /**
+     * 精确转换为指定精度的定点数
+     * @param value 数值
+     * @param scale 小数位数
+     * @return unscaled值
+     * @throws ArithmeticException 数值的有效小数位多于scale，或超出long范围
+     */
+    public static long toScaled(BigDecimal value, int scale) {
+        return value.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * 精确表示数值所需的精度：不低于preferredScale（通常是交易所规定的精度），数值有更多有效小数位时使用数值本身的精度
+     * @param value 数值
+     * @param preferredScale 首选精度
+     * @return 小数位数
+     * @throws ArithmeticException 需要的精度超过 MAX_SCALE
+     */
+    public static int scaleFor(BigDecimal value, int preferredScale) {
+        int scale = Math.max(preferredScale, value.signum() == 0 ? 0 : value.stripTrailingZeros().scale());
+        if (scale > MAX_SCALE) {
+            throw new ArithmeticException("精度超出定点数范围: " + value.toPlainString());
+        }
+        return scale;
+    }
+
+    /**
+     * 转换为BigDecimal
+     */
+    public static BigDecimal toDecimal(long unscaled, int scale) {
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * 乘法 a × b，结果转换为resultScale精度（降低精度时HALF_UP舍入）
+     * @throws ArithmeticException 溢出
+     */
+    public static long multiply(long a, int aScale, long b, int bScale, int resultScale) {
+        return rescale(Math.multiplyExact(a, b), aScale + bScale, resultScale);
+    }
+
+    /**
+     * 转换精度，降低精度时HALF_UP舍入
+     * @throws ArithmeticException 溢出
+     */
+    public static long rescale(long value, int fromScale, int toScale) {
+        if (fromScale == toScale) {
+            return value;
+        }
+        if (fromScale < toScale) {
+            return Math.multiplyExact(value, pow10(toScale - fromScale));
+        }
+        int diff = fromScale - toScale;
+        if (diff > MAX_SCALE) {
+            return 0;
+        }
+        long divisor = POW10[diff];
+        long quotient = value / divisor;
+        long remainder = value % divisor;
+        // |remainder| >= divisor / 2 时远离0进位
+        if (Math.abs(remainder) >= divisor - Math.abs(remainder)) {
+            quotient += value < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    /**
+     * 比较两个定点数
+     * @return 负数、0、正数分别表示 a 小于、等于、大于 b
+     * @throws ArithmeticException 统一精度时溢出
+     */
+    public static int compare(long a, int aScale, long b, int bScale) {
+        int scale = Math.max(aScale, bScale);
+        return Long.compare(rescale(a, aScale, scale), rescale(b, bScale, scale));
+    }
+
+    private static long pow10(int exponent) {
+        if (exponent > MAX_SCALE) {
+            throw new ArithmeticException("精度超出定点数范围: 10^" + exponent);
+        }
+        return POW10[exponent];
+    }
+}
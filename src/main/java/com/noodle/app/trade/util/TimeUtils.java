@@ -1,5 +1,7 @@
 package com.noodle.app.trade.util;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -9,6 +11,12 @@ public class TimeUtils {
     // 北京时区
     private static final ZoneId BEIJING_ZONE = ZoneId.of("Asia/Shanghai");
     
+    /**
+     * 北京时间相对UTC的偏移(ms)，北京时间没有夏令时
+     * 在数据库或InfluxDB中按北京时间对齐窗口时使用，与windowStart()的对齐方式一致
+     */
+    public static final long BEIJING_OFFSET_MILLIS = 8 * 60 * 60 * 1000L;
+    
     // 日期时间格式化器
     private static final DateTimeFormatter DEFAULT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
@@ -51,4 +59,60 @@ public class TimeUtils {
     public static String getCurrentBeijingTimeFormatted() {
         return getBeijingTime().format(DEFAULT_FORMATTER);
     }
-}
\ No newline at end of file
+    
+    /**
+     * 将北京时间转换为毫秒时间戳（与LocalDateTimeConverter写入数据库的格式一致）
+     * @param dateTime 北京时间
+     * @return 毫秒时间戳
+     */
+    public static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(BEIJING_ZONE).toInstant().toEpochMilli();
+    }
+    
+    /**
+     * 将毫秒时间戳转换为北京时间
+     * @param epochMilli 毫秒时间戳
+     * @return 北京时间
+     */
+    public static LocalDateTime fromEpochMilli(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), BEIJING_ZONE);
+    }
+    
+    /**
+     * 计算时间戳所在窗口的开始时间，窗口按北京时间对齐（1d窗口从北京时间0点开始）
+     * @param epochMilli 毫秒时间戳
+     * @param windowMillis 窗口长度(ms)
+     * @return 窗口开始的毫秒时间戳
+     */
+    public static long windowStart(long epochMilli, long windowMillis) {
+        return Math.floorDiv(epochMilli + BEIJING_OFFSET_MILLIS, windowMillis) * windowMillis - BEIJING_OFFSET_MILLIS;
+    }
+    
+    /**
+     * 解析时间间隔，如 1m、5m、1h、1d
+     * @param interval 时间间隔字符串
+     * @return 时间间隔
+     * @throws IllegalArgumentException 格式错误
+     */
+    public static Duration parseInterval(String interval) {
+        if (interval == null || interval.length() < 2) {
+            throw new IllegalArgumentException("时间间隔格式错误: " + interval);
+        }
+        long amount;
+        try {
+            amount = Long.parseLong(interval.substring(0, interval.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("时间间隔格式错误: " + interval);
+        }
+        if (amount <= 0) {
+            throw new IllegalArgumentException("时间间隔必须大于0: " + interval);
+        }
+        switch (interval.charAt(interval.length() - 1)) {
+            case 's': return Duration.ofSeconds(amount);
+            case 'm': return Duration.ofMinutes(amount);
+            case 'h': return Duration.ofHours(amount);
+            case 'd': return Duration.ofDays(amount);
+            default: throw new IllegalArgumentException("时间间隔格式错误: " + interval);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.noodle.app.trade.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志追踪工具
+ * - 关联ID：每个请求一个，保存在MDC的requestId中，日志格式通过%X{requestId}输出
+ * - 采样：热点路径的调试日志每N次只输出一次，避免大量同步日志写入拖慢请求
+ */
+public final class Tracing {
+    
+    /**
+     * MDC中关联ID的键
+     */
+    public static final String MDC_KEY = "requestId";
+    
+    private static final int MAX_ID_LENGTH = 64;
+    
+    private Tracing() {
+    }
+    
+    /**
+     * 生成新的关联ID（16位十六进制）
+     * @return 关联ID
+     */
+    public static String newId() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+    
+    /**
+     * 检查外部传入的关联ID是否可以直接使用（只允许字母、数字、-和_，防止日志注入）
+     * @param id 关联ID
+     * @return 是否合法
+     */
+    public static boolean isValidId(String id) {
+        if (id == null || id.isEmpty() || id.length() > MAX_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (!(Character.isLetterOrDigit(c) && c < 128) && c != '-' && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 日志采样器，每rate次调用返回一次true
+     */
+    public static final class Sampler {
+        private final int rate;
+        private final AtomicLong counter = new AtomicLong();
+        
+        /**
+         * @param rate 采样间隔，1表示每次都输出
+         */
+        public Sampler(int rate) {
+            this.rate = Math.max(1, rate);
+        }
+        
+        /**
+         * 本次调用是否输出日志（应放在日志级别判断之后，避免关闭日志时也计数）
+         * @return 是否输出
+         */
+        public boolean sample() {
+            return rate == 1 || counter.getAndIncrement() % rate == 0;
+        }
+    }
+}
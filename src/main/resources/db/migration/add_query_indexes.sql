@@ -0,0 +1,45 @@
+-- 查询索引迁移脚本（MySQL 8.0+）
+--
+-- 开发环境使用 spring.jpa.hibernate.ddl-auto=update 时，实体上的 @Index 会在启动时自动创建；
+-- 已有大表或关闭了 ddl-auto 的环境，请在发布前手动执行本脚本：
+--   mysql -u root -p trade_coin < add_query_indexes.sql
+-- 脚本可重复执行，已存在的索引会被跳过；索引以 ALGORITHM=INPLACE, LOCK=NONE 在线创建，不阻塞读写。
+
+DROP PROCEDURE IF EXISTS add_index_if_missing;
+
+DELIMITER //
+CREATE PROCEDURE add_index_if_missing(IN p_table VARCHAR(64), IN p_index VARCHAR(64), IN p_columns VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = p_table AND index_name = p_index) THEN
+        SET @ddl = CONCAT('ALTER TABLE `', p_table, '` ADD INDEX `', p_index, '` (', p_columns, '), ALGORITHM=INPLACE, LOCK=NONE');
+        PREPARE stmt FROM @ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END //
+DELIMITER ;
+
+-- 行情快照：按币种查时间范围/最新价格、按窗口聚合（覆盖price、volume，无需回表）
+CALL add_index_if_missing('crypto_currency', 'idx_crypto_currency_symbol_time', 'symbol, last_updated, price, volume');
+-- 行情快照：过期数据清理、K线回填
+CALL add_index_if_missing('crypto_currency', 'idx_crypto_currency_time', 'last_updated');
+
+-- 交易记录：按账户/币种查询并按时间排序
+CALL add_index_if_missing('trade_record', 'idx_trade_record_account_time', 'account_name, trade_time');
+CALL add_index_if_missing('trade_record', 'idx_trade_record_symbol_time', 'symbol, trade_time');
+-- 交易记录：按币种汇总成交金额（覆盖amount，无需回表）
+CALL add_index_if_missing('trade_record', 'idx_trade_record_symbol_amount', 'symbol, amount');
+-- 交易记录：全部交易按时间倒序分页（InnoDB二级索引隐含主键，等价于(trade_time, id)）
+CALL add_index_if_missing('trade_record', 'idx_trade_record_time', 'trade_time');
+
+-- 账户价值历史：图表查询（覆盖total_value，无需回表）
+CALL add_index_if_missing('account_value_history', 'idx_account_value_history_account_time', 'account_name, record_time, total_value');
+-- 账户价值历史：过期数据清理
+CALL add_index_if_missing('account_value_history', 'idx_account_value_history_time', 'record_time');
+
+-- 账户与持仓
+CALL add_index_if_missing('account', 'idx_account_name', 'account_name');
+CALL add_index_if_missing('holding', 'idx_holding_account_symbol', 'account_id, symbol');
+
+DROP PROCEDURE add_index_if_missing;
@@ -0,0 +1,28 @@
+-- 乐观锁版本号迁移脚本（MySQL 8.0+）
+--
+-- 开发环境使用 spring.jpa.hibernate.ddl-auto=update 时，实体上的 @Version 字段会在启动时自动建列；
+-- 关闭了 ddl-auto 的环境，请在发布前手动执行本脚本：
+--   mysql -u root -p trade_coin < add_version_columns.sql
+-- 脚本可重复执行，已存在的列会被跳过；已有记录的版本号从0开始。
+
+DROP PROCEDURE IF EXISTS add_column_if_missing;
+
+DELIMITER //
+CREATE PROCEDURE add_column_if_missing(IN p_table VARCHAR(64), IN p_column VARCHAR(64), IN p_definition VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = DATABASE() AND table_name = p_table AND column_name = p_column) THEN
+        SET @ddl = CONCAT('ALTER TABLE `', p_table, '` ADD COLUMN `', p_column, '` ', p_definition, ', ALGORITHM=INSTANT');
+        PREPARE stmt FROM @ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END //
+DELIMITER ;
+
+-- 账户：余额变化时递增
+CALL add_column_if_missing('account', 'version', 'BIGINT NOT NULL DEFAULT 0');
+-- 持仓：数量或成本变化时递增
+CALL add_column_if_missing('holding', 'version', 'BIGINT NOT NULL DEFAULT 0');
+
+DROP PROCEDURE add_column_if_missing;
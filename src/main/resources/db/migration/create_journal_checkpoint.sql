@@ -0,0 +1,13 @@
+-- 账户簿日志检查点表（MySQL 8.0+）
+--
+-- 开启 trading.book.enabled 时使用。开发环境使用 spring.jpa.hibernate.ddl-auto=update 时会在启动时自动建表；
+-- 关闭了 ddl-auto 的环境，请在发布前手动执行本脚本：
+--   mysql -u root -p trade_coin < create_journal_checkpoint.sql
+-- 脚本可重复执行。
+
+CREATE TABLE IF NOT EXISTS journal_checkpoint (
+    name         VARCHAR(64) NOT NULL,
+    seq          BIGINT      NOT NULL,
+    updated_time BIGINT      NULL,
+    PRIMARY KEY (name)
+) ENGINE = InnoDB;
@@ -272,52 +272,84 @@ async function refreshMarketData() {
             container.innerHTML = tableHTML;
 }
 
-// 刷新交易历史
+// 交易历史分页：下一页游标，没有更多记录时为null
+let tradeHistoryCursor = null;
+
+// 刷新交易历史（最新一页）
 async function refreshTradeHistory() {
+    tradeHistoryCursor = null;
+    await loadTradeHistory(false);
+}
+
+// 加载更早的交易记录，追加到列表末尾
+async function loadMoreTradeHistory() {
+    if (tradeHistoryCursor) {
+        await loadTradeHistory(true);
+    }
+}
+
+async function loadTradeHistory(append) {
+    const accountName = currentAccountName;
+    let url = '/api/trading/trade/history/' + encodeURIComponent(accountName);
+    if (append) {
+        url += '?cursor=' + encodeURIComponent(tradeHistoryCursor);
+    }
     try {
-        // 使用当前账户名
-        const response = await fetch('/api/trading/trade/history/' + currentAccountName);
+        const response = await fetch(url);
         const result = await response.json();
         
+        // 加载期间切换了账户，丢弃旧账户的结果
+        if (accountName !== currentAccountName) {
+            return;
+        }
         if (result.success) {
-            updateTradeHistory(result.data);
+            tradeHistoryCursor = result.hasMore ? result.nextCursor : null;
+            updateTradeHistory(result.data, append);
         } else {
             console.error('获取交易历史失败:', result.error);
-            // 如果API失败，使用模拟数据
-            const trades = [
-               
-            ];
-            updateTradeHistory(trades);
+            if (!append) {
+                updateTradeHistory([], false);
+            }
         }
     } catch (error) {
         console.error('获取交易历史失败:', error);
-        // 如果API失败，使用模拟数据
-        const trades = [
-        ];
-        updateTradeHistory(trades);
+        if (!append) {
+            updateTradeHistory([], false);
+        }
     }
 }
  // 更新交易历史显示
-        function updateTradeHistory(data) {
+        function updateTradeHistory(data, append) {
             const container = document.getElementById('tradeHistory');
             
-            if (data.length > 0) {
-                let tradeHtml = '';
-                for (const trade of data) {
-                    const typeClass = trade.tradeType === 'BUY' ? 'positive' : 'negative';
-                    const typeText = trade.tradeType === 'BUY' ? '买入' : '卖出';
-                    
-                    tradeHtml += `
-                        <div class="trade-item">
-                          
-                            <p><strong>${trade.tradeTime}</strong> &nbsp;&nbsp; ${trade.symbol} &nbsp;&nbsp;<span class="${typeClass}">${typeText}</span> ${trade.quantity}  = $${trade.amount.toFixed(2)}</p>
-                        </div>
-                    `;
-                }
+            let tradeHtml = '';
+            for (const trade of data) {
+                const typeClass = trade.tradeType === 'BUY' ? 'positive' : 'negative';
+                const typeText = trade.tradeType === 'BUY' ? '买入' : '卖出';
+                
+                tradeHtml += `
+                    <div class="trade-item">
+                      
+                        <p><strong>${trade.tradeTime}</strong> &nbsp;&nbsp; ${trade.symbol} &nbsp;&nbsp;<span class="${typeClass}">${typeText}</span> ${trade.quantity}  = $${trade.amount.toFixed(2)}</p>
+                    </div>
+                `;
+            }
+            
+            const loadMore = document.getElementById('tradeHistoryMore');
+            if (loadMore) {
+                loadMore.remove();
+            }
+            if (append) {
+                container.insertAdjacentHTML('beforeend', tradeHtml);
+            } else if (data.length > 0) {
                 container.innerHTML = tradeHtml;
             } else {
                 container.innerHTML = '<div class="trade-item">暂无交易记录</div>';
             }
+            if (tradeHistoryCursor) {
+                container.insertAdjacentHTML('beforeend',
+                    '<div class="trade-item" id="tradeHistoryMore"><button class="btn" onclick="loadMoreTradeHistory()">加载更多</button></div>');
+            }
 }
 // 更新价格图表
 async function updatePriceChart() {
@@ -844,6 +876,7 @@ async function deleteAccount() {
                 document.getElementById('accountValue').textContent = '$0';
                 document.getElementById('holdingCount').textContent = '0';
                 // 清空交易历史和持仓图表
+                tradeHistoryCursor = null;
                 document.getElementById('tradeHistory').innerHTML = '<div class="trade-item">暂无交易记录</div>';
                 createDefaultPortfolioChart();
             }
@@ -0,0 +1,200 @@
+package com.noodle.app.trade.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AccountBookTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testTradesUpdateBalanceAndAverageCost() {
+        AccountBook book = newBook(journal());
+
+        book.buy("alice", "BTC", price("100"), price("2"), "test");
+        book.buy("alice", "BTC", price("130"), price("1"), "test");
+        JournalEntry sell = book.sell("alice", "BTC", price("150"), price("1.5"), "test");
+
+        AccountBook.AccountState state = book.get("alice");
+        assertEquals(0, price("895").compareTo(state.getBalance()));
+        assertEquals(0, price("1.5").compareTo(state.getPositions().get("BTC").getQuantity()));
+        assertEquals(0, price("165").compareTo(state.getPositions().get("BTC").getHoldCost()));
+        assertEquals(0, price("165").compareTo(sell.getCostBasis()));
+        assertEquals(0, price("60").compareTo(sell.realizedPnl()));
+        assertEquals(3, sell.getSeq());
+    }
+
+    @Test
+    public void testRejectedOrdersAreNotJournaled() {
+        AccountJournal journal = journal();
+        AccountBook book = newBook(journal);
+
+        assertThrows(RuntimeException.class, () -> book.buy("alice", "BTC", price("100"), price("11"), "test"));
+        assertThrows(RuntimeException.class, () -> book.sell("alice", "BTC", price("100"), price("1"), "test"));
+        assertThrows(RuntimeException.class, () -> book.buy("bob", "BTC", price("1"), price("1"), "test"));
+
+        assertEquals(0, journal.lastSeq());
+        assertTrue(book.snapshot().isEmpty());
+    }
+
+    @Test
+    public void testSyncFailureKeepsTradeAndBlocksNewOrders() {
+        AccountJournal journal = spy(journal());
+        AccountBook book = newBook(journal);
+        IllegalStateException diskError = new IllegalStateException("账户日志刷盘失败");
+        doThrow(diskError).doThrow(diskError).doCallRealMethod().when(journal).sync(anyLong());
+
+        // 刷盘失败的成交已经生效，按已成交返回并进入写回队列
+        JournalEntry accepted = book.buy("alice", "BTC", price("100"), price("1"), "test");
+        assertEquals(1, accepted.getSeq());
+        assertEquals(0, price("900").compareTo(book.get("alice").getBalance()));
+
+        // 刷盘仍未恢复时新订单在修改状态之前被拒绝
+        assertThrows(IllegalStateException.class, () -> book.buy("alice", "BTC", price("100"), price("1"), "test"));
+        assertEquals(1, journal.lastSeq());
+        assertEquals(0, price("900").compareTo(book.get("alice").getBalance()));
+
+        // 刷盘恢复后正常受理
+        assertEquals(2, book.buy("alice", "BTC", price("100"), price("1"), "test").getSeq());
+        assertEquals(2, book.snapshot().getTrades().size());
+        assertEquals(1L, book.getStats().get("syncFailures"));
+    }
+
+    @Test
+    public void testSnapshotCoalescesAccountUpdates() {
+        AccountBook book = newBook(journal());
+        book.buy("alice", "BTC", price("100"), price("1"), "test");
+        book.buy("alice", "ETH", price("10"), price("5"), "test");
+        book.sell("alice", "BTC", price("120"), price("1"), "test");
+
+        AccountBook.Snapshot snapshot = book.snapshot();
+
+        assertEquals(1, snapshot.getAccounts().size());
+        assertEquals(3, snapshot.getTrades().size());
+        assertEquals(3, snapshot.getSeq());
+        assertNull(snapshot.getAccounts().get(0).getPositions().get("BTC"));
+        assertTrue(book.snapshot().isEmpty());
+
+        // 写回失败放回后，下一次快照重新包含这些成交
+        book.requeue(snapshot);
+        AccountBook.Snapshot retry = book.snapshot();
+        assertEquals(3, retry.getTrades().size());
+        assertEquals(1, retry.getAccounts().size());
+    }
+
+    @Test
+    public void testRecoverReplaysTradesAfterCheckpoint() {
+        AccountBook book = newBook(journal());
+        book.buy("alice", "BTC", price("100"), price("2"), "test");
+        book.sell("alice", "BTC", price("110"), price("1"), "test");
+        // 写回数据库：数据库中的账户状态即快照中的状态
+        AccountBook.Snapshot flushed = book.snapshot();
+        book.buy("alice", "ETH", price("10"), price("3"), "test");
+        book.sell("alice", "BTC", price("90"), price("0.5"), "test");
+        AccountBook.AccountState beforeCrash = book.get("alice");
+        // 模拟崩溃：不写回、不关闭日志
+
+        AccountBook recovered = new AccountBook(journal());
+        AccountBook.AccountState database = flushed.getAccounts().get(0);
+        recovered.load(1, "alice", database.getBalance(), new HashMap<>(database.getPositions()));
+        long replayed = recovered.recover(flushed.getSeq());
+
+        assertEquals(2, replayed);
+        AccountBook.AccountState state = recovered.get("alice");
+        assertEquals(0, beforeCrash.getBalance().compareTo(state.getBalance()));
+        assertEquals(beforeCrash.getPositions().keySet(), state.getPositions().keySet());
+        for (Map.Entry<String, AccountBook.Position> entry : beforeCrash.getPositions().entrySet()) {
+            AccountBook.Position position = state.getPositions().get(entry.getKey());
+            assertEquals(0, entry.getValue().getQuantity().compareTo(position.getQuantity()));
+            assertEquals(0, entry.getValue().getHoldCost().compareTo(position.getHoldCost()));
+        }
+
+        AccountBook.Snapshot pending = recovered.snapshot();
+        assertEquals(2, pending.getTrades().size());
+        assertEquals(4, pending.getSeq());
+        // 新成交的序号接在日志之后
+        assertEquals(5, recovered.buy("alice", "BTC", price("1"), price("1"), "test").getSeq());
+    }
+
+    @Test
+    public void testTornTailIsTruncatedOnOpen() throws IOException {
+        AccountJournal journal = journal();
+        AccountBook book = newBook(journal);
+        book.buy("alice", "BTC", price("100"), price("1"), "test");
+        book.buy("alice", "BTC", price("100"), price("1"), "test");
+        journal.close();
+        // 追加写入中途崩溃留下的半条记录
+        Files.write(dir.resolve("book.journal"), new byte[] { 0, 0, 0, 40, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+        AccountJournal reopened = journal();
+        List<Long> seqs = new ArrayList<>();
+        reopened.replay(0, entry -> seqs.add(entry.getSeq()));
+
+        assertEquals(2, reopened.lastSeq());
+        assertEquals(2, seqs.size());
+        assertEquals(3, reopened.append(buyEntry()).getSeq());
+    }
+
+    @Test
+    public void testCompactKeepsOnlyUnflushedEntries() {
+        AccountJournal journal = new FileAccountJournal(dir.resolve("book.journal"), true, 0);
+        AccountBook book = newBook(journal);
+        for (int i = 0; i < 5; i++) {
+            book.buy("alice", "BTC", price("10"), price("1"), "test");
+        }
+
+        journal.compact(3);
+        List<Long> seqs = new ArrayList<>();
+        journal.replay(0, entry -> seqs.add(entry.getSeq()));
+        assertEquals(2, seqs.size());
+        assertEquals(4L, seqs.get(0));
+        assertEquals(6, book.buy("alice", "BTC", price("10"), price("1"), "test").getSeq());
+
+        // 全部写回后清空，重新打开时序号从检查点继续
+        journal.compact(6);
+        journal.close();
+        AccountJournal reopened = journal();
+        assertEquals(0, reopened.lastSeq());
+        reopened.advanceTo(6);
+        assertEquals(7, reopened.append(buyEntry()).getSeq());
+    }
+
+    private AccountJournal journal() {
+        return new FileAccountJournal(dir.resolve("book.journal"), true, Long.MAX_VALUE);
+    }
+
+    private static AccountBook newBook(AccountJournal journal) {
+        AccountBook book = new AccountBook(journal);
+        book.load(1, "alice", price("1000"), null);
+        return book;
+    }
+
+    private static JournalEntry buyEntry() {
+        return new JournalEntry(0, JournalEntry.BUY, LocalDateTime.now(), 1, "alice", "BTC", price("1"),
+                price("1"), price("1"), BigDecimal.ZERO, null);
+    }
+
+    private static BigDecimal price(String value) {
+        return new BigDecimal(value);
+    }
+}
@@ -0,0 +1,161 @@
+package com.noodle.app.trade.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedTradeJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testRecordRoundTrip() {
+        JournalEntry entry = new JournalEntry(42, JournalEntry.SELL, LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123000000), 7,
+                "账户-alice", "BTC", new BigDecimal("64123.12345678"), new BigDecimal("0.00012345"),
+                new BigDecimal("7.9160093387091"), new BigDecimal("-12.5"), null);
+
+        JournalEntry decoded = MappedTradeJournal.decode(MappedTradeJournal.encode(entry), 0);
+
+        assertEquals(42, decoded.getSeq());
+        assertEquals(JournalEntry.SELL, decoded.getTradeType());
+        assertEquals(entry.getTradeTime(), decoded.getTradeTime());
+        assertEquals(7, decoded.getAccountId());
+        assertEquals("账户-alice", decoded.getAccountName());
+        assertEquals("BTC", decoded.getSymbol());
+        assertEquals(entry.getPrice(), decoded.getPrice());
+        assertEquals(entry.getQuantity(), decoded.getQuantity());
+        assertEquals(entry.getAmount(), decoded.getAmount());
+        assertEquals(entry.getCostBasis(), decoded.getCostBasis());
+        assertNull(decoded.getStrategy());
+    }
+
+    @Test
+    public void testSegmentsRollAndReplayInOrder() throws IOException {
+        MappedTradeJournal journal = new MappedTradeJournal(dir, 4, true, 0);
+        for (int i = 0; i < 10; i++) {
+            journal.sync(journal.append(buy("alice")).getSeq());
+        }
+        journal.close();
+
+        assertEquals(3, segmentCount());
+        MappedTradeJournal reopened = new MappedTradeJournal(dir, 4, true, 0);
+        assertEquals(10, reopened.lastSeq());
+        assertEquals(seqs(3, 10), replay(reopened, 2));
+        assertEquals(11, reopened.append(buy("alice")).getSeq());
+    }
+
+    @Test
+    public void testTornRecordIsDiscardedOnOpen() throws IOException {
+        MappedTradeJournal journal = new MappedTradeJournal(dir, 8, true, 0);
+        for (int i = 0; i < 3; i++) {
+            journal.append(buy("alice"));
+        }
+        journal.close();
+        // 第3条记录只写了一半：内容被破坏，CRC不匹配
+        try (FileChannel channel = FileChannel.open(dir.resolve("journal-000001.seg"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 }), 2L * MappedTradeJournal.RECORD_SIZE + 100);
+        }
+
+        MappedTradeJournal reopened = new MappedTradeJournal(dir, 8, true, 0);
+        assertEquals(2, reopened.lastSeq());
+        assertEquals(3, reopened.append(buy("alice")).getSeq());
+        assertEquals(seqs(1, 3), replay(reopened, 0));
+    }
+
+    @Test
+    public void testCompactDeletesFlushedSegmentsBeyondRetention() throws IOException {
+        MappedTradeJournal journal = new MappedTradeJournal(dir, 2, true, 1);
+        for (int i = 0; i < 9; i++) {
+            journal.append(buy("alice"));
+        }
+        assertEquals(5, segmentCount());
+
+        // 序号1-6所在的3个段已写回，保留最近1个
+        journal.compact(6);
+
+        assertEquals(3, segmentCount());
+        assertEquals(seqs(5, 9), replay(journal, 0));
+    }
+
+    @Test
+    public void testOversizedFieldIsRejectedWithoutConsumingSequence() {
+        MappedTradeJournal journal = new MappedTradeJournal(dir, 4, true, 0);
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 70; i++) {
+            name.append('a');
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> journal.append(buy(name.toString())));
+        assertEquals(1, journal.append(buy("alice")).getSeq());
+    }
+
+    @Test
+    public void testSequenceJumpStartsNewSegment() {
+        MappedTradeJournal journal = new MappedTradeJournal(dir, 8, true, 0);
+        journal.append(buy("alice"));
+        journal.advanceTo(100);
+        journal.append(buy("alice"));
+        journal.close();
+
+        MappedTradeJournal reopened = new MappedTradeJournal(dir, 8, true, 0);
+        List<Long> expected = new ArrayList<>();
+        expected.add(1L);
+        expected.add(101L);
+        assertEquals(expected, replay(reopened, 0));
+    }
+
+    @Test
+    public void testRecoverFailsOnMissingEntries() {
+        MappedTradeJournal journal = new MappedTradeJournal(dir, 2, true, 0);
+        for (int i = 0; i < 6; i++) {
+            journal.append(buy("alice"));
+        }
+        journal.compact(4);
+
+        AccountBook book = new AccountBook(journal);
+        book.load(1, "alice", new BigDecimal("1000"), null);
+        // 数据库检查点为2，但序号3-4所在的段已被删除
+        assertThrows(IllegalStateException.class, () -> book.recover(2));
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".seg")).count();
+        }
+    }
+
+    private static List<Long> replay(AccountJournal journal, long afterSeq) {
+        List<Long> seqs = new ArrayList<>();
+        journal.replay(afterSeq, entry -> seqs.add(entry.getSeq()));
+        return seqs;
+    }
+
+    private static List<Long> seqs(long from, long to) {
+        List<Long> seqs = new ArrayList<>();
+        for (long seq = from; seq <= to; seq++) {
+            seqs.add(seq);
+        }
+        return seqs;
+    }
+
+    private static JournalEntry buy(String accountName) {
+        return new JournalEntry(0, JournalEntry.BUY, LocalDateTime.now(), 1, accountName, "BTC", new BigDecimal("100"),
+                new BigDecimal("1"), new BigDecimal("100"), BigDecimal.ZERO, "test");
+    }
+}
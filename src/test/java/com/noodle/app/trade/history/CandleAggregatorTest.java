@@ -0,0 +1,105 @@
+package com.noodle.app.trade.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.noodle.app.trade.model.CandleInterval;
+import com.noodle.app.trade.util.TimeUtils;
+
+public class CandleAggregatorTest {
+
+    private static final long BASE = TimeUtils.toEpochMilli(LocalDateTime.of(2024, 1, 1, 0, 0, 0));
+
+    @Test
+    public void testTicksRollIntoOhlcBars() {
+        CandleAggregator aggregator = new CandleAggregator(CandleInterval.M1);
+        aggregator.addTick("BTC", BASE, price("100"), price("1"));
+        aggregator.addTick("BTC", BASE + 10000, price("105"), price("2"));
+        aggregator.addTick("BTC", BASE + 20000, price("95"), price("3"));
+        aggregator.addTick("BTC", BASE + 30000, price("101"), null);
+
+        List<Candle> candles = aggregator.drainDirty();
+
+        assertEquals(1, candles.size());
+        Candle candle = candles.get(0);
+        assertEquals(BASE, candle.getOpenTime());
+        assertEquals(price("100"), candle.getOpen());
+        assertEquals(price("105"), candle.getHigh());
+        assertEquals(price("95"), candle.getLow());
+        assertEquals(price("101"), candle.getClose());
+        assertEquals(price("3"), candle.getVolume());
+    }
+
+    @Test
+    public void testNewWindowStartsNewBarAndKeepsFinishedOneDirty() {
+        CandleAggregator aggregator = new CandleAggregator(CandleInterval.M1, CandleInterval.H1);
+        aggregator.addTick("BTC", BASE + 1000, price("100"), null);
+        aggregator.addTick("BTC", BASE + 61000, price("110"), null);
+
+        List<Candle> candles = aggregator.drainDirty();
+
+        // 两根1分钟K线 + 一根1小时K线
+        assertEquals(3, candles.size());
+        Candle hour = null;
+        for (Candle candle : candles) {
+            if (candle.getInterval() == CandleInterval.H1) {
+                hour = candle;
+            }
+        }
+        assertEquals(price("100"), hour.getOpen());
+        assertEquals(price("110"), hour.getClose());
+        assertTrue(aggregator.drainDirty().isEmpty());
+    }
+
+    @Test
+    public void testOutOfOrderTickIsIgnored() {
+        CandleAggregator aggregator = new CandleAggregator(CandleInterval.M1);
+        aggregator.addTick("BTC", BASE + 61000, price("110"), null);
+        aggregator.drainDirty();
+
+        aggregator.addTick("BTC", BASE + 1000, price("1"), null);
+
+        assertTrue(aggregator.drainDirty().isEmpty());
+    }
+
+    @Test
+    public void testDrainedCopiesAreNotMutatedByLaterTicks() {
+        CandleAggregator aggregator = new CandleAggregator(CandleInterval.M1);
+        aggregator.addTick("BTC", BASE, price("100"), null);
+        Candle drained = aggregator.drainDirty().get(0);
+
+        aggregator.addTick("BTC", BASE + 1000, price("200"), null);
+
+        assertEquals(price("100"), drained.getHigh());
+        assertEquals(price("200"), aggregator.drainDirty().get(0).getHigh());
+    }
+
+    @Test
+    public void testRequeuedCandleIsDrainedAgainUnlessNewerOneIsDirty() {
+        CandleAggregator aggregator = new CandleAggregator(CandleInterval.M1);
+        aggregator.addTick("BTC", BASE + 1000, price("100"), null);
+        aggregator.addTick("BTC", BASE + 61000, price("110"), null);
+        List<Candle> failed = aggregator.drainDirty();
+
+        // 进行中的K线在写入失败后又有新价格，放回时保留新的K线；已结束的K线原样放回
+        aggregator.addTick("BTC", BASE + 62000, price("120"), null);
+        aggregator.requeue(failed);
+        List<Candle> candles = aggregator.drainDirty();
+
+        assertEquals(2, candles.size());
+        for (Candle candle : candles) {
+            BigDecimal expectedClose = candle.getOpenTime() == BASE ? price("100") : price("120");
+            assertEquals(expectedClose, candle.getClose());
+        }
+    }
+
+    private static BigDecimal price(String value) {
+        return new BigDecimal(value);
+    }
+}
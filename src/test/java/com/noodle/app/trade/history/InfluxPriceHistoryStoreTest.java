@@ -0,0 +1,201 @@
+package com.noodle.app.trade.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.gson.JsonParser;
+import com.noodle.app.trade.config.PriceHistoryConfig;
+import com.noodle.app.trade.model.CryptoCurrency;
+import com.noodle.app.trade.model.PricePoint;
+import com.noodle.app.trade.service.MarketSnapshotWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 用本地HTTP服务模拟InfluxDB的写入和查询接口，驱动真实的InfluxDB客户端
+ */
+public class InfluxPriceHistoryStoreTest {
+
+    // 北京时间 2024-01-01 08:00 = UTC 2024-01-01 00:00
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 8, 0, 0);
+    private static final long BASE_MILLIS = 1704067200000L;
+
+    // Flux查询返回的带注解CSV（pivot之后每行一个时间点）
+    private static final String QUERY_RESPONSE = "#datatype,string,long,dateTime:RFC3339,string,string,double,double\r\n"
+            + "#group,false,false,false,true,true,false,false\r\n"
+            + "#default,_result,,,,,,\r\n"
+            + ",result,table,_time,_measurement,symbol,price,volume\r\n"
+            + ",,0,2024-01-01T00:00:00Z,price,BTC,100.5,10\r\n"
+            + ",,0,2024-01-01T00:01:00Z,price,BTC,101.25,\r\n"
+            + ",,0,2024-01-01T00:02:00Z,price,BTC,,12\r\n"
+            + "\r\n";
+
+    private static final class Request {
+        private final String query;
+        private final String body;
+
+        private Request(String query, String body) {
+            this.query = query;
+            this.body = body;
+        }
+    }
+
+    private HttpServer server;
+    private final BlockingQueue<Request> writes = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Request> queries = new LinkedBlockingQueue<>();
+    private PriceHistoryConfig historyConfig;
+    private MarketSnapshotWriter marketSnapshotWriter;
+    private InfluxPriceHistoryStore store;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v2/write", exchange -> {
+            writes.add(read(exchange));
+            respond(exchange, 204, null);
+        });
+        server.createContext("/api/v2/query", exchange -> {
+            queries.add(read(exchange));
+            respond(exchange, 200, QUERY_RESPONSE);
+        });
+        server.start();
+
+        historyConfig = new PriceHistoryConfig();
+        historyConfig.getInflux().setUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        historyConfig.getInflux().setToken("test-token");
+        historyConfig.getInflux().setBatchSize(2);
+        // 只按批次大小提交，剩余的点在close()时写入
+        historyConfig.getInflux().setFlushInterval(60000);
+        marketSnapshotWriter = mock(MarketSnapshotWriter.class);
+
+        store = new InfluxPriceHistoryStore();
+        ReflectionTestUtils.setField(store, "historyConfig", historyConfig);
+        ReflectionTestUtils.setField(store, "marketSnapshotWriter", marketSnapshotWriter);
+        store.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        store.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testWritesAreBatchedAndMirroredToDatabase() throws InterruptedException {
+        List<CryptoCurrency> snapshot = Arrays.asList(
+                crypto("BTC", "100.5", "10"),
+                crypto("ETH", "3000", null),
+                crypto("DOGE", null, "5"),
+                crypto("XRP", "0.5", "1"));
+        store.write(snapshot, BASE);
+
+        // 3个有效点，批次大小为2：第一批立即提交，第二批在close()时提交
+        Request first = writes.poll(10, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertTrue(first.query.contains("precision=ms"));
+        assertTrue(first.query.contains("bucket=prices"));
+        assertEquals(Arrays.asList(
+                "price,symbol=BTC price=100.5,volume=10.0 " + BASE_MILLIS,
+                "price,symbol=ETH price=3000.0 " + BASE_MILLIS), lines(first.body));
+        assertNull(writes.poll(200, TimeUnit.MILLISECONDS));
+
+        store.close();
+        Request second = writes.poll(10, TimeUnit.SECONDS);
+        assertNotNull(second);
+        assertEquals(Arrays.asList("price,symbol=XRP price=0.5,volume=1.0 " + BASE_MILLIS), lines(second.body));
+
+        verify(marketSnapshotWriter).writeSnapshots(snapshot, BASE);
+    }
+
+    @Test
+    public void testMirrorCanBeDisabled() throws InterruptedException {
+        historyConfig.getInflux().setMirrorToDatabase(false);
+
+        store.write(Arrays.asList(crypto("BTC", "100", "1"), crypto("ETH", "3000", "2")), BASE);
+
+        assertNotNull(writes.poll(10, TimeUnit.SECONDS));
+        verify(marketSnapshotWriter, never()).writeSnapshots(any(), any());
+    }
+
+    @Test
+    public void testQueryParsesFluxRecords() throws InterruptedException {
+        List<PricePoint> points = store.queryWindowed("BTC", BASE, BASE.plusMinutes(5), Duration.ofMinutes(1));
+
+        Request request = queries.poll(10, TimeUnit.SECONDS);
+        assertNotNull(request);
+        String flux = JsonParser.parseString(request.body).getAsJsonObject().get("query").getAsString();
+        assertTrue(flux.contains("r.symbol == \"BTC\""));
+        assertTrue(flux.contains("aggregateWindow(every: 60000ms"));
+
+        // 没有价格的记录被跳过，没有成交量时volume为null，时间转换回北京时间
+        assertEquals(2, points.size());
+        assertEquals(BASE, points.get(0).getTime());
+        assertEquals(0, new BigDecimal("100.5").compareTo(points.get(0).getPrice()));
+        assertEquals(0, new BigDecimal("10").compareTo(points.get(0).getVolume()));
+        assertEquals(BASE.plusMinutes(1), points.get(1).getTime());
+        assertEquals(0, new BigDecimal("101.25").compareTo(points.get(1).getPrice()));
+        assertNull(points.get(1).getVolume());
+    }
+
+    private static CryptoCurrency crypto(String symbol, String price, String volume) {
+        return new CryptoCurrency(symbol, symbol, price != null ? new BigDecimal(price) : null,
+                BigDecimal.ZERO, BigDecimal.ZERO, volume != null ? new BigDecimal(volume) : null, null);
+    }
+
+    private static List<String> lines(String body) {
+        return Arrays.asList(body.trim().split("\n"));
+    }
+
+    private static Request read(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return new Request(exchange.getRequestURI().getRawQuery(),
+                new String(body.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/csv; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.noodle.app.trade.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class LttbDownsamplerTest {
+
+    @Test
+    public void testReturnsInputWhenBelowThreshold() {
+        List<double[]> points = series(10);
+
+        assertSame(points, downsample(points, 0));
+        assertSame(points, downsample(points, 10));
+        assertSame(points, downsample(points, 50));
+    }
+
+    @Test
+    public void testKeepsEndpointsAndRequestedCount() {
+        List<double[]> points = series(1000);
+
+        List<double[]> sampled = downsample(points, 100);
+
+        assertEquals(100, sampled.size());
+        assertSame(points.get(0), sampled.get(0));
+        assertSame(points.get(999), sampled.get(99));
+        for (int i = 1; i < sampled.size(); i++) {
+            assertTrue(sampled.get(i)[0] > sampled.get(i - 1)[0]);
+        }
+    }
+
+    @Test
+    public void testPreservesSpike() {
+        List<double[]> points = series(1000);
+        points.get(537)[1] = 10000;
+
+        List<double[]> sampled = downsample(points, 20);
+
+        boolean found = false;
+        for (double[] point : sampled) {
+            found |= point[1] == 10000;
+        }
+        assertTrue(found);
+    }
+
+    private static List<double[]> downsample(List<double[]> points, int maxPoints) {
+        return LttbDownsampler.downsample(points, maxPoints, point -> (long) point[0], point -> point[1]);
+    }
+
+    private static List<double[]> series(int size) {
+        List<double[]> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            points.add(new double[] { i * 1000, Math.sin(i / 50.0) * 100 });
+        }
+        return points;
+    }
+}
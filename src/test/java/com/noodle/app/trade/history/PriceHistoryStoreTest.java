@@ -0,0 +1,87 @@
+package com.noodle.app.trade.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.noodle.app.trade.model.CryptoCurrency;
+import com.noodle.app.trade.model.PricePoint;
+
+public class PriceHistoryStoreTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0, 0);
+
+    @Test
+    public void testQueryReturnsPointsInRangeAscending() {
+        InMemoryPriceHistoryStore store = new InMemoryPriceHistoryStore();
+        for (int i = 4; i >= 0; i--) {
+            store.write(snapshot("BTC", 100 + i, 10), BASE.plusMinutes(i));
+        }
+        store.write(snapshot("ETH", 5, 1), BASE);
+
+        List<PricePoint> points = store.query("BTC", BASE.plusMinutes(1), BASE.plusMinutes(3));
+
+        assertEquals(3, points.size());
+        assertEquals(BASE.plusMinutes(1), points.get(0).getTime());
+        assertEquals(BASE.plusMinutes(3), points.get(2).getTime());
+        assertEquals(0, new BigDecimal("103").compareTo(points.get(2).getPrice()));
+    }
+
+    @Test
+    public void testQueryWindowedAveragesEachWindow() {
+        InMemoryPriceHistoryStore store = new InMemoryPriceHistoryStore();
+        // 每20秒一个点，3分钟共9个点
+        for (int i = 0; i < 9; i++) {
+            store.write(snapshot("BTC", 100 + i, 10 * i), BASE.plusSeconds(20L * i));
+        }
+
+        List<PricePoint> points = store.queryWindowed("BTC", BASE, BASE.plusMinutes(10), Duration.ofMinutes(1));
+
+        assertEquals(3, points.size());
+        assertEquals(BASE, points.get(0).getTime());
+        assertEquals(BASE.plusMinutes(2), points.get(2).getTime());
+        assertEquals(0, new BigDecimal("101").compareTo(points.get(0).getPrice()));
+        assertEquals(0, new BigDecimal("107").compareTo(points.get(2).getPrice()));
+        assertEquals(0, new BigDecimal("40").compareTo(points.get(1).getVolume()));
+    }
+
+    @Test
+    public void testDailyWindowsAlignToBeijingMidnight() {
+        InMemoryPriceHistoryStore store = new InMemoryPriceHistoryStore();
+        store.write(snapshot("BTC", 100, 1), BASE.plusHours(1));
+        store.write(snapshot("BTC", 200, 1), BASE.plusHours(23));
+        store.write(snapshot("BTC", 300, 1), BASE.plusDays(1).plusHours(7));
+
+        List<PricePoint> points = store.queryWindowed("BTC", BASE, BASE.plusDays(2), Duration.ofDays(1));
+
+        assertEquals(2, points.size());
+        assertEquals(BASE, points.get(0).getTime());
+        assertEquals(0, new BigDecimal("150").compareTo(points.get(0).getPrice()));
+        assertEquals(BASE.plusDays(1), points.get(1).getTime());
+    }
+
+    @Test
+    public void testFluxQueryFiltersSymbolAndAlignsWindows() {
+        String flux = InfluxPriceHistoryStore.buildRangeQuery("prices", "BTC\"",
+                Instant.parse("2024-01-01T00:00:00Z"), Instant.parse("2024-01-02T00:00:00Z"), Duration.ofDays(1));
+
+        assertTrue(flux.contains("r.symbol == \"BTC\\\"\""));
+        assertTrue(flux.contains("stop: 2024-01-02T00:00:00.001Z"));
+        // 北京时间0点对应UTC 16点
+        assertTrue(flux.contains("aggregateWindow(every: 86400000ms, offset: 57600000ms"));
+        assertTrue(flux.contains("pivot("));
+    }
+
+    private static List<CryptoCurrency> snapshot(String symbol, long price, long volume) {
+        return Collections.singletonList(new CryptoCurrency(symbol, symbol, BigDecimal.valueOf(price),
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.valueOf(volume), null));
+    }
+}
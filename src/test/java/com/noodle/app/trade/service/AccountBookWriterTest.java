@@ -0,0 +1,102 @@
+package com.noodle.app.trade.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.noodle.app.trade.book.AccountBook;
+import com.noodle.app.trade.book.FileAccountJournal;
+
+public class AccountBookWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private TradeTestDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private AccountBookWriter writer;
+    private AccountBook book;
+    private long aliceId;
+
+    @BeforeEach
+    public void setUp() {
+        database = new TradeTestDatabase();
+        jdbcTemplate = database.getJdbcTemplate();
+        writer = new AccountBookWriter();
+        ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+        // 小批次，交易记录分多个批次写入
+        ReflectionTestUtils.setField(writer, "batchSize", 2);
+
+        aliceId = database.createAccount("alice", new BigDecimal("1000"));
+        database.addHolding(aliceId, "BTC", BigDecimal.ONE, new BigDecimal("100"));
+        database.addHolding(aliceId, "ETH", new BigDecimal("5"), new BigDecimal("250"));
+        jdbcTemplate.update("INSERT INTO position_pnl (account_id, symbol, sold_quantity, sold_cost, sell_proceeds, realized_pnl, "
+                + "updated_time) VALUES (?, 'BTC', 1, 80, 100, 20, 0)", aliceId);
+        jdbcTemplate.update("INSERT INTO journal_checkpoint (name, seq, updated_time) VALUES (?, 2, 0)",
+                AccountBookWriter.CHECKPOINT_NAME);
+
+        Map<String, AccountBook.Position> positions = new HashMap<>();
+        positions.put("BTC", new AccountBook.Position(BigDecimal.ONE, new BigDecimal("100")));
+        positions.put("ETH", new AccountBook.Position(new BigDecimal("5"), new BigDecimal("250")));
+        book = new AccountBook(new FileAccountJournal(dir.resolve("book.journal"), false, Long.MAX_VALUE));
+        book.load(aliceId, "alice", new BigDecimal("1000"), positions);
+    }
+
+    @Test
+    public void testWriteReplacesHoldingsAndCoalescesPnl() {
+        book.buy("alice", "BTC", new BigDecimal("200"), BigDecimal.ONE, "test");
+        // 平均成本150：第一次卖出成本150，第二次成本75
+        book.sell("alice", "BTC", new BigDecimal("300"), BigDecimal.ONE, "test");
+        book.sell("alice", "BTC", new BigDecimal("300"), new BigDecimal("0.5"), "test");
+        book.sell("alice", "ETH", new BigDecimal("60"), new BigDecimal("5"), "test");
+
+        assertEquals(4, writer.write(book.snapshot()));
+
+        // 同一账户的四笔成交只更新一次账户
+        assertDecimal("1550", database.balance("alice"));
+        assertEquals(1, database.accountVersion("alice"));
+
+        // 持仓按账户整体替换：BTC 为内存中的最新值，清仓的 ETH 被删除
+        Map<String, Object> btc = database.holding(aliceId, "BTC");
+        assertDecimal("0.5", btc.get("quantity"));
+        assertDecimal("75", btc.get("hold_cost"));
+        assertNull(database.holding(aliceId, "ETH"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM holding WHERE account_id = ?", Integer.class, aliceId));
+        assertEquals(4, database.tradeCount("alice"));
+
+        // BTC 两笔卖出合并为一次累加到已有记录上，ETH 新插入
+        Map<String, Object> btcPnl = database.positionPnl(aliceId, "BTC");
+        assertDecimal("2.5", btcPnl.get("sold_quantity"));
+        assertDecimal("305", btcPnl.get("sold_cost"));
+        assertDecimal("550", btcPnl.get("sell_proceeds"));
+        assertDecimal("245", btcPnl.get("realized_pnl"));
+        assertDecimal("50", database.positionPnl(aliceId, "ETH").get("realized_pnl"));
+
+        assertEquals(4, writer.readCheckpoint());
+    }
+
+    @Test
+    public void testCheckpointNeverMovesBackwards() {
+        jdbcTemplate.update("UPDATE journal_checkpoint SET seq = 10 WHERE name = ?", AccountBookWriter.CHECKPOINT_NAME);
+        book.buy("alice", "BTC", new BigDecimal("200"), BigDecimal.ONE, "test");
+
+        writer.write(book.snapshot());
+
+        assertEquals(10, writer.readCheckpoint());
+        assertDecimal("800", database.balance("alice"));
+    }
+
+    private static void assertDecimal(String expected, Object actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo((BigDecimal) actual), "expected " + expected + " but was " + actual);
+    }
+}
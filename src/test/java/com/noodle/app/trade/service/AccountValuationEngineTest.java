@@ -0,0 +1,216 @@
+package com.noodle.app.trade.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.noodle.app.trade.entity.AccountEntity;
+import com.noodle.app.trade.entity.HoldingEntity;
+import com.noodle.app.trade.model.SymbolPrecision;
+import com.noodle.app.trade.repository.AccountRepository;
+import com.noodle.app.trade.repository.HoldingRepository;
+
+public class AccountValuationEngineTest {
+
+    private AccountValuationEngine engine;
+    private AccountRepository accountRepository;
+    private HoldingRepository holdingRepository;
+    private JdbcTemplate jdbcTemplate;
+    private SymbolPrecisionService symbolPrecisionService;
+    // 数据库中的 account.version
+    private Map<Long, Long> versions;
+
+    @BeforeEach
+    public void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        holdingRepository = mock(HoldingRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        symbolPrecisionService = new SymbolPrecisionService();
+        
+        engine = new AccountValuationEngine();
+        ReflectionTestUtils.setField(engine, "accountRepository", accountRepository);
+        ReflectionTestUtils.setField(engine, "holdingRepository", holdingRepository);
+        ReflectionTestUtils.setField(engine, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(engine, "symbolPrecisionService", symbolPrecisionService);
+        
+        when(accountRepository.findAll()).thenReturn(Arrays.asList(
+                account(1L, "alice", "1000"),
+                account(2L, "bob", "500"),
+                account(3L, "cash-only", "100")));
+        when(holdingRepository.findAll()).thenReturn(Arrays.asList(
+                holding(1L, "BTC", "0.1"),
+                holding(2L, "ETH", "2")));
+        versions = new LinkedHashMap<>();
+        versions.put(1L, 0L);
+        versions.put(2L, 0L);
+        versions.put(3L, 0L);
+        stubVersions();
+    }
+
+    @Test
+    public void testOnlyAccountsHoldingMovedSymbolsAreRevalued() {
+        LocalDateTime now = LocalDateTime.now();
+        
+        // 首次运行全部账户都会写入
+        assertEquals(3, engine.revalue(prices("60000", "3000"), now));
+        assertEquals(new BigDecimal("7000.0"), engine.getAccountValue(1L));
+        assertEquals(new BigDecimal("6500"), engine.getAccountValue(2L));
+        
+        // 价格不变时不写入
+        assertEquals(0, engine.revalue(prices("60000", "3000"), now));
+        
+        // 只有ETH变化时只重新估值bob
+        assertEquals(1, engine.revalue(prices("60000", "3100"), now));
+        assertEquals(new BigDecimal("6700"), engine.getAccountValue(2L));
+        
+        // 全量加载只发生一次
+        verify(accountRepository).findAll();
+        verify(holdingRepository, never()).findByAccountId(1L);
+    }
+
+    @Test
+    public void testFailedWriteIsRetriedOnNextRevalue() {
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(3, engine.revalue(prices("60000", "3000"), now));
+
+        // BTC变化后写入失败，事务回滚，alice 的 total_value 仍是旧值
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DataAccessResourceFailureException("连接断开"));
+        assertThrows(DataAccessResourceFailureException.class, () -> engine.revalue(prices("61000", "3000"), now));
+
+        // 价格没有再变化，但上次未写入的账户仍会被写入
+        reset(jdbcTemplate);
+        stubVersions();
+        assertEquals(1, engine.revalue(prices("61000", "3000"), now));
+        assertEquals(new BigDecimal("7100.0"), engine.getAccountValue(1L));
+        assertEquals(0, engine.revalue(prices("61000", "3000"), now));
+    }
+
+    @Test
+    public void testInvalidatedAccountIsReloaded() {
+        LocalDateTime now = LocalDateTime.now();
+        engine.revalue(prices("60000", "3000"), now);
+        
+        when(accountRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(account(3L, "cash-only", "40")));
+        when(holdingRepository.findByAccountIdIn(anyCollection())).thenReturn(Collections.singletonList(holding(3L, "BTC", "0.001")));
+        engine.invalidateAccount(3L);
+        
+        assertEquals(1, engine.revalue(prices("60000", "3000"), now));
+        assertEquals(new BigDecimal("100.000"), engine.getAccountValue(3L));
+        
+        // 新持仓进入敞口索引，BTC变动时会被重新估值
+        assertEquals(2, engine.revalue(prices("61000", "3000"), now));
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    public void testAccountsChangedElsewhereAreReloadedByVersion() {
+        LocalDateTime now = LocalDateTime.now();
+        engine.revalue(prices("60000", "3000"), now);
+
+        // 其他节点提交了 alice 的交易并删除了 bob，本节点没有收到 invalidateAccount
+        AccountEntity alice = account(1L, "alice", "400");
+        alice.setVersion(1L);
+        when(accountRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(alice));
+        when(holdingRepository.findByAccountIdIn(anyCollection())).thenReturn(Collections.singletonList(holding(1L, "BTC", "0.11")));
+        versions.put(1L, 1L);
+        versions.remove(2L);
+
+        // 价格没有变化，alice 仍按新余额和持仓重新估值，bob 移出引擎
+        assertEquals(1, engine.revalue(prices("60000", "3000"), now));
+        assertEquals(new BigDecimal("7000.00"), engine.getAccountValue(1L));
+        assertNull(engine.getAccountValue(2L));
+        assertEquals(0, engine.revalue(prices("60000", "3100"), now));
+    }
+
+    @Test
+    public void testExchangePrecisionKeepsValuesExact() {
+        Map<String, SymbolPrecision> precisions = new HashMap<>();
+        precisions.put("BTC", new SymbolPrecision("BTC", 2, 5));
+        precisions.put("ETH", new SymbolPrecision("ETH", 2, 4));
+        symbolPrecisionService.update(precisions);
+        LocalDateTime now = LocalDateTime.now();
+
+        // 精度只影响小数位数，数值与BigDecimal计算相同
+        engine.revalue(prices("60000.01", "3000.5"), now);
+        assertEquals(0, new BigDecimal("7000.001").compareTo(engine.getAccountValue(1L)));
+        assertEquals(0, new BigDecimal("6501").compareTo(engine.getAccountValue(2L)));
+
+        // 价格的小数位多于交易所精度时按价格本身的精度计算，不舍入
+        engine.revalue(prices("60000.123456789", "3000.5"), now);
+        assertEquals(new BigDecimal("1000").add(new BigDecimal("60000.123456789").multiply(new BigDecimal("0.1"))),
+                engine.getAccountValue(1L).stripTrailingZeros());
+    }
+
+    @Test
+    public void testOverflowFallsBackToBigDecimal() {
+        when(holdingRepository.findAll()).thenReturn(Arrays.asList(
+                holding(1L, "BTC", "0.000000000123456789"),
+                holding(2L, "ETH", "9000000000")));
+        LocalDateTime now = LocalDateTime.now();
+
+        // 乘积精度超过18位、乘积超出long范围时结果仍然精确
+        engine.revalue(prices("60000.000000000001", "3000000000.5"), now);
+        assertEquals(new BigDecimal("1000").add(new BigDecimal("60000.000000000001").multiply(new BigDecimal("0.000000000123456789"))),
+                engine.getAccountValue(1L));
+        assertEquals(new BigDecimal("500").add(new BigDecimal("3000000000.5").multiply(new BigDecimal("9000000000"))),
+                engine.getAccountValue(2L));
+    }
+
+    private void stubVersions() {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map.Entry<Long, Long> entry : versions.entrySet()) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong("id")).thenReturn(entry.getKey());
+                when(rs.getLong("version")).thenReturn(entry.getValue());
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq("SELECT id, version FROM account"), any(RowCallbackHandler.class));
+    }
+
+    private static Map<String, BigDecimal> prices(String btc, String eth) {
+        Map<String, BigDecimal> prices = new HashMap<>();
+        prices.put("BTC", new BigDecimal(btc));
+        prices.put("ETH", new BigDecimal(eth));
+        return prices;
+    }
+
+    private static AccountEntity account(Long id, String name, String balance) {
+        AccountEntity account = new AccountEntity(name, new BigDecimal(balance));
+        account.setId(id);
+        return account;
+    }
+
+    private static HoldingEntity holding(Long accountId, String symbol, String quantity) {
+        return new HoldingEntity(accountId, symbol, new BigDecimal(quantity));
+    }
+}
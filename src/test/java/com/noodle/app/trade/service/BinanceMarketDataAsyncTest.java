@@ -0,0 +1,102 @@
+package com.noodle.app.trade.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.noodle.app.trade.config.BinanceConfig;
+import com.noodle.app.trade.model.CryptoCurrency;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 用本地HTTP服务模拟Binance行情接口，验证异步逐个查询的错误处理与同步版本一致
+ */
+public class BinanceMarketDataAsyncTest {
+
+    private static final String TICKER = "{\"lastPrice\":\"65000.5\",\"priceChange\":\"100\",\"priceChangePercent\":\"0.15\",\"volume\":\"1234\"}";
+
+    private HttpServer server;
+    private BinanceApiService binanceApiService;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v3/ticker/24hr", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            if (query.startsWith("symbols=")) {
+                // 批量请求被拒绝，改为逐个查询
+                respond(exchange, 400, "{\"code\":-1100}");
+            } else if (query.equals("symbol=BTCUSDT")) {
+                respond(exchange, 200, TICKER);
+            } else if (query.equals("symbol=BADUSDT")) {
+                respond(exchange, 200, "<html>");
+            } else {
+                respond(exchange, 400, "{\"code\":-1121,\"msg\":\"Invalid symbol.\"}");
+            }
+        });
+        server.start();
+
+        BinanceConfig binanceConfig = new BinanceConfig();
+        binanceConfig.setUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        binanceApiService = new BinanceApiService();
+        ReflectionTestUtils.setField(binanceApiService, "binanceConfig", binanceConfig);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testRejectedSymbolIsSkipped() throws Exception {
+        List<CryptoCurrency> cryptoCurrencies = binanceApiService.getMarketDataAsync(Arrays.asList("BTCUSDT", "XXXUSDT"))
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, cryptoCurrencies.size());
+        assertEquals("BTC", cryptoCurrencies.get(0).getSymbol());
+        assertEquals(0, new BigDecimal("65000.5").compareTo(cryptoCurrencies.get(0).getPrice()));
+    }
+
+    @Test
+    public void testMalformedResponseFailsFuture() {
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> binanceApiService.getMarketDataAsync(Arrays.asList("BTCUSDT", "BADUSDT")).get(10, TimeUnit.SECONDS));
+
+        assertTrue(error.getCause() instanceof IOException, String.valueOf(error.getCause()));
+    }
+
+    @Test
+    public void testTransportErrorFailsFuture() {
+        server.stop(0);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> binanceApiService.getMarketDataAsync(Collections.singletonList("BTCUSDT")).get(10, TimeUnit.SECONDS));
+
+        assertTrue(error.getCause() instanceof IOException, String.valueOf(error.getCause()));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
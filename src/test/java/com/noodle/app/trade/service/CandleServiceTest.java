@@ -0,0 +1,73 @@
+package com.noodle.app.trade.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.noodle.app.trade.model.CandleInterval;
+import com.noodle.app.trade.model.CryptoCurrency;
+
+public class CandleServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0, 0);
+
+    private CandleService candleService;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        candleService = new CandleService();
+        ReflectionTestUtils.setField(candleService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(candleService, "batchSize", 500);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedFlushIsRetriedWithLatestCandles() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("连接断开"))
+                .thenReturn(new int[0]);
+        int intervals = CandleInterval.values().length;
+
+        candleService.onSnapshots(snapshot("100"), BASE);
+        assertEquals(0, candleService.flush());
+
+        // 写入失败后同一根K线又有新价格，重试时写入更新后的K线，每个周期仍只有一根
+        candleService.onSnapshots(snapshot("120"), BASE.plusSeconds(1));
+        assertEquals(intervals, candleService.flush());
+
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batches.capture());
+        List<Object[]> retried = batches.getAllValues().get(1);
+        assertEquals(intervals, retried.size());
+        for (Object[] row : retried) {
+            assertEquals(new BigDecimal("100"), row[3]);
+            assertEquals(new BigDecimal("120"), row[4]);
+            assertEquals(new BigDecimal("120"), row[6]);
+        }
+        assertEquals(0, candleService.flush());
+    }
+
+    private static List<CryptoCurrency> snapshot(String price) {
+        CryptoCurrency btc = new CryptoCurrency("BTC", "Bitcoin");
+        btc.setPrice(new BigDecimal(price));
+        return Collections.singletonList(btc);
+    }
+}
@@ -0,0 +1,85 @@
+package com.noodle.app.trade.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.OptimisticLockException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+public class OptimisticRetryTest {
+
+    private final List<Long> sleeps = new ArrayList<>();
+
+    @Test
+    public void testRetriesUntilSuccess() {
+        OptimisticRetry retry = new OptimisticRetry(5, 10, 200, sleeps::add, new Random(1));
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retry.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("account 1 已被其他事务修改");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, sleeps.size());
+        Map<String, Object> stats = retry.getStats();
+        assertEquals(1L, stats.get("calls"));
+        assertEquals(2L, stats.get("conflicts"));
+        assertEquals(2L, stats.get("retries"));
+        assertEquals(0L, stats.get("exhausted"));
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() {
+        OptimisticRetry retry = new OptimisticRetry(3, 10, 200, sleeps::add, new Random(1));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockException("stale");
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(2, sleeps.size());
+        assertEquals(1L, retry.getStats().get("exhausted"));
+    }
+
+    @Test
+    public void testOtherFailuresAreNotRetried() {
+        OptimisticRetry retry = new OptimisticRetry(5, 10, 200, sleeps::add, new Random(1));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(RuntimeException.class, () -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new RuntimeException("余额不足，无法完成交易");
+        }));
+
+        assertEquals(1, attempts.get());
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    public void testBackoffIsJitteredWithinExponentialCeiling() {
+        OptimisticRetry retry = new OptimisticRetry(10, 10, 200, sleeps::add, new Random(7));
+
+        for (int attempt = 1; attempt <= 8; attempt++) {
+            long ceiling = Math.min(200, 10L << (attempt - 1));
+            for (int i = 0; i < 100; i++) {
+                long delay = retry.backoffMillis(attempt);
+                assertTrue(delay >= 0 && delay <= ceiling, "attempt " + attempt + " delay " + delay);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.noodle.app.trade.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.noodle.app.trade.entity.TradeRecordEntity;
+
+public class OrderExecutionEngineTest {
+
+    @Test
+    public void testConcurrentTradesMatchSerialExecution() throws Exception {
+        int accounts = 10;
+        int threads = 8;
+        int ordersPerThread = 80;
+
+        // 并发：多个线程同时向同一组账户下单，经引擎串行后由 TradeExecutor 在H2上执行真实的事务
+        TradeTestDatabase concurrent = seededDatabase(accounts);
+        TradeExecutor concurrentExecutor = concurrent.tradeExecutor(concurrent.getJdbcTemplate(), mock(AccountValuationEngine.class));
+        OrderExecutionEngine engine = new OrderExecutionEngine(8, 10000);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ordersPerThread; i++) {
+                    String accountName = "account-" + (i % accounts);
+                    int order = i / accounts;
+                    engine.execute(accountName, () -> placeOrder(concurrentExecutor, accountName, order));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            // 任何一笔订单出现版本冲突或余额/持仓校验失败都会在这里抛出
+            result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // 串行：同样的订单在单线程中依次执行
+        TradeTestDatabase serial = seededDatabase(accounts);
+        TradeExecutor serialExecutor = serial.tradeExecutor(serial.getJdbcTemplate(), mock(AccountValuationEngine.class));
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < ordersPerThread; i++) {
+                placeOrder(serialExecutor, "account-" + (i % accounts), i / accounts);
+            }
+        }
+
+        for (int a = 0; a < accounts; a++) {
+            String accountName = "account-" + a;
+            long accountId = a + 1;
+            assertDecimal(serial.balance(accountName), concurrent.balance(accountName));
+            assertEquals(serial.tradeCount(accountName), concurrent.tradeCount(accountName));
+            for (String symbol : new String[] { "BTC", "ETH" }) {
+                Map<String, Object> expected = serial.holding(accountId, symbol);
+                Map<String, Object> actual = concurrent.holding(accountId, symbol);
+                assertDecimal(expected.get("quantity"), actual.get("quantity"));
+                assertDecimal(expected.get("hold_cost"), actual.get("hold_cost"));
+                Map<String, Object> expectedPnl = serial.positionPnl(accountId, symbol);
+                Map<String, Object> actualPnl = concurrent.positionPnl(accountId, symbol);
+                assertDecimal(expectedPnl.get("sold_quantity"), actualPnl.get("sold_quantity"));
+                assertDecimal(expectedPnl.get("realized_pnl"), actualPnl.get("realized_pnl"));
+            }
+        }
+        assertEquals((long) threads * ordersPerThread, engine.getStats().get("executed"));
+        assertEquals(0L, engine.getStats().get("failed"));
+    }
+
+    @Test
+    public void testDifferentStripesRunInParallel() throws Exception {
+        OrderExecutionEngine engine = new OrderExecutionEngine(16, 10000);
+        String first = "alice";
+        String second = "bob";
+        for (int i = 0; engine.stripeFor(first) == engine.stripeFor(second); i++) {
+            second = "bob" + i;
+        }
+        assertNotSame(engine.stripeFor(first), engine.stripeFor(second));
+
+        // 第一个账户的订单在锁内等待第二个账户的订单完成；如果两者被串行化会一直等到超时
+        CountDownLatch secondDone = new CountDownLatch(1);
+        String other = second;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Boolean> waiting = executor.submit(() -> engine.execute(first, () -> {
+            try {
+                return secondDone.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }));
+        Thread.sleep(50);
+        engine.execute(other, () -> {
+            secondDone.countDown();
+            return null;
+        });
+
+        assertTrue(waiting.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    public void testLockTimeoutFailsOrder() throws Exception {
+        OrderExecutionEngine engine = new OrderExecutionEngine(4, 50);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.execute(() -> engine.execute("alice", () -> {
+            holding.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        assertThrows(RuntimeException.class, () -> engine.execute("alice", () -> null));
+        release.countDown();
+        executor.shutdown();
+
+        Map<String, Object> stats = engine.getStats();
+        assertEquals(1L, stats.get("lockTimeouts"));
+        assertEquals(1L, stats.get("contended"));
+    }
+
+    @Test
+    public void testFailedOrderReleasesLock() {
+        OrderExecutionEngine engine = new OrderExecutionEngine(4, 50);
+
+        assertThrows(IllegalStateException.class, () -> engine.execute("alice", () -> {
+            throw new IllegalStateException("余额不足");
+        }));
+        assertEquals("ok", engine.execute("alice", () -> "ok"));
+        assertEquals(1L, engine.getStats().get("failed"));
+    }
+
+    @Test
+    public void testStripeCountRoundsUpToPowerOfTwo() {
+        assertEquals(1, new OrderExecutionEngine(1, 10).stripeCount());
+        assertEquals(128, new OrderExecutionEngine(100, 10).stripeCount());
+        assertEquals(256, new OrderExecutionEngine(256, 10).stripeCount());
+    }
+
+    /**
+     * 每个账户预置 10000 USDT 和按均价 100/20 建仓的 BTC、ETH，保证订单不会因余额或持仓不足被拒绝
+     */
+    private static TradeTestDatabase seededDatabase(int accounts) {
+        TradeTestDatabase database = new TradeTestDatabase();
+        for (int a = 0; a < accounts; a++) {
+            long accountId = database.createAccount("account-" + a, new BigDecimal("10000"));
+            database.addHolding(accountId, "BTC", new BigDecimal("500"), new BigDecimal("50000"));
+            database.addHolding(accountId, "ETH", new BigDecimal("500"), new BigDecimal("10000"));
+        }
+        return database;
+    }
+
+    /**
+     * 按账户内的订单序号轮流买入、卖出两个币种；买入价等于建仓均价，持仓成本与执行顺序无关
+     */
+    private static TradeRecordEntity placeOrder(TradeExecutor executor, String accountName, int order) {
+        switch (order % 4) {
+            case 0:
+                return executor.buy(accountName, "BTC", new BigDecimal("100"), new BigDecimal("0.5"), "test");
+            case 1:
+                return executor.sell(accountName, "BTC", new BigDecimal("110"), new BigDecimal("0.3"), "test");
+            case 2:
+                return executor.buy(accountName, "ETH", new BigDecimal("20"), new BigDecimal("2"), "test");
+            default:
+                return executor.sell(accountName, "ETH", new BigDecimal("25"), new BigDecimal("1.5"), "test");
+        }
+    }
+
+    private static void assertDecimal(Object expected, Object actual) {
+        assertEquals(0, ((BigDecimal) expected).compareTo((BigDecimal) actual), "expected " + expected + " but was " + actual);
+    }
+}
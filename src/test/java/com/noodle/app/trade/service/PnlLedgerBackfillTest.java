@@ -0,0 +1,135 @@
+package com.noodle.app.trade.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.noodle.app.trade.config.LocalDateTimeConverter;
+
+public class PnlLedgerBackfillTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 1, 12, 0, 0);
+    private static final LocalDateTimeConverter TIME_CONVERTER = new LocalDateTimeConverter();
+
+    private PnlLedgerBackfill backfill;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        backfill = new PnlLedgerBackfill();
+        ReflectionTestUtils.setField(backfill, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(backfill, "enabled", true);
+
+        ResultSet alice = mock(ResultSet.class);
+        when(alice.getString("account_name")).thenReturn("alice");
+        when(alice.getLong("id")).thenReturn(1L);
+        feed("SELECT id, account_name", alice);
+
+        // alice 的 BTC：买入2个共200、1个共160（均价120），卖出1个得150；ETH 买入后全部卖出；bob 账户已删除
+        feed("SELECT account_name, symbol",
+                trade("alice", "BTC", "BUY", "2", "200", 0),
+                trade("alice", "ETH", "BUY", "1", "50", 1),
+                trade("alice", "BTC", "BUY", "1", "160", 2),
+                trade("bob", "BTC", "SELL", "1", "100", 3),
+                trade("alice", "BTC", "SELL", "1", "150", 4),
+                trade("alice", "ETH", "SELL", "1", "40", 5));
+
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            int[] updated = new int[((List<?>) invocation.getArgument(1)).size()];
+            Arrays.fill(updated, 1);
+            return updated;
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReplayRebuildsLedgerAndHoldCost() {
+        assertEquals(2, backfill.backfill());
+
+        ArgumentCaptor<List<Object[]>> pnl = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO position_pnl"), pnl.capture());
+        Object[] btc = pnl.getValue().get(0);
+        assertEquals(1L, btc[0]);
+        assertEquals("BTC", btc[1]);
+        // 卖出部分成本按平均成本 360/3 计算
+        assertEquals(0, new BigDecimal("120").compareTo((BigDecimal) btc[3]));
+        assertEquals(0, new BigDecimal("30").compareTo((BigDecimal) btc[5]));
+        assertEquals(TIME_CONVERTER.convertToDatabaseColumn(TIME.plusMinutes(4)), btc[6]);
+        Object[] eth = pnl.getValue().get(1);
+        assertEquals(0, new BigDecimal("-10").compareTo((BigDecimal) eth[5]));
+
+        // 只有仍持有的BTC更新成本，条件为重放出的数量
+        ArgumentCaptor<List<Object[]>> holdCosts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE holding"), holdCosts.capture());
+        assertEquals(1, holdCosts.getValue().size());
+        Object[] holding = holdCosts.getValue().get(0);
+        assertEquals(0, new BigDecimal("240").compareTo((BigDecimal) holding[0]));
+        assertEquals("BTC", holding[2]);
+        assertEquals(0, new BigDecimal("2").compareTo((BigDecimal) holding[3]));
+    }
+
+    @Test
+    public void testOversellClosesPosition() {
+        PnlLedgerBackfill.PositionReplay position = new PnlLedgerBackfill.PositionReplay(1L, "BTC");
+        PnlLedgerBackfill.replay(position, "BUY", BigDecimal.ONE, new BigDecimal("100"), TIME);
+        PnlLedgerBackfill.replay(position, "SELL", new BigDecimal("2"), new BigDecimal("300"), TIME);
+
+        assertEquals(0, position.quantity.signum());
+        assertEquals(0, position.holdCost.signum());
+        assertEquals(0, new BigDecimal("200").compareTo(position.realizedPnl()));
+    }
+
+    @Test
+    public void testSkipsWhenLedgerAlreadyPopulated() {
+        when(jdbcTemplate.queryForObject(eq("SELECT COUNT(*) FROM position_pnl"), eq(Long.class))).thenReturn(3L);
+
+        backfill.backfillIfEmpty();
+
+        verify(jdbcTemplate, never()).query(startsWith("SELECT account_name, symbol"), any(RowCallbackHandler.class));
+    }
+
+    private void feed(String sqlPrefix, ResultSet... rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet row : rows) {
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith(sqlPrefix), any(RowCallbackHandler.class));
+    }
+
+    private static ResultSet trade(String accountName, String symbol, String tradeType, String quantity, String amount,
+                                   int minute) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("account_name")).thenReturn(accountName);
+        when(rs.getString("symbol")).thenReturn(symbol);
+        when(rs.getString("trade_type")).thenReturn(tradeType);
+        when(rs.getBigDecimal("quantity")).thenReturn(new BigDecimal(quantity));
+        when(rs.getBigDecimal("amount")).thenReturn(new BigDecimal(amount));
+        when(rs.getLong("trade_time")).thenReturn(TIME_CONVERTER.convertToDatabaseColumn(TIME.plusMinutes(minute)));
+        return rs;
+    }
+}
@@ -0,0 +1,66 @@
+package com.noodle.app.trade.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.noodle.app.trade.entity.PositionPnlEntity;
+import com.noodle.app.trade.repository.PositionPnlRepository;
+
+public class PnlLedgerServiceTest {
+
+    private PnlLedgerService service;
+    private PositionPnlRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(PositionPnlRepository.class);
+        service = new PnlLedgerService();
+        ReflectionTestUtils.setField(service, "positionPnlRepository", repository);
+    }
+
+    @Test
+    public void testCostBasisIsProportionalToAverageCost() {
+        // 持有3个，总成本300（均价100），卖出1个的成本为100，与卖出价格无关
+        BigDecimal costBasis = PnlLedgerService.costBasis(new BigDecimal("3"), new BigDecimal("300"), BigDecimal.ONE);
+
+        assertEquals(0, new BigDecimal("100").compareTo(costBasis));
+    }
+
+    @Test
+    public void testFullSellTakesWholeHoldCost() {
+        // 300/7 除不尽，全部卖出时不能留下舍入零头
+        BigDecimal holdCost = new BigDecimal("300");
+
+        assertEquals(holdCost, PnlLedgerService.costBasis(new BigDecimal("7"), holdCost, new BigDecimal("7")));
+    }
+
+    @Test
+    public void testCostBasisWithoutCostIsZero() {
+        assertEquals(BigDecimal.ZERO, PnlLedgerService.costBasis(BigDecimal.ONE, null, BigDecimal.ONE));
+        assertEquals(BigDecimal.ZERO, PnlLedgerService.costBasis(BigDecimal.ZERO, BigDecimal.TEN, BigDecimal.ONE));
+    }
+
+    @Test
+    public void testRealizedPnlBySymbol() {
+        PositionPnlEntity btc = new PositionPnlEntity(1L, "BTC");
+        btc.setRealizedPnl(new BigDecimal("50"));
+        PositionPnlEntity eth = new PositionPnlEntity(1L, "ETH");
+        eth.setRealizedPnl(new BigDecimal("-20"));
+        when(repository.findByAccountId(1L)).thenReturn(Arrays.asList(btc, eth));
+
+        Map<String, BigDecimal> realized = service.getRealizedPnl(1L);
+
+        assertEquals(2, realized.size());
+        assertEquals(new BigDecimal("50"), realized.get("BTC"));
+        assertEquals(new BigDecimal("-20"), realized.get("ETH"));
+    }
+}
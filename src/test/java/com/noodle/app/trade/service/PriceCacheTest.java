@@ -0,0 +1,150 @@
+package com.noodle.app.trade.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class PriceCacheTest {
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        PriceCache cache = new PriceCache(60000, 0, Runnable::run);
+        AtomicInteger loadCount = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        
+        PriceCache.PriceLoader slowLoader = symbol -> {
+            loadCount.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new BigDecimal("42000");
+        };
+        
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<BigDecimal>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get("BTCUSDT", slowLoader)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<BigDecimal> result : results) {
+                assertEquals(new BigDecimal("42000"), result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        assertEquals(1, loadCount.get());
+        assertEquals(1L, cache.getStats().get("loads"));
+    }
+
+    @Test
+    public void testAsyncMissesShareLoadWithSyncCallers() throws Exception {
+        PriceCache cache = new PriceCache(60000, 0, Runnable::run);
+        AtomicInteger loadCount = new AtomicInteger();
+        CompletableFuture<BigDecimal> response = new CompletableFuture<>();
+        PriceCache.AsyncPriceLoader asyncLoader = symbol -> {
+            loadCount.incrementAndGet();
+            return response;
+        };
+        PriceCache.PriceLoader syncLoader = symbol -> {
+            loadCount.incrementAndGet();
+            return new BigDecimal("1");
+        };
+
+        CompletableFuture<BigDecimal> first = cache.getAsync("BTCUSDT", asyncLoader);
+        CompletableFuture<BigDecimal> second = cache.getAsync("BTCUSDT", asyncLoader);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            // 异步加载进行中时，同步调用等待同一个请求
+            Future<BigDecimal> sync = pool.submit(() -> cache.get("BTCUSDT", syncLoader));
+            Thread.sleep(100);
+            response.complete(new BigDecimal("42000"));
+
+            assertEquals(new BigDecimal("42000"), first.get(5, TimeUnit.SECONDS));
+            assertEquals(new BigDecimal("42000"), second.get(5, TimeUnit.SECONDS));
+            assertEquals(new BigDecimal("42000"), sync.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, loadCount.get());
+        assertEquals(new BigDecimal("42000"), cache.getAsync("BTCUSDT", asyncLoader).get());
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(2L, cache.getStats().get("coalesced"));
+    }
+
+    @Test
+    public void testAsyncLoadFailureIsNotCached() throws Exception {
+        PriceCache cache = new PriceCache(60000, 0, Runnable::run);
+        CompletableFuture<BigDecimal> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new CompletionException(new IOException("timeout")));
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> cache.getAsync("BTCUSDT", symbol -> failed).get());
+        assertTrue(error.getCause() instanceof IOException);
+
+        // 失败后不保留加载中的请求，下一次重新加载
+        assertEquals(BigDecimal.TEN, cache.getAsync("BTCUSDT", symbol -> CompletableFuture.completedFuture(BigDecimal.TEN)).get());
+        assertEquals(1L, cache.getStats().get("loadFailures"));
+    }
+
+    @Test
+    public void testTtlAndStaleWhileRevalidate() throws Exception {
+        AtomicLong now = new AtomicLong(0);
+        List<Runnable> refreshTasks = new ArrayList<>();
+        PriceCache cache = new PriceCache(1000, 5000, refreshTasks::add, now::get);
+        AtomicInteger price = new AtomicInteger(100);
+        PriceCache.PriceLoader loader = symbol -> BigDecimal.valueOf(price.get());
+        
+        assertEquals(BigDecimal.valueOf(100), cache.get("ETHUSDT", loader));
+        price.set(200);
+        
+        // TTL内命中缓存
+        now.set(500);
+        assertEquals(BigDecimal.valueOf(100), cache.get("ETHUSDT", loader));
+        
+        // 过期但在容忍窗口内：返回旧值，只提交一次后台刷新
+        now.set(2000);
+        assertEquals(BigDecimal.valueOf(100), cache.get("ETHUSDT", loader));
+        assertEquals(BigDecimal.valueOf(100), cache.get("ETHUSDT", loader));
+        assertEquals(1, refreshTasks.size());
+        refreshTasks.get(0).run();
+        assertEquals(BigDecimal.valueOf(200), cache.get("ETHUSDT", loader));
+        
+        // 超出容忍窗口后同步加载
+        price.set(300);
+        now.set(10000);
+        assertEquals(BigDecimal.valueOf(300), cache.get("ETHUSDT", loader));
+        assertEquals(2L, cache.getStats().get("staleHits"));
+    }
+
+    @Test
+    public void testLoadFailurePropagates() {
+        PriceCache cache = new PriceCache(1000, 0, Runnable::run);
+        assertThrows(IOException.class, () -> cache.get("XXXUSDT", symbol -> {
+            throw new IOException("无法获取币种 " + symbol + " 的当前价格");
+        }));
+        assertEquals(1L, cache.getStats().get("loadFailures"));
+    }
+}
@@ -0,0 +1,180 @@
+package com.noodle.app.trade.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.noodle.app.trade.entity.TradeRecordEntity;
+
+public class TradeExecutorTest {
+
+    private TradeTestDatabase database;
+    private AccountValuationEngine accountValuationEngine;
+    private TradeExecutor executor;
+    private long aliceId;
+
+    @BeforeEach
+    public void setUp() {
+        database = new TradeTestDatabase();
+        accountValuationEngine = mock(AccountValuationEngine.class);
+        executor = database.tradeExecutor(database.getJdbcTemplate(), accountValuationEngine);
+        aliceId = database.createAccount("alice", new BigDecimal("1000"));
+    }
+
+    @Test
+    public void testInsufficientBalanceRejectsBeforeAnyWrite() {
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> executor.buy("alice", "BTC", new BigDecimal("600"), new BigDecimal("2"), "manual"));
+
+        assertEquals("余额不足，无法完成交易", error.getMessage());
+        assertDecimal("1000", database.balance("alice"));
+        assertEquals(0, database.accountVersion("alice"));
+        assertNull(database.holding(aliceId, "BTC"));
+        assertEquals(0, database.tradeCount("alice"));
+    }
+
+    @Test
+    public void testBuyInsertsThenAddsToHolding() {
+        TradeRecordEntity first = executor.buy("alice", "BTC", new BigDecimal("100"), new BigDecimal("2"), "manual");
+        executor.buy("alice", "BTC", new BigDecimal("160"), BigDecimal.ONE, "manual");
+
+        assertNotNull(first.getId());
+        assertDecimal("640", database.balance("alice"));
+        assertEquals(2, database.accountVersion("alice"));
+        Map<String, Object> holding = database.holding(aliceId, "BTC");
+        assertDecimal("3", holding.get("quantity"));
+        assertDecimal("360", holding.get("hold_cost"));
+        assertEquals(1L, ((Number) holding.get("version")).longValue());
+        assertEquals(2, database.tradeCount("alice"));
+        verify(accountValuationEngine, times(2)).invalidateAccount(aliceId);
+    }
+
+    @Test
+    public void testPartialSellLeavesRemainingCostAndRecordsPnl() {
+        database.addHolding(aliceId, "BTC", new BigDecimal("3"), new BigDecimal("360"));
+
+        executor.sell("alice", "BTC", new BigDecimal("150"), BigDecimal.ONE, "manual");
+
+        // 平均成本120，卖出部分成本120，剩余成本 360 - 120
+        assertDecimal("1150", database.balance("alice"));
+        Map<String, Object> holding = database.holding(aliceId, "BTC");
+        assertDecimal("2", holding.get("quantity"));
+        assertDecimal("240", holding.get("hold_cost"));
+        Map<String, Object> pnl = database.positionPnl(aliceId, "BTC");
+        assertDecimal("1", pnl.get("sold_quantity"));
+        assertDecimal("120", pnl.get("sold_cost"));
+        assertDecimal("150", pnl.get("sell_proceeds"));
+        assertDecimal("30", pnl.get("realized_pnl"));
+    }
+
+    @Test
+    public void testFullSellDeletesHoldingAndAccumulatesPnl() {
+        database.addHolding(aliceId, "BTC", new BigDecimal("3"), new BigDecimal("360"));
+
+        executor.sell("alice", "BTC", new BigDecimal("150"), BigDecimal.ONE, "manual");
+        executor.sell("alice", "BTC", new BigDecimal("100"), new BigDecimal("2"), "manual");
+
+        assertNull(database.holding(aliceId, "BTC"));
+        assertDecimal("1350", database.balance("alice"));
+        // 第二次卖出释放剩余全部成本240，盈亏 200 - 240；两次合计 30 - 40
+        Map<String, Object> pnl = database.positionPnl(aliceId, "BTC");
+        assertDecimal("3", pnl.get("sold_quantity"));
+        assertDecimal("360", pnl.get("sold_cost"));
+        assertDecimal("-10", pnl.get("realized_pnl"));
+        assertEquals(2, database.tradeCount("alice"));
+    }
+
+    @Test
+    public void testSellMoreThanHeldIsRejected() {
+        database.addHolding(aliceId, "BTC", BigDecimal.ONE, new BigDecimal("100"));
+
+        assertThrows(RuntimeException.class, () -> executor.sell("alice", "BTC", new BigDecimal("150"), new BigDecimal("2"), "manual"));
+
+        assertDecimal("1000", database.balance("alice"));
+        assertDecimal("1", database.holding(aliceId, "BTC").get("quantity"));
+        assertNull(database.positionPnl(aliceId, "BTC"));
+    }
+
+    @Test
+    public void testAccountModifiedAfterReadThrowsOptimisticLockingFailure() {
+        executor = database.tradeExecutor(modifyAfterRead("UPDATE account SET version = version + 1 WHERE id = ?"),
+                accountValuationEngine);
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> executor.buy("alice", "BTC", new BigDecimal("100"), BigDecimal.ONE, "manual"));
+
+        // 整个事务回滚，包括模拟的并发修改
+        assertDecimal("1000", database.balance("alice"));
+        assertNull(database.holding(aliceId, "BTC"));
+        assertEquals(0, database.tradeCount("alice"));
+    }
+
+    @Test
+    public void testHoldingModifiedAfterReadRollsBackCredit() {
+        database.addHolding(aliceId, "BTC", new BigDecimal("3"), new BigDecimal("360"));
+        executor = database.tradeExecutor(modifyAfterRead("UPDATE holding SET version = version + 1 WHERE account_id = ?"),
+                accountValuationEngine);
+
+        // 账户加款成功后持仓更新命中0行，加款随事务回滚
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> executor.sell("alice", "BTC", new BigDecimal("150"), BigDecimal.ONE, "manual"));
+
+        assertDecimal("1000", database.balance("alice"));
+        assertDecimal("3", database.holding(aliceId, "BTC").get("quantity"));
+        assertNull(database.positionPnl(aliceId, "BTC"));
+    }
+
+    @Test
+    public void testTradeOnAnotherNodeIsPickedUpByValuation() {
+        // 节点A的估值引擎与执行交易的节点B共享数据库，节点B的 invalidateAccount 不会到达节点A
+        AccountValuationEngine nodeA = database.valuationEngine();
+        Map<String, BigDecimal> prices = Collections.singletonMap("BTC", new BigDecimal("150"));
+        nodeA.revalue(prices, LocalDateTime.now());
+        assertDecimal("1000", database.totalValue("alice"));
+
+        executor.buy("alice", "BTC", new BigDecimal("100"), new BigDecimal("2"), "manual");
+
+        // 价格没有变化，节点A通过 account.version 发现变动，按新余额和持仓写入 800 + 2 * 150
+        assertEquals(1, nodeA.revalue(prices, LocalDateTime.now()));
+        assertDecimal("1100", database.totalValue("alice"));
+        assertDecimal("1100", database.lastRecordedValue("alice"));
+        assertEquals(0, nodeA.revalue(prices, LocalDateTime.now()));
+    }
+
+    /**
+     * 读取账户和持仓之后执行一次修改，模拟其他节点在读取和更新之间并发修改
+     */
+    private JdbcTemplate modifyAfterRead(String sql) {
+        JdbcTemplate jdbcTemplate = database.getJdbcTemplate();
+        JdbcTemplate wrapped = spy(jdbcTemplate);
+        doAnswer(invocation -> {
+            Object rows = invocation.callRealMethod();
+            jdbcTemplate.update(sql, aliceId);
+            return rows;
+        }).when(wrapped).query(anyString(), any(RowMapper.class), any(), any());
+        return wrapped;
+    }
+
+    private static void assertDecimal(String expected, Object actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo((BigDecimal) actual), "expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,80 @@
+package com.noodle.app.trade.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.noodle.app.trade.util.TimeUtils;
+
+public class TradeExportServiceTest {
+
+    private static final LocalDateTime TRADE_TIME = LocalDateTime.of(2024, 1, 1, 9, 30, 0);
+
+    private TradeExportService service;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        service = new TradeExportService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(7L);
+        when(rs.getString("account_name")).thenReturn("alice");
+        when(rs.getString("symbol")).thenReturn("BTC");
+        when(rs.getString("trade_type")).thenReturn("BUY");
+        when(rs.getBigDecimal("price")).thenReturn(new BigDecimal("42000.5"));
+        when(rs.getBigDecimal("quantity")).thenReturn(new BigDecimal("0.01"));
+        when(rs.getBigDecimal("amount")).thenReturn(new BigDecimal("420.005"));
+        when(rs.getLong("trade_time")).thenReturn(TimeUtils.toEpochMilli(TRADE_TIME));
+        when(rs.getString("strategy")).thenReturn("momentum, \"v2\"");
+
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    public void testCsvExportEscapesFields() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = service.export(TradeExportService.Format.CSV, "alice", output);
+
+        String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(3, lines.length);
+        assertEquals("id,accountName,symbol,tradeType,price,quantity,amount,tradeTime,strategy", lines[0]);
+        assertEquals("7,alice,BTC,BUY,42000.5,0.01,420.005,2024-01-01T09:30,\"momentum, \"\"v2\"\"\"", lines[1]);
+    }
+
+    @Test
+    public void testNdjsonExportWritesOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        service.export(TradeExportService.Format.NDJSON, null, output);
+
+        String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":7,\"accountName\":\"alice\",\"symbol\":\"BTC\",\"tradeType\":\"BUY\",\"price\":42000.5,"
+                + "\"quantity\":0.01,\"amount\":420.005,\"tradeTime\":\"2024-01-01T09:30\",\"strategy\":\"momentum, \\\"v2\\\"\"}", lines[0]);
+    }
+}
@@ -0,0 +1,108 @@
+package com.noodle.app.trade.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.noodle.app.trade.entity.TradeRecordEntity;
+import com.noodle.app.trade.model.TradeCursor;
+import com.noodle.app.trade.model.TradePage;
+import com.noodle.app.trade.repository.TradeRecordRepository;
+
+public class TradeHistoryServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 12, 0, 0);
+
+    private TradeHistoryService service;
+    private TradeRecordRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(TradeRecordRepository.class);
+        service = new TradeHistoryService();
+        ReflectionTestUtils.setField(service, "tradeRecordRepository", repository);
+    }
+
+    @Test
+    public void testFirstPageFetchesOneExtraRowAndReturnsCursor() {
+        when(repository.findLatestTradesByAccountName(eq("alice"), any(Pageable.class))).thenReturn(trades(10, 4));
+
+        TradePage page = service.getTradePage("alice", null, 3);
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(repository).findLatestTradesByAccountName(eq("alice"), pageable.capture());
+        assertEquals(4, pageable.getValue().getPageSize());
+        assertEquals(3, page.getRecords().size());
+        assertTrue(page.isHasMore());
+
+        TradeCursor cursor = TradeCursor.decode(page.getNextCursor());
+        assertEquals(8L, cursor.getId());
+        assertEquals(BASE.minusMinutes(2), cursor.getTradeTime());
+    }
+
+    @Test
+    public void testCursorSeeksPastLastRecord() {
+        String cursor = new TradeCursor(BASE.minusMinutes(2), 8L).encode();
+        when(repository.findTradesBefore(eq(BASE.minusMinutes(2)), eq(8L), any(Pageable.class))).thenReturn(trades(7, 2));
+
+        TradePage page = service.getTradePage(null, cursor, 3);
+
+        assertEquals(2, page.getRecords().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testInvalidCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.getTradePage(null, "not-a-cursor", 10));
+    }
+
+    @Test
+    public void testCursorRoundTripKeepsMillis() {
+        LocalDateTime time = BASE.plusNanos(123000000);
+        TradeCursor decoded = TradeCursor.decode(new TradeCursor(time, 42L).encode());
+
+        assertEquals(time, decoded.getTradeTime());
+        assertEquals(42L, decoded.getId());
+    }
+
+    @Test
+    public void testTotalVolumeDefaultsToZero() {
+        when(repository.sumAmountBySymbol("ETH")).thenReturn(null);
+
+        assertEquals(BigDecimal.ZERO, service.getTotalVolumeBySymbol("ETH"));
+    }
+
+    /**
+     * 生成按 (交易时间, ID) 倒序的交易记录，ID从firstId开始递减，每条间隔1分钟
+     */
+    private static List<TradeRecordEntity> trades(long firstId, int count) {
+        List<TradeRecordEntity> entities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long id = firstId - i;
+            TradeRecordEntity entity = new TradeRecordEntity("BTC", "BUY", BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE,
+                    BASE.minusMinutes(10 - id), "test", "alice");
+            entity.setId(id);
+            entities.add(entity);
+        }
+        return entities;
+    }
+}
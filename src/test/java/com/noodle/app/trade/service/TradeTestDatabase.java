@@ -0,0 +1,182 @@
+package com.noodle.app.trade.service;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+import com.noodle.app.trade.entity.AccountEntity;
+import com.noodle.app.trade.entity.HoldingEntity;
+import com.noodle.app.trade.repository.AccountRepository;
+import com.noodle.app.trade.repository.HoldingRepository;
+
+/**
+ * 交易执行测试用的H2内存数据库（MySQL兼容模式）
+ * 表结构只包含 TradeExecutor、AccountBookWriter 和 AccountValuationEngine 读写的列；TradeExecutor 经事务代理后与生产环境一样按 @Transactional 提交或回滚
+ * 并发写入的表用序列生成主键：H2 2.1.212 的自增列在多个事务并发插入时会分配重复的值
+ */
+final class TradeTestDatabase {
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE account (id BIGINT AUTO_INCREMENT PRIMARY KEY, account_name VARCHAR(255) NOT NULL, "
+                    + "balance DECIMAL(20, 10), total_value DECIMAL(20, 10), version BIGINT NOT NULL DEFAULT 0)",
+            "CREATE SEQUENCE holding_seq",
+            "CREATE TABLE holding (id BIGINT DEFAULT NEXT VALUE FOR holding_seq PRIMARY KEY, account_id BIGINT NOT NULL, symbol VARCHAR(255) NOT NULL, "
+                    + "quantity DECIMAL(20, 10), hold_cost DECIMAL(20, 10), version BIGINT NOT NULL DEFAULT 0)",
+            "CREATE SEQUENCE trade_record_seq",
+            "CREATE TABLE trade_record (id BIGINT DEFAULT NEXT VALUE FOR trade_record_seq PRIMARY KEY, symbol VARCHAR(255) NOT NULL, "
+                    + "trade_type VARCHAR(255) NOT NULL, price DECIMAL(20, 10), quantity DECIMAL(20, 10), amount DECIMAL(20, 10), "
+                    + "trade_time BIGINT NOT NULL, strategy VARCHAR(255), account_name VARCHAR(255))",
+            "CREATE SEQUENCE position_pnl_seq",
+            "CREATE TABLE position_pnl (id BIGINT DEFAULT NEXT VALUE FOR position_pnl_seq PRIMARY KEY, account_id BIGINT NOT NULL, symbol VARCHAR(20) NOT NULL, "
+                    + "sold_quantity DECIMAL(20, 10), sold_cost DECIMAL(20, 10), sell_proceeds DECIMAL(20, 10), "
+                    + "realized_pnl DECIMAL(20, 10), updated_time BIGINT, "
+                    + "CONSTRAINT uk_position_pnl_account_symbol UNIQUE (account_id, symbol))",
+            "CREATE TABLE journal_checkpoint (name VARCHAR(64) PRIMARY KEY, seq BIGINT NOT NULL, updated_time BIGINT)",
+            "CREATE TABLE account_value_history (id BIGINT AUTO_INCREMENT PRIMARY KEY, account_name VARCHAR(255) NOT NULL, "
+                    + "total_value DECIMAL(20, 10), record_time BIGINT NOT NULL)",
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceTransactionManager transactionManager;
+
+    TradeTestDatabase() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        for (String ddl : SCHEMA) {
+            jdbcTemplate.execute(ddl);
+        }
+    }
+
+    JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    /**
+     * 创建带事务代理的 TradeExecutor
+     * @param jdbcTemplate 执行器使用的JdbcTemplate（可以是包装过的）
+     * @param accountValuationEngine 估值引擎
+     */
+    TradeExecutor tradeExecutor(JdbcTemplate jdbcTemplate, AccountValuationEngine accountValuationEngine) {
+        TradeExecutor target = new TradeExecutor();
+        ReflectionTestUtils.setField(target, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(target, "accountValuationEngine", accountValuationEngine);
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        return (TradeExecutor) factory.getProxy();
+    }
+
+    /**
+     * 创建直接读写本数据库的估值引擎，仓库接口用JDBC查询代替JPA
+     * 每次调用都是独立的引擎，可以模拟多个应用节点
+     */
+    AccountValuationEngine valuationEngine() {
+        AccountRepository accountRepository = mock(AccountRepository.class);
+        when(accountRepository.findAll()).thenAnswer(invocation -> accounts());
+        when(accountRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return accounts().stream().filter(account -> ids.contains(account.getId())).collect(Collectors.toList());
+        });
+        HoldingRepository holdingRepository = mock(HoldingRepository.class);
+        when(holdingRepository.findAll()).thenAnswer(invocation -> holdings());
+        when(holdingRepository.findByAccountIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return holdings().stream().filter(holding -> ids.contains(holding.getAccountId())).collect(Collectors.toList());
+        });
+
+        AccountValuationEngine engine = new AccountValuationEngine();
+        ReflectionTestUtils.setField(engine, "accountRepository", accountRepository);
+        ReflectionTestUtils.setField(engine, "holdingRepository", holdingRepository);
+        ReflectionTestUtils.setField(engine, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(engine, "symbolPrecisionService", new SymbolPrecisionService());
+        return engine;
+    }
+
+    private List<AccountEntity> accounts() {
+        return jdbcTemplate.query("SELECT id, account_name, balance, version FROM account", (rs, rowNum) -> {
+            AccountEntity account = new AccountEntity(rs.getString("account_name"), rs.getBigDecimal("balance"));
+            account.setId(rs.getLong("id"));
+            account.setVersion(rs.getLong("version"));
+            return account;
+        });
+    }
+
+    private List<HoldingEntity> holdings() {
+        return jdbcTemplate.query("SELECT account_id, symbol, quantity FROM holding",
+                (rs, rowNum) -> new HoldingEntity(rs.getLong("account_id"), rs.getString("symbol"), rs.getBigDecimal("quantity")));
+    }
+
+    long createAccount(String accountName, BigDecimal balance) {
+        jdbcTemplate.update("INSERT INTO account (account_name, balance, total_value, version) VALUES (?, ?, ?, 0)",
+                accountName, balance, balance);
+        return jdbcTemplate.queryForObject("SELECT id FROM account WHERE account_name = ?", Long.class, accountName);
+    }
+
+    void addHolding(long accountId, String symbol, BigDecimal quantity, BigDecimal holdCost) {
+        jdbcTemplate.update("INSERT INTO holding (account_id, symbol, quantity, hold_cost, version) VALUES (?, ?, ?, ?, 0)",
+                accountId, symbol, quantity, holdCost);
+    }
+
+    BigDecimal balance(String accountName) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM account WHERE account_name = ?", BigDecimal.class, accountName);
+    }
+
+    long accountVersion(String accountName) {
+        return jdbcTemplate.queryForObject("SELECT version FROM account WHERE account_name = ?", Long.class, accountName);
+    }
+
+    /**
+     * @return 持仓的 quantity、hold_cost、version，不存在时返回null
+     */
+    Map<String, Object> holding(long accountId, String symbol) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT quantity, hold_cost, version FROM holding WHERE account_id = ? AND symbol = ?", accountId, symbol);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * @return 已实现盈亏记录的 sold_quantity、sold_cost、sell_proceeds、realized_pnl，不存在时返回null
+     */
+    Map<String, Object> positionPnl(long accountId, String symbol) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT sold_quantity, sold_cost, sell_proceeds, realized_pnl FROM position_pnl WHERE account_id = ? AND symbol = ?",
+                accountId, symbol);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    BigDecimal totalValue(String accountName) {
+        return jdbcTemplate.queryForObject("SELECT total_value FROM account WHERE account_name = ?", BigDecimal.class, accountName);
+    }
+
+    /**
+     * @return 账户最近一条价值历史的 total_value，没有记录时返回null
+     */
+    BigDecimal lastRecordedValue(String accountName) {
+        List<BigDecimal> values = jdbcTemplate.queryForList(
+                "SELECT total_value FROM account_value_history WHERE account_name = ? ORDER BY id DESC LIMIT 1",
+                BigDecimal.class, accountName);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    int tradeCount(String accountName) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM trade_record WHERE account_name = ?", Integer.class, accountName);
+    }
+}
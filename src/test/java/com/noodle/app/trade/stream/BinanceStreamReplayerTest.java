@@ -0,0 +1,73 @@
+package com.noodle.app.trade.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.noodle.app.trade.model.TickerSnapshot;
+
+public class BinanceStreamReplayerTest {
+
+    @Test
+    public void testReplayRecordedStream() throws Exception {
+        TickerBook tickerBook = new TickerBook();
+        BinanceStreamReplayer replayer = new BinanceStreamReplayer(new BinanceStreamMessageHandler(tickerBook));
+        
+        int applied;
+        try (Reader reader = new InputStreamReader(
+                getClass().getResourceAsStream("/binance-stream-replay.ndjson"), StandardCharsets.UTF_8)) {
+            applied = replayer.replay(reader);
+        }
+        
+        // 订阅确认消息不会写入行情簿
+        assertEquals(5, applied);
+        
+        TickerSnapshot btc = tickerBook.get("BTCUSDT");
+        assertNotNull(btc);
+        assertEquals(new BigDecimal("67300.00"), btc.getLastPrice());
+        assertEquals(new BigDecimal("66000.00"), btc.getOpenPrice());
+        // 后续miniTicker不会覆盖买卖盘
+        assertEquals(new BigDecimal("67250.00"), btc.getBidPrice());
+        assertEquals(new BigDecimal("67250.20"), btc.getAskPrice());
+        
+        // 先收到bookTicker再收到miniTicker也能合并
+        TickerSnapshot eth = tickerBook.getFresh("ETHUSDT", 60000);
+        assertNotNull(eth);
+        assertEquals(new BigDecimal("2630.15"), eth.getLastPrice());
+        assertEquals(new BigDecimal("2630.10"), eth.getBidPrice());
+    }
+
+    @Test
+    public void testBookTickerOnlyIsNotFresh() {
+        TickerBook tickerBook = new TickerBook();
+        BinanceStreamMessageHandler handler = new BinanceStreamMessageHandler(tickerBook);
+        
+        assertTrue(handler.handle("{\"u\":1,\"s\":\"XRPUSDT\",\"b\":\"0.52\",\"B\":\"100\",\"a\":\"0.53\",\"A\":\"200\"}"));
+        assertFalse(handler.handle("not json"));
+        
+        // 只有买卖盘没有成交价时不能用于价格查询
+        assertNotNull(tickerBook.get("XRPUSDT"));
+        assertNull(tickerBook.getFresh("XRPUSDT", 60000));
+    }
+
+    @Test
+    public void testStreamUrlAndBackoff() {
+        assertEquals("wss://stream.binance.com:9443/stream?streams=btcusdt@miniTicker/btcusdt@bookTicker/ethusdt@miniTicker/ethusdt@bookTicker",
+                BinanceStreamClient.buildStreamUrl("wss://stream.binance.com:9443/stream", Arrays.asList("BTCUSDT", "ETHUSDT")));
+        
+        for (int attempt = 0; attempt < 30; attempt++) {
+            long delay = BinanceStreamClient.backoffDelay(attempt, 1000, 60000);
+            assertTrue(delay >= 500 && delay <= 60000, "delay out of range: " + delay);
+        }
+    }
+}
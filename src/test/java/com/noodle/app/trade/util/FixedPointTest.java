@@ -0,0 +1,72 @@
+package com.noodle.app.trade.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.junit.jupiter.api.Test;
+
+import com.noodle.app.trade.model.SymbolPrecision;
+
+public class FixedPointTest {
+
+    @Test
+    public void testConversionIsExact() {
+        assertEquals(123456789L, FixedPoint.toScaled(new BigDecimal("1.23456789"), 8));
+        assertEquals(150L, FixedPoint.toScaled(new BigDecimal("1.5"), 2));
+        assertEquals(new BigDecimal("1.50"), FixedPoint.toDecimal(150L, 2));
+
+        // 多余的有效小数位不会被静默舍入
+        assertThrows(ArithmeticException.class, () -> FixedPoint.toScaled(new BigDecimal("1.005"), 2));
+        // 超出long范围
+        assertThrows(ArithmeticException.class, () -> FixedPoint.toScaled(new BigDecimal("100000000000"), 10));
+    }
+
+    @Test
+    public void testScaleFor() {
+        // 数据库列为 scale 10，末尾的0不占用精度
+        assertEquals(5, FixedPoint.scaleFor(new BigDecimal("0.1000000000"), 5));
+        assertEquals(9, FixedPoint.scaleFor(new BigDecimal("0.123456789"), 5));
+        assertEquals(2, FixedPoint.scaleFor(new BigDecimal("6E+4"), 2));
+        assertEquals(0, FixedPoint.scaleFor(BigDecimal.ZERO.setScale(10), 0));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.scaleFor(new BigDecimal("1E-19"), 0));
+    }
+
+    @Test
+    public void testMultiplyRoundsHalfUpLikeBigDecimal() {
+        long[][] cases = { { 12345, 678 }, { -12345, 678 }, { 15, 1 }, { -15, 1 }, { 25, 1 }, { -25, 1 }, { 0, 7 } };
+        for (long[] c : cases) {
+            BigDecimal expected = FixedPoint.toDecimal(c[0], 2).multiply(FixedPoint.toDecimal(c[1], 1))
+                    .setScale(1, RoundingMode.HALF_UP);
+            assertEquals(expected, FixedPoint.toDecimal(FixedPoint.multiply(c[0], 2, c[1], 1, 1), 1));
+        }
+        assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(Long.MAX_VALUE, 0, 2, 0, 0));
+    }
+
+    @Test
+    public void testRescaleAndCompare() {
+        assertEquals(150000L, FixedPoint.rescale(150L, 2, 5));
+        assertEquals(2L, FixedPoint.rescale(150L, 2, 0));
+        assertEquals(-2L, FixedPoint.rescale(-150L, 2, 0));
+        assertEquals(1L, FixedPoint.rescale(149L, 2, 0));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.rescale(Long.MAX_VALUE / 10, 0, 2));
+
+        assertEquals(0, FixedPoint.compare(150L, 2, 15L, 1));
+        assertEquals(-1, Integer.signum(FixedPoint.compare(149L, 2, 15L, 1)));
+    }
+
+    @Test
+    public void testSymbolPrecisionFromExchangeFilters() {
+        SymbolPrecision precision = SymbolPrecision.of("BTC", new BigDecimal("0.01000000"), new BigDecimal("0.00001000"));
+        assertEquals(2, precision.getPriceScale());
+        assertEquals(5, precision.getQuantityScale());
+
+        // 整数步长和缺失的过滤器
+        precision = SymbolPrecision.of("SHIB", new BigDecimal("0.00000001"), new BigDecimal("1.00000000"));
+        assertEquals(8, precision.getPriceScale());
+        assertEquals(0, precision.getQuantityScale());
+        assertEquals(0, SymbolPrecision.of("X", null, BigDecimal.ZERO).getQuantityScale());
+    }
+}